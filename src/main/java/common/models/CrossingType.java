@@ -0,0 +1,18 @@
+package common.models;
+
+/**
+ * Enum that represents the ways two trains can cross each other on the section.
+ */
+public enum CrossingType {
+
+    /**
+     * Two trains travelling in opposite directions cross each other.
+     */
+    MEET,
+
+    /**
+     * A train overtakes another train travelling in the same direction.
+     */
+    OVERTAKE
+
+}
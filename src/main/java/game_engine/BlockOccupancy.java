@@ -0,0 +1,212 @@
+package game_engine;
+
+import common.models.TrainDirection;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The <code>BlockOccupancy</code> class holds which blocks on the section have a train in them. A block is the
+ * stretch of line between two neighbouring stations, and block <code>b</code> lies between the stations with the ids
+ * <code>b</code> and <code>b + 1</code>. Under absolute block working, no more than one train may be in a block at a
+ * time.
+ * <br><br>
+ * Which blocks are occupied, and which have more than one train in them, are held in bitmaps of <code>long</code>s,
+ * with one bit per block, alongside the number of trains in each block. Finding the block a train is in, entering and
+ * leaving blocks, and asking whether a block is free are all done in constant time, however many trains and blocks
+ * there are.
+ * <br><br>
+ * A train that is at a station, that has not yet entered the section, or that has left it, is not in any block.
+ * <br><br>
+ * This class is not thread-safe. It is meant to be updated and read under the lock of the <code>EngineTick</code>
+ * that moves the trains.
+ */
+public final class BlockOccupancy {
+
+    private final List<Station> stationsById;
+
+    /**
+     * The distances of the stations from the home station, indexed by station id.
+     */
+    private final int[] stationDistances;
+
+    /**
+     * The block that follows each whole kilometre from the home station, so that the block at a distance is an array
+     * lookup, rather than a search of the stations. The element at index <code>k</code> is the block that runs over
+     * the kilometre from <code>k</code> to <code>k + 1</code>.
+     */
+    private final int[] blocksByKilometre;
+
+    private final int blockCount;
+
+    /**
+     * The number of trains in each block.
+     */
+    private final int[] trainCounts;
+
+    /**
+     * A bit for each block, which is set if there is a train in it.
+     */
+    private final long[] occupied;
+
+    /**
+     * A bit for each block, which is set if there is more than one train in it.
+     */
+    private final long[] overOccupied;
+
+    /**
+     * Creates the blocks between the stations on the section, with no trains in them.
+     *
+     * @param stationsById the stations on the section, where the station at index <code>i</code> has the id
+     *                     <code>i</code>, as returned by <code>SectionRegistry.getStations()</code>.
+     * @throws IllegalArgumentException if the stations are not in the order of their distance from home
+     */
+    public BlockOccupancy(List<Station> stationsById) {
+        this.stationsById = stationsById;
+        this.stationDistances = new int[stationsById.size()];
+        for (int id = 0; id < stationsById.size(); id++) {
+            this.stationDistances[id] = stationsById.get(id).getDistance();
+            if (id > 0 && this.stationDistances[id] < this.stationDistances[id - 1])
+                throw new IllegalArgumentException("The stations must be in the order of their distance from home");
+        }
+        this.blockCount = Math.max(stationsById.size() - 1, 0);
+        int sectionLength = this.blockCount == 0 ? 0 : this.stationDistances[this.blockCount];
+        this.blocksByKilometre = new int[sectionLength];
+        for (int block = 0; block < this.blockCount; block++)
+            Arrays.fill(this.blocksByKilometre, this.stationDistances[block], this.stationDistances[block + 1], block);
+        this.trainCounts = new int[this.blockCount];
+        this.occupied = new long[(this.blockCount + 63) >>> 6];
+        this.overOccupied = new long[this.occupied.length];
+    }
+
+    /**
+     * Returns the number of blocks, which is one less than the number of stations.
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return this.blockCount;
+    }
+
+    /**
+     * Returns the block a train is in.
+     *
+     * @param distanceFromHome the train's distance from the home station
+     * @return the block, or -1 if the train is at a station, or is not on the section
+     */
+    public int blockAt(float distanceFromHome) {
+        if (!(distanceFromHome > 0) || distanceFromHome >= this.blocksByKilometre.length) return -1;
+        int block = this.blocksByKilometre[(int) distanceFromHome];
+        return distanceFromHome == this.stationDistances[block] ? -1 : block;
+    }
+
+    /**
+     * Returns the block a train leaving a station enters.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction the train is travelling in
+     * @return the block, or -1 if the train leaves the section
+     */
+    public int blockAhead(int stationId, TrainDirection direction) {
+        int block = direction == TrainDirection.AWAY_FROM_HOME ? stationId : stationId - 1;
+        return block >= 0 && block < this.blockCount ? block : -1;
+    }
+
+    /**
+     * Moves a train from one block to another. Nothing happens if the blocks are the same.
+     *
+     * @param fromBlock the block the train was in, or -1 if it was in none
+     * @param toBlock   the block the train is now in, or -1 if it is in none
+     * @return <code>true</code> if the train has moved into a block that another train is already in
+     */
+    public boolean move(int fromBlock, int toBlock) {
+        if (fromBlock == toBlock) return false;
+        if (fromBlock >= 0) leave(fromBlock);
+        return toBlock >= 0 && enter(toBlock);
+    }
+
+    private boolean enter(int block) {
+        int trainCount = ++this.trainCounts[block];
+        long bit = 1L << block;
+        this.occupied[block >>> 6] |= bit;
+        if (trainCount < 2) return false;
+        this.overOccupied[block >>> 6] |= bit;
+        return true;
+    }
+
+    private void leave(int block) {
+        int trainCount = --this.trainCounts[block];
+        long bit = 1L << block;
+        if (trainCount == 0) this.occupied[block >>> 6] &= ~bit;
+        if (trainCount < 2) this.overOccupied[block >>> 6] &= ~bit;
+    }
+
+    /**
+     * Returns whether there is a train in the block.
+     *
+     * @param block the block
+     * @return <code>true</code> if there is at least one train in the block
+     */
+    public boolean isOccupied(int block) {
+        return (this.occupied[block >>> 6] & 1L << block) != 0;
+    }
+
+    /**
+     * Returns whether a train may leave a station, as far as the block it would enter is concerned.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction the train is travelling in
+     * @return <code>true</code> if there is no train in the block ahead, or the train would leave the section
+     */
+    public boolean isBlockAheadFree(int stationId, TrainDirection direction) {
+        int block = blockAhead(stationId, direction);
+        return block < 0 || !isOccupied(block);
+    }
+
+    /**
+     * Returns whether there is more than one train in the block.
+     *
+     * @param block the block
+     * @return <code>true</code> if there is more than one train in the block
+     */
+    public boolean isOverOccupied(int block) {
+        return (this.overOccupied[block >>> 6] & 1L << block) != 0;
+    }
+
+    /**
+     * Returns the first block from <code>fromBlock</code> on that has more than one train in it. All the blocks with
+     * more than one train in them can be gone through by calling this with one more than the last block returned.
+     *
+     * @param fromBlock the block to start looking from
+     * @return the block, or -1 if there is none
+     */
+    public int nextOverOccupiedBlock(int fromBlock) {
+        if (fromBlock >= this.blockCount) return -1;
+        int word = fromBlock >>> 6;
+        long bits = this.overOccupied[word] & -1L << fromBlock;
+        while (bits == 0) {
+            if (++word == this.overOccupied.length) return -1;
+            bits = this.overOccupied[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Returns the number of trains in the block.
+     *
+     * @param block the block
+     * @return the number of trains
+     */
+    public int getTrainCount(int block) {
+        return this.trainCounts[block];
+    }
+
+    /**
+     * Returns the stations at either end of the block.
+     *
+     * @param block the block
+     * @return the station nearer home, and the station further from home
+     */
+    public Station[] getStations(int block) {
+        return new Station[] {this.stationsById.get(block), this.stationsById.get(block + 1)};
+    }
+}
@@ -0,0 +1,414 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainDirection;
+import common.models.TrainRunningStatus;
+import game_engine.initializers.TrainDefinition;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * The <code>Checkpoint</code> class saves the whole mutable state of a running game to a binary file, and reads it
+ * back, so that the game can be resumed where it was left without reading the trains' data files again.
+ * <br><br>
+ * The checkpoint is laid out as follows (all numbers are big-endian, all strings are a <code>short</code> byte length
+ * followed by UTF-8 bytes):
+ * <ol>
+ *     <li>A header: the magic number, the format version, the section's classpath resource, and the lookahead window
+ *     in minutes.</li>
+ *     <li>The clock: the game time in seconds and nanoseconds since the epoch, the time zone, the speed, flags
+ *     for whether the clock is paused and whether it is unthrottled, and the game time the <code>TrainLoader</code>
+ *     last ran, in milliseconds since the epoch.</li>
+ *     <li>The stations, in the order of their ids: the code, and the aspects of the signals towards home and away
+ *     from home.</li>
+ *     <li>The <code>TrainLoader</code>'s state: the date the trains for the day were loaded for, as days since the
+ *     epoch, the trains for the day, the numbers of the trains loaded on that date and of the trains carried over
+ *     from the day before, followed by the upcoming trains and the running trains.</li>
+ *     <li>A trailer containing the CRC32 checksum of everything before it.</li>
+ * </ol>
+ * Each upcoming or running train is its definition, its name, direction, whether its timetable is a
+ * <code>CompactTimetable</code>, its running status and distance from home, its lag in seconds, and its stops. Each stop is a fixed-size
+ * record of the station's id, the arrival &amp; departure times in seconds since the epoch, and the
+ * <code>StopType</code>. The times are those of the train's run that is being played, so the timetable is built from
+ * them as it is, without reading the train's data file.
+ * <br><br>
+ * The checkpoint is put together in a direct buffer, and written out in one go through a <code>FileChannel</code> to
+ * a temporary file, which then replaces the checkpoint. A checkpoint that was being written when the game stopped
+ * therefore never replaces a good one. It is read back into a direct buffer in one go.
+ *
+ * @see Game#checkpointTo(Path)
+ * @see Game#resume(Path)
+ */
+final class Checkpoint {
+
+    /**
+     * The magic number that every checkpoint starts with. These are the bytes "SCCP".
+     */
+    static final int MAGIC = 0x53434350;
+
+    /**
+     * The version of the checkpoint format.
+     */
+    static final short VERSION = 2;
+
+    /**
+     * The value written in place of a date or a running status that has not been set.
+     */
+    private static final int NOT_SET = -1;
+
+    private static final byte PAUSED_FLAG = 1;
+
+    private static final byte UNTHROTTLED_FLAG = 2;
+
+    /**
+     * The size in bytes of a single stop record.
+     */
+    private static final int STOP_RECORD_SIZE = 19;
+
+    /**
+     * The checkpoint's contents, positioned at the stations once the header and clock have been read.
+     */
+    private final ByteBuffer buffer;
+
+    private final String sectionResource;
+
+    private final Duration lookahead;
+
+    private final Instant gameTime;
+
+    private final ZoneId zone;
+
+    private final double speed;
+
+    private final byte clockFlags;
+
+    private final Instant lastTrainLoaderRun;
+
+    /**
+     * Opens the checkpoint, and reads its header and clock.
+     *
+     * @param file the checkpoint
+     * @throws IOException if the checkpoint cannot be read, is not a checkpoint, or is corrupt
+     */
+    Checkpoint(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //The checkpoint is read in one go rather than mapped, so that it can be replaced while the game runs.
+            this.buffer = ByteBuffer.allocateDirect((int) channel.size());
+            while (this.buffer.hasRemaining()) {
+                if (channel.read(this.buffer) < 0) break;
+            }
+            this.buffer.flip();
+        }
+        try {
+            if (this.buffer.getInt() != MAGIC || this.buffer.getShort() != VERSION)
+                throw new IOException(file + " is not a checkpoint, or is of a version that cannot be read");
+            CRC32 checksum = new CRC32();
+            ByteBuffer contents = this.buffer.duplicate();
+            contents.position(0).limit(this.buffer.limit() - Long.BYTES);
+            checksum.update(contents);
+            if (checksum.getValue() != this.buffer.getLong(this.buffer.limit() - Long.BYTES))
+                throw new IOException(file + " is corrupt");
+            this.sectionResource = readString(this.buffer);
+            this.lookahead = Duration.ofMinutes(this.buffer.getInt());
+            this.gameTime = Instant.ofEpochSecond(this.buffer.getLong(), this.buffer.getInt());
+            this.zone = ZoneId.of(readString(this.buffer));
+            this.speed = this.buffer.getDouble();
+            this.clockFlags = this.buffer.get();
+            this.lastTrainLoaderRun = Instant.ofEpochMilli(this.buffer.getLong());
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IOException(file + " is not a checkpoint", ex);
+        }
+    }
+
+    /**
+     * Returns the classpath resource that holds the section's data.
+     * @return the section resource
+     */
+    String getSectionResource() {
+        return this.sectionResource;
+    }
+
+    /**
+     * Returns how far ahead of their section entry time trains are loaded.
+     * @return the lookahead window
+     */
+    Duration getLookahead() {
+        return this.lookahead;
+    }
+
+    /**
+     * Creates a clock at the game time the checkpoint was saved at, running at the speed it was running at, and
+     * paused or unthrottled if it was.
+     *
+     * @param realClock the clock that real time is taken from
+     * @return the game clock
+     */
+    GameClock createClock(Clock realClock) {
+        GameClock gameClock = new GameClock(realClock.withZone(this.zone), this.gameTime);
+        gameClock.setSpeed(this.speed);
+        gameClock.setUnthrottled((this.clockFlags & UNTHROTTLED_FLAG) != 0);
+        if ((this.clockFlags & PAUSED_FLAG) != 0) gameClock.pause();
+        return gameClock;
+    }
+
+    /**
+     * Returns the game time at which the <code>TrainLoader</code> last ran before the checkpoint was saved.
+     * @return the game time
+     */
+    Instant getLastTrainLoaderRun() {
+        return this.lastTrainLoaderRun;
+    }
+
+    /**
+     * Sets the stations' signal aspects as they were saved, and rebuilds the trains and the state of the
+     * <code>TrainLoader</code>. This is meant to be called once.
+     *
+     * @param stationsById the stations on the section, in the order of their ids
+     * @return the state of the <code>TrainLoader</code>
+     * @throws IOException if the section's stations have changed since the checkpoint was saved, or the checkpoint is
+     *                     corrupt
+     */
+    TrainLoader.State restore(List<Station> stationsById) throws IOException {
+        try {
+            int stationCount = this.buffer.getShort();
+            if (stationCount != stationsById.size())
+                throw new IOException("The stations on " + this.sectionResource + " have changed since the checkpoint");
+            for (Station station : stationsById) {
+                if (!readString(this.buffer).equalsIgnoreCase(station.getCode()))
+                    throw new IOException("The stations on " + this.sectionResource + " have changed since the checkpoint");
+                station.setAspect(TrainDirection.TOWARDS_HOME, SignalAspect.values()[this.buffer.get()]);
+                station.setAspect(TrainDirection.AWAY_FROM_HOME, SignalAspect.values()[this.buffer.get()]);
+            }
+
+            long loadedFor = this.buffer.getLong();
+            List<TrainDefinition> trainsForTheDay = new ArrayList<>();
+            for (int i = this.buffer.getInt(); i > 0; i--) trainsForTheDay.add(readDefinition(this.buffer));
+            Set<String> loadedTrains = readStrings(this.buffer);
+            Set<String> carriedOverTrains = readStrings(this.buffer);
+            List<TrainLoader.PendingTrain> upcomingTrains = readTrains(stationsById);
+            List<TrainLoader.PendingTrain> runningTrains = readTrains(stationsById);
+            return new TrainLoader.State(loadedFor == NOT_SET ? null : LocalDate.ofEpochDay(loadedFor),
+                    trainsForTheDay, loadedTrains, carriedOverTrains, upcomingTrains, runningTrains);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | GameNotStartedException ex) {
+            throw new IOException("The checkpoint is corrupt", ex);
+        }
+    }
+
+    /**
+     * Saves the state of a game to <code>file</code>, replacing any checkpoint that is already there.
+     *
+     * @param file               the checkpoint
+     * @param sectionResource    the classpath resource that holds the section's data
+     * @param lookahead          how far ahead of their section entry time trains are loaded
+     * @param clock              the clock the game takes its time from
+     * @param lastTrainLoaderRun the game time at which the <code>TrainLoader</code> last ran
+     * @param stationsById       the stations on the section, in the order of their ids
+     * @param loaderState        the state of the <code>TrainLoader</code>
+     * @throws IOException if the checkpoint cannot be written
+     */
+    static void write(Path file, String sectionResource, Duration lookahead, Clock clock, Instant lastTrainLoaderRun,
+                      List<Station> stationsById, TrainLoader.State loaderState) throws IOException {
+        Writer writer = new Writer();
+        writer.putInt(MAGIC);
+        writer.putShort(VERSION);
+        writer.putString(sectionResource);
+        writer.putInt((int) lookahead.toMinutes());
+
+        Instant gameTime = clock.instant();
+        writer.putLong(gameTime.getEpochSecond());
+        writer.putInt(gameTime.getNano());
+        writer.putString(clock.getZone().getId());
+        GameClock gameClock = clock instanceof GameClock ? (GameClock) clock : null;
+        writer.putDouble(gameClock != null ? gameClock.getSpeed() : GameClock.REAL_TIME);
+        writer.put((byte) ((gameClock != null && gameClock.isPaused() ? PAUSED_FLAG : 0)
+                | (gameClock != null && gameClock.isUnthrottled() ? UNTHROTTLED_FLAG : 0)));
+        writer.putLong(lastTrainLoaderRun.toEpochMilli());
+
+        writer.putShort((short) stationsById.size());
+        for (Station station : stationsById) {
+            writer.putString(station.getCode());
+            SignalAspect[] aspects = station.getAspects();
+            writer.put((byte) aspects[0].ordinal());
+            writer.put((byte) aspects[1].ordinal());
+        }
+
+        writer.putLong(loaderState.getLoadedFor() == null ? NOT_SET : loaderState.getLoadedFor().toEpochDay());
+        writer.putInt(loaderState.getTrainsForTheDay().size());
+        loaderState.getTrainsForTheDay().forEach(writer::putDefinition);
+        writer.putStrings(loaderState.getLoadedTrains());
+        writer.putStrings(loaderState.getCarriedOverTrains());
+        writer.putTrains(loaderState.getUpcomingTrains());
+        writer.putTrains(loaderState.getRunningTrains());
+
+        CRC32 checksum = new CRC32();
+        ByteBuffer contents = writer.buffer.duplicate();
+        contents.flip();
+        checksum.update(contents);
+        writer.putLong(checksum.getValue());
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.buffer.flip();
+            while (writer.buffer.hasRemaining()) channel.write(writer.buffer);
+            channel.force(false);
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<TrainLoader.PendingTrain> readTrains(List<Station> stationsById) throws GameNotStartedException {
+        List<TrainLoader.PendingTrain> trains = new ArrayList<>();
+        for (int i = this.buffer.getInt(); i > 0; i--) {
+            TrainDefinition definition = readDefinition(this.buffer);
+            String name = readString(this.buffer);
+            TrainDirection direction = TrainDirection.values()[this.buffer.get()];
+            boolean isCompact = this.buffer.get() != 0;
+            byte status = this.buffer.get();
+            float distance = this.buffer.getFloat();
+            int lag = this.buffer.getInt();
+
+            TimetableBuilder timetableBuilder = new TimetableBuilder(stationsById, direction);
+            for (int stop = this.buffer.getShort(); stop > 0; stop--) {
+                Station station = stationsById.get(this.buffer.getShort());
+                LocalDateTime arrivalTime = LocalDateTime.ofEpochSecond(this.buffer.getLong(), 0, ZoneOffset.UTC);
+                LocalDateTime departureTime = LocalDateTime.ofEpochSecond(this.buffer.getLong(), 0, ZoneOffset.UTC);
+                StopType stopType = StopType.values()[this.buffer.get()];
+                timetableBuilder.addStop(station, arrivalTime, departureTime,
+                        stopType == StopType.ORIGINATING_STATION, stopType == StopType.TERMINATING_STATION);
+            }
+            Timetable timetable = timetableBuilder.build();
+            TrainPosition trainPosition = new TrainPosition(
+                    status == NOT_SET ? null : TrainRunningStatus.values()[status], distance);
+            Train train = new Train(definition.getNumber(), name, direction,
+                    isCompact ? new CompactTimetable(timetable, stationsById) : timetable, trainPosition);
+            train.setLag(lag);
+            trains.add(new TrainLoader.PendingTrain(definition, train));
+        }
+        return trains;
+    }
+
+    private static TrainDefinition readDefinition(ByteBuffer buffer) {
+        return new TrainDefinition(readString(buffer), readString(buffer), readString(buffer), buffer.getShort(),
+                buffer.getShort());
+    }
+
+    private static Set<String> readStrings(ByteBuffer buffer) {
+        Set<String> strings = new HashSet<>();
+        for (int i = buffer.getInt(); i > 0; i--) strings.add(readString(buffer));
+        return strings;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Puts a checkpoint together in a direct buffer, which is grown as needed.
+     */
+    private static final class Writer {
+
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        private void ensureRemaining(int bytes) {
+            if (this.buffer.remaining() >= bytes) return;
+            ByteBuffer largerBuffer = ByteBuffer.allocateDirect(Math.max(this.buffer.capacity() * 2,
+                    this.buffer.position() + bytes));
+            this.buffer.flip();
+            largerBuffer.put(this.buffer);
+            this.buffer = largerBuffer;
+        }
+
+        private void put(byte value) {
+            ensureRemaining(Byte.BYTES);
+            this.buffer.put(value);
+        }
+
+        private void putShort(short value) {
+            ensureRemaining(Short.BYTES);
+            this.buffer.putShort(value);
+        }
+
+        private void putInt(int value) {
+            ensureRemaining(Integer.BYTES);
+            this.buffer.putInt(value);
+        }
+
+        private void putLong(long value) {
+            ensureRemaining(Long.BYTES);
+            this.buffer.putLong(value);
+        }
+
+        private void putDouble(double value) {
+            ensureRemaining(Double.BYTES);
+            this.buffer.putDouble(value);
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensureRemaining(Short.BYTES + bytes.length);
+            this.buffer.putShort((short) bytes.length);
+            this.buffer.put(bytes);
+        }
+
+        private void putStrings(Collection<String> values) {
+            putInt(values.size());
+            values.forEach(this::putString);
+        }
+
+        private void putDefinition(TrainDefinition definition) {
+            putString(definition.getNumber());
+            putString(definition.getName());
+            putString(definition.getDirection());
+            putShort((short) definition.getSectionEntryMinutes());
+            putShort((short) definition.getSectionLeavingMinutes());
+        }
+
+        private void putTrains(List<TrainLoader.PendingTrain> trains) {
+            putInt(trains.size());
+            for (TrainLoader.PendingTrain pendingTrain : trains) {
+                Train train = pendingTrain.getTrain();
+                putDefinition(pendingTrain.getDefinition());
+                putString(train.getTrainName());
+                put((byte) train.getDirection().ordinal());
+                put((byte) (train.getTimetable() instanceof CompactTimetable ? 1 : 0));
+                TrainRunningStatus status = train.getTrainPosition().getTrainRunningStatus();
+                put((byte) (status == null ? NOT_SET : status.ordinal()));
+                ensureRemaining(Float.BYTES);
+                this.buffer.putFloat(train.getDistance());
+                putInt(train.getLag());
+
+                List<Entry> stops = train.getTimetable().getStops();
+                putShort((short) stops.size());
+                ensureRemaining(stops.size() * STOP_RECORD_SIZE);
+                for (Entry stop : stops) {
+                    TrainSchedule schedule = stop.getSchedule().get();
+                    this.buffer.putShort((short) stop.getStation().getId());
+                    this.buffer.putLong(schedule.getArrivalTime().toEpochSecond(ZoneOffset.UTC));
+                    this.buffer.putLong(schedule.getDepartureTime().toEpochSecond(ZoneOffset.UTC));
+                    this.buffer.put((byte) (stop.isOriginatingStation() ? StopType.ORIGINATING_STATION
+                            : stop.isTerminatingStation() ? StopType.TERMINATING_STATION : StopType.NORMAL_STATION)
+                            .ordinal());
+                }
+            }
+        }
+    }
+}
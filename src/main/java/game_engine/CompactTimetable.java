@@ -0,0 +1,264 @@
+package game_engine;
+
+import common.models.TrainDirection;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The <code>CompactTimetable</code> class holds the same data as a <code>Timetable</code>, in a handful of primitive
+ * arrays rather than an <code>Entry</code>, an <code>Optional</code>, a <code>TrainSchedule</code> and two
+ * <code>LocalDateTime</code>s per stop.
+ * <br><br>
+ * Stations are held by their id, as assigned by the <code>SectionRegistry</code>, and times are held as minutes since
+ * the epoch. The arrival &amp; departure times of the stops are kept in a single sorted array, so that where the train
+ * is at a given time is found by binary search.
+ * <br><br>
+ * A <code>CompactTimetable</code> is created from a fully built <code>Timetable</code>, and cannot be updated.
+ */
+public final class CompactTimetable implements TrainTimetable {
+
+    /**
+     * The stations on the section, indexed by id, as returned by <code>SectionRegistry.getStations()</code>. This is
+     * shared by all the timetables on the section.
+     */
+    private final List<Station> stationsById;
+
+    private final boolean isTowardsHome;
+
+    /**
+     * The ids of all the stations the train passes through or stops at, in the order the train will encounter them.
+     */
+    private final int[] routeStationIds;
+
+    /**
+     * The ids of the stations the train stops at, in the order the train will encounter them.
+     */
+    private final int[] stopStationIds;
+
+    /**
+     * The arrival time at the n-th stop is at <code>2n</code>, and the departure time is at <code>2n + 1</code>, in
+     * minutes since the epoch.
+     */
+    private final int[] stopTimes;
+
+    /**
+     * The ordinal of the <code>StopType</code> of each stop.
+     */
+    private final byte[] stopTypes;
+
+    /**
+     * The train's position over time. It is built when first needed.
+     */
+    private volatile PositionProfile positionProfile;
+
+    /**
+     * Creates a <code>CompactTimetable</code> with the same stops as <code>timetable</code>.
+     *
+     * @param timetable    the timetable
+     * @param stationsById the stations on the section, where the station at index <code>i</code> has the id
+     *                     <code>i</code>, as returned by <code>SectionRegistry.getStations()</code>.
+     * @throws IllegalArgumentException if any of the stations in <code>timetable</code> is not in
+     *                                  <code>stationsById</code>, or if any of the times is not a whole minute
+     */
+    public CompactTimetable(Timetable timetable, List<Station> stationsById) {
+        this.stationsById = stationsById;
+        this.isTowardsHome = timetable.getDirection() == TrainDirection.TOWARDS_HOME;
+        List<Entry> entries = timetable.getEntries();
+        int stopCount = 0;
+        for (Entry entry : entries)
+            if (entry.getSchedule().isPresent()) stopCount++;
+
+        this.routeStationIds = new int[entries.size()];
+        this.stopStationIds = new int[stopCount];
+        this.stopTimes = new int[stopCount * 2];
+        this.stopTypes = new byte[stopCount];
+        int stop = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            int stationId = idOf(entry.getStation());
+            if (stationId < 0)
+                throw new IllegalArgumentException(entry.getStation().getCode() + " is not a station on the section");
+            this.routeStationIds[i] = stationId;
+            if (!entry.getSchedule().isPresent()) continue;
+            this.stopStationIds[stop] = stationId;
+            this.stopTimes[stop * 2] = toEpochMinutes(entry.getSchedule().get().getArrivalTime());
+            this.stopTimes[stop * 2 + 1] = toEpochMinutes(entry.getSchedule().get().getDepartureTime());
+            this.stopTypes[stop] = (byte) (entry.isOriginatingStation() ? StopType.ORIGINATING_STATION
+                    : entry.isTerminatingStation() ? StopType.TERMINATING_STATION : StopType.NORMAL_STATION).ordinal();
+            stop++;
+        }
+    }
+
+    @Override
+    public LocalDateTime getSectionEntryTime() {
+        return toLocalDateTime(this.stopTimes[0]);
+    }
+
+    @Override
+    public LocalDateTime getSectionExitTime() {
+        return toLocalDateTime(this.stopTimes[this.stopTimes.length - 1]);
+    }
+
+    @Override
+    public Optional<Station> getStationHaltedAt(LocalDateTime currentTime) {
+        long time = currentTime.toEpochSecond(ZoneOffset.UTC);
+        int position = firstTimeNotBefore(time);
+        if (position == this.stopTimes.length) return Optional.empty();
+        //An odd position is a departure time, so the train arrived before the current time and is still at the station.
+        if (position % 2 == 1 || this.stopTimes[position] * 60L == time)
+            return Optional.of(this.stationsById.get(this.stopStationIds[position / 2]));
+        return Optional.empty();
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Optional<Station>[] getStationsTravellingBetween(LocalDateTime currentTime) {
+        long time = currentTime.toEpochSecond(ZoneOffset.UTC);
+        int position = firstTimeNotBefore(time);
+        if (position > 0 && position < this.stopTimes.length && position % 2 == 0
+                && this.stopTimes[position] * 60L != time) {
+            return new Optional[] {Optional.of(this.stationsById.get(this.stopStationIds[position / 2 - 1])),
+                    Optional.of(this.stationsById.get(this.stopStationIds[position / 2]))};
+        }
+        return new Optional[] {Optional.empty(), Optional.empty()};
+    }
+
+    @Override
+    public float positionAt(LocalDateTime time) {
+        return getPositionProfile().positionAt(time);
+    }
+
+    @Override
+    public PositionProfile getPositionProfile() {
+        PositionProfile positionProfile = this.positionProfile;
+        if (positionProfile == null) {
+            long[] times = new long[this.stopTimes.length];
+            float[] distances = new float[this.stopTimes.length];
+            for (int i = 0; i < this.stopTimes.length; i++) {
+                times[i] = this.stopTimes[i] * 60L;
+                distances[i] = this.stationsById.get(this.stopStationIds[i / 2]).getDistance();
+            }
+            positionProfile = new PositionProfile(times, distances,
+                    this.isTowardsHome ? TrainDirection.TOWARDS_HOME : TrainDirection.AWAY_FROM_HOME);
+            this.positionProfile = positionProfile;
+        }
+        return positionProfile;
+    }
+
+    @Override
+    public Optional<TrainSchedule> getSchedule(Station station) {
+        int stationId = idOf(station);
+        for (int stop = 0; stationId >= 0 && stop < this.stopStationIds.length; stop++) {
+            if (this.stopStationIds[stop] == stationId)
+                return Optional.of(new TrainSchedule(toLocalDateTime(this.stopTimes[stop * 2]),
+                        toLocalDateTime(this.stopTimes[stop * 2 + 1])));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Station> getUpcomingStops(float distanceFromHome) {
+        List<Station> upcomingStops = new ArrayList<>();
+        for (int stationId : this.routeStationIds) {
+            Station station = this.stationsById.get(stationId);
+            if (this.isTowardsHome ? station.getDistance() <= distanceFromHome : station.getDistance() >= distanceFromHome)
+                upcomingStops.add(station);
+        }
+        return upcomingStops;
+    }
+
+    @Override
+    public List<Entry> getStops() {
+        List<Entry> stops = new ArrayList<>(this.stopStationIds.length);
+        for (int stop = 0; stop < this.stopStationIds.length; stop++) {
+            stops.add(new Entry(this.stationsById.get(this.stopStationIds[stop]),
+                    Optional.of(new TrainSchedule(toLocalDateTime(this.stopTimes[stop * 2]),
+                            toLocalDateTime(this.stopTimes[stop * 2 + 1]))),
+                    StopType.values()[this.stopTypes[stop]]));
+        }
+        return stops;
+    }
+
+    @Override
+    public boolean hasSameStops(TrainTimetable other) {
+        CompactTimetable otherTimetable;
+        if (other instanceof CompactTimetable) {
+            otherTimetable = (CompactTimetable) other;
+        } else if (other instanceof Timetable) {
+            try {
+                otherTimetable = new CompactTimetable((Timetable) other, this.stationsById);
+            } catch (IllegalArgumentException ex) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+        return this.isTowardsHome == otherTimetable.isTowardsHome
+                && hasSameStations(this.routeStationIds, otherTimetable, otherTimetable.routeStationIds)
+                && hasSameStations(this.stopStationIds, otherTimetable, otherTimetable.stopStationIds)
+                && Arrays.equals(this.stopTimes, otherTimetable.stopTimes)
+                && Arrays.equals(this.stopTypes, otherTimetable.stopTypes);
+    }
+
+    /**
+     * Compares stations by their code, as the other timetable's stations may have been registered separately.
+     */
+    private boolean hasSameStations(int[] stationIds, CompactTimetable other, int[] otherStationIds) {
+        if (stationIds.length != otherStationIds.length) return false;
+        for (int i = 0; i < stationIds.length; i++) {
+            if (!this.stationsById.get(stationIds[i]).getCode()
+                    .equalsIgnoreCase(other.stationsById.get(otherStationIds[i]).getCode()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position in <code>stopTimes</code> of the first time that is not before <code>time</code>, or the
+     * number of times if all of them are before it.
+     *
+     * @param time the time, in seconds since the epoch
+     */
+    private int firstTimeNotBefore(long time) {
+        int low = 0, high = this.stopTimes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.stopTimes[middle] * 60L < time) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the id of the station. Registered stations are looked up by their id; other stations are looked up by
+     * their code.
+     *
+     * @param station the station
+     * @return the station's id, or -1 if the station is not on the section
+     */
+    private int idOf(Station station) {
+        int stationId = station.getId();
+        if (stationId >= 0 && stationId < this.stationsById.size()
+                && this.stationsById.get(stationId).getCode().equalsIgnoreCase(station.getCode()))
+            return stationId;
+        for (int id = 0; id < this.stationsById.size(); id++) {
+            if (this.stationsById.get(id).getCode().equalsIgnoreCase(station.getCode())) return id;
+        }
+        return -1;
+    }
+
+    private static int toEpochMinutes(LocalDateTime time) {
+        if (time.getSecond() != 0 || time.getNano() != 0)
+            throw new IllegalArgumentException(time + " is not a whole minute");
+        return Math.toIntExact(time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static LocalDateTime toLocalDateTime(int epochMinutes) {
+        return LocalDateTime.ofEpochSecond(epochMinutes * 60L, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,395 @@
+package game_engine;
+
+import common.models.CrossingType;
+import common.models.TrainDirection;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * The <code>ConflictDetector</code> class predicts where and when the trains on the section will cross each other,
+ * as per their timetables, and which of those crossings cannot take place.
+ * <br><br>
+ * The section is a single line. Trains can only cross at a station, with one train on the main track and the others
+ * on loop tracks. A crossing between two stations, or at a station without enough loop tracks for all the trains
+ * that are at the station at the time, is a conflict.
+ * <br><br>
+ * The crossings of every pair of trains are worked out from the trains' position profiles, and kept per pair. When a
+ * train is added, reloaded or runs late, only the crossings of that train with each of the others are worked out
+ * again. Whether a crossing is a conflict depends on the other trains at the station, and is decided when the
+ * conflicts are asked for.
+ */
+public final class ConflictDetector {
+
+    /**
+     * Two trains less than this far apart, in km, are taken to be at the same place.
+     */
+    private static final double SAME_PLACE = 0.001;
+
+    private final List<Station> stationsById;
+
+    /**
+     * The distances of the stations from the home station, indexed by station id.
+     */
+    private final int[] stationDistances;
+
+    /**
+     * The number of loop tracks at each station, indexed by station id.
+     */
+    private final int[] loopTracks;
+
+    /**
+     * The trains, keyed by train number.
+     */
+    private final Map<String, Run> runs = new HashMap<>();
+
+    /**
+     * The crossings of each pair of trains, keyed by the number of one train and then by the number of the other. The
+     * same list is held under both trains.
+     */
+    private final Map<String, Map<String, List<Crossing>>> crossingsByTrain = new HashMap<>();
+
+    /**
+     * Creates a detector for the section, with no trains.
+     *
+     * @param stationsById the stations on the section, where the station at index <code>i</code> has the id
+     *                     <code>i</code>, as returned by <code>SectionRegistry.getStations()</code>.
+     */
+    public ConflictDetector(List<Station> stationsById) {
+        this.stationsById = stationsById;
+        this.stationDistances = new int[stationsById.size()];
+        this.loopTracks = new int[stationsById.size()];
+        for (int id = 0; id < stationsById.size(); id++) {
+            this.stationDistances[id] = stationsById.get(id).getDistance();
+            for (Track track : stationsById.get(id).getTracks())
+                if (track.getTrackType() == Track.TrackType.LOOP_TRACK) this.loopTracks[id]++;
+        }
+    }
+
+    /**
+     * Adds the train, and works out its crossings with the other trains. If the train was added before, its timetable
+     * is replaced, and it keeps the lag it had.
+     *
+     * @param trainNumber the train's number
+     * @param timetable   the train's timetable
+     */
+    public synchronized void put(String trainNumber, TrainTimetable timetable) {
+        Run run = this.runs.get(trainNumber);
+        this.runs.put(trainNumber, new Run(timetable.getPositionProfile(), run == null ? 0 : run.lagSeconds));
+        updateCrossings(trainNumber);
+    }
+
+    /**
+     * Sets how late the train is running, and works out its crossings with the other trains again. The train is
+     * taken to keep to its timetable, only later by <code>lag</code> at every stop.
+     *
+     * @param trainNumber the train's number
+     * @param lag         how late the train is. This is negative if the train is early.
+     * @throws NoSuchElementException if the train has not been added
+     */
+    public synchronized void setLag(String trainNumber, Duration lag) {
+        Run run = this.runs.get(trainNumber);
+        if (run == null) throw new NoSuchElementException("No train numbered " + trainNumber);
+        this.runs.put(trainNumber, new Run(run.profile, lag.getSeconds()));
+        updateCrossings(trainNumber);
+    }
+
+    /**
+     * Removes the train, along with its crossings. Nothing happens if the train has not been added.
+     *
+     * @param trainNumber the train's number
+     */
+    public synchronized void remove(String trainNumber) {
+        this.runs.remove(trainNumber);
+        Map<String, List<Crossing>> crossings = this.crossingsByTrain.remove(trainNumber);
+        if (crossings == null) return;
+        for (String otherTrainNumber : crossings.keySet())
+            this.crossingsByTrain.get(otherTrainNumber).remove(trainNumber);
+    }
+
+    /**
+     * Returns all the crossings of the trains, in order of time.
+     *
+     * @return the crossings
+     */
+    public synchronized List<Crossing> getCrossings() {
+        List<Crossing> crossings = new ArrayList<>();
+        for (Map.Entry<String, Map<String, List<Crossing>>> trainCrossings : this.crossingsByTrain.entrySet()) {
+            for (Map.Entry<String, List<Crossing>> pairCrossings : trainCrossings.getValue().entrySet()) {
+                //Each pair is held under both trains, so it is only taken from under the lower train number.
+                if (trainCrossings.getKey().compareTo(pairCrossings.getKey()) < 0)
+                    crossings.addAll(pairCrossings.getValue());
+            }
+        }
+        crossings.sort(Comparator.comparingDouble(crossing -> crossing.time));
+        return crossings;
+    }
+
+    /**
+     * Returns the crossings that cannot take place, in order of time. These are the crossings between stations, and
+     * the crossings at a station where there are not enough loop tracks for the trains at the station at the time.
+     *
+     * @return the conflicts
+     */
+    public synchronized List<Crossing> getConflicts() {
+        List<Crossing> conflicts = new ArrayList<>();
+        for (Crossing crossing : getCrossings())
+            if (isConflict(crossing)) conflicts.add(crossing);
+        return conflicts;
+    }
+
+    private boolean isConflict(Crossing crossing) {
+        if (crossing.stationId < 0) return true;
+        //One train can be on the main track; every other train needs a loop.
+        int trainsAtStation = 2;
+        for (Map.Entry<String, Run> run : this.runs.entrySet()) {
+            if (!run.getKey().equals(crossing.trainNumber) && !run.getKey().equals(crossing.otherTrainNumber)
+                    && run.getValue().isHaltedAt(this.stationDistances[crossing.stationId], crossing.time))
+                trainsAtStation++;
+        }
+        return trainsAtStation - 1 > this.loopTracks[crossing.stationId];
+    }
+
+    private void updateCrossings(String trainNumber) {
+        Run run = this.runs.get(trainNumber);
+        Map<String, List<Crossing>> crossings = this.crossingsByTrain.computeIfAbsent(trainNumber, key -> new HashMap<>());
+        for (Map.Entry<String, Run> otherRun : this.runs.entrySet()) {
+            String otherTrainNumber = otherRun.getKey();
+            if (otherTrainNumber.equals(trainNumber)) continue;
+            List<Crossing> pairCrossings = findCrossings(trainNumber, run, otherTrainNumber, otherRun.getValue());
+            Map<String, List<Crossing>> otherCrossings =
+                    this.crossingsByTrain.computeIfAbsent(otherTrainNumber, key -> new HashMap<>());
+            if (pairCrossings.isEmpty()) {
+                crossings.remove(otherTrainNumber);
+                otherCrossings.remove(trainNumber);
+            } else {
+                crossings.put(otherTrainNumber, pairCrossings);
+                otherCrossings.put(trainNumber, pairCrossings);
+            }
+        }
+    }
+
+    /**
+     * Finds where the two trains cross, by following the difference in their positions from one point of either
+     * profile to the next, while both are on the section. The trains cross where the difference changes sign, either
+     * between two points, or after being zero for a while, say when one train waits at a station for the other.
+     */
+    private List<Crossing> findCrossings(String trainNumber, Run run, String otherTrainNumber, Run otherRun) {
+        double start = Math.max(run.firstTime(), otherRun.firstTime());
+        double end = Math.min(run.lastTime(), otherRun.lastTime());
+        if (start >= end) return Collections.emptyList();
+
+        List<Crossing> crossings = new ArrayList<>();
+        double[] times = mergeTimes(run, otherRun, start, end);
+        double previousDifference = difference(run, otherRun, times[0]);
+        int lastSign = sign(previousDifference);
+        double firstTimeTogether = lastSign == 0 ? times[0] : Double.NaN;
+        for (int i = 1; i < times.length; i++) {
+            double difference = difference(run, otherRun, times[i]);
+            int sign = sign(difference);
+            int previousSign = sign(previousDifference);
+            if (previousSign != 0 && sign != 0 && previousSign != sign) {
+                double time = times[i - 1] + (times[i] - times[i - 1]) * previousDifference / (previousDifference - difference);
+                crossings.add(newCrossing(trainNumber, run, otherTrainNumber, otherRun, time, previousSign));
+            } else if (sign == 0 && previousSign != 0) {
+                firstTimeTogether = times[i];
+            } else if (sign != 0 && lastSign != 0 && sign != lastSign && !Double.isNaN(firstTimeTogether)) {
+                crossings.add(newCrossing(trainNumber, run, otherTrainNumber, otherRun, firstTimeTogether, lastSign));
+            }
+            if (sign != 0) {
+                lastSign = sign;
+                firstTimeTogether = Double.NaN;
+            }
+            previousDifference = difference;
+        }
+        return crossings;
+    }
+
+    /**
+     * Creates the crossing of the two trains at <code>time</code>. For an overtake, the train that overtakes comes
+     * first.
+     *
+     * @param signBefore the sign of the difference in the trains' positions before they cross
+     */
+    private Crossing newCrossing(String trainNumber, Run run, String otherTrainNumber, Run otherRun, double time,
+                                 int signBefore) {
+        int stationId = -1, segment = -1;
+        double distance = run.positionAt(time);
+        for (int id = 0; id < this.stationDistances.length; id++) {
+            if (Math.abs(this.stationDistances[id] - distance) < SAME_PLACE) stationId = id;
+            else if (this.stationDistances[id] < distance) segment = id;
+        }
+        if (run.direction() != otherRun.direction()) {
+            if (trainNumber.compareTo(otherTrainNumber) > 0)
+                return new Crossing(CrossingType.MEET, otherTrainNumber, trainNumber, time, stationId, segment);
+            return new Crossing(CrossingType.MEET, trainNumber, otherTrainNumber, time, stationId, segment);
+        }
+        //The train behind is nearer home if the trains are moving away from home, and the other way around.
+        boolean trainIsBehind = (signBefore < 0) == (run.direction() == TrainDirection.AWAY_FROM_HOME);
+        return trainIsBehind ? new Crossing(CrossingType.OVERTAKE, trainNumber, otherTrainNumber, time, stationId, segment)
+                : new Crossing(CrossingType.OVERTAKE, otherTrainNumber, trainNumber, time, stationId, segment);
+    }
+
+    /**
+     * Returns the times of the points of both profiles from <code>start</code> to <code>end</code>, in order.
+     */
+    private static double[] mergeTimes(Run run, Run otherRun, double start, double end) {
+        double[] times = new double[run.profile.size() + otherRun.profile.size() + 2];
+        int count = 0, i = 0, j = 0;
+        times[count++] = start;
+        while (i < run.profile.size() || j < otherRun.profile.size()) {
+            double time = j == otherRun.profile.size()
+                    || (i < run.profile.size() && run.timeOf(i) <= otherRun.timeOf(j)) ? run.timeOf(i++) : otherRun.timeOf(j++);
+            if (time > times[count - 1] && time < end) times[count++] = time;
+        }
+        times[count++] = end;
+        return Arrays.copyOf(times, count);
+    }
+
+    private static double difference(Run run, Run otherRun, double time) {
+        double difference = run.positionAt(time) - otherRun.positionAt(time);
+        return Math.abs(difference) < SAME_PLACE ? 0 : difference;
+    }
+
+    private static int sign(double value) {
+        return value > 0 ? 1 : value < 0 ? -1 : 0;
+    }
+
+    /**
+     * A train's position profile, along with how late the train is running.
+     */
+    private static final class Run {
+        private final PositionProfile profile;
+        private final long lagSeconds;
+
+        private Run(PositionProfile profile, long lagSeconds) {
+            this.profile = profile;
+            this.lagSeconds = lagSeconds;
+        }
+
+        private TrainDirection direction() {
+            return this.profile.getDirection();
+        }
+
+        private double timeOf(int point) {
+            return this.profile.getTime(point) + this.lagSeconds;
+        }
+
+        private double firstTime() {
+            return timeOf(0);
+        }
+
+        private double lastTime() {
+            return timeOf(this.profile.size() - 1);
+        }
+
+        /**
+         * Returns the train's distance from home at a time the train is on the section.
+         */
+        private double positionAt(double time) {
+            int low = 0, high = this.profile.size() - 1;
+            if (time <= timeOf(low)) return this.profile.getDistance(low);
+            if (time >= timeOf(high)) return this.profile.getDistance(high);
+            while (high - low > 1) {
+                int middle = (low + high) >>> 1;
+                if (timeOf(middle) <= time) low = middle;
+                else high = middle;
+            }
+            double fraction = (time - timeOf(low)) / (timeOf(high) - timeOf(low));
+            return this.profile.getDistance(low) + fraction * (this.profile.getDistance(high) - this.profile.getDistance(low));
+        }
+
+        /**
+         * Determines if the train is stopped at the given distance from home at <code>time</code>.
+         */
+        private boolean isHaltedAt(int distance, double time) {
+            for (int point = 0; point < this.profile.size() - 1; point++) {
+                if (this.profile.getDistance(point) == distance && this.profile.getDistance(point + 1) == distance
+                        && timeOf(point) <= time && time <= timeOf(point + 1))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Where and when two trains cross each other.
+     */
+    public final class Crossing {
+        private final CrossingType crossingType;
+        private final String trainNumber;
+        private final String otherTrainNumber;
+
+        /**
+         * The time, in seconds since the epoch.
+         */
+        private final double time;
+
+        /**
+         * The id of the station the trains cross at, or -1 if they cross between stations.
+         */
+        private final int stationId;
+
+        /**
+         * If the trains cross between stations, the id of the station nearer home.
+         */
+        private final int segment;
+
+        private Crossing(CrossingType crossingType, String trainNumber, String otherTrainNumber, double time,
+                         int stationId, int segment) {
+            this.crossingType = crossingType;
+            this.trainNumber = trainNumber;
+            this.otherTrainNumber = otherTrainNumber;
+            this.time = time;
+            this.stationId = stationId;
+            this.segment = segment;
+        }
+
+        public CrossingType getCrossingType() {
+            return this.crossingType;
+        }
+
+        /**
+         * Returns the number of one of the trains. For an overtake, this is the train that overtakes.
+         * @return the train number
+         */
+        public String getTrainNumber() {
+            return this.trainNumber;
+        }
+
+        /**
+         * Returns the number of the other train. For an overtake, this is the train that is overtaken.
+         * @return the train number
+         */
+        public String getOtherTrainNumber() {
+            return this.otherTrainNumber;
+        }
+
+        public LocalDateTime getTime() {
+            long nanos = Math.round(this.time * 1e9);
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                    (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+        }
+
+        /**
+         * Returns the station the trains cross at.
+         * @return the station, or <code>Optional.empty()</code> if the trains cross between stations
+         */
+        public Optional<Station> getStation() {
+            return this.stationId < 0 ? Optional.empty() : Optional.of(stationsById.get(this.stationId));
+        }
+
+        /**
+         * Returns the stations the trains cross between, in the order of their distance from home.
+         * @return the two stations, or two <code>Optional.empty()</code>s if the trains cross at a station
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Optional<Station>[] getStationsBetween() {
+            if (this.stationId >= 0) return new Optional[] {Optional.empty(), Optional.empty()};
+            return new Optional[] {Optional.of(stationsById.get(this.segment)),
+                    Optional.of(stationsById.get(this.segment + 1))};
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package game_engine;
+
+import common.models.SignalAspect;
+
+import java.io.PrintStream;
+import java.time.*;
+import java.util.*;
+
+/**
+ * The <code>DaySimulator</code> class plays a whole day on the section without anyone watching, and records how the
+ * trains ran.
+ * <br><br>
+ * The game is run on an unthrottled <code>GameClock</code> from midnight to midnight, so that it moves straight on
+ * from one thing that happens in the game to the next. After each move, every train that is at one of its stops is
+ * noted down. The first time a train is seen at a stop is taken as its actual arrival, and the last time as its actual
+ * departure.
+ * <br><br>
+ * An arrival is only recorded if the train was on the section just before, and a departure only if it is still on the
+ * section just after. So no arrival is recorded at the stop a train enters the section from, or if the train is
+ * already at the stop at midnight, and no departure at the stop it leaves the section from, or if it is still at the
+ * stop at the end of the day.
+ * <br><br>
+ * No one works the signals in a simulated day, so all of them are cleared before the day starts. A train that departs
+ * from a stop while the block ahead of it already has a train in it would have been held there under absolute block
+ * working, and is counted as a hold. The train is not actually held, as trains keep to their timetables, so no lags
+ * are recorded; how the trains' lags spread is left to the <code>DelaySimulator</code>.
+ */
+public class DaySimulator {
+
+    /**
+     * How close, in kilometres, a train must be to a station to be taken as being at it.
+     */
+    private static final float AT_STATION_TOLERANCE = 0.001f;
+
+    private final ZoneId zone;
+
+    /**
+     * Creates a simulator that plays the day in the given time zone.
+     * @param zone the time zone of the trains' timetables
+     */
+    public DaySimulator(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Plays the whole of <code>day</code>, with the section and trains the game is started with.
+     *
+     * @param day the day to play
+     * @return the stops the trains made, and how long the day took to play
+     * @throws GameNotStartedException if the game could not be started
+     * @throws InterruptedException    if the thread is interrupted while the day is played
+     */
+    public Result simulate(LocalDate day) throws GameNotStartedException, InterruptedException {
+        Instant startOfDay = day.atStartOfDay(this.zone).toInstant();
+        GameClock gameClock = GameClock.unthrottled(startOfDay, this.zone);
+        LocalDateTime endOfDay = day.plusDays(1).atStartOfDay();
+
+        long start = System.nanoTime();
+        Game game = new Game(gameClock);
+        try {
+            List<Station> stations = game.getStationsById();
+            game.getSignalAspects().setAll(SignalAspect.PROCEED, SignalAspect.PROCEED);
+            List<StopRecord> stopRecords = new ArrayList<>();
+            Map<String, StopRecord> trainsAtStops = Collections.emptyMap();
+            Set<String> trainsOnSection = Collections.emptySet();
+            int eventCount = 0;
+            LocalDateTime currentTime = LocalDateTime.now(gameClock);
+            while (true) {
+                Map<String, StopRecord> trainsNowAtStops = new HashMap<>();
+                Set<String> trainsNowOnSection = new HashSet<>();
+                for (Train train : game.getRunningTrains()) {
+                    trainsNowOnSection.add(train.getNumber());
+                    Optional<Station> stop = findStop(train, stations);
+                    if (!stop.isPresent()) continue;
+                    Station station = stop.get();
+                    StopRecord stopRecord = trainsAtStops.get(train.getNumber());
+                    if (stopRecord == null || !stopRecord.stationCode.equals(station.getCode())) {
+                        stopRecord = new StopRecord(train.getNumber(), train.getTrainName(), station.getCode(),
+                                train.getTimetable().getSchedule(station).get(), currentTime,
+                                trainsOnSection.contains(train.getNumber()));
+                        stopRecords.add(stopRecord);
+                    }
+                    stopRecord.seenAt(currentTime, !game.isBlockAheadFree(station.getId(), train.getDirection()));
+                    trainsNowAtStops.put(train.getNumber(), stopRecord);
+                }
+                //The trains that were at a stop before, but not now, have departed if they are still on the section.
+                for (StopRecord stopRecord : trainsAtStops.values())
+                    if (trainsNowAtStops.get(stopRecord.trainNumber) != stopRecord
+                            && trainsNowOnSection.contains(stopRecord.trainNumber))
+                        stopRecord.departed();
+                trainsAtStops = trainsNowAtStops;
+                trainsOnSection = trainsNowOnSection;
+
+                if (!currentTime.isBefore(endOfDay)) break;
+                currentTime = game.advanceToNextEvent();
+                eventCount++;
+            }
+            Duration wallTime = Duration.ofNanos(System.nanoTime() - start);
+            //Trains that only got to a stop at the very end of the day made it on the next day.
+            stopRecords.removeIf(stopRecord -> !stopRecord.getActualArrivalTime().isPresent()
+                    && !stopRecord.getActualDepartureTime().isPresent()
+                    && !stopRecord.lastSeenTime.isBefore(endOfDay));
+            return new Result(day, stopRecords, eventCount, wallTime);
+        } finally {
+            game.stop();
+        }
+    }
+
+    /**
+     * Returns the station the train is at, if it is one of the train's stops.
+     */
+    private static Optional<Station> findStop(Train train, List<Station> stations) {
+        float distance = train.getDistance();
+        for (Station station : stations)
+            if (Math.abs(station.getDistance() - distance) <= AT_STATION_TOLERANCE)
+                return train.getTimetable().getSchedule(station).isPresent() ? Optional.of(station) : Optional.empty();
+        return Optional.empty();
+    }
+
+    /**
+     * A stop made by a train during the day, with when it was meant to arrive and depart, and when it actually did.
+     */
+    public static class StopRecord {
+
+        private final String trainNumber;
+
+        private final String trainName;
+
+        private final String stationCode;
+
+        private final TrainSchedule schedule;
+
+        /**
+         * The time the train was first seen at the stop.
+         */
+        private final LocalDateTime firstSeenTime;
+
+        /**
+         * The time the train was last seen at the stop.
+         */
+        private LocalDateTime lastSeenTime;
+
+        /**
+         * Whether the train was on the section before it was first seen at the stop.
+         */
+        private final boolean arrivalSeen;
+
+        /**
+         * Whether the train was still on the section after it was last seen at the stop.
+         */
+        private boolean departureSeen;
+
+        private boolean blockAheadOccupied;
+
+        StopRecord(String trainNumber, String trainName, String stationCode, TrainSchedule schedule,
+                   LocalDateTime firstSeenTime, boolean arrivalSeen) {
+            this.trainNumber = trainNumber;
+            this.trainName = trainName;
+            this.stationCode = stationCode;
+            this.schedule = schedule;
+            this.firstSeenTime = firstSeenTime;
+            this.lastSeenTime = firstSeenTime;
+            this.arrivalSeen = arrivalSeen;
+        }
+
+        private void seenAt(LocalDateTime time, boolean blockAheadOccupied) {
+            this.lastSeenTime = time;
+            //Only the block ahead at the time of departure matters, that is, the last time the train is seen.
+            this.blockAheadOccupied = blockAheadOccupied;
+        }
+
+        private void departed() {
+            this.departureSeen = true;
+        }
+
+        public String getTrainNumber() {
+            return this.trainNumber;
+        }
+
+        public String getTrainName() {
+            return this.trainName;
+        }
+
+        public String getStationCode() {
+            return this.stationCode;
+        }
+
+        public TrainSchedule getSchedule() {
+            return this.schedule;
+        }
+
+        /**
+         * Returns the time the train arrived at the stop.
+         * @return the arrival time, or <code>Optional.empty()</code> if the train was not seen arriving
+         */
+        public Optional<LocalDateTime> getActualArrivalTime() {
+            return this.arrivalSeen ? Optional.of(this.firstSeenTime) : Optional.empty();
+        }
+
+        /**
+         * Returns the time the train departed from the stop.
+         * @return the departure time, or <code>Optional.empty()</code> if the train was not seen departing
+         */
+        public Optional<LocalDateTime> getActualDepartureTime() {
+            return this.departureSeen ? Optional.of(this.lastSeenTime) : Optional.empty();
+        }
+
+        /**
+         * Determines if the train departed while the block ahead of it already had a train in it, so that it would have
+         * been held at the stop under absolute block working.
+         * @return <code>true</code> if the train would have been held at the stop
+         */
+        public boolean isHeld() {
+            return this.departureSeen && this.blockAheadOccupied;
+        }
+    }
+
+    /**
+     * The outcome of playing a day.
+     */
+    public static class Result {
+
+        private final LocalDate day;
+
+        private final List<StopRecord> stopRecords;
+
+        private final int eventCount;
+
+        private final Duration wallTime;
+
+        Result(LocalDate day, List<StopRecord> stopRecords, int eventCount, Duration wallTime) {
+            this.day = day;
+            this.stopRecords = Collections.unmodifiableList(stopRecords);
+            this.eventCount = eventCount;
+            this.wallTime = wallTime;
+        }
+
+        /**
+         * Returns the stops made by the trains during the day, in the order they arrived at them.
+         * @return the stops
+         */
+        public List<StopRecord> getStopRecords() {
+            return this.stopRecords;
+        }
+
+        /**
+         * Returns the number of times game time was moved on to play the day.
+         * @return the number of events
+         */
+        public int getEventCount() {
+            return this.eventCount;
+        }
+
+        /**
+         * Returns the real time taken to play the day, including starting the game.
+         * @return the real time taken
+         */
+        public Duration getWallTime() {
+            return this.wallTime;
+        }
+
+        /**
+         * Returns how many hours of game time were played per second of real time.
+         * @return the simulated hours per second
+         */
+        public double getSimulatedHoursPerSecond() {
+            return 24 / (this.wallTime.toNanos() / 1e9);
+        }
+
+        /**
+         * Writes the stops made by the trains, followed by a summary of the day.
+         * @param out the stream to write to
+         */
+        public void write(PrintStream out) {
+            out.printf("Day simulated: %s%n", this.day);
+            out.printf("%-8s %-5s %-8s %-8s %-8s %-8s %-4s %s%n", "Train", "Stop",
+                    "Sch.Arr", "Act.Arr", "Sch.Dep", "Act.Dep", "Held", "Name");
+            for (StopRecord stopRecord : this.stopRecords) {
+                out.printf("%-8s %-5s %-8s %-8s %-8s %-8s %-4s %s%n", stopRecord.trainNumber,
+                        stopRecord.stationCode, stopRecord.schedule.getArrivalTime().toLocalTime(),
+                        stopRecord.getActualArrivalTime().map(time -> time.toLocalTime().toString()).orElse("-"),
+                        stopRecord.schedule.getDepartureTime().toLocalTime(),
+                        stopRecord.getActualDepartureTime().map(time -> time.toLocalTime().toString()).orElse("-"),
+                        stopRecord.isHeld() ? "yes" : "no", stopRecord.trainName);
+            }
+            long trainCount = this.stopRecords.stream().map(StopRecord::getTrainNumber).distinct().count();
+            long holds = this.stopRecords.stream().filter(StopRecord::isHeld).count();
+            out.printf("%d trains made %d stops%n", trainCount, this.stopRecords.size());
+            out.printf("Departures into an occupied block: %d%n", holds);
+            out.printf("Played %d events in %.3f s, at %.1f simulated hours per second%n",
+                    this.eventCount, this.wallTime.toNanos() / 1e9, getSimulatedHoursPerSecond());
+        }
+    }
+}
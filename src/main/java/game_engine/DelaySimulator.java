@@ -0,0 +1,549 @@
+package game_engine;
+
+import game_engine.initializers.TrainDefinition;
+import game_engine.initializers.TrainFactory;
+
+import java.io.PrintStream;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The <code>DelaySimulator</code> class plays the same day on the section thousands of times over, each time with
+ * trains that enter the section late and overrun their halts at random, and works out how punctual each train and each
+ * station turns out to be.
+ * <br><br>
+ * The section is worked as single line, on the absolute block system: only one train may be between two adjacent
+ * stations at a time. A train that is ready to depart from a stop waits until the line up to its next stop is clear,
+ * so a late train holds up the trains that cross or follow it, and the delay spreads from one train to the next.
+ * Trains never depart before their scheduled departure time, and run from one stop to the next in their scheduled
+ * running time, so they do not make up lost time. The number of loop tracks at a station is not taken into account.
+ * <br><br>
+ * The day's trains and their timetables are read once. Each run then plays the day on its own lightweight copy of the
+ * engine state, that is, the stop each train has got to and when, and when each block section becomes clear; the
+ * timetables are shared, and are not changed. Runs are shared out among the threads of a fork-join
+ * pool. Each thread reuses one copy of the state for all its runs, and tallies the lags into its own histograms, which
+ * are only added together once all the runs are over, so the threads do not contend for anything while they run.
+ * <br><br>
+ * Every run draws its delays from its own random number generator, seeded from the seed given and the run's number,
+ * so the results are the same whatever the number of threads.
+ */
+public class DelaySimulator {
+
+    /**
+     * The largest lag, in minutes, that the lag distributions tell apart. Larger lags are counted with it.
+     */
+    static final int MAX_LAG_MINUTES = 180;
+
+    /**
+     * The most a train may be behind its scheduled time and still be counted as on time, in minutes.
+     */
+    public static final int ON_TIME_MINUTES = 5;
+
+    private final String sectionResource;
+
+    private final ZoneId zone;
+
+    private final DelayModel delayModel;
+
+    private final int parallelism;
+
+    /**
+     * How likely trains are to enter the section late and to overrun their halts, and by how much.
+     * <br><br>
+     * Each delay is either zero or, with the given probability, drawn from an exponential distribution with the given
+     * mean, rounded to the second. Particular trains can instead be given a fixed entry delay, to see how the section
+     * copes with, say, one train running half an hour late.
+     */
+    public static class DelayModel {
+
+        private final double entryDelayProbability;
+
+        private final double meanEntryDelaySeconds;
+
+        private final double dwellOverrunProbability;
+
+        private final double meanDwellOverrunSeconds;
+
+        /**
+         * The fixed entry delays of particular trains, in seconds, by train number.
+         */
+        private final Map<String, Long> fixedEntryDelays;
+
+        /**
+         * Creates a delay model.
+         *
+         * @param entryDelayProbability   the probability that a train enters the section late, from 0 to 1
+         * @param meanEntryDelay          the mean delay of a train that enters the section late
+         * @param dwellOverrunProbability the probability that a train overruns its halt at a stop, from 0 to 1
+         * @param meanDwellOverrun        the mean overrun of a halt that is overrun
+         * @throws IllegalArgumentException if either probability is not from 0 to 1, or either mean is negative
+         */
+        public DelayModel(double entryDelayProbability, Duration meanEntryDelay, double dwellOverrunProbability,
+                          Duration meanDwellOverrun) {
+            if (entryDelayProbability < 0 || entryDelayProbability > 1 || dwellOverrunProbability < 0
+                    || dwellOverrunProbability > 1)
+                throw new IllegalArgumentException("Probabilities must be from 0 to 1");
+            if (meanEntryDelay.isNegative() || meanDwellOverrun.isNegative())
+                throw new IllegalArgumentException("Mean delays cannot be negative");
+            this.entryDelayProbability = entryDelayProbability;
+            this.meanEntryDelaySeconds = meanEntryDelay.getSeconds();
+            this.dwellOverrunProbability = dwellOverrunProbability;
+            this.meanDwellOverrunSeconds = meanDwellOverrun.getSeconds();
+            this.fixedEntryDelays = Collections.emptyMap();
+        }
+
+        private DelayModel(DelayModel model, Map<String, Long> fixedEntryDelays) {
+            this.entryDelayProbability = model.entryDelayProbability;
+            this.meanEntryDelaySeconds = model.meanEntryDelaySeconds;
+            this.dwellOverrunProbability = model.dwellOverrunProbability;
+            this.meanDwellOverrunSeconds = model.meanDwellOverrunSeconds;
+            this.fixedEntryDelays = fixedEntryDelays;
+        }
+
+        /**
+         * Returns a delay model in which a train always enters the section late by <code>delay</code>, and which is
+         * otherwise the same as this one.
+         *
+         * @param trainNumber the train's number
+         * @param delay       how late the train enters the section
+         * @return the delay model
+         * @throws IllegalArgumentException if the delay is negative
+         */
+        public DelayModel withEntryDelay(String trainNumber, Duration delay) {
+            if (delay.isNegative()) throw new IllegalArgumentException("Delays cannot be negative");
+            Map<String, Long> fixedEntryDelays = new HashMap<>(this.fixedEntryDelays);
+            fixedEntryDelays.put(trainNumber, delay.getSeconds());
+            return new DelayModel(this, fixedEntryDelays);
+        }
+
+        /**
+         * Draws how late the train enters the section, unless it has a fixed entry delay.
+         *
+         * @param trainNumber the train's number
+         * @param random      the run's random number generator
+         * @return the delay, in seconds
+         */
+        long drawEntryDelay(String trainNumber, SplittableRandom random) {
+            Long fixedEntryDelay = this.fixedEntryDelays.get(trainNumber);
+            if (fixedEntryDelay != null) return fixedEntryDelay;
+            return draw(random, this.entryDelayProbability, this.meanEntryDelaySeconds);
+        }
+
+        /**
+         * Draws how much longer than scheduled a train halts at one of its stops.
+         *
+         * @param random the run's random number generator
+         * @return the overrun, in seconds
+         */
+        long drawDwellOverrun(SplittableRandom random) {
+            return draw(random, this.dwellOverrunProbability, this.meanDwellOverrunSeconds);
+        }
+
+        private static long draw(SplittableRandom random, double probability, double meanSeconds) {
+            if (probability == 0 || random.nextDouble() >= probability) return 0;
+            return Math.round(-meanSeconds * Math.log(1 - random.nextDouble()));
+        }
+    }
+
+    /**
+     * Creates a simulator.
+     *
+     * @param sectionResource the classpath resource that holds the section's data, for example
+     *                        <code>/data/CAL-SRR.xml</code>
+     * @param zone            the time zone of the trains' timetables
+     * @param delayModel      how the trains are delayed
+     * @param parallelism     the number of threads the runs are shared out among
+     */
+    public DelaySimulator(String sectionResource, ZoneId zone, DelayModel delayModel, int parallelism) {
+        this.sectionResource = sectionResource;
+        this.zone = zone;
+        this.delayModel = delayModel;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Plays <code>day</code> <code>runs</code> times, with the trains that run on the section that day.
+     *
+     * @param day  the day to play
+     * @param runs the number of runs
+     * @param seed the seed the runs' random number generators are seeded from
+     * @return the distributions of the trains' lags
+     * @throws GameNotStartedException if the section's data or any of the trains' data could not be read
+     * @throws InterruptedException    if the thread is interrupted while the runs are played
+     */
+    public Result simulate(LocalDate day, int runs, long seed) throws GameNotStartedException, InterruptedException {
+        long start = System.nanoTime();
+        SectionData sectionData = new SectionData(this.sectionResource);
+        List<Station> stations = new SectionRegistry(sectionData.readStations()).getStations();
+        List<TrainDefinition> definitions = sectionData.getTrainsForTheDay(day.getDayOfWeek());
+        //At noon, every train for the day is on its run of the day, including the ones that run past midnight.
+        Clock noon = Clock.fixed(day.atTime(LocalTime.NOON).atZone(this.zone).toInstant(), this.zone);
+        List<Train> trains = new TrainFactory(this.sectionResource).createAll(definitions, stations,
+                Math.min(this.parallelism, Math.max(1, definitions.size())), noon);
+        TrainRun[] trainRuns = trains.stream().map(TrainRun::new).toArray(TrainRun[]::new);
+
+        //Runs are handed out a few at a time, so that a thread that gets slow runs does not hold up the others.
+        AtomicInteger nextRun = new AtomicInteger();
+        int batchSize = Math.max(1, Math.min(64, runs / (this.parallelism * 8)));
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        List<Future<Tally>> tallies = new ArrayList<>();
+        try {
+            for (int i = 0; i < this.parallelism; i++) {
+                tallies.add(pool.submit(() -> {
+                    Tally tally = new Tally(trainRuns.length, stations.size());
+                    RunState state = new RunState(trainRuns.length, stations.size());
+                    for (int first = nextRun.getAndAdd(batchSize); first < runs; first = nextRun.getAndAdd(batchSize)) {
+                        for (int run = first; run < Math.min(first + batchSize, runs); run++)
+                            state.play(trainRuns, this.delayModel, new SplittableRandom(seed + run * 0x9E3779B97F4A7C15L), tally);
+                    }
+                    return tally;
+                }));
+            }
+            Tally total = new Tally(trainRuns.length, stations.size());
+            for (Future<Tally> tally : tallies) total.add(tally.get());
+            return new Result(day, runs, trains, stations, total, Duration.ofNanos(System.nanoTime() - start));
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A train's stops, as needed by the runs, in the order the train reaches them. This is shared by all the runs.
+     */
+    private static final class TrainRun {
+
+        private final String trainNumber;
+
+        private final int[] stationIds;
+
+        /**
+         * The scheduled arrival and departure times at each stop, in seconds since the epoch.
+         */
+        private final long[] arrivalTimes;
+
+        private final long[] departureTimes;
+
+        private TrainRun(Train train) {
+            List<Entry> stops = train.getTimetable().getStops();
+            this.trainNumber = train.getNumber();
+            this.stationIds = new int[stops.size()];
+            this.arrivalTimes = new long[stops.size()];
+            this.departureTimes = new long[stops.size()];
+            for (int i = 0; i < stops.size(); i++) {
+                this.stationIds[i] = stops.get(i).getStation().getId();
+                this.arrivalTimes[i] = stops.get(i).getSchedule().get().getArrivalTime().toEpochSecond(ZoneOffset.UTC);
+                this.departureTimes[i] = stops.get(i).getSchedule().get().getDepartureTime().toEpochSecond(ZoneOffset.UTC);
+            }
+        }
+    }
+
+    /**
+     * The state of the engine during a run. Each thread has its own, and reuses it for all its runs.
+     */
+    private static final class RunState {
+
+        /**
+         * The stop each train has got to.
+         */
+        private final int[] stops;
+
+        /**
+         * The time each block section, between the station with the same id and the next one, becomes clear, in
+         * seconds since the epoch.
+         */
+        private final long[] blockClearTimes;
+
+        /**
+         * The trains that are ready to depart, as the time they are ready in the upper bits and the train's index in
+         * the lower <code>TRAIN_BITS</code> bits, kept as a binary heap, so that the earliest comes first.
+         */
+        private final long[] readyTrains;
+
+        private int readyTrainCount;
+
+        private static final int TRAIN_BITS = 20;
+
+        private RunState(int trainCount, int stationCount) {
+            this.stops = new int[trainCount];
+            this.blockClearTimes = new long[Math.max(0, stationCount - 1)];
+            this.readyTrains = new long[trainCount];
+        }
+
+        /**
+         * Plays the day once, and tallies the trains' lags.
+         */
+        private void play(TrainRun[] trainRuns, DelayModel delayModel, SplittableRandom random, Tally tally) {
+            Arrays.fill(this.blockClearTimes, Long.MIN_VALUE);
+            this.readyTrainCount = 0;
+            for (int train = 0; train < trainRuns.length; train++) {
+                this.stops[train] = 0;
+                TrainRun trainRun = trainRuns[train];
+                arrive(train, trainRun, trainRun.arrivalTimes[0] + delayModel.drawEntryDelay(trainRun.trainNumber, random),
+                        delayModel, random, tally);
+            }
+            while (this.readyTrainCount > 0) {
+                long readyTrain = pollReadyTrain();
+                long time = readyTrain >>> TRAIN_BITS;
+                int train = (int) (readyTrain & ((1 << TRAIN_BITS) - 1));
+                TrainRun trainRun = trainRuns[train];
+                int stop = this.stops[train];
+                int fromBlock = Math.min(trainRun.stationIds[stop], trainRun.stationIds[stop + 1]);
+                int toBlock = Math.max(trainRun.stationIds[stop], trainRun.stationIds[stop + 1]);
+                long clearTime = Long.MIN_VALUE;
+                for (int block = fromBlock; block < toBlock; block++)
+                    clearTime = Math.max(clearTime, this.blockClearTimes[block]);
+                if (clearTime > time) {
+                    //The line is not yet clear, so the train waits for it.
+                    addReadyTrain(clearTime, train);
+                    continue;
+                }
+                long arrivalTime = time + trainRun.arrivalTimes[stop + 1] - trainRun.departureTimes[stop];
+                for (int block = fromBlock; block < toBlock; block++) this.blockClearTimes[block] = arrivalTime;
+                this.stops[train] = stop + 1;
+                arrive(train, trainRun, arrivalTime, delayModel, random, tally);
+            }
+        }
+
+        /**
+         * Puts the train at its current stop at <code>arrivalTime</code>, and makes it ready to depart once it has
+         * halted there, unless it is its last stop on the section.
+         */
+        private void arrive(int train, TrainRun trainRun, long arrivalTime, DelayModel delayModel,
+                            SplittableRandom random, Tally tally) {
+            int stop = this.stops[train];
+            int lag = (int) (arrivalTime - trainRun.arrivalTimes[stop]);
+            tally.addStationLag(trainRun.stationIds[stop], lag);
+            if (stop == trainRun.stationIds.length - 1) {
+                tally.addTrainLag(train, lag);
+                return;
+            }
+            long dwellTime = trainRun.departureTimes[stop] - trainRun.arrivalTimes[stop];
+            long readyTime = Math.max(trainRun.departureTimes[stop],
+                    arrivalTime + dwellTime + delayModel.drawDwellOverrun(random));
+            addReadyTrain(readyTime, train);
+        }
+
+        private void addReadyTrain(long time, int train) {
+            long readyTrain = time << TRAIN_BITS | train;
+            int position = this.readyTrainCount++;
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (this.readyTrains[parent] <= readyTrain) break;
+                this.readyTrains[position] = this.readyTrains[parent];
+                position = parent;
+            }
+            this.readyTrains[position] = readyTrain;
+        }
+
+        private long pollReadyTrain() {
+            long first = this.readyTrains[0];
+            long last = this.readyTrains[--this.readyTrainCount];
+            int position = 0;
+            while (true) {
+                int child = position * 2 + 1;
+                if (child >= this.readyTrainCount) break;
+                if (child + 1 < this.readyTrainCount && this.readyTrains[child + 1] < this.readyTrains[child]) child++;
+                if (last <= this.readyTrains[child]) break;
+                this.readyTrains[position] = this.readyTrains[child];
+                position = child;
+            }
+            this.readyTrains[position] = last;
+            return first;
+        }
+    }
+
+    /**
+     * The lags tallied by one thread, or by all of them once they have been added together.
+     */
+    private static final class Tally {
+
+        /**
+         * The number of times each train arrived at its last stop on the section with each lag, in whole minutes.
+         */
+        private final long[][] trainLags;
+
+        /**
+         * The number of times any train arrived at each station with each lag, in whole minutes.
+         */
+        private final long[][] stationLags;
+
+        private Tally(int trainCount, int stationCount) {
+            this.trainLags = new long[trainCount][MAX_LAG_MINUTES + 1];
+            this.stationLags = new long[stationCount][MAX_LAG_MINUTES + 1];
+        }
+
+        private void addTrainLag(int train, int lagSeconds) {
+            this.trainLags[train][Math.min(lagSeconds / 60, MAX_LAG_MINUTES)]++;
+        }
+
+        private void addStationLag(int stationId, int lagSeconds) {
+            this.stationLags[stationId][Math.min(lagSeconds / 60, MAX_LAG_MINUTES)]++;
+        }
+
+        private void add(Tally other) {
+            for (int i = 0; i < this.trainLags.length; i++)
+                for (int minutes = 0; minutes <= MAX_LAG_MINUTES; minutes++)
+                    this.trainLags[i][minutes] += other.trainLags[i][minutes];
+            for (int i = 0; i < this.stationLags.length; i++)
+                for (int minutes = 0; minutes <= MAX_LAG_MINUTES; minutes++)
+                    this.stationLags[i][minutes] += other.stationLags[i][minutes];
+        }
+    }
+
+    /**
+     * How the lags of a train, or of the trains at a station, were spread over the runs, in whole minutes.
+     */
+    public static class LagDistribution {
+
+        private final long[] counts;
+
+        private final long count;
+
+        LagDistribution(long[] counts) {
+            this.counts = counts.clone();
+            this.count = Arrays.stream(counts).sum();
+        }
+
+        /**
+         * Returns the number of lags in the distribution.
+         * @return the number of lags
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * Returns the number of lags of the given number of whole minutes.
+         *
+         * @param minutes the lag, in whole minutes. Lags of <code>MAX_LAG_MINUTES</code> or more are counted together.
+         * @return the number of lags
+         */
+        public long getCount(int minutes) {
+            return this.counts[Math.min(minutes, MAX_LAG_MINUTES)];
+        }
+
+        /**
+         * Returns the share of the lags that are at most <code>ON_TIME_MINUTES</code>.
+         * @return the share of on-time arrivals, from 0 to 1, or 0 if there are no lags
+         */
+        public double getOnTimeShare() {
+            if (this.count == 0) return 0;
+            long onTime = 0;
+            for (int minutes = 0; minutes <= ON_TIME_MINUTES; minutes++) onTime += this.counts[minutes];
+            return (double) onTime / this.count;
+        }
+
+        /**
+         * Returns the lag that the given share of the lags are at or under.
+         *
+         * @param share the share, from 0 to 1, for example 0.9 for the 90th percentile
+         * @return the lag, in whole minutes, or 0 if there are no lags
+         */
+        public int getPercentile(double share) {
+            long rank = (long) Math.ceil(share * this.count);
+            long seen = 0;
+            for (int minutes = 0; minutes <= MAX_LAG_MINUTES; minutes++) {
+                seen += this.counts[minutes];
+                if (seen >= rank && seen > 0) return minutes;
+            }
+            return 0;
+        }
+
+        /**
+         * Returns the mean lag.
+         * @return the mean lag, in whole minutes, or 0 if there are no lags
+         */
+        public double getMean() {
+            if (this.count == 0) return 0;
+            double total = 0;
+            for (int minutes = 0; minutes <= MAX_LAG_MINUTES; minutes++) total += (double) minutes * this.counts[minutes];
+            return total / this.count;
+        }
+    }
+
+    /**
+     * The outcome of playing the day over and over.
+     */
+    public static class Result {
+
+        private final LocalDate day;
+
+        private final int runs;
+
+        private final Map<String, LagDistribution> trainLags = new LinkedHashMap<>();
+
+        private final Map<String, String> trainNames = new HashMap<>();
+
+        private final Map<String, LagDistribution> stationLags = new LinkedHashMap<>();
+
+        private final Duration wallTime;
+
+        Result(LocalDate day, int runs, List<Train> trains, List<Station> stations, Tally tally, Duration wallTime) {
+            this.day = day;
+            this.runs = runs;
+            for (int i = 0; i < trains.size(); i++) {
+                this.trainLags.put(trains.get(i).getNumber(), new LagDistribution(tally.trainLags[i]));
+                this.trainNames.put(trains.get(i).getNumber(), trains.get(i).getTrainName());
+            }
+            for (Station station : stations)
+                this.stationLags.put(station.getCode(), new LagDistribution(tally.stationLags[station.getId()]));
+            this.wallTime = wallTime;
+        }
+
+        /**
+         * Returns the number of times the day was played.
+         * @return the number of runs
+         */
+        public int getRuns() {
+            return this.runs;
+        }
+
+        /**
+         * Returns how late each train arrived at its last stop on the section, over all the runs.
+         * @return the distributions, keyed by train number, in the order the trains are listed for the day
+         */
+        public Map<String, LagDistribution> getTrainLags() {
+            return Collections.unmodifiableMap(this.trainLags);
+        }
+
+        /**
+         * Returns how late the trains arrived at each station, over all the runs.
+         * @return the distributions, keyed by station code, in the order of the stations' distance from home
+         */
+        public Map<String, LagDistribution> getStationLags() {
+            return Collections.unmodifiableMap(this.stationLags);
+        }
+
+        /**
+         * Returns the real time taken to play all the runs, including reading the trains.
+         * @return the real time taken
+         */
+        public Duration getWallTime() {
+            return this.wallTime;
+        }
+
+        /**
+         * Writes the distributions of the lags of each train, and at each station.
+         * @param out the stream to write to
+         */
+        public void write(PrintStream out) {
+            out.printf("Day simulated: %s, %d times%n", this.day, this.runs);
+            out.printf("%-8s %7s %8s %6s %6s %6s %s%n", "Train", "OnTime%", "Mean(m)", "P50", "P90", "P99", "Name");
+            this.trainLags.forEach((trainNumber, lags) -> out.printf("%-8s %7.1f %8.1f %6d %6d %6d %s%n",
+                    trainNumber, lags.getOnTimeShare() * 100, lags.getMean(), lags.getPercentile(0.5),
+                    lags.getPercentile(0.9), lags.getPercentile(0.99), this.trainNames.get(trainNumber)));
+            out.printf("%-8s %7s %8s %6s %6s %6s %s%n", "Station", "OnTime%", "Mean(m)", "P50", "P90", "P99", "Arrivals");
+            this.stationLags.forEach((stationCode, lags) -> out.printf("%-8s %7.1f %8.1f %6d %6d %6d %d%n",
+                    stationCode, lags.getOnTimeShare() * 100, lags.getMean(), lags.getPercentile(0.5),
+                    lags.getPercentile(0.9), lags.getPercentile(0.99), lags.getCount()));
+            out.printf("Played %d runs in %.3f s, at %.0f runs per second%n", this.runs,
+                    this.wallTime.toNanos() / 1e9, this.runs / (this.wallTime.toNanos() / 1e9));
+        }
+    }
+}
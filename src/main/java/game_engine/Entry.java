@@ -38,7 +38,7 @@ public class Entry implements Comparable<Entry> {
 
     @Override
     public int compareTo(Entry other) {
-        return this.station.getDistance().compareTo(other.station.getDistance());
+        return this.station.compareTo(other.station);
     }
 
     //TODO: This is a temporary method used only for the refactoring to Timetable. Remove once done.
@@ -48,6 +48,12 @@ public class Entry implements Comparable<Entry> {
 
     Station getStation() { return this.station; }
 
+    /**
+     * Returns the id of the station, as assigned by the <code>SectionRegistry</code>.
+     * @return the station's id, or -1 if the station has not been registered
+     */
+    int getStationId() { return this.station.getId(); }
+
     /**
      * Determines if the train's journey originates from this station.
      * @return <code>true</code> if the train's journey originates from this station.
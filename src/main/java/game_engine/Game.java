@@ -3,23 +3,29 @@ package game_engine;
 import common.models.SignalAspect;
 import common.models.TrainDirection;
 import game_engine.data_access.DataAccess;
+import game_engine.data_access.DataDirectoryWatcher;
+import game_engine.dto.ConflictDto;
 import game_engine.dto.StationDto;
 import game_engine.dto.TrainDto;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Clock;
-import java.util.*;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import javax.xml.parsers.ParserConfigurationException;
 
-import game_engine.initializers.TrainFactory;
-import game_engine.runners.TrainRunner;
-import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
+import game_engine.runners.EngineTick;
 
 /**
  * The Game class represents an instance of the Section Controller game currently being
@@ -33,147 +39,572 @@ public class Game {
      * A collection of stations in the game currently being played.
      */
     private List<Station> stations;
+
+    /**
+     * Assigns each station an id. <code>stations</code> holds the stations in the order of their ids.
+     */
+    private SectionRegistry sectionRegistry;
+
+    /**
+     * Holds where the trains on the section run, and when, so that the trains between two stations can be found.
+     */
+    private SectionOccupancyIndex occupancyIndex;
+
+    /**
+     * Predicts where the trains on the section cross each other, and which of those crossings cannot take place.
+     */
+    private ConflictDetector conflictDetector;
     /**
      * A collection of trains that are currently operating.
+     * Trains are added and removed by the <code>TrainLoader</code> while clients read the collection, hence the
+     * copy-on-write list.
      */
     private List<Train> trains;
 
     /**
-     * Used for mocking time operations for testing purposes.
-     * By default, it aligns to system time.
+     * Moves all the trains across the section, in one task.
+     */
+    private EngineTick engineTick;
+
+    /**
+     * Runs the <code>engineTick</code>, and records where it has moved the trains to if the game is being recorded.
+     */
+    private Runnable engineTickTask;
+
+    /**
+     * Runs the <code>engineTickTask</code>.
+     */
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * Records the changes to the state of the game, if it is being recorded.
+     */
+    private volatile ReplayLog replayLog;
+
+    /**
+     * The system property that holds the file to which games created with <code>new Game()</code> are recorded.
+     */
+    public static final String REPLAY_LOG_PROPERTY = "section_controller.replayLog";
+
+    /**
+     * The system property that holds the file the game is saved to when the game screen is closed, and resumed from
+     * when the game is next started.
+     */
+    public static final String CHECKPOINT_PROPERTY = "section_controller.checkpoint";
+
+    /**
+     * How often the trains are moved, in game time, when no train arrives at or departs from a stop in between.
+     */
+    private static final Duration ENGINE_TICK_INTERVAL = Duration.ofSeconds(2);
+
+    /**
+     * The least real time between two runs of a task that is run every so often in game time. This keeps a fast
+     * <code>GameClock</code> from running the tasks back to back.
+     */
+    private static final Duration MIN_REAL_INTERVAL = Duration.ofMillis(20);
+
+    /**
+     * Loads the upcoming trains, and retires the trains that have exited the section, as time advances.
+     */
+    private ScheduledExecutorService trainLoaderService;
+
+    /**
+     * Holds the trains that have been loaded, and the trains on the section.
+     */
+    private TrainLoader trainLoader;
+
+    /**
+     * How far ahead of their section entry time trains are loaded.
+     */
+    private Duration lookahead;
+
+    /**
+     * Watches the data folder for changes, if one has been set.
+     */
+    private DataDirectoryWatcher dataDirectoryWatcher;
+
+    /**
+     * The clock the game takes its time from. By default, this is a <code>GameClock</code> that starts at system
+     * time. A fixed clock can be passed in for testing purposes.
      */
     private Clock systemClock;
 
     /**
-     * Initializes the game instance.
+     * Runs the <code>TrainLoader</code>.
+     */
+    private Runnable trainLoaderTask;
+
+    /**
+     * The game time at which the <code>TrainLoader</code> last ran.
+     */
+    private volatile Instant lastTrainLoaderRun;
+
+    /**
+     * The classpath resource that holds the data of the section played by default.
+     */
+    public static final String DEFAULT_SECTION_RESOURCE = "/data/CAL-SRR.xml";
+
+    /**
+     * Reads the data of the section being played.
+     */
+    private SectionData sectionData;
+
+    /**
+     * How far ahead of their section entry time trains are loaded, by default.
+     */
+    public static final Duration DEFAULT_LOOKAHEAD = Duration.ofMinutes(60);
+
+    /**
+     * How often the <code>TrainLoader</code> checks for trains that have entered or exited the section, in game time.
+     */
+    static final Duration TRAIN_LOADER_INTERVAL = Duration.ofSeconds(30);
+
+    /**
+     * Initializes the game instance. The game starts at the current time, and runs at the speed set in the
+     * <code>section_controller.clockSpeed</code> system property, or in real time if it is not set. If the
+     * <code>section_controller.replayLog</code> system property is set, the game is recorded to the file it names.
      * @throws GameNotStartedException if there were some problems while starting the game
      */
     public Game() throws GameNotStartedException {
-        this(Clock.systemDefaultZone());
+        this(GameClock.fromSystemProperties());
+        String replayLogFile = System.getProperty(REPLAY_LOG_PROPERTY);
+        if (replayLogFile != null) {
+            try {
+                recordTo(Paths.get(replayLogFile));
+            } catch (IOException ex) {
+                stop();
+                throw new GameNotStartedException(ex);
+            }
+        }
     }
 
     /**
      * Constructor for testing purposes. This is useful for passing in a mock clock for setting the time for testing.
      */
     public Game(Clock mockClock) throws GameNotStartedException {
-        this.systemClock = mockClock;
-        this.stations = new ArrayList<>();
-        this.trains = new ArrayList<>();
-        populateStations();
-        populateTrains();
-        startTrains();
+        this(mockClock, DEFAULT_LOOKAHEAD);
+    }
+
+    /**
+     * Initializes the game instance on the default section, loading trains <code>lookahead</code> ahead of their
+     * section entry time.
+     *
+     * @param systemClock the clock that gives the current time
+     * @param lookahead   how far ahead of their section entry time trains are loaded. It must be less than a day.
+     * @throws GameNotStartedException if there were some problems while starting the game
+     * @see #Game(Clock, Duration, String)
+     */
+    public Game(Clock systemClock, Duration lookahead) throws GameNotStartedException {
+        this(systemClock, lookahead, DEFAULT_SECTION_RESOURCE);
+    }
+
+    /**
+     * Initializes the game instance, loading trains <code>lookahead</code> ahead of their section entry time.
+     * Trains are loaded in the background as time advances, and are retired once they exit the section, so the
+     * number of trains held in memory depends on <code>lookahead</code> rather than on the trains for the whole day.
+     *
+     * @param systemClock     the clock that gives the current time. If this is a <code>GameClock</code>, the trains
+     *                        are moved and loaded as often in game time as they are in real time, whatever its speed.
+     * @param lookahead       how far ahead of their section entry time trains are loaded. It must be less than a day.
+     * @param sectionResource the classpath resource that holds the section's data, for example
+     *                        <code>/data/CAL-SRR.xml</code>
+     * @throws GameNotStartedException if there were some problems while starting the game
+     */
+    public Game(Clock systemClock, Duration lookahead, String sectionResource) throws GameNotStartedException {
+        this(systemClock, lookahead, sectionResource, null);
+    }
+
+    /**
+     * Initializes the game instance, either afresh or from a checkpoint.
+     *
+     * @param checkpoint the checkpoint to resume the game from, or <code>null</code> to load the trains on the section
+     *                   from their data files
+     * @throws GameNotStartedException if there were some problems while starting the game
+     * @see #Game(Clock, Duration, String)
+     */
+    private Game(Clock systemClock, Duration lookahead, String sectionResource, Checkpoint checkpoint)
+            throws GameNotStartedException {
+        this.systemClock = systemClock;
+        this.lookahead = lookahead;
+        this.trains = new CopyOnWriteArrayList<>();
+        this.sectionData = new SectionData(sectionResource);
+        this.stations = this.sectionData.readStations();
+        this.sectionRegistry = new SectionRegistry(this.stations);
+        this.stations = this.sectionRegistry.getStations();
+        TrainLoader.State checkpointedState = null;
+        long restoreStart = System.nanoTime();
+        if (checkpoint != null) {
+            try {
+                checkpointedState = checkpoint.restore(this.stations);
+            } catch (IOException ex) {
+                throw new GameNotStartedException(ex);
+            }
+        }
+        this.occupancyIndex = new SectionOccupancyIndex(this.stations);
+        this.conflictDetector = new ConflictDetector(this.stations);
+        this.engineTick = new EngineTick(this.systemClock, new BlockOccupancy(this.stations));
+        this.engineTickTask = () -> {
+            this.engineTick.run();
+            ReplayLog log = this.replayLog;
+            if (log != null) log.recordTrainsMoved();
+        };
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        scheduleInGameTime(this.scheduledExecutorService, this.engineTickTask, this::getEngineTickInterval);
+        TrainLoader trainLoader = new TrainLoader(this.sectionData::getTrainsForTheDay, sectionResource,
+                this.stations, this.systemClock, lookahead, this::startTrain, this::retireTrain, this::replaceTrain);
+        this.trainLoader = trainLoader;
+        this.lastTrainLoaderRun = this.systemClock.instant();
+        if (checkpointedState == null) {
+            trainLoader.loadInitialTrains();
+        } else {
+            this.lastTrainLoaderRun = checkpoint.getLastTrainLoaderRun();
+            trainLoader.restore(checkpointedState);
+            System.out.printf("Resumed with %1$d trains on the section and %2$d upcoming trains in %3$.1f ms%n",
+                    this.trains.size(), trainLoader.getUpcomingTrains().size(), (System.nanoTime() - restoreStart) / 1e6);
+        }
+        this.trainLoaderTask = () -> {
+            this.lastTrainLoaderRun = this.systemClock.instant();
+            trainLoader.run();
+        };
+        //Loading trains reads their data files, so it is done on its own thread to avoid holding up the trains.
+        this.trainLoaderService = Executors.newSingleThreadScheduledExecutor();
+        scheduleInGameTime(this.trainLoaderService, this.trainLoaderTask, TRAIN_LOADER_INTERVAL);
+        Optional<Path> dataDirectory = DataAccess.getInstance().getDataDirectory();
+        if (dataDirectory.isPresent()) watchDataDirectory(dataDirectory.get(), trainLoader);
     }
 
     /**
-     * Loads station data for all stations on the section.
-     * @throws GameNotStartedException if a problem occurs while reading the section's XML file.
+     * Resumes a game from a checkpoint saved by <code>checkpointTo</code>. The game carries on at the game time the
+     * checkpoint was saved at, on the same section, with the same signal aspects and trains. Only the section's
+     * stations are read; the trains are rebuilt from the checkpoint, without reading their data files.
+     *
+     * @param checkpointFile the checkpoint
+     * @return the game
+     * @throws GameNotStartedException if the checkpoint cannot be read, or if there were some problems while starting
+     *                                 the game
      */
-    private void populateStations() throws GameNotStartedException {
-        this.stations = new ArrayList<>();
-        InputStream stationsXMLStream = getClass().getResourceAsStream("/data/CAL-SRR.xml");
+    public static Game resume(Path checkpointFile) throws GameNotStartedException {
+        return resume(checkpointFile, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Resumes a game from a checkpoint, with its game time running from the current time of <code>realClock</code>.
+     * This is useful for passing in a fixed clock for testing.
+     *
+     * @param checkpointFile the checkpoint
+     * @param realClock      the clock real time is taken from
+     * @return the game. Its clock is a <code>GameClock</code> at the speed saved in the checkpoint.
+     * @throws GameNotStartedException if the checkpoint cannot be read, or if there were some problems while starting
+     *                                 the game
+     * @see #resume(Path)
+     */
+    public static Game resume(Path checkpointFile, Clock realClock) throws GameNotStartedException {
+        Checkpoint checkpoint;
         try {
-            Vector<Element> stationsFromXMLFile = DataAccess.getInstance().extractData(stationsXMLStream, "station");
-            this.stations = stationsFromXMLFile.stream()
-                    .map(element -> {
-                        String code = element.getAttribute("code");
-                        String name = element.getAttribute("name");
-                        int noOfTracks = Integer.parseInt(element.getAttribute("no-of-tracks"));
-                        int distanceFromHome = Integer.parseInt(element.getAttribute("distance-from-home"));
-                        return new Station(code, name, noOfTracks, distanceFromHome);
-                    })
-                    .collect(Collectors.toList());
-        } catch (IOException | SAXException | ParserConfigurationException ex) {
+            checkpoint = new Checkpoint(checkpointFile);
+        } catch (IOException ex) {
             throw new GameNotStartedException(ex);
         }
+        return new Game(checkpoint.createClock(realClock), checkpoint.getLookahead(), checkpoint.getSectionResource(),
+                checkpoint);
     }
 
     /**
-     * Loads train data for all the trains that will run in the next one hour.
-     * @throws GameNotStartedException if a problem occurs while reading either the section XML file
-     *         or while reading any of the trains' XML files.
+     * Runs <code>task</code> on <code>executor</code> every <code>interval</code> of game time. With a
+     * <code>GameClock</code> that runs faster than real time, the task is run more often in real time, but never more
+     * often than every <code>MIN_REAL_INTERVAL</code>.
+     *
+     * @param executor the executor to run the task on
+     * @param task     the task
+     * @param interval the game time between the end of one run of the task and the start of the next
      */
-    private void populateTrains() throws GameNotStartedException {
-        Map<String,Integer> stationDistanceMap = new HashMap<>();
-        this.stations.stream().forEach(station -> stationDistanceMap.put(station.getCode(), station.getDistance()));
+    private void scheduleInGameTime(ScheduledExecutorService executor, Runnable task, Duration interval) {
+        scheduleInGameTime(executor, task, () -> interval);
+    }
 
-        try {
-            //Let's get the daily trains first
-            InputStream trainsXMLStream = getClass().getResourceAsStream("/data/CAL-SRR.xml");
-            Vector<Element> temp1 = DataAccess.getInstance().extractData(trainsXMLStream, "train[@day-of-arrival=Daily]");
-
-            String day = "";
-            //Let's now find out what day it is, and then get the corresponding trains.
-            switch (LocalDateTime.now(this.systemClock).getDayOfWeek()) {
-                case SUNDAY:
-                    day = "Su";
-                    break;
-                case MONDAY:
-                    day = "M";
-                    break;
-                case TUESDAY:
-                    day = "Tu";
-                    break;
-                case WEDNESDAY:
-                    day = "W";
-                    break;
-                case THURSDAY:
-                    day = "Th";
-                    break;
-                case FRIDAY:
-                    day = "F";
-                    break;
-                case SATURDAY:
-                    day = "Sa";
+    /**
+     * Runs <code>task</code> on <code>executor</code> again and again, with the game time in between given by
+     * <code>interval</code> each time.
+     *
+     * @param executor the executor to run the task on
+     * @param task     the task
+     * @param interval gives the game time between the end of one run of the task and the start of the next
+     * @see #scheduleInGameTime(ScheduledExecutorService, Runnable, Duration)
+     */
+    private void scheduleInGameTime(ScheduledExecutorService executor, Runnable task, Supplier<Duration> interval) {
+        Duration gameInterval = interval.get();
+        Duration realInterval = this.systemClock instanceof GameClock
+                ? ((GameClock) this.systemClock).toRealTime(gameInterval) : gameInterval;
+        if (realInterval.compareTo(MIN_REAL_INTERVAL) < 0) realInterval = MIN_REAL_INTERVAL;
+        executor.schedule(() -> {
+            try {
+                task.run();
+            } finally {
+                if (!executor.isShutdown()) scheduleInGameTime(executor, task, interval);
             }
-            trainsXMLStream = getClass().getResourceAsStream("/data/CAL-SRR.xml");
-            Vector<Element> temp2 = DataAccess.getInstance().extractData(trainsXMLStream, "train.contains(@day-of-arrival," + day + ")");
-
-            temp1.addAll(temp1.size(), temp2);
-            //temp1 is for Renderer; whereas the processing below is for GameScreen
-            for (Element train : temp1) {
-                /*All trains for the day have been loaded. But we need only the trains that will
-                start from the first station in the next hour. So we check if the current time
-                falls within the train's first and last station times.*/
-                LocalDateTime currentTime = LocalDateTime.now(this.systemClock);
-                String fs_time = "", ls_time = "";
-                //get the first station time
-                fs_time = train.getAttribute("section-entry-time");
-                ls_time = train.getAttribute("section-leaving-time");
-                //We have got the times; let us convert them into LocalDateTime instances.
-                String[] time1 = fs_time.split(":");
-                LocalDateTime first_station_time = LocalDateTime.now(this.systemClock).withHour(Integer.parseInt(time1[0])).withMinute(Integer.parseInt(time1[1]));
-                String[] time2 = ls_time.split(":");
-                LocalDateTime last_station_time = LocalDateTime.now(this.systemClock).withHour(Integer.parseInt(time2[0])).withMinute(Integer.parseInt(time2[1]));
-
-                if (first_station_time.getHour() >= 20) {
-                    if (last_station_time.getHour() >= 0 && last_station_time.getHour() <= 6) {
-                        last_station_time.plusDays(1);
-                    }
-                }
-
-                //We are ready to compare.
-                if (currentTime.isAfter(first_station_time) && currentTime.isBefore(last_station_time)) {
-                    Train individual_train = new TrainFactory().create(train.getAttribute("number"), train.getAttribute("name"),
-                            train.getAttribute("direction"), this.stations);
-                    trains.add(individual_train);
-                }
+        }, realInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the game time until the trains are next moved. This is <code>ENGINE_TICK_INTERVAL</code>, or less if a
+     * train arrives at or departs from a stop before then, so that the train is moved at the time it does.
+     *
+     * @return the game time until the next tick
+     */
+    private Duration getEngineTickInterval() {
+        LocalDateTime currentTime = LocalDateTime.now(this.systemClock);
+        return this.engineTick.getNextEventAfter(currentTime)
+                .map(nextEvent -> Duration.between(currentTime, nextEvent))
+                .filter(untilNextEvent -> untilNextEvent.compareTo(ENGINE_TICK_INTERVAL) < 0)
+                .orElse(ENGINE_TICK_INTERVAL);
+    }
+
+    /**
+     * Moves game time straight on to the next time something happens in the game, and brings the game up to that
+     * time. Something happens when a train on the section arrives at or departs from a stop, or enters or exits the
+     * section, and when upcoming trains are checked for.
+     * <br><br>
+     * This is meant to be called repeatedly, to play through the game as fast as the trains can be moved.
+     *
+     * @return the new game time
+     * @throws IllegalStateException if the game does not take its time from an unthrottled <code>GameClock</code>
+     * @throws InterruptedException  if the thread is interrupted while the game is brought up to the new time
+     */
+    public LocalDateTime advanceToNextEvent() throws InterruptedException {
+        if (!(this.systemClock instanceof GameClock) || !((GameClock) this.systemClock).isUnthrottled())
+            throw new IllegalStateException("The game's clock must be an unthrottled GameClock");
+        GameClock gameClock = (GameClock) this.systemClock;
+        Instant nextTrainLoaderRun = this.lastTrainLoaderRun.plus(TRAIN_LOADER_INTERVAL);
+        Instant nextEvent = this.engineTick.getNextEventAfter(LocalDateTime.now(gameClock))
+                .map(time -> time.atZone(gameClock.getZone()).toInstant())
+                .filter(time -> time.isBefore(nextTrainLoaderRun))
+                .orElse(nextTrainLoaderRun);
+        gameClock.advanceTo(nextEvent);
+        try {
+            if (!nextEvent.isBefore(nextTrainLoaderRun)) this.trainLoaderService.submit(this.trainLoaderTask).get();
+            this.scheduledExecutorService.submit(this.engineTickTask).get();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+        return LocalDateTime.now(gameClock);
+    }
+
+    /**
+     * Records every change to the state of the game from now on to <code>logFile</code>, that is, the signal aspects
+     * set, the trains entering and leaving the section, and where the trains are moved to. The game can then be played
+     * back exactly as it ran, using <code>Replay</code>. If the game is already being recorded, the recording carries
+     * on in the new file.
+     *
+     * @param logFile the file to record the game to. Any file that is already there is replaced.
+     * @throws IOException if the file cannot be written to
+     * @see Replay
+     */
+    public void recordTo(Path logFile) throws IOException {
+        //The log is started on the loader's thread, so that no train enters or leaves the section while it is started.
+        runOnTrainLoaderThread(() -> {
+            ReplayLog previousLog = this.replayLog;
+            this.replayLog = new ReplayLog(logFile, this.systemClock, this.stations, this.trains);
+            if (previousLog != null) previousLog.close();
+            return null;
+        }, "Interrupted while starting to record to " + logFile);
+    }
+
+    /**
+     * Saves the whole state of the game to <code>checkpointFile</code>, that is, the game time and the clock's speed,
+     * the signal aspects, and the trains that have been loaded, with their timetables and positions. The game can be
+     * resumed from it with <code>resume</code>, even after the application has been closed.
+     *
+     * @param checkpointFile the file to save the game to. Any checkpoint that is already there is replaced once the
+     *                       new one has been written out in full.
+     * @throws IOException if the checkpoint cannot be written
+     * @see #resume(Path)
+     */
+    public void checkpointTo(Path checkpointFile) throws IOException {
+        //The checkpoint is saved on the loader's thread, so that no train enters or leaves the section while it is saved.
+        runOnTrainLoaderThread(() -> {
+            Checkpoint.write(checkpointFile, this.sectionData.getSectionResource(), this.lookahead, this.systemClock,
+                    this.lastTrainLoaderRun, this.stations, this.trainLoader.getState());
+            return null;
+        }, "Interrupted while saving a checkpoint to " + checkpointFile);
+    }
+
+    /**
+     * Runs <code>task</code> on the <code>TrainLoader</code>'s thread, and waits for it to finish.
+     *
+     * @param task               the task
+     * @param interruptedMessage the message of the exception thrown if the thread is interrupted while waiting
+     * @throws IOException if the task throws one
+     */
+    private void runOnTrainLoaderThread(Callable<Void> task, String interruptedMessage) throws IOException {
+        try {
+            this.trainLoaderService.submit(task).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(interruptedMessage);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Stops the game. The trains are no longer moved or loaded, and the data folder is no longer watched.
+     */
+    public void stop() {
+        this.scheduledExecutorService.shutdownNow();
+        this.trainLoaderService.shutdownNow();
+        if (this.replayLog != null) this.replayLog.close();
+        if (this.dataDirectoryWatcher != null) {
+            try {
+                this.dataDirectoryWatcher.close();
+            } catch (IOException ex) {
+                System.out.println("Unable to stop watching the data folder: " + ex);
             }
-            System.out.println("Total trains within the next one hour: " + this.trains.size());
-            this.trains.stream().forEach(train -> System.out.println(train.getNumber() + " " + train.getTrainName()));
-        } catch (IOException | SAXException | ParserConfigurationException ex) {
+        }
+    }
+
+    /**
+     * Returns the trains on the section. This is package-scoped as clients must use <code>getTrains()</code>.
+     * @return the trains
+     */
+    List<Train> getRunningTrains() {
+        return Collections.unmodifiableList(this.trains);
+    }
+
+    /**
+     * Returns the stations on the section, in the order of their ids.
+     * This is package-scoped as clients must use <code>getStations()</code>.
+     * @return the stations
+     */
+    List<Station> getStationsById() {
+        return this.stations;
+    }
+
+    /**
+     * Returns the aspects of the signals of every station on the section.
+     * This is package-scoped as clients must use <code>setStationAspect()</code> and <code>getStations()</code>.
+     * @return the table of aspects
+     */
+    SignalAspectTable getSignalAspects() {
+        return this.sectionRegistry.getSignalAspects();
+    }
+
+    /**
+     * Returns the clock the game takes its time from. Clients can use this to show the game time.
+     * @return the game's clock
+     */
+    public Clock getClock() {
+        return this.systemClock;
+    }
+
+    /**
+     * Watches the data folder set using <code>DataAccess.setDataDirectory</code>, and reloads the trains whose data
+     * has changed while the game keeps running. Only the changed files are read again.
+     * <br><br>
+     * Changes to the section's stations are not picked up; they need the game to be restarted.
+     *
+     * @param dataDirectory the data folder
+     * @param trainLoader   the loader that holds the loaded trains
+     * @throws GameNotStartedException if the data folder cannot be watched
+     */
+    private void watchDataDirectory(Path dataDirectory, TrainLoader trainLoader) throws GameNotStartedException {
+        String sectionFileName = this.sectionData.getFileName();
+        try {
+            this.dataDirectoryWatcher = new DataDirectoryWatcher(dataDirectory, changedFiles -> {
+                Set<String> changedTrains = changedFiles.stream()
+                        .filter(fileName -> !fileName.equals(sectionFileName))
+                        .map(fileName -> fileName.substring(0, fileName.length() - ".xml".length()))
+                        .collect(Collectors.toSet());
+                //Reloading is done on the loader's thread, so that it does not overlap with the loader's runs.
+                this.trainLoaderService.execute(
+                        () -> trainLoader.reload(changedFiles.contains(sectionFileName), changedTrains));
+            });
+        } catch (IOException ex) {
             throw new GameNotStartedException(ex);
         }
+        this.dataDirectoryWatcher.start();
+        System.out.println("Watching " + dataDirectory + " for changes to train data");
     }
 
     /**
-     * Adds the train to an <code>Executor</code> and triggers them.
+     * Adds the train to the <code>EngineTick</code> so that it starts moving across the section.
+     * @param train the train that has entered the section
      */
-    private void startTrains() {
-        ScheduledExecutorService scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
-        trains.stream()
-                .map(train -> new TrainRunner(train.getTimetable(), train.getTrainPosition()))
-                .forEach(runner -> scheduledExecutorService.scheduleWithFixedDelay(
-                    runner, 2, 2, TimeUnit.SECONDS));
+    private void startTrain(Train train) {
+        this.trains.add(train);
+        this.occupancyIndex.put(train.getNumber(), train.getTimetable());
+        this.conflictDetector.put(train.getNumber(), train.getTimetable());
+        if (train.getLag() != 0) this.conflictDetector.setLag(train.getNumber(), Duration.ofSeconds(train.getLag()));
+        this.engineTick.add(train.getNumber(), train.getTimetable(), train.getTrainPosition());
+        ReplayLog log = this.replayLog;
+        if (log != null) log.recordTrainEntered(train);
+    }
+
+    /**
+     * Stops moving the train, and removes it from the game.
+     * @param train the train that has exited the section
+     */
+    private void retireTrain(Train train) {
+        this.trains.remove(train);
+        this.occupancyIndex.remove(train.getNumber());
+        this.conflictDetector.remove(train.getNumber());
+        this.engineTick.remove(train.getNumber());
+        ReplayLog log = this.replayLog;
+        if (log != null) log.recordTrainExited(train);
+    }
+
+    /**
+     * Puts the reloaded train in place of the train on the section. The new train is moved in place of the old one
+     * from the next tick, and clients see either the old train or the new one, never both or neither.
+     *
+     * @param train         the train on the section
+     * @param reloadedTrain the train that takes its place
+     */
+    private void replaceTrain(Train train, Train reloadedTrain) {
+        //The reloaded train runs as late as the train it replaces; the conflict detector keeps the lag on its own.
+        reloadedTrain.setLag(train.getLag());
+        this.engineTick.add(reloadedTrain.getNumber(), reloadedTrain.getTimetable(), reloadedTrain.getTrainPosition());
+        int index = this.trains.indexOf(train);
+        if (index >= 0) this.trains.set(index, reloadedTrain);
+        else this.trains.add(reloadedTrain);
+        this.occupancyIndex.put(reloadedTrain.getNumber(), reloadedTrain.getTimetable());
+        this.conflictDetector.put(reloadedTrain.getNumber(), reloadedTrain.getTimetable());
+        ReplayLog log = this.replayLog;
+        if (log != null) log.recordTrainEntered(reloadedTrain);
+    }
+
+    /**
+     * Returns the time taken by the last move of the trains on the section.
+     * @return the duration of the last move, or zero if the trains have not been moved yet
+     */
+    public Duration getLastTickDuration() {
+        return this.engineTick.getLastTickDuration();
+    }
+
+    /**
+     * Returns the time taken by the slowest move of the trains on the section since this was last called, and starts
+     * measuring afresh.
+     * @return the duration of the slowest move, or zero if the trains have not been moved since this was last called
+     */
+    public Duration takeSlowestTickDuration() {
+        return this.engineTick.takeSlowestTickDuration();
+    }
+
+    /**
+     * Sets how late a train on the section is running. Only that train's crossings with the other trains are
+     * predicted again, taking the train to keep to its timetable, later by <code>lag</code> at every stop.
+     *
+     * @param trainNumber the train's number
+     * @param lag         how late the train is. This is negative if the train is early.
+     * @throws NoSuchElementException if the train is not on the section
+     */
+    public void setTrainLag(String trainNumber, Duration lag) {
+        Train train = this.trains.stream()
+                .filter(runningTrain -> runningTrain.getNumber().equals(trainNumber))
+                .findFirst()
+                .orElseThrow(() -> new NoSuchElementException("No train numbered " + trainNumber + " on the section"));
+        train.setLag((int) lag.getSeconds());
+        this.conflictDetector.setLag(trainNumber, lag);
     }
 
     /**
@@ -188,24 +619,121 @@ public class Game {
         return Collections.unmodifiableList(trainsDto);
     }
 
+    /**
+     * Returns the trains on the section that are between the two stations at any time from <code>from</code> to
+     * <code>to</code>, as per their timetables. Trains halted at a station are not between stations.
+     * <br><br>
+     * This is answered from an index of the trains' runs, rather than by going through every train.
+     *
+     * @param stationId      the id of one of the stations, as given by <code>StationDto.getId()</code>
+     * @param otherStationId the id of the other station
+     * @param from           the start of the window
+     * @param to             the end of the window. This is the same as <code>from</code> to find the trains at a
+     *                       given time.
+     * @return an immutable collection of <code>TrainDto</code> objects that describes each train.
+     * @throws NoSuchElementException if there is no station with either of the ids
+     */
+    public List<TrainDto> getTrainsBetween(int stationId, int otherStationId, LocalDateTime from, LocalDateTime to) {
+        for (int id : new int[] {stationId, otherStationId}) {
+            if (id < 0 || id >= this.sectionRegistry.size()) throw new NoSuchElementException("No station with id " + id);
+        }
+        Set<String> trainNumbers = this.occupancyIndex.getTrainsBetween(stationId, otherStationId, from, to);
+        List<TrainDto> trainsDto = this.trains.stream()
+                .filter(train -> trainNumbers.contains(train.getNumber()))
+                .map(train -> new TrainDto(train.getTrainName(), train.getDistance(), train.getDirection()))
+                .collect(Collectors.toList());
+        return Collections.unmodifiableList(trainsDto);
+    }
+
+    /**
+     * Returns the crossings of the trains on the section that cannot take place as per their timetables, because the
+     * trains cross between stations, or at a station without a free loop track.
+     *
+     * @return an immutable collection of <code>ConflictDto</code> objects that describes each conflict, in order of time.
+     */
+    public List<ConflictDto> getConflicts() {
+        Map<String, String> trainNames = new HashMap<>();
+        this.trains.forEach(train -> trainNames.put(train.getNumber(), train.getTrainName()));
+        List<ConflictDto> conflictsDto = this.conflictDetector.getConflicts().stream()
+                .map(conflict -> new ConflictDto(
+                        trainNames.getOrDefault(conflict.getTrainNumber(), conflict.getTrainNumber()),
+                        trainNames.getOrDefault(conflict.getOtherTrainNumber(), conflict.getOtherTrainNumber()),
+                        conflict.getCrossingType(), conflict.getTime(),
+                        conflict.getStation().isPresent() ? conflict.getStation().get().getName()
+                                : conflict.getStationsBetween()[0].get().getName() + " - "
+                                + conflict.getStationsBetween()[1].get().getName()))
+                .collect(Collectors.toList());
+        return Collections.unmodifiableList(conflictsDto);
+    }
+
+    /**
+     * Returns whether a train may leave a station, as far as the block it would enter is concerned. The block between
+     * two stations is free if there is no train between them.
+     *
+     * @param stationId the id of the station, as given by <code>StationDto.getId()</code>
+     * @param direction the direction the train is travelling in
+     * @return <code>true</code> if there is no train in the block ahead, or the train would leave the section
+     */
+    public boolean isBlockAheadFree(int stationId, TrainDirection direction) {
+        return this.engineTick.isBlockAheadFree(stationId, direction);
+    }
+
+    /**
+     * Returns the blocks that have more than one train in them, which should never happen under absolute block
+     * working. Clients can repeatedly call this to raise an alarm while there are any.
+     * @return an immutable list of the blocks, in order from home, each as the names of the stations at either end,
+     * for example "Calicut - Kallayi"
+     */
+    public List<String> getOverOccupiedBlocks() {
+        List<String> overOccupiedBlocks = new ArrayList<>();
+        for (int block : this.engineTick.getOverOccupiedBlocks())
+            overOccupiedBlocks.add(this.stations.get(block).getName() + " - " + this.stations.get(block + 1).getName());
+        return Collections.unmodifiableList(overOccupiedBlocks);
+    }
+
     /**
      * Returns an immutable collection of all the stations that are currently running on the section.
      * Clients can repeatedly call this to get constant updates on the stations.
      * @return an immutable collection of <code>StationDto</code> objects that describes each station.
      */
     public List<StationDto> getStations() {
-        List<StationDto> stationsDto = this.stations.stream()
-                .map(station -> new StationDto(station.getName(), station.getDistance(), station.getAspects()))
-                .collect(Collectors.toList());
+        //The aspects are read all at once, so that no station is seen part way through a change.
+        int[] packedAspects = new int[this.stations.size()];
+        this.sectionRegistry.getSignalAspects().readAll(packedAspects);
+        List<StationDto> stationsDto = new ArrayList<>(this.stations.size());
+        for (Station station : this.stations) {
+            int aspects = packedAspects[station.getId()];
+            stationsDto.add(new StationDto(station.getId(), station.getName(), station.getDistance(), new SignalAspect[] {
+                    SignalAspectTable.aspect(aspects, TrainDirection.TOWARDS_HOME),
+                    SignalAspectTable.aspect(aspects, TrainDirection.AWAY_FROM_HOME)}));
+        }
         return Collections.unmodifiableList(stationsDto);
     }
 
+    /**
+     * Sets the aspects of the signals at the station.
+     *
+     * @param stationName        the name of the station
+     * @param towardsHomeAspect  the aspect of the signal for trains travelling towards home
+     * @param awayFromHomeAspect the aspect of the signal for trains travelling away from home
+     */
     public void setStationAspect(String stationName, SignalAspect towardsHomeAspect, SignalAspect awayFromHomeAspect) {
-        Station station = this.stations.stream()
-                .filter(singleStation -> singleStation.getName().equals(stationName))
-                .findFirst().get();
-        station.setAspect(TrainDirection.TOWARDS_HOME, towardsHomeAspect);
-        station.setAspect(TrainDirection.AWAY_FROM_HOME, awayFromHomeAspect);
+        int stationId = this.sectionRegistry.getIdByName(stationName);
+        if (stationId < 0) throw new NoSuchElementException("No station named " + stationName);
+        setStationAspect(stationId, towardsHomeAspect, awayFromHomeAspect);
+    }
+
+    /**
+     * Sets the aspects of the signals at the station.
+     *
+     * @param stationId          the id of the station, as given by <code>StationDto.getId()</code>
+     * @param towardsHomeAspect  the aspect of the signal for trains travelling towards home
+     * @param awayFromHomeAspect the aspect of the signal for trains travelling away from home
+     */
+    public void setStationAspect(int stationId, SignalAspect towardsHomeAspect, SignalAspect awayFromHomeAspect) {
+        this.sectionRegistry.getSignalAspects().set(stationId, towardsHomeAspect, awayFromHomeAspect);
+        ReplayLog log = this.replayLog;
+        if (log != null) log.recordAspects(stationId, towardsHomeAspect, awayFromHomeAspect);
     }
 
 }
@@ -0,0 +1,229 @@
+package game_engine;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * The <code>GameClock</code> class is the clock the game takes its time from. It can run faster than real time, be
+ * paused and resumed, or be moved on only when asked to.
+ * <br><br>
+ * While running, game time passes <code>speed</code> times as fast as the underlying clock, say 60 times as fast
+ * for a minute of game time per real second. While paused, game time does not pass. While unthrottled, game time
+ * does not pass on its own either, but is moved straight on to the next thing that happens in the game, using
+ * <code>advanceTo</code>, so that a whole day can be played through as fast as the trains can be moved.
+ * <br><br>
+ * As a <code>Clock</code>, this can be passed to anything that takes one, such as the <code>Game</code>, the
+ * <code>TrainFactory</code> or <code>LocalDateTime.now(Clock)</code>. All of them then see the same game time.
+ */
+public final class GameClock extends Clock {
+
+    /**
+     * The speed at which game time passes as fast as real time.
+     */
+    public static final double REAL_TIME = 1;
+
+    /**
+     * The system property that holds the speed at which games created with <code>new Game()</code> run, for example,
+     * <code>60</code> for a minute of game time per second.
+     */
+    public static final String SPEED_PROPERTY = "section_controller.clockSpeed";
+
+    /**
+     * The clock that real time is taken from.
+     */
+    private final Clock realClock;
+
+    private final ZoneId zone;
+
+    /**
+     * The game time at <code>realAnchor</code>.
+     */
+    private Instant gameAnchor;
+
+    /**
+     * The real time at which game time was last set or the speed was last changed.
+     */
+    private Instant realAnchor;
+
+    private double speed = REAL_TIME;
+
+    private boolean paused;
+
+    private boolean unthrottled;
+
+    /**
+     * Creates a clock that starts at the current time, and runs in real time.
+     *
+     * @param realClock the clock that real time is taken from. The game clock has the same time zone.
+     */
+    public GameClock(Clock realClock) {
+        this(realClock, realClock.instant());
+    }
+
+    /**
+     * Creates a clock that starts at <code>start</code>, and runs in real time from then on.
+     *
+     * @param realClock the clock that real time is taken from. The game clock has the same time zone.
+     * @param start     the game time to start at
+     */
+    public GameClock(Clock realClock, Instant start) {
+        this.realClock = realClock;
+        this.zone = realClock.getZone();
+        this.gameAnchor = start;
+        this.realAnchor = realClock.instant();
+    }
+
+    /**
+     * Creates a clock that starts at the current time, and runs at the speed set in the
+     * <code>section_controller.clockSpeed</code> system property, or in real time if it is not set.
+     *
+     * @return the clock
+     * @throws IllegalArgumentException if the property is not a positive number
+     */
+    public static GameClock fromSystemProperties() {
+        GameClock gameClock = new GameClock(Clock.systemDefaultZone());
+        String speed = System.getProperty(SPEED_PROPERTY);
+        if (speed != null) gameClock.setSpeed(Double.parseDouble(speed));
+        return gameClock;
+    }
+
+    /**
+     * Creates a clock that starts at <code>start</code>, and is only moved on by <code>advanceTo</code>.
+     *
+     * @param start the game time to start at
+     * @param zone  the time zone of the clock
+     * @return the clock
+     */
+    public static GameClock unthrottled(Instant start, ZoneId zone) {
+        //Real time plays no part in an unthrottled clock, so it is held still, for game time to start exactly at start.
+        GameClock gameClock = new GameClock(Clock.fixed(start, zone), start);
+        gameClock.setUnthrottled(true);
+        return gameClock;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return this.zone;
+    }
+
+    /**
+     * Returns a clock that gives the same game time as this one, in another time zone. Pausing, resuming or changing
+     * the speed of either clock changes both.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        if (zone.equals(this.zone)) return this;
+        GameClock gameClock = this;
+        return new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return zone;
+            }
+
+            @Override
+            public Clock withZone(ZoneId otherZone) {
+                return gameClock.withZone(otherZone);
+            }
+
+            @Override
+            public Instant instant() {
+                return gameClock.instant();
+            }
+        };
+    }
+
+    /**
+     * Returns the current game time.
+     * @return the game time
+     */
+    @Override
+    public synchronized Instant instant() {
+        if (this.paused || this.unthrottled) return this.gameAnchor;
+        long realNanos = Duration.between(this.realAnchor, this.realClock.instant()).toNanos();
+        return this.gameAnchor.plusNanos((long) (realNanos * this.speed));
+    }
+
+    /**
+     * Stops game time from passing, until <code>resume</code> is called.
+     */
+    public synchronized void pause() {
+        reanchor();
+        this.paused = true;
+    }
+
+    /**
+     * Lets game time pass again after <code>pause</code>, from where it was paused.
+     */
+    public synchronized void resume() {
+        reanchor();
+        this.paused = false;
+    }
+
+    public synchronized boolean isPaused() {
+        return this.paused;
+    }
+
+    /**
+     * Sets how many times as fast as real time game time passes, for example, <code>60</code> for a minute of game
+     * time per second. Game time carries on from where it is.
+     *
+     * @param speed the speed
+     * @throws IllegalArgumentException if <code>speed</code> is not positive
+     */
+    public synchronized void setSpeed(double speed) {
+        if (!(speed > 0)) throw new IllegalArgumentException("The clock's speed must be positive, not " + speed);
+        reanchor();
+        this.speed = speed;
+    }
+
+    public synchronized double getSpeed() {
+        return this.speed;
+    }
+
+    /**
+     * Sets whether game time is only moved on by <code>advanceTo</code>, rather than passing with real time.
+     *
+     * @param unthrottled <code>true</code> to move game time on only when asked to
+     */
+    public synchronized void setUnthrottled(boolean unthrottled) {
+        reanchor();
+        this.unthrottled = unthrottled;
+    }
+
+    public synchronized boolean isUnthrottled() {
+        return this.unthrottled;
+    }
+
+    /**
+     * Moves game time on to <code>time</code>. If the clock is running, game time passes on from there.
+     *
+     * @param time the new game time
+     * @throws IllegalArgumentException if <code>time</code> is before the current game time
+     */
+    public synchronized void advanceTo(Instant time) {
+        Instant currentTime = instant();
+        if (time.isBefore(currentTime))
+            throw new IllegalArgumentException("Game time cannot go back from " + currentTime + " to " + time);
+        this.gameAnchor = time;
+        this.realAnchor = this.realClock.instant();
+    }
+
+    /**
+     * Returns how long it takes in real time for <code>gameTime</code> to pass at the current speed. If game time is
+     * not passing with real time, because the clock is paused or unthrottled, this is <code>gameTime</code> itself.
+     *
+     * @param gameTime a duration of game time
+     * @return the duration in real time
+     */
+    public synchronized Duration toRealTime(Duration gameTime) {
+        if (this.paused || this.unthrottled) return gameTime;
+        return Duration.ofNanos((long) (gameTime.toNanos() / this.speed));
+    }
+
+    private void reanchor() {
+        this.gameAnchor = instant();
+        this.realAnchor = this.realClock.instant();
+    }
+}
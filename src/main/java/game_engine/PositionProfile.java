@@ -0,0 +1,177 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import common.models.TrainRunningStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * The <code>PositionProfile</code> class gives the distance of a train from the home station at any time, as per its
+ * timetable.
+ * <br><br>
+ * The profile is piecewise-linear. It is built once from the train's stops, with a point at the arrival time and at the
+ * departure time of each stop. The train stays at the station between the two, and runs at a steady speed between one
+ * stop's departure and the next stop's arrival. Before the train enters the section and after it leaves it, the train
+ * is taken to run at <code>SPEED_BEYOND_SECTION</code>.
+ */
+public final class PositionProfile {
+
+    /**
+     * The speed of trains beyond the section, in km/h.
+     */
+    static final float SPEED_BEYOND_SECTION = 60;
+
+    /**
+     * The times of the points of the profile, in seconds since the epoch. Times never decrease.
+     */
+    private final long[] times;
+
+    /**
+     * The distance from the home station at each point of the profile.
+     */
+    private final float[] distances;
+
+    /**
+     * +1 if the train moves away from home, -1 if it moves towards home.
+     */
+    private final int directionOfTravel;
+
+    /**
+     * Creates a profile.
+     *
+     * @param times     the times of the points of the profile, in seconds since the epoch. These must not decrease, and
+     *                  there must be at least one.
+     * @param distances the distance from the home station at each point of the profile
+     * @param direction the direction of travel of the train
+     */
+    PositionProfile(long[] times, float[] distances, TrainDirection direction) {
+        if (times.length == 0 || times.length != distances.length)
+            throw new IllegalArgumentException("A profile needs the same number of times and distances, and at least one");
+        this.times = times;
+        this.distances = distances;
+        this.directionOfTravel = direction == TrainDirection.TOWARDS_HOME ? -1 : 1;
+    }
+
+    /**
+     * Returns the distance of the train from the home station at <code>time</code>, as per the timetable. It is less
+     * than that of the first station on the section or more than that of the last one if the train is beyond the
+     * section.
+     *
+     * @param time the time
+     * @return the distance from the home station
+     */
+    public float positionAt(LocalDateTime time) {
+        double seconds = time.toEpochSecond(ZoneOffset.UTC) + time.getNano() / 1e9;
+        int last = this.times.length - 1;
+        if (seconds <= this.times[0])
+            return this.distances[0] - this.directionOfTravel * distanceBeyondSection(this.times[0] - seconds);
+        if (seconds >= this.times[last])
+            return this.distances[last] + this.directionOfTravel * distanceBeyondSection(seconds - this.times[last]);
+
+        //Find the last point at or before the time. The time is after the first point and before the last one.
+        int low = 0, high = last;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= seconds) low = middle;
+            else high = middle;
+        }
+        float speed = (this.distances[high] - this.distances[low]) / ((this.times[high] - this.times[low]) / 3600f);
+        return this.distances[low] + speed * (float) ((seconds - this.times[low]) / 3600);
+    }
+
+    /**
+     * Returns the time of the first point of the profile after <code>time</code>, that is, the next time the train
+     * arrives at or departs from a stop.
+     *
+     * @param time the time
+     * @return the time of the point, or <code>Optional.empty()</code> if <code>time</code> is at or after the last point
+     */
+    public Optional<LocalDateTime> getNextPointAfter(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        int low = 0, high = this.times.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= seconds) low = middle + 1;
+            else high = middle;
+        }
+        if (low == this.times.length) return Optional.empty();
+        return Optional.of(LocalDateTime.ofEpochSecond(this.times[low], 0, ZoneOffset.UTC));
+    }
+
+    /**
+     * Returns whether the train is halted at a stop at <code>time</code>, as per the timetable. If so, it stays where
+     * it is until the next point of the profile.
+     *
+     * @param time the time
+     * @return <code>true</code> if the train is halted, <code>false</code> if it is running, or is beyond the section
+     */
+    public boolean isStationaryAt(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        int last = this.times.length - 1;
+        if (seconds < this.times[0] || seconds >= this.times[last]) return false;
+
+        //Find the last point at or before the time, so that the point after it is after the time.
+        int low = 0, high = last;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= seconds) low = middle;
+            else high = middle;
+        }
+        return this.distances[low] == this.distances[high];
+    }
+
+    /**
+     * Returns whether the train is yet to enter the section, halted at a stop, running between stops, or has left the
+     * section at <code>time</code>, as per the timetable.
+     *
+     * @param time the time
+     * @return one of <code>ENTERING_SECTION</code>, <code>SCHEDULED_STOP</code>, <code>RUNNING_BETWEEN</code> and
+     * <code>EXITING_SECTION</code>
+     */
+    public TrainRunningStatus getRunningStatusAt(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (seconds < this.times[0]) return TrainRunningStatus.ENTERING_SECTION;
+        if (seconds >= this.times[this.times.length - 1]) return TrainRunningStatus.EXITING_SECTION;
+        return isStationaryAt(time) ? TrainRunningStatus.SCHEDULED_STOP : TrainRunningStatus.RUNNING_BETWEEN;
+    }
+
+    /**
+     * Returns the direction of travel of the train.
+     * @return the direction
+     */
+    TrainDirection getDirection() {
+        return this.directionOfTravel < 0 ? TrainDirection.TOWARDS_HOME : TrainDirection.AWAY_FROM_HOME;
+    }
+
+    /**
+     * Returns the number of points in the profile.
+     * @return the number of points
+     */
+    int size() {
+        return this.times.length;
+    }
+
+    /**
+     * Returns the time of a point of the profile.
+     * @param point the index of the point
+     * @return the time, in seconds since the epoch
+     */
+    long getTime(int point) {
+        return this.times[point];
+    }
+
+    /**
+     * Returns the distance from the home station at a point of the profile.
+     * @param point the index of the point
+     * @return the distance
+     */
+    float getDistance(int point) {
+        return this.distances[point];
+    }
+
+    private static float distanceBeyondSection(double seconds) {
+        return SPEED_BEYOND_SECTION * (float) (seconds / 3600);
+    }
+}
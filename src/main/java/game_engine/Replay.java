@@ -0,0 +1,352 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainDirection;
+import common.models.TrainRunningStatus;
+import game_engine.dto.StationDto;
+import game_engine.dto.TrainDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The <code>Replay</code> class plays back a game recorded by <code>Game.recordTo</code>, and rebuilds the state of
+ * the game, that is, the stations' signal aspects and the trains on the section, exactly as it was at any time of the
+ * recording. Clients can read the state with the same methods as they would a <code>Game</code>'s.
+ * <br><br>
+ * The log is memory-mapped, and played back as fast as its records can be read. When it is opened, its records are
+ * skimmed once, reading only their types, lengths and times, to find the keyframes, which hold the whole state of the
+ * game. Seeking to a time starts from the last keyframe at or before it, rather than from the start of the log. A log
+ * that ends part way through a record, such as that of a game that did not stop cleanly, is played back up to the
+ * last whole record.
+ * <br><br>
+ * This class is not thread-safe.
+ *
+ * @see ReplayLog
+ */
+public final class Replay implements Closeable {
+
+    private final FileChannel channel;
+
+    private final ByteBuffer log;
+
+    /**
+     * Where the first record starts.
+     */
+    private final int firstRecord;
+
+    /**
+     * Where the last whole record ends.
+     */
+    private final int end;
+
+    /**
+     * Where each keyframe starts, and its time in milliseconds since the epoch, in order of time.
+     */
+    private final List<long[]> keyframes = new ArrayList<>();
+
+    private final long endTime;
+
+    private final String[] stationNames;
+
+    private final int[] stationDistances;
+
+    private final SignalAspect[][] aspects;
+
+    /**
+     * The trains on the section, by slot.
+     */
+    private final Map<Integer, ReplayedTrain> trains = new LinkedHashMap<>();
+
+    /**
+     * The time of the last record played back, in milliseconds since the epoch.
+     */
+    private long time;
+
+    /**
+     * A train on the section, as played back.
+     */
+    private static final class ReplayedTrain {
+
+        private final String number;
+
+        private final String name;
+
+        private final TrainDirection direction;
+
+        private TrainRunningStatus status;
+
+        private int distanceBits;
+
+        private ReplayedTrain(String number, String name, TrainDirection direction) {
+            this.number = number;
+            this.name = name;
+            this.direction = direction;
+        }
+    }
+
+    /**
+     * Opens the log, and plays it back up to its first keyframe, that is, to the state of the game when it started
+     * being recorded.
+     *
+     * @param file the log
+     * @throws IOException if the log cannot be read, or is not a replay log
+     */
+    public Replay(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.log = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+        try {
+            if (this.log.getInt() != ReplayLog.MAGIC || this.log.get() != ReplayLog.VERSION)
+                throw new IOException(file + " is not a replay log, or is of a version that cannot be read");
+            int stationCount = (int) readVarint(this.log);
+            this.stationNames = new String[stationCount];
+            this.stationDistances = new int[stationCount];
+            for (int i = 0; i < stationCount; i++) {
+                this.stationNames[i] = readString(this.log);
+                this.stationDistances[i] = (int) readVarint(this.log);
+            }
+        } catch (BufferUnderflowException ex) {
+            this.channel.close();
+            throw new IOException(file + " is not a replay log", ex);
+        }
+        this.aspects = new SignalAspect[this.stationNames.length][];
+        this.firstRecord = this.log.position();
+
+        int position = this.firstRecord;
+        long recordTime = 0;
+        try {
+            while (position < this.log.limit()) {
+                this.log.position(position);
+                byte type = this.log.get();
+                int length = (int) readVarint(this.log);
+                if (length > this.log.remaining()) break;
+                int nextRecord = this.log.position() + length;
+                if (type == ReplayLog.KEYFRAME) {
+                    recordTime = readVarint(this.log);
+                    this.keyframes.add(new long[] {position, recordTime});
+                } else {
+                    recordTime += readVarint(this.log);
+                }
+                position = nextRecord;
+            }
+        } catch (BufferUnderflowException ex) {
+            //The log ends part way through the record.
+        }
+        this.end = position;
+        this.endTime = recordTime;
+        if (this.keyframes.isEmpty()) {
+            this.channel.close();
+            throw new IOException(file + " does not hold any keyframes");
+        }
+        seek(Instant.ofEpochMilli(this.keyframes.get(0)[1]));
+    }
+
+    /**
+     * Returns the time at which the recording started.
+     * @return the time of the first keyframe
+     */
+    public Instant getStartTime() {
+        return Instant.ofEpochMilli(this.keyframes.get(0)[1]);
+    }
+
+    /**
+     * Returns the time of the last change recorded.
+     * @return the time of the last record
+     */
+    public Instant getEndTime() {
+        return Instant.ofEpochMilli(this.endTime);
+    }
+
+    /**
+     * Returns the time the game has been played back to, that is, the time of the last change played back.
+     * @return the time
+     */
+    public Instant getTime() {
+        return Instant.ofEpochMilli(this.time);
+    }
+
+    /**
+     * Returns the number of keyframes in the log.
+     * @return the number of keyframes
+     */
+    public int getKeyframeCount() {
+        return this.keyframes.size();
+    }
+
+    /**
+     * Plays back the next change in the log.
+     * @return <code>true</code> if a change was played back, <code>false</code> if the end of the log was reached
+     */
+    public boolean next() {
+        if (this.log.position() >= this.end) return false;
+        byte type = this.log.get();
+        int length = (int) readVarint(this.log);
+        int nextRecord = this.log.position() + length;
+        switch (type) {
+            case ReplayLog.KEYFRAME:
+                this.time = readVarint(this.log);
+                readKeyframe();
+                break;
+            case ReplayLog.ASPECTS:
+                this.time += readVarint(this.log);
+                int stationId = (int) readVarint(this.log);
+                this.aspects[stationId] = new SignalAspect[] {readAspect(), readAspect()};
+                break;
+            case ReplayLog.TRAIN_ENTERED:
+                this.time += readVarint(this.log);
+                readTrain();
+                break;
+            case ReplayLog.TRAIN_EXITED:
+                this.time += readVarint(this.log);
+                this.trains.remove((int) readVarint(this.log));
+                break;
+            case ReplayLog.TRAINS_MOVED:
+                this.time += readVarint(this.log);
+                int movedTrains = (int) readVarint(this.log);
+                for (int i = 0; i < movedTrains; i++) {
+                    ReplayedTrain train = this.trains.get((int) readVarint(this.log));
+                    train.status = TrainRunningStatus.values()[this.log.get()];
+                    int change = (int) readVarint(this.log);
+                    train.distanceBits += (change >>> 1) ^ -(change & 1);
+                }
+                break;
+            default:
+                //A record of a later version, which is skipped.
+                this.time += readVarint(this.log);
+        }
+        this.log.position(nextRecord);
+        return true;
+    }
+
+    /**
+     * Plays back the changes in the log up to and including <code>time</code>, carrying on from where the game has
+     * been played back to.
+     *
+     * @param time the time to play back to
+     */
+    public void advanceTo(Instant time) {
+        long millis = time.toEpochMilli();
+        while (this.log.position() < this.end && getNextRecordTime() <= millis) next();
+    }
+
+    /**
+     * Rebuilds the state of the game at <code>time</code>, starting from the last keyframe at or before it. The time
+     * can be before or after the time the game has been played back to. If it is before the recording started, the
+     * game is played back to the first keyframe.
+     *
+     * @param time the time
+     */
+    public void seek(Instant time) {
+        long millis = time.toEpochMilli();
+        int low = 0, high = this.keyframes.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (this.keyframes.get(middle)[1] <= millis) low = middle;
+            else high = middle - 1;
+        }
+        this.log.position((int) this.keyframes.get(low)[0]);
+        next();
+        advanceTo(time);
+    }
+
+    /**
+     * Returns the trains on the section at the time the game has been played back to.
+     * @return an immutable collection of <code>TrainDto</code> objects that describes each train
+     * @see Game#getTrains()
+     */
+    public List<TrainDto> getTrains() {
+        List<TrainDto> trainsDto = this.trains.values().stream()
+                .map(train -> new TrainDto(train.name, Float.intBitsToFloat(train.distanceBits), train.direction))
+                .collect(Collectors.toList());
+        return Collections.unmodifiableList(trainsDto);
+    }
+
+    /**
+     * Returns the running status of a train on the section at the time the game has been played back to.
+     *
+     * @param trainNumber the train's number
+     * @return the running status, or <code>Optional.empty()</code> if the train is not on the section
+     */
+    public Optional<TrainRunningStatus> getTrainRunningStatus(String trainNumber) {
+        return this.trains.values().stream()
+                .filter(train -> train.number.equals(trainNumber))
+                .map(train -> train.status)
+                .findFirst();
+    }
+
+    /**
+     * Returns the stations on the section, with their signal aspects at the time the game has been played back to.
+     * @return an immutable collection of <code>StationDto</code> objects that describes each station
+     * @see Game#getStations()
+     */
+    public List<StationDto> getStations() {
+        List<StationDto> stationsDto = new ArrayList<>();
+        for (int id = 0; id < this.stationNames.length; id++)
+            stationsDto.add(new StationDto(id, this.stationNames[id], this.stationDistances[id], this.aspects[id].clone()));
+        return Collections.unmodifiableList(stationsDto);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Returns the time of the next record, without playing it back.
+     */
+    private long getNextRecordTime() {
+        int position = this.log.position();
+        byte type = this.log.get();
+        readVarint(this.log);
+        long recordTime = type == ReplayLog.KEYFRAME ? readVarint(this.log) : this.time + readVarint(this.log);
+        this.log.position(position);
+        return recordTime;
+    }
+
+    private void readKeyframe() {
+        int stationCount = (int) readVarint(this.log);
+        for (int id = 0; id < stationCount; id++) this.aspects[id] = new SignalAspect[] {readAspect(), readAspect()};
+        this.trains.clear();
+        int trainCount = (int) readVarint(this.log);
+        for (int i = 0; i < trainCount; i++) readTrain();
+    }
+
+    private void readTrain() {
+        int slot = (int) readVarint(this.log);
+        String number = readString(this.log);
+        String name = readString(this.log);
+        TrainDirection direction = this.log.get() == 0 ? TrainDirection.TOWARDS_HOME : TrainDirection.AWAY_FROM_HOME;
+        ReplayedTrain train = new ReplayedTrain(number, name, direction);
+        train.status = TrainRunningStatus.values()[this.log.get()];
+        train.distanceBits = this.log.getInt();
+        this.trains.put(slot, train);
+    }
+
+    private SignalAspect readAspect() {
+        return SignalAspect.values()[this.log.get()];
+    }
+
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) readVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,373 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainDirection;
+import common.models.TrainRunningStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The <code>ReplayLog</code> class records every change to the state of a game in an append-only binary file, so that
+ * the game can be played back exactly as it ran, using <code>Replay</code>. The changes recorded are the signal
+ * aspects set by the player, the trains entering and leaving the section, and the trains' positions and running
+ * statuses after every tick.
+ * <br><br>
+ * The log is laid out as follows (all numbers are varints, that is, seven bits to a byte with the high bit set on all
+ * but the last byte, unless said otherwise, and all strings are a varint byte length followed by UTF-8 bytes):
+ * <ol>
+ *     <li>A header: the magic number and format version, as a fixed-size <code>int</code> and byte, followed by the
+ *     number of stations, and the name and distance from home of each station, in the order of their ids.</li>
+ *     <li>Records, each of which is a type byte, the length of the rest of the record, and the time of the record in
+ *     milliseconds since the previous record.</li>
+ * </ol>
+ * The records are:
+ * <ul>
+ *     <li><code>KEYFRAME</code>: the whole state of the game, that is, the aspects of every station's signals and
+ *     every train on the section, with its slot, number, name, direction, running status, and the bits of its
+ *     distance from home as a fixed-size <code>int</code>. Instead of a time since the previous record, it holds the
+ *     time in milliseconds since the epoch, so that a replay can start from any keyframe. A keyframe is written when the log is started, and then every
+ *     <code>KEYFRAME_INTERVAL</code> of game time.</li>
+ *     <li><code>ASPECTS</code>: a station's id, and the aspects of its signals towards home and away from home.</li>
+ *     <li><code>TRAIN_ENTERED</code>: a train, as in a keyframe. If there is already a train with the number, it is
+ *     replaced.</li>
+ *     <li><code>TRAIN_EXITED</code>: the train's slot.</li>
+ *     <li><code>TRAINS_MOVED</code>: the number of trains that have moved or whose running status has changed, and for
+ *     each of them, its slot, its running status, and the change in the bits of its distance from home since it was
+ *     last recorded, zigzag-encoded.</li>
+ * </ul>
+ * Each train is given a slot, a small number, when it enters the section, so that records do not repeat its number.
+ * Distances are recorded as the bits of the <code>float</code>, so that they are played back exactly. A train that
+ * moves a little changes only the low bits, so the change takes two or three bytes.
+ * <br><br>
+ * Records are buffered, and written out through a <code>FileChannel</code> whenever the buffer fills up and at each
+ * keyframe. If the log cannot be written to, the error is reported and nothing more is recorded, so that the game is
+ * not held up.
+ * <br><br>
+ * The methods of this class can be called from any thread.
+ */
+final class ReplayLog implements Closeable {
+
+    /**
+     * The magic number that every log starts with. These are the bytes "SCRL".
+     */
+    static final int MAGIC = 0x5343524C;
+
+    /**
+     * The version of the log format.
+     */
+    static final byte VERSION = 1;
+
+    static final byte KEYFRAME = 1;
+
+    static final byte ASPECTS = 2;
+
+    static final byte TRAIN_ENTERED = 3;
+
+    static final byte TRAIN_EXITED = 4;
+
+    static final byte TRAINS_MOVED = 5;
+
+    /**
+     * The game time between keyframes.
+     */
+    static final Duration KEYFRAME_INTERVAL = Duration.ofMinutes(10);
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final Clock clock;
+
+    /**
+     * Holds the records until they are written out.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * Holds the record being put together, whose length is not known until it is complete.
+     */
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+    /**
+     * The aspects of each station's signals, towards home and away from home, as last recorded.
+     */
+    private final SignalAspect[][] aspects;
+
+    /**
+     * The trains on the section, as last recorded, by number.
+     */
+    private final Map<String, TrainRecord> trains = new LinkedHashMap<>();
+
+    private int nextSlot;
+
+    /**
+     * The time of the last record, in milliseconds since the epoch.
+     */
+    private long lastRecordTime;
+
+    private long lastKeyframeTime;
+
+    private boolean failed;
+
+    /**
+     * A train as last recorded.
+     */
+    private static final class TrainRecord {
+
+        private final int slot;
+
+        private final Train train;
+
+        private TrainRunningStatus status;
+
+        private int distanceBits;
+
+        private TrainRecord(int slot, Train train) {
+            this.slot = slot;
+            this.train = train;
+            this.status = train.getTrainPosition().getTrainRunningStatus();
+            this.distanceBits = Float.floatToIntBits(train.getDistance());
+        }
+    }
+
+    /**
+     * Creates the log, replacing any file that is already there, and records the current state of the game.
+     *
+     * @param file     the file to write the log to
+     * @param clock    the clock that gives the game time
+     * @param stations the stations on the section, in the order of their ids
+     * @param trains   the trains on the section
+     * @throws IOException if the file cannot be written to
+     */
+    ReplayLog(Path file, Clock clock, List<Station> stations, Collection<Train> trains) throws IOException {
+        this.file = file;
+        this.clock = clock;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.aspects = new SignalAspect[stations.size()][];
+        for (Station station : stations) this.aspects[station.getId()] = station.getAspects();
+        for (Train train : trains) this.trains.put(train.getNumber(), new TrainRecord(this.nextSlot++, train));
+
+        this.buffer.putInt(MAGIC).put(VERSION);
+        writeVarint(this.record, stations.size());
+        for (Station station : stations) {
+            writeString(this.record, station.getName());
+            writeVarint(this.record, station.getDistance());
+        }
+        this.buffer.put(this.record.toByteArray());
+        this.record.reset();
+        this.lastRecordTime = this.clock.millis();
+        writeKeyframe(this.lastRecordTime);
+        if (this.failed) {
+            this.channel.close();
+            throw new IOException("Unable to write to " + file);
+        }
+    }
+
+    /**
+     * Records the aspects the player has set on a station's signals.
+     *
+     * @param stationId          the id of the station
+     * @param towardsHomeAspect  the aspect of the signal for trains travelling towards home
+     * @param awayFromHomeAspect the aspect of the signal for trains travelling away from home
+     */
+    synchronized void recordAspects(int stationId, SignalAspect towardsHomeAspect, SignalAspect awayFromHomeAspect) {
+        if (this.failed) return;
+        this.aspects[stationId] = new SignalAspect[] {towardsHomeAspect, awayFromHomeAspect};
+        startRecord(currentTime());
+        writeVarint(this.record, stationId);
+        this.record.write(towardsHomeAspect.ordinal());
+        this.record.write(awayFromHomeAspect.ordinal());
+        endRecord(ASPECTS);
+    }
+
+    /**
+     * Records a train entering the section, or taking the place of the train with the same number.
+     * @param train the train
+     */
+    synchronized void recordTrainEntered(Train train) {
+        if (this.failed) return;
+        TrainRecord previousRecord = this.trains.get(train.getNumber());
+        TrainRecord trainRecord = new TrainRecord(previousRecord != null ? previousRecord.slot : this.nextSlot++, train);
+        this.trains.put(train.getNumber(), trainRecord);
+        startRecord(currentTime());
+        writeTrain(trainRecord);
+        endRecord(TRAIN_ENTERED);
+    }
+
+    /**
+     * Records a train leaving the section.
+     * @param train the train
+     */
+    synchronized void recordTrainExited(Train train) {
+        if (this.failed) return;
+        TrainRecord trainRecord = this.trains.remove(train.getNumber());
+        if (trainRecord == null) return;
+        startRecord(currentTime());
+        writeVarint(this.record, trainRecord.slot);
+        endRecord(TRAIN_EXITED);
+    }
+
+    /**
+     * Records the positions and running statuses of the trains that have changed since they were last recorded, and
+     * writes a keyframe if one is due.
+     */
+    synchronized void recordTrainsMoved() {
+        if (this.failed) return;
+        long time = currentTime();
+        ByteArrayOutputStream trainsMoved = new ByteArrayOutputStream();
+        int movedTrains = 0;
+        for (TrainRecord trainRecord : this.trains.values()) {
+            TrainRunningStatus status = trainRecord.train.getTrainPosition().getTrainRunningStatus();
+            int distanceBits = Float.floatToIntBits(trainRecord.train.getDistance());
+            if (status == trainRecord.status && distanceBits == trainRecord.distanceBits) continue;
+            int change = distanceBits - trainRecord.distanceBits;
+            writeVarint(trainsMoved, trainRecord.slot);
+            trainsMoved.write(status.ordinal());
+            writeVarint(trainsMoved, (change << 1) ^ (change >> 31));
+            trainRecord.status = status;
+            trainRecord.distanceBits = distanceBits;
+            movedTrains++;
+        }
+        if (movedTrains > 0) {
+            startRecord(time);
+            writeVarint(this.record, movedTrains);
+            this.record.write(trainsMoved.toByteArray(), 0, trainsMoved.size());
+            endRecord(TRAINS_MOVED);
+        }
+        if (time - this.lastKeyframeTime >= KEYFRAME_INTERVAL.toMillis()) writeKeyframe(time);
+    }
+
+    /**
+     * Writes out the records that are still buffered, and closes the file.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            if (!this.failed) flush();
+            this.channel.close();
+        } catch (IOException ex) {
+            System.out.println("Unable to close the replay log " + this.file + ": " + ex);
+        }
+        this.failed = true;
+    }
+
+    /**
+     * Returns the game time, in milliseconds since the epoch, for a record. This is never before the previous record.
+     */
+    private long currentTime() {
+        return Math.max(this.lastRecordTime, this.clock.millis());
+    }
+
+    /**
+     * Starts a record, with the time since the previous record.
+     */
+    private void startRecord(long time) {
+        writeVarint(this.record, time - this.lastRecordTime);
+        this.lastRecordTime = time;
+    }
+
+    private void writeKeyframe(long time) {
+        writeVarint(this.record, time);
+        writeVarint(this.record, this.aspects.length);
+        for (SignalAspect[] stationAspects : this.aspects) {
+            this.record.write(stationAspects[0].ordinal());
+            this.record.write(stationAspects[1].ordinal());
+        }
+        writeVarint(this.record, this.trains.size());
+        for (TrainRecord trainRecord : this.trains.values()) {
+            //The keyframe holds the train as it is now, which the changes after the keyframe start from.
+            trainRecord.status = trainRecord.train.getTrainPosition().getTrainRunningStatus();
+            trainRecord.distanceBits = Float.floatToIntBits(trainRecord.train.getDistance());
+            writeTrain(trainRecord);
+        }
+        this.lastRecordTime = time;
+        this.lastKeyframeTime = time;
+        endRecord(KEYFRAME);
+        if (this.failed) return;
+        try {
+            flush();
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    private void writeTrain(TrainRecord trainRecord) {
+        writeVarint(this.record, trainRecord.slot);
+        writeString(this.record, trainRecord.train.getNumber());
+        writeString(this.record, trainRecord.train.getTrainName());
+        this.record.write(trainRecord.train.getDirection() == TrainDirection.TOWARDS_HOME ? 0 : 1);
+        this.record.write(trainRecord.status.ordinal());
+        int distanceBits = trainRecord.distanceBits;
+        for (int shift = 24; shift >= 0; shift -= 8) this.record.write(distanceBits >>> shift);
+    }
+
+    /**
+     * Adds the record put together in <code>record</code> to the buffer, with its type and length.
+     */
+    private void endRecord(byte type) {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(6);
+        header.write(type);
+        writeVarint(header, this.record.size());
+        byte[] recordBytes = this.record.toByteArray();
+        this.record.reset();
+        try {
+            if (this.buffer.remaining() < header.size() + recordBytes.length) flush();
+            if (this.buffer.remaining() < header.size() + recordBytes.length) {
+                //The record does not fit in the buffer, so it is written out straightaway.
+                writeFully(ByteBuffer.wrap(header.toByteArray()));
+                writeFully(ByteBuffer.wrap(recordBytes));
+            } else {
+                this.buffer.put(header.toByteArray()).put(recordBytes);
+            }
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    private void flush() throws IOException {
+        this.buffer.flip();
+        writeFully(this.buffer);
+        this.buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) this.channel.write(bytes);
+    }
+
+    private void fail(IOException ex) {
+        System.out.println("Unable to write to the replay log " + this.file + ", so the game is no longer recorded: " + ex);
+        this.failed = true;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        writeVarint(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+}
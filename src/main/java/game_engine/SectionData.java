@@ -0,0 +1,161 @@
+package game_engine;
+
+import game_engine.data_access.DataAccess;
+import game_engine.data_access.SectionSnapshot;
+import game_engine.initializers.TrainDefinition;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Vector;
+import java.util.stream.Collectors;
+
+/**
+ * The <code>SectionData</code> class reads a section's stations, and the trains that run on it, from the section's
+ * data. The data is read from the section's precompiled snapshot if one is available, else from the section's XML file.
+ * <br><br>
+ * This class is package-scoped as the section's data is only read by the game engine.
+ */
+class SectionData {
+
+    /**
+     * The classpath resource that holds the section's data, for example <code>/data/CAL-SRR.xml</code>.
+     */
+    private final String sectionResource;
+
+    /**
+     * Creates an instance of this class for the section held in <code>sectionResource</code>.
+     * @param sectionResource the classpath resource that holds the section's data
+     */
+    SectionData(String sectionResource) {
+        this.sectionResource = sectionResource;
+    }
+
+    String getSectionResource() {
+        return this.sectionResource;
+    }
+
+    /**
+     * Returns the name of the section's data file, for example <code>CAL-SRR.xml</code>.
+     * @return the file name
+     */
+    String getFileName() {
+        return this.sectionResource.substring(this.sectionResource.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Loads station data for all stations on the section.
+     * @return the stations, in the order they are listed in the section's data
+     * @throws GameNotStartedException if a problem occurs while reading the section's XML file.
+     */
+    List<Station> readStations() throws GameNotStartedException {
+        List<Station> stations = new ArrayList<>();
+        Optional<SectionSnapshot> snapshot = SectionSnapshot.forSection(this.sectionResource);
+        if (snapshot.isPresent()) {
+            SectionSnapshot section = snapshot.get();
+            for (int i = 0; i < section.getStationCount(); i++) {
+                stations.add(new Station(section.getStationCode(i), section.getStationName(i),
+                        section.getStationTracks(i), section.getStationDistance(i)));
+            }
+            return stations;
+        }
+        try {
+            Vector<Element> stationsFromXMLFile = DataAccess.getInstance().extractResourceData(this.sectionResource, "station");
+            return stationsFromXMLFile.stream()
+                    .map(element -> {
+                        String code = element.getAttribute("code");
+                        String name = element.getAttribute("name");
+                        int noOfTracks = Integer.parseInt(element.getAttribute("no-of-tracks"));
+                        int distanceFromHome = Integer.parseInt(element.getAttribute("distance-from-home"));
+                        return new Station(code, name, noOfTracks, distanceFromHome);
+                    })
+                    .collect(Collectors.toList());
+        } catch (IOException | SAXException | ParserConfigurationException ex) {
+            throw new GameNotStartedException(ex);
+        }
+    }
+
+    /**
+     * Returns all trains that run on the section on the given day, with the daily trains first.
+     * @param dayOfWeek the day
+     * @return the trains for the day
+     * @throws GameNotStartedException if a problem occurs while reading the section XML file.
+     */
+    List<TrainDefinition> getTrainsForTheDay(DayOfWeek dayOfWeek) throws GameNotStartedException {
+        String day = getDayOfArrivalCode(dayOfWeek);
+        List<TrainDefinition> trainsForTheDay = new ArrayList<>();
+        Optional<SectionSnapshot> snapshot = SectionSnapshot.forSection(this.sectionResource);
+        if (snapshot.isPresent()) {
+            SectionSnapshot section = snapshot.get();
+            //Let's get the daily trains first, and then the trains that run on the current day.
+            List<Integer> trainIndexes = new ArrayList<>();
+            for (int i = 0; i < section.getTrainCount(); i++) {
+                if (section.getTrainDaysOfArrival(i).equals("Daily")) trainIndexes.add(i);
+            }
+            for (int i = 0; i < section.getTrainCount(); i++) {
+                if (section.getTrainDaysOfArrival(i).contains(day)) trainIndexes.add(i);
+            }
+            for (int i : trainIndexes) {
+                trainsForTheDay.add(new TrainDefinition(section.getTrainNumber(i), section.getTrainName(i),
+                        section.getTrainDirection(i), section.getTrainSectionEntryMinutes(i),
+                        section.getTrainSectionLeavingMinutes(i)));
+            }
+            return trainsForTheDay;
+        }
+        try {
+            //Let's get the daily trains first. The section file is parsed only once; the later queries
+            //are answered from DataAccess' cache.
+            Vector<Element> temp1 = DataAccess.getInstance().extractResourceData(this.sectionResource, "train[@day-of-arrival=Daily]");
+
+            //Let's now get the trains that run on the current day.
+            Vector<Element> temp2 = DataAccess.getInstance().extractResourceData(this.sectionResource, "train.contains(@day-of-arrival," + day + ")");
+
+            temp1.addAll(temp1.size(), temp2);
+            for (Element train : temp1) {
+                trainsForTheDay.add(new TrainDefinition(train.getAttribute("number"), train.getAttribute("name"),
+                        train.getAttribute("direction"), toMinutes(train.getAttribute("section-entry-time")),
+                        toMinutes(train.getAttribute("section-leaving-time"))));
+            }
+            return trainsForTheDay;
+        } catch (IOException | SAXException | ParserConfigurationException ex) {
+            throw new GameNotStartedException(ex);
+        }
+    }
+
+    /**
+     * Returns the code used in the <code>day-of-arrival</code> attribute of the section data for the given day.
+     * @param dayOfWeek the day
+     * @return the code of the day.
+     */
+    private static String getDayOfArrivalCode(DayOfWeek dayOfWeek) {
+        switch (dayOfWeek) {
+            case SUNDAY:
+                return "Su";
+            case MONDAY:
+                return "M";
+            case TUESDAY:
+                return "Tu";
+            case WEDNESDAY:
+                return "W";
+            case THURSDAY:
+                return "Th";
+            case FRIDAY:
+                return "F";
+            default:
+                return "Sa";
+        }
+    }
+
+    /**
+     * Converts a time of the form <code>HH:mm</code> to minutes since midnight.
+     */
+    private static int toMinutes(String time) {
+        String[] hoursAndMinutes = time.split(":");
+        return Integer.parseInt(hoursAndMinutes[0]) * 60 + Integer.parseInt(hoursAndMinutes[1]);
+    }
+}
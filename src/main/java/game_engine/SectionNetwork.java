@@ -0,0 +1,238 @@
+package game_engine;
+
+import common.models.TrainRunningStatus;
+import game_engine.dto.TrainDto;
+import game_engine.runners.EngineTick;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The <code>SectionNetwork</code> class runs the trains on a number of sections as a single engine, where a
+ * <code>Game</code> runs the trains on one section.
+ * <br><br>
+ * Each section is a partition of its own, with its own stations, trains, <code>EngineTick</code> and
+ * <code>TrainLoader</code>. As the partitions share nothing, each run, or tick, moves the trains of all the partitions
+ * in parallel, on a work-stealing <code>ForkJoinPool</code>, so that the time a tick takes shrinks with the number
+ * of processors rather than growing with the number of sections.
+ * <br><br>
+ * Once every partition has been moved, which is the tick boundary, the partitions' loaders are run if they are due,
+ * again in parallel. Then each train that has left a section is handed over to the section it runs on next, that is,
+ * the other section that has the station the train left from, and that the train is due to enter. The train is
+ * entered on that section straightaway, rather than at the entry time in that section's data, and is moved by it
+ * from the next tick on. Handing over is done on the ticking thread alone, so no partition is being moved while its
+ * trains change.
+ * <br><br>
+ * It is intended that this class will be used as a task, by something like the Executor framework, that is repeatedly
+ * executed. The task must not be executed concurrently with itself.
+ */
+public class SectionNetwork implements Runnable {
+
+    private final Clock systemClock;
+
+    /**
+     * The partitions, one per section, in the order the sections were given.
+     */
+    private final List<Partition> partitions = new ArrayList<>();
+
+    /**
+     * Moves the partitions, and runs their loaders.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The game time at which the loaders last ran.
+     */
+    private Instant lastTrainLoaderRun;
+
+    private long handoverCount;
+
+    /**
+     * Creates the network, and loads the trains that are on each of the sections or are due to enter them within
+     * <code>lookahead</code>.
+     *
+     * @param systemClock      the clock that gives the current time
+     * @param lookahead        how far ahead of their section entry time trains are loaded. It must be less than a day.
+     * @param sectionResources the classpath resources that hold the sections' data, for example
+     *                         <code>/data/CAL-SRR.xml</code>
+     * @param parallelism      the number of partitions that are moved at the same time, typically the number of
+     *                         available processors
+     * @throws GameNotStartedException if any of the sections could not be loaded
+     */
+    public SectionNetwork(Clock systemClock, Duration lookahead, List<String> sectionResources, int parallelism)
+            throws GameNotStartedException {
+        this.systemClock = systemClock;
+        for (String sectionResource : sectionResources)
+            this.partitions.add(new Partition(new SectionData(sectionResource), systemClock, lookahead));
+        this.lastTrainLoaderRun = systemClock.instant();
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Moves the trains on every section, runs the loaders if they are due, and then hands over the trains that have
+     * left a section to the section they run on next.
+     */
+    @Override
+    public void run() {
+        Instant currentTime = this.systemClock.instant();
+        forEachPartition(partition -> partition.engineTick.run());
+        if (!currentTime.isBefore(this.lastTrainLoaderRun.plus(Game.TRAIN_LOADER_INTERVAL))) {
+            this.lastTrainLoaderRun = currentTime;
+            forEachPartition(partition -> partition.trainLoader.run());
+        }
+        handOverExitedTrains();
+    }
+
+    /**
+     * Stops moving and loading trains.
+     */
+    public void stop() {
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * Returns the classpath resources that hold the sections' data, in the order the sections were given.
+     * @return the sections
+     */
+    public List<String> getSections() {
+        return this.partitions.stream()
+                .map(partition -> partition.sectionData.getSectionResource())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the trains that are currently running on the section.
+     *
+     * @param sectionResource the classpath resource that holds the section's data
+     * @return an immutable collection of <code>TrainDto</code> objects that describes each train
+     * @throws NoSuchElementException if the section is not in the network
+     */
+    public List<TrainDto> getTrains(String sectionResource) {
+        Partition section = this.partitions.stream()
+                .filter(partition -> partition.sectionData.getSectionResource().equals(sectionResource))
+                .findFirst()
+                .orElseThrow(() -> new NoSuchElementException(sectionResource + " is not in the network"));
+        List<TrainDto> trainsDto = section.trains.stream()
+                .map(train -> new TrainDto(train.getTrainName(), train.getDistance(), train.getDirection()))
+                .collect(Collectors.toList());
+        return Collections.unmodifiableList(trainsDto);
+    }
+
+    /**
+     * Returns the number of trains running on all the sections.
+     * @return the number of trains
+     */
+    public int getTrainCount() {
+        return this.partitions.stream().mapToInt(partition -> partition.trains.size()).sum();
+    }
+
+    /**
+     * Returns the number of times a train that left a section has been handed over to the section it runs on next.
+     * @return the number of handovers
+     */
+    public long getHandoverCount() {
+        return this.handoverCount;
+    }
+
+    /**
+     * Runs <code>task</code> on every partition, in parallel, and waits for all of them to finish.
+     */
+    private void forEachPartition(Consumer<Partition> task) {
+        try {
+            this.pool.submit(() -> this.partitions.parallelStream().forEach(task)).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void handOverExitedTrains() {
+        for (Partition partition : this.partitions) {
+            for (Train train : partition.takeExitedTrains()) {
+                TrainTimetable timetable = train.getTimetable();
+                Optional<Station> exitStation = timetable.getStationHaltedAt(timetable.getSectionExitTime());
+                if (!exitStation.isPresent()) continue;
+                for (Partition nextPartition : this.partitions) {
+                    if (nextPartition == partition || !nextPartition.hasStation(exitStation.get().getCode())) continue;
+                    if (nextPartition.trainLoader.handOver(train.getNumber())) {
+                        this.handoverCount++;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A section of the network, along with the trains on it.
+     */
+    private static final class Partition {
+
+        private final SectionData sectionData;
+
+        private final SectionRegistry sectionRegistry;
+
+        /**
+         * The trains on the section. These are read by clients while the section's loader adds and removes trains.
+         */
+        private final List<Train> trains = new CopyOnWriteArrayList<>();
+
+        /**
+         * The trains that have left the section since they were last handed over. Trains retired for any other reason
+         * have not left the section, so they are not handed over.
+         */
+        private final List<Train> exitedTrains = new ArrayList<>();
+
+        private final EngineTick engineTick;
+
+        private final TrainLoader trainLoader;
+
+        private Partition(SectionData sectionData, Clock systemClock, Duration lookahead)
+                throws GameNotStartedException {
+            this.sectionData = sectionData;
+            this.sectionRegistry = new SectionRegistry(sectionData.readStations());
+            this.engineTick = new EngineTick(systemClock, new BlockOccupancy(this.sectionRegistry.getStations()));
+            this.trainLoader = new TrainLoader(sectionData::getTrainsForTheDay, sectionData.getSectionResource(),
+                    this.sectionRegistry.getStations(), systemClock, lookahead, this::startTrain, this::retireTrain,
+                    this::replaceTrain);
+            this.trainLoader.loadInitialTrains();
+        }
+
+        private boolean hasStation(String code) {
+            return this.sectionRegistry.getId(code) >= 0;
+        }
+
+        private void startTrain(Train train) {
+            this.trains.add(train);
+            this.engineTick.add(train.getNumber(), train.getTimetable(), train.getTrainPosition());
+        }
+
+        private void retireTrain(Train train) {
+            this.trains.remove(train);
+            this.engineTick.remove(train.getNumber());
+            if (train.getTrainPosition().getTrainRunningStatus() == TrainRunningStatus.EXITING_SECTION)
+                this.exitedTrains.add(train);
+        }
+
+        private void replaceTrain(Train train, Train reloadedTrain) {
+            this.engineTick.add(reloadedTrain.getNumber(), reloadedTrain.getTimetable(), reloadedTrain.getTrainPosition());
+            int index = this.trains.indexOf(train);
+            if (index >= 0) this.trains.set(index, reloadedTrain);
+            else this.trains.add(reloadedTrain);
+        }
+
+        private List<Train> takeExitedTrains() {
+            List<Train> trains = new ArrayList<>(this.exitedTrains);
+            this.exitedTrains.clear();
+            return trains;
+        }
+    }
+}
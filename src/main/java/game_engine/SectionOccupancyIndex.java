@@ -0,0 +1,282 @@
+package game_engine;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * The <code>SectionOccupancyIndex</code> class answers which trains are between two stations at a given time, or at
+ * any time within a window, without going through every train's timetable.
+ * <br><br>
+ * The index is a grid of segments by time. A segment is the stretch between two neighbouring stations on the section,
+ * and the time is cut into slots of equal length. Each time a train runs between two of its stops is a leg, and a leg
+ * is held in every cell whose segment it runs over during the cell's time slot. A query only looks at the cells of
+ * the segments between the two stations for the slots it covers, and then checks each of the legs in them exactly.
+ * <br><br>
+ * Trains are added to the index with <code>put</code>, and taken out with <code>remove</code>. Putting a train again,
+ * say when its timetable has been reloaded, replaces its legs; the other trains are not touched.
+ * <br><br>
+ * A train that is halted at a station is not between any two stations. Neither is a train that has not yet entered
+ * the section or that has left it.
+ */
+public final class SectionOccupancyIndex {
+
+    /**
+     * The length of the time slots, by default.
+     */
+    public static final Duration DEFAULT_SLOT_LENGTH = Duration.ofMinutes(15);
+
+    /**
+     * The distances of the stations from the home station, indexed by station id. Segment <code>s</code> is the
+     * stretch between station <code>s</code> and station <code>s + 1</code>.
+     */
+    private final int[] stationDistances;
+
+    /**
+     * The length of the time slots, in seconds.
+     */
+    private final long slotSeconds;
+
+    /**
+     * The cells of the grid. The n-th map holds the legs that run over segment n, keyed by time slot.
+     */
+    private final List<Map<Long, List<Leg>>> cellsBySegment;
+
+    /**
+     * The legs of each train in the index, keyed by train number, so that they can be taken out of the grid again.
+     */
+    private final Map<String, List<Leg>> legsByTrain = new HashMap<>();
+
+    /**
+     * Creates an empty index for the section, with time slots of <code>DEFAULT_SLOT_LENGTH</code>.
+     *
+     * @param stationsById the stations on the section, where the station at index <code>i</code> has the id
+     *                     <code>i</code>, as returned by <code>SectionRegistry.getStations()</code>.
+     */
+    public SectionOccupancyIndex(List<Station> stationsById) {
+        this(stationsById, DEFAULT_SLOT_LENGTH);
+    }
+
+    /**
+     * Creates an empty index for the section.
+     *
+     * @param stationsById the stations on the section, where the station at index <code>i</code> has the id
+     *                     <code>i</code>, as returned by <code>SectionRegistry.getStations()</code>.
+     * @param slotLength   the length of the time slots. Shorter slots mean fewer legs to check per query, and more
+     *                     cells per leg.
+     * @throws IllegalArgumentException if the stations are not in the order of their distance from home, or if
+     *                                  <code>slotLength</code> is less than a second
+     */
+    public SectionOccupancyIndex(List<Station> stationsById, Duration slotLength) {
+        if (slotLength.getSeconds() < 1)
+            throw new IllegalArgumentException("The time slots must be at least a second long");
+        this.stationDistances = new int[stationsById.size()];
+        for (int id = 0; id < stationsById.size(); id++) {
+            this.stationDistances[id] = stationsById.get(id).getDistance();
+            if (id > 0 && this.stationDistances[id] < this.stationDistances[id - 1])
+                throw new IllegalArgumentException("The stations must be in the order of their distance from home");
+        }
+        this.slotSeconds = slotLength.getSeconds();
+        this.cellsBySegment = new ArrayList<>();
+        for (int segment = 0; segment < this.stationDistances.length - 1; segment++)
+            this.cellsBySegment.add(new HashMap<>());
+    }
+
+    /**
+     * Adds the train to the index, replacing the legs it had if it was added before.
+     *
+     * @param trainNumber the train's number
+     * @param timetable   the train's timetable
+     */
+    public synchronized void put(String trainNumber, TrainTimetable timetable) {
+        remove(trainNumber);
+        PositionProfile positionProfile = timetable.getPositionProfile();
+        List<Leg> legs = new ArrayList<>();
+        for (int point = 0; point < positionProfile.size() - 1; point++) {
+            //A train does not move between the arrival and departure at a stop.
+            if (positionProfile.getDistance(point) == positionProfile.getDistance(point + 1)) continue;
+            Leg leg = new Leg(trainNumber, positionProfile.getTime(point), positionProfile.getDistance(point),
+                    positionProfile.getTime(point + 1), positionProfile.getDistance(point + 1));
+            legs.add(leg);
+            addToCells(leg);
+        }
+        this.legsByTrain.put(trainNumber, legs);
+    }
+
+    /**
+     * Takes the train out of the index. Nothing happens if the train is not in it.
+     *
+     * @param trainNumber the train's number
+     */
+    public synchronized void remove(String trainNumber) {
+        List<Leg> legs = this.legsByTrain.remove(trainNumber);
+        if (legs == null) return;
+        for (Leg leg : legs) {
+            int lastSegment = lastSegmentOf(leg);
+            for (int segment = firstSegmentOf(leg); segment <= lastSegment; segment++) {
+                Map<Long, List<Leg>> cells = this.cellsBySegment.get(segment);
+                long[] slots = slotsInSegment(leg, segment);
+                for (long slot = slots[0]; slot <= slots[1]; slot++) {
+                    List<Leg> cell = cells.get(slot);
+                    cell.remove(leg);
+                    if (cell.isEmpty()) cells.remove(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the trains that are between the two stations at <code>time</code>.
+     *
+     * @param stationId      the id of one of the stations
+     * @param otherStationId the id of the other station. It can be on either side of the first one.
+     * @param time           the time
+     * @return the numbers of the trains, in order
+     */
+    public Set<String> getTrainsBetween(int stationId, int otherStationId, LocalDateTime time) {
+        return getTrainsBetween(stationId, otherStationId, time, time);
+    }
+
+    /**
+     * Returns the trains that are between the two stations at any time from <code>from</code> to <code>to</code>.
+     *
+     * @param stationId      the id of one of the stations
+     * @param otherStationId the id of the other station. It can be on either side of the first one.
+     * @param from           the start of the window
+     * @param to             the end of the window
+     * @return the numbers of the trains, in order
+     * @throws IllegalArgumentException if <code>to</code> is before <code>from</code>
+     */
+    public synchronized Set<String> getTrainsBetween(int stationId, int otherStationId, LocalDateTime from,
+                                                     LocalDateTime to) {
+        if (to.isBefore(from)) throw new IllegalArgumentException("The window ends before it starts");
+        int nearStation = Math.min(stationId, otherStationId), farStation = Math.max(stationId, otherStationId);
+        float nearDistance = this.stationDistances[nearStation], farDistance = this.stationDistances[farStation];
+        double fromSeconds = toSeconds(from), toSeconds = toSeconds(to);
+        long firstSlot = Math.floorDiv((long) Math.floor(fromSeconds), this.slotSeconds);
+        long lastSlot = Math.floorDiv((long) Math.floor(toSeconds), this.slotSeconds);
+
+        Set<String> trains = new TreeSet<>();
+        for (int segment = nearStation; segment < farStation; segment++) {
+            Map<Long, List<Leg>> cells = this.cellsBySegment.get(segment);
+            //A long window may cover more slots than there are cells, in which case the cells are checked instead.
+            Collection<List<Leg>> cellsInWindow = lastSlot - firstSlot >= cells.size() ? cells.values()
+                    : slotsOf(cells, firstSlot, lastSlot);
+            for (List<Leg> cell : cellsInWindow) {
+                for (Leg leg : cell) {
+                    if (!trains.contains(leg.trainNumber)
+                            && leg.isBetween(nearDistance, farDistance, fromSeconds, toSeconds))
+                        trains.add(leg.trainNumber);
+                }
+            }
+        }
+        return trains;
+    }
+
+    private static Collection<List<Leg>> slotsOf(Map<Long, List<Leg>> cells, long firstSlot, long lastSlot) {
+        List<List<Leg>> cellsInWindow = new ArrayList<>();
+        for (long slot = firstSlot; slot <= lastSlot; slot++) {
+            List<Leg> cell = cells.get(slot);
+            if (cell != null) cellsInWindow.add(cell);
+        }
+        return cellsInWindow;
+    }
+
+    private void addToCells(Leg leg) {
+        int lastSegment = lastSegmentOf(leg);
+        for (int segment = firstSegmentOf(leg); segment <= lastSegment; segment++) {
+            Map<Long, List<Leg>> cells = this.cellsBySegment.get(segment);
+            long[] slots = slotsInSegment(leg, segment);
+            for (long slot = slots[0]; slot <= slots[1]; slot++)
+                cells.computeIfAbsent(slot, key -> new ArrayList<>()).add(leg);
+        }
+    }
+
+    /**
+     * Returns the first and last time slots during which the leg runs over the segment.
+     */
+    private long[] slotsInSegment(Leg leg, int segment) {
+        double[] times = leg.timesBetween(this.stationDistances[segment], this.stationDistances[segment + 1]);
+        return new long[] {Math.floorDiv((long) Math.floor(times[0]), this.slotSeconds),
+                Math.floorDiv((long) Math.floor(times[1]), this.slotSeconds)};
+    }
+
+    /**
+     * Returns the first segment the leg runs over. Stops off the section are taken to be at its ends.
+     */
+    private int firstSegmentOf(Leg leg) {
+        int segment = 0;
+        while (segment < this.stationDistances.length - 2 && this.stationDistances[segment + 1] <= leg.nearDistance())
+            segment++;
+        return segment;
+    }
+
+    /**
+     * Returns the last segment the leg runs over. Stops off the section are taken to be at its ends.
+     */
+    private int lastSegmentOf(Leg leg) {
+        int segment = this.stationDistances.length - 2;
+        while (segment > 0 && this.stationDistances[segment] >= leg.farDistance())
+            segment--;
+        return segment;
+    }
+
+    private static double toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) + time.getNano() / 1e9;
+    }
+
+    /**
+     * The run of a train from one stop to the next, at a steady speed.
+     */
+    private static final class Leg {
+        private final String trainNumber;
+        private final long departureTime;
+        private final float departureDistance;
+        private final long arrivalTime;
+        private final float arrivalDistance;
+
+        private Leg(String trainNumber, long departureTime, float departureDistance, long arrivalTime,
+                    float arrivalDistance) {
+            this.trainNumber = trainNumber;
+            this.departureTime = departureTime;
+            this.departureDistance = departureDistance;
+            this.arrivalTime = arrivalTime;
+            this.arrivalDistance = arrivalDistance;
+        }
+
+        private float nearDistance() {
+            return Math.min(this.departureDistance, this.arrivalDistance);
+        }
+
+        private float farDistance() {
+            return Math.max(this.departureDistance, this.arrivalDistance);
+        }
+
+        /**
+         * Returns the times, in seconds since the epoch, at which the train enters and leaves the stretch between the
+         * two distances on this leg. If the leg does not reach the stretch, the times are those of the nearer end.
+         */
+        private double[] timesBetween(float nearDistance, float farDistance) {
+            double enter = timeAt(this.departureDistance < this.arrivalDistance ? nearDistance : farDistance);
+            double leave = timeAt(this.departureDistance < this.arrivalDistance ? farDistance : nearDistance);
+            return new double[] {enter, leave};
+        }
+
+        private double timeAt(float distance) {
+            double fraction = (distance - this.departureDistance) / (this.arrivalDistance - this.departureDistance);
+            fraction = Math.max(0, Math.min(1, fraction));
+            return this.departureTime + fraction * (this.arrivalTime - this.departureTime);
+        }
+
+        /**
+         * Determines if the train is strictly between the two distances at any time from <code>from</code> to
+         * <code>to</code>.
+         */
+        private boolean isBetween(float nearDistance, float farDistance, double from, double to) {
+            if (farDistance <= nearDistance() || nearDistance >= farDistance()) return false;
+            double[] times = timesBetween(nearDistance, farDistance);
+            return times[0] < times[1] && times[0] < to && times[1] > from;
+        }
+    }
+}
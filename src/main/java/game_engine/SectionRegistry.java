@@ -0,0 +1,103 @@
+package game_engine;
+
+import java.util.*;
+
+/**
+ * The <code>SectionRegistry</code> class assigns each station on the section a dense <code>int</code> id, when the
+ * section is loaded. The ids run from 0 to one less than the number of stations, in the order of the stations'
+ * distance from the home station.
+ * <br><br>
+ * Station codes and names are looked up only once, when data is read. From then on, stations are referred to by
+ * their ids, so that finding a station, or anything held per station, is an array lookup.
+ */
+public final class SectionRegistry {
+
+    /**
+     * The stations, indexed by id.
+     */
+    private final Station[] stations;
+
+    private final Map<String, Integer> idsByCode = new HashMap<>();
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+
+    /**
+     * The aspects of the signals of every station, indexed by id.
+     */
+    private final SignalAspectTable signalAspects;
+
+    /**
+     * Creates a registry of the given stations, assigns each station its id, and moves the aspects of the stations'
+     * signals to a table shared by the section.
+     *
+     * @param stationsOnSection the stations on the section
+     * @throws IllegalArgumentException if two stations have the same code
+     * @throws IllegalStateException    if a station has already been given a different id by another registry
+     */
+    public SectionRegistry(List<Station> stationsOnSection) {
+        this.stations = stationsOnSection.toArray(new Station[0]);
+        Arrays.sort(this.stations);
+        this.signalAspects = new SignalAspectTable(this.stations.length);
+        for (int id = 0; id < this.stations.length; id++) {
+            Station station = this.stations[id];
+            if (this.idsByCode.put(station.getCode().toUpperCase(), id) != null)
+                throw new IllegalArgumentException("More than one station has the code " + station.getCode());
+            this.idsByName.putIfAbsent(station.getName(), id);
+            station.assignId(id);
+            station.useSignals(this.signalAspects);
+        }
+    }
+
+    /**
+     * Returns the number of stations on the section. Ids range from 0 to one less than this.
+     * @return the number of stations
+     */
+    public int size() {
+        return this.stations.length;
+    }
+
+    /**
+     * Returns the station with the given id.
+     * @param id the station's id
+     * @return the station
+     */
+    public Station getStation(int id) {
+        return this.stations[id];
+    }
+
+    /**
+     * Returns the id of the station with the given code. The code is not case-sensitive.
+     * @param code the station's code
+     * @return the station's id, or -1 if there is no such station
+     */
+    public int getId(String code) {
+        Integer id = this.idsByCode.get(code.toUpperCase());
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the id of the station with the given name.
+     * @param name the station's name
+     * @return the station's id, or -1 if there is no such station
+     */
+    public int getIdByName(String name) {
+        Integer id = this.idsByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the aspects of the signals of every station on the section.
+     * @return the table of aspects, where the station with the id <code>i</code> is at index <code>i</code>
+     */
+    public SignalAspectTable getSignalAspects() {
+        return this.signalAspects;
+    }
+
+    /**
+     * Returns the stations on the section in the order of their ids.
+     * @return an immutable list of stations, where the station at index <code>i</code> has the id <code>i</code>.
+     */
+    public List<Station> getStations() {
+        return Collections.unmodifiableList(Arrays.asList(this.stations));
+    }
+}
@@ -0,0 +1,436 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainDirection;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The <code>SignalAspectTable</code> class holds the aspects of the signals of all the stations on a section, in a
+ * single array of <code>int</code>s. The element at index 0 is a version, and the element at index <code>i + 1</code>
+ * holds both aspects of the station with the id <code>i</code>, two bits for each direction.
+ * <br><br>
+ * Reads never lock. The aspects of one station are read in a single volatile read, so they are always consistent
+ * with each other. The aspects of the whole section are read as a seqlock: the version is odd while an update is
+ * being written, and a reader that sees the version change while it reads tries again.
+ * <br><br>
+ * Updates are rare, as they come from the operator. They are written one at a time, under the lock on the table, so
+ * writes are serialised and only reads are lock-free. An update may change any number of signals.
+ * <br><br>
+ * The lock is released once an update has been written, before any observer is called, so observers never hold up
+ * another update. Each observer of a signal that changed is then called once for the update, however many of the
+ * signals it observes changed, with a <code>Change</code> that holds the aspects before and after. Observers are
+ * called by one thread at a time: an update made while they are being called, whether by another thread or by an
+ * observer itself, is left to the thread that is calling them, which calls them again once it is done. So an observer
+ * may be called on another thread than the one that made the update, and updates made in quick succession may reach
+ * it as one change.
+ * <br><br>
+ * Telling observers of an update allocates no objects. The <code>Change</code> and the arrays it holds belong to the
+ * table, and are reused for every update, and an observer that observes several of the changed signals is found to
+ * have been called already by a stamp, rather than by searching the observers called so far.
+ */
+public final class SignalAspectTable {
+
+    /**
+     * An observer of one or more signals, which is called after any of their aspects have changed.
+     */
+    public interface Observer {
+
+        /**
+         * Called once after an update has changed any of the signals being observed. This is called without the lock
+         * on the table being held, and not necessarily on the thread that made the update.
+         *
+         * @param change the aspects of every station before and after the update. It is reused for later updates, so
+         *               it must not be kept once this returns.
+         */
+        void signalsChanged(Change change);
+    }
+
+    /**
+     * The aspects of every station before and after one or more updates, as passed to observers. Stations are given
+     * by their index in the table, which is the station's id once it has been registered with a
+     * <code>SectionRegistry</code>.
+     */
+    public static final class Change {
+
+        private int version;
+
+        private final int[] previousAspects;
+
+        private final int[] aspects;
+
+        private Change(int[] previousAspects, int[] aspects) {
+            this.previousAspects = previousAspects;
+            this.aspects = aspects;
+        }
+
+        /**
+         * Returns the version of the table after the change.
+         * @return the version
+         */
+        public int getVersion() {
+            return this.version;
+        }
+
+        /**
+         * Determines if a signal was changed.
+         *
+         * @param stationId the id of the station
+         * @param direction the direction of the trains the signal is for
+         * @return <code>true</code> if the signal has a different aspect after the change
+         */
+        public boolean hasChanged(int stationId, TrainDirection direction) {
+            return getPreviousAspect(stationId, direction) != getAspect(stationId, direction);
+        }
+
+        /**
+         * Returns the aspect of a signal before the change.
+         *
+         * @param stationId the id of the station
+         * @param direction the direction of the trains the signal is for
+         * @return the aspect of the signal
+         */
+        public SignalAspect getPreviousAspect(int stationId, TrainDirection direction) {
+            return aspect(this.previousAspects[stationId], direction);
+        }
+
+        /**
+         * Returns the aspect of a signal after the change.
+         *
+         * @param stationId the id of the station
+         * @param direction the direction of the trains the signal is for
+         * @return the aspect of the signal
+         */
+        public SignalAspect getAspect(int stationId, TrainDirection direction) {
+            return aspect(this.aspects[stationId], direction);
+        }
+    }
+
+    private static final SignalAspect[] ASPECTS = SignalAspect.values();
+
+    private static final TrainDirection[] DIRECTIONS = TrainDirection.values();
+
+    private static final int BITS_PER_ASPECT = 2;
+
+    private static final int ASPECT_MASK = (1 << BITS_PER_ASPECT) - 1;
+
+    private static final Registration[] NO_REGISTRATIONS = new Registration[0];
+
+    /**
+     * An observer, along with the signals it observes and the last update it was told of.
+     */
+    private static final class Registration {
+
+        private final Observer observer;
+
+        /**
+         * The number of signals the observer observes.
+         */
+        private int signalCount;
+
+        /**
+         * The number of the last update the observer was told of. This is only used by the thread that is calling
+         * the observers.
+         */
+        private int notifiedEpoch;
+
+        private Registration(Observer observer) {
+            this.observer = observer;
+        }
+    }
+
+    private final int stationCount;
+
+    /**
+     * The version, followed by the aspects of each station.
+     */
+    private final AtomicIntegerArray cells;
+
+    /**
+     * The observers of each signal, at index <code>2 * stationId + direction.ordinal()</code>. Each array is replaced
+     * when an observer is added or removed, so that it can be iterated without locking.
+     */
+    private final AtomicReferenceArray<Registration[]> observers;
+
+    /**
+     * The registration of each observer, however many signals it observes. This is only used while holding the lock
+     * on the table.
+     */
+    private final Map<Observer, Registration> registrations = new IdentityHashMap<>();
+
+    /**
+     * The aspects of each station as they were when observers were last told of them. This, and everything else
+     * below, is only used by the thread that is calling the observers.
+     */
+    private final int[] notifiedCells;
+
+    /**
+     * The change passed to observers, whose previous aspects are <code>notifiedCells</code>.
+     */
+    private final Change change;
+
+    /**
+     * The number of the update observers are being told of, with which they are stamped once they have been.
+     */
+    private int epoch;
+
+    /**
+     * The number of updates that have been written since the thread calling the observers last looked, or zero if
+     * no thread is calling them.
+     */
+    private final AtomicInteger pendingNotifications = new AtomicInteger();
+
+    /**
+     * Creates a table for the given number of stations, with all signals at STOP.
+     *
+     * @param stationCount the number of stations
+     */
+    public SignalAspectTable(int stationCount) {
+        this.stationCount = stationCount;
+        this.cells = new AtomicIntegerArray(stationCount + 1);
+        this.observers = new AtomicReferenceArray<>(2 * stationCount);
+        for (int signal = 0; signal < 2 * stationCount; signal++) this.observers.set(signal, NO_REGISTRATIONS);
+        this.notifiedCells = new int[stationCount];
+        this.change = new Change(this.notifiedCells, new int[stationCount]);
+        int allStop = pack(SignalAspect.STOP, SignalAspect.STOP);
+        for (int stationId = 0; stationId < stationCount; stationId++) {
+            this.cells.set(stationId + 1, allStop);
+            this.notifiedCells[stationId] = allStop;
+        }
+    }
+
+    private static int pack(SignalAspect towardsHomeAspect, SignalAspect awayFromHomeAspect) {
+        return towardsHomeAspect.ordinal() << shift(TrainDirection.TOWARDS_HOME)
+                | awayFromHomeAspect.ordinal() << shift(TrainDirection.AWAY_FROM_HOME);
+    }
+
+    private static int shift(TrainDirection direction) {
+        return direction.ordinal() * BITS_PER_ASPECT;
+    }
+
+    /**
+     * Returns the aspect of one signal, from the aspects of a station as read by <code>readAll</code>.
+     *
+     * @param packedAspects the aspects of the station
+     * @param direction     the direction of the trains the signal is for
+     * @return the aspect of the signal
+     */
+    public static SignalAspect aspect(int packedAspects, TrainDirection direction) {
+        return ASPECTS[packedAspects >>> shift(direction) & ASPECT_MASK];
+    }
+
+    /**
+     * Returns the number of stations in the table.
+     * @return the number of stations
+     */
+    public int size() {
+        return this.stationCount;
+    }
+
+    /**
+     * Returns the version of the table, which changes with every update that changes an aspect. It is odd while an
+     * update is being written.
+     *
+     * @return the version
+     */
+    public int getVersion() {
+        return this.cells.get(0);
+    }
+
+    /**
+     * Returns the aspect of a signal.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction of the trains the signal is for
+     * @return the aspect of the signal
+     */
+    public SignalAspect get(int stationId, TrainDirection direction) {
+        return aspect(this.cells.get(stationId + 1), direction);
+    }
+
+    /**
+     * Returns both aspects of a station.
+     *
+     * @param stationId the id of the station
+     * @return an array of the aspects of the signal for trains travelling towards home, and of the signal for trains
+     * travelling away from home
+     */
+    public SignalAspect[] get(int stationId) {
+        int packedAspects = this.cells.get(stationId + 1);
+        return new SignalAspect[] {aspect(packedAspects, TrainDirection.TOWARDS_HOME),
+                aspect(packedAspects, TrainDirection.AWAY_FROM_HOME)};
+    }
+
+    /**
+     * Reads the aspects of all the stations as they were at one moment, with no update part way through.
+     *
+     * @param packedAspects an array with at least as many elements as there are stations, which is filled with the
+     *                      aspects of each station, to be read using <code>aspect</code>
+     * @return the version of the table that was read
+     */
+    public int readAll(int[] packedAspects) {
+        while (true) {
+            int version = this.cells.get(0);
+            if ((version & 1) == 0) {
+                for (int stationId = 0; stationId < this.stationCount; stationId++)
+                    packedAspects[stationId] = this.cells.get(stationId + 1);
+                if (this.cells.get(0) == version) return version;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Sets one signal of a station.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction of the trains the signal is for
+     * @param aspect    the aspect to be set
+     */
+    public void set(int stationId, TrainDirection direction, SignalAspect aspect) {
+        synchronized (this) {
+            int packedAspects = this.cells.get(stationId + 1) & ~(ASPECT_MASK << shift(direction))
+                    | aspect.ordinal() << shift(direction);
+            write(stationId, stationId + 1, packedAspects);
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Sets both signals of a station, as one update.
+     *
+     * @param stationId          the id of the station
+     * @param towardsHomeAspect  the aspect of the signal for trains travelling towards home
+     * @param awayFromHomeAspect the aspect of the signal for trains travelling away from home
+     */
+    public void set(int stationId, SignalAspect towardsHomeAspect, SignalAspect awayFromHomeAspect) {
+        synchronized (this) {
+            write(stationId, stationId + 1, pack(towardsHomeAspect, awayFromHomeAspect));
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Sets the signals of every station, as one update.
+     *
+     * @param towardsHomeAspect  the aspect of the signals for trains travelling towards home
+     * @param awayFromHomeAspect the aspect of the signals for trains travelling away from home
+     */
+    public void setAll(SignalAspect towardsHomeAspect, SignalAspect awayFromHomeAspect) {
+        synchronized (this) {
+            write(0, this.stationCount, pack(towardsHomeAspect, awayFromHomeAspect));
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Writes the aspects to a range of stations, bumping the version around the write if any of them change. This
+     * must be called while holding the lock on the table.
+     */
+    private void write(int fromStationId, int toStationId, int packedAspects) {
+        boolean changes = false;
+        for (int stationId = fromStationId; stationId < toStationId && !changes; stationId++)
+            changes = this.cells.get(stationId + 1) != packedAspects;
+        if (!changes) return;
+        int version = this.cells.get(0);
+        this.cells.set(0, version + 1);
+        for (int stationId = fromStationId; stationId < toStationId; stationId++)
+            this.cells.set(stationId + 1, packedAspects);
+        this.cells.set(0, version + 2);
+    }
+
+    /**
+     * Calls the observers of the signals that have changed since observers were last told of them, unless another
+     * thread is already calling them, in which case that thread calls them again for this update once it is done.
+     * This must be called without holding the lock on the table.
+     */
+    private void notifyObservers() {
+        if (this.pendingNotifications.getAndIncrement() != 0) return;
+        int pending = 1;
+        try {
+            do {
+                notifyChange();
+                pending = this.pendingNotifications.addAndGet(-pending);
+            } while (pending != 0);
+        } catch (RuntimeException | Error e) {
+            //The updates not yet told of are still in the table, and are told of by the next update.
+            this.pendingNotifications.set(0);
+            throw e;
+        }
+    }
+
+    /**
+     * Calls each observer of the signals that have changed since observers were last told of them, once.
+     */
+    private void notifyChange() {
+        int[] packedAspects = this.change.aspects;
+        this.change.version = readAll(packedAspects);
+        if (Arrays.equals(packedAspects, this.notifiedCells)) return;
+        int epoch = ++this.epoch;
+        for (int stationId = 0; stationId < this.stationCount; stationId++) {
+            if (packedAspects[stationId] == this.notifiedCells[stationId]) continue;
+            for (TrainDirection direction : DIRECTIONS) {
+                if (aspect(packedAspects[stationId], direction) == aspect(this.notifiedCells[stationId], direction))
+                    continue;
+                for (Registration registration : this.observers.get(2 * stationId + direction.ordinal())) {
+                    if (registration.notifiedEpoch == epoch) continue;
+                    registration.notifiedEpoch = epoch;
+                    registration.observer.signalsChanged(this.change);
+                }
+            }
+        }
+        System.arraycopy(packedAspects, 0, this.notifiedCells, 0, this.stationCount);
+    }
+
+    /**
+     * Adds an observer of a signal.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction of the trains the signal is for
+     * @param observer  the observer to add
+     */
+    public synchronized void addObserver(int stationId, TrainDirection direction, Observer observer) {
+        Registration registration = this.registrations.computeIfAbsent(observer, Registration::new);
+        registration.signalCount++;
+        int signal = 2 * stationId + direction.ordinal();
+        Registration[] signalObservers = this.observers.get(signal);
+        Registration[] newSignalObservers = Arrays.copyOf(signalObservers, signalObservers.length + 1);
+        newSignalObservers[signalObservers.length] = registration;
+        this.observers.set(signal, newSignalObservers);
+    }
+
+    /**
+     * Removes an observer of a signal. Nothing happens if it is not observing the signal.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction of the trains the signal is for
+     * @param observer  the observer to remove
+     */
+    public synchronized void removeObserver(int stationId, TrainDirection direction, Observer observer) {
+        int signal = 2 * stationId + direction.ordinal();
+        Registration[] signalObservers = this.observers.get(signal);
+        for (int i = 0; i < signalObservers.length; i++) {
+            if (signalObservers[i].observer != observer) continue;
+            Registration[] newSignalObservers = new Registration[signalObservers.length - 1];
+            System.arraycopy(signalObservers, 0, newSignalObservers, 0, i);
+            System.arraycopy(signalObservers, i + 1, newSignalObservers, i, signalObservers.length - i - 1);
+            this.observers.set(signal, newSignalObservers);
+            if (--signalObservers[i].signalCount == 0) this.registrations.remove(observer);
+            return;
+        }
+    }
+
+    /**
+     * Returns the observers of a signal, so that they can be moved to another table.
+     */
+    Observer[] getObservers(int stationId, TrainDirection direction) {
+        return Arrays.stream(this.observers.get(2 * stationId + direction.ordinal()))
+                .map(registration -> registration.observer)
+                .toArray(Observer[]::new);
+    }
+}
@@ -3,7 +3,6 @@ package game_engine;
 import common.models.SignalAspect;
 import common.models.TrainDirection;
 
-import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -53,9 +52,20 @@ public class Station implements Comparable<Station> {
     private int distanceFromHome;
 
     /**
-     * Java Beans class to help monitor observers for the station's signals.
+     * The id assigned to the station by the <code>SectionRegistry</code>, or -1 if the station has not been registered.
      */
-    private PropertyChangeSupport pcs;
+    private int id = -1;
+
+    /**
+     * The table that holds the aspects of the station's signals. A station has a table of its own until it is
+     * registered, when it moves to the table shared by all the stations on the section.
+     */
+    private SignalAspectTable signals;
+
+    /**
+     * The index of the station in <code>signals</code>.
+     */
+    private int signalIndex;
 
     /**
      * Constructs a <code>Station</code> object.
@@ -80,7 +90,7 @@ public class Station implements Comparable<Station> {
             tracks.add(new Track(track_array[i]));
         }
 
-        pcs = new PropertyChangeSupport(this);
+        signals = new SignalAspectTable(1);
         this.distanceFromHome = distanceFromHome;
     }
 
@@ -89,8 +99,47 @@ public class Station implements Comparable<Station> {
      *
      * @return the distance of the station
      */
-    public Integer getDistance() {
-        return new Integer(distanceFromHome);
+    public int getDistance() {
+        return distanceFromHome;
+    }
+
+    /**
+     * Returns the id assigned to the station by the <code>SectionRegistry</code>.
+     *
+     * @return the station's id, or -1 if the station has not been registered
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the station. This is package-scoped as ids are only assigned by <code>SectionRegistry</code>.
+     *
+     * @param id the station's id
+     * @throws IllegalStateException if the station already has a different id
+     */
+    void assignId(int id) {
+        if (this.id != -1 && this.id != id)
+            throw new IllegalStateException(String.format("%1$s already has the id %2$d", code, this.id));
+        this.id = id;
+    }
+
+    /**
+     * Moves the aspects of the station's signals, and their observers, to the given table, where they are held at the
+     * station's id. This is package-scoped as it is only done by <code>SectionRegistry</code>, once it has assigned
+     * the station its id.
+     *
+     * @param signals the table of the aspects of the signals of every station on the section
+     */
+    void useSignals(SignalAspectTable signals) {
+        if (signals == this.signals) return;
+        SignalAspect[] aspects = getAspects();
+        signals.set(this.id, aspects[0], aspects[1]);
+        for (TrainDirection direction : TrainDirection.values())
+            for (SignalAspectTable.Observer observer : this.signals.getObservers(this.signalIndex, direction))
+                signals.addObserver(this.id, direction, observer);
+        this.signals = signals;
+        this.signalIndex = this.id;
     }
 
     /**
@@ -106,10 +155,10 @@ public class Station implements Comparable<Station> {
      * Returns the current aspects of both signals at the station. The method
      * returns the aspects of both signals as an array.
      *
-     * @return An <code>Integer</code> array that contains both aspects.
+     * @return An array that contains both aspects, the aspect for trains travelling towards home first.
      */
     public SignalAspect[] getAspects() {
-        return new SignalAspect[] {tracks.get(0).getTowardsHomeAspect(), tracks.get(0).getAwayFromHomeAspect()};
+        return signals.get(signalIndex);
     }
 
     /**
@@ -120,16 +169,7 @@ public class Station implements Comparable<Station> {
      * @param aspect The aspect to be set to <code>signal</code>
      */
     public void setAspect(TrainDirection signal, SignalAspect aspect) {
-        if (signal == TrainDirection.TOWARDS_HOME) {
-            SignalAspect oldAspect = tracks.get(0).getTowardsHomeAspect();
-            tracks.forEach(track -> track.setTowardsHomeAspect(aspect));
-            pcs.firePropertyChange("towardsHomeAspect", oldAspect, aspect);
-        }
-        else {
-            SignalAspect oldAspect = tracks.get(0).getAwayFromHomeAspect();
-            tracks.forEach(track -> track.setAwayFromHomeAspect(aspect));
-            pcs.firePropertyChange("awayFromHomeAspect", oldAspect, aspect);
-        }
+        signals.set(signalIndex, signal, aspect);
     }
 
     List<Track> getTracks() {
@@ -157,11 +197,7 @@ public class Station implements Comparable<Station> {
      * @param direction the signal the train wants to observe
      */
     public void addObserverForSignal(Train train, TrainDirection direction) {
-        if (direction == TrainDirection.TOWARDS_HOME) {
-            pcs.addPropertyChangeListener("towardsHomeAspect", train);
-        } else if (direction == TrainDirection.AWAY_FROM_HOME) {
-            pcs.addPropertyChangeListener("awayFromHomeAspect", train);
-        }
+        signals.addObserver(signalIndex, direction, train);
     }
 
     /**
@@ -173,15 +209,11 @@ public class Station implements Comparable<Station> {
      * @param direction the signal the train wants to stop observing
      */
     public void removeObserverForSignal(Train train, TrainDirection direction) {
-        if (direction == TrainDirection.TOWARDS_HOME) {
-            pcs.removePropertyChangeListener("towardsHomeAspect", train);
-        } else if (direction == TrainDirection.AWAY_FROM_HOME) {
-            pcs.removePropertyChangeListener("awayFromHomeAspect", train);
-        }
+        signals.removeObserver(signalIndex, direction, train);
     }
 
     @Override
     public int compareTo(Station other) {
-        return this.getDistance().compareTo(other.getDistance());
+        return Integer.compare(this.distanceFromHome, other.distanceFromHome);
     }
 }
@@ -3,6 +3,7 @@ package game_engine;
 import common.models.TrainDirection;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -14,7 +15,7 @@ import java.util.stream.Collectors;
  * <br><br>
  * By default, the timetable sorts entries in the order the train will encounter them.
  */
-public class Timetable {
+public class Timetable implements TrainTimetable {
 
     /**
      * A collection of <code>Entry</code> instances that represent the train's timetable.
@@ -26,6 +27,30 @@ public class Timetable {
      */
     private TrainDirection direction;
 
+    /**
+     * The index in <code>timetableEntries</code> of each station, indexed by the station's id. It is
+     * <code>null</code> if any of the stations has not been registered with a <code>SectionRegistry</code>, in which
+     * case stations are looked up by their code.
+     */
+    private int[] entryIndexByStationId;
+
+    /**
+     * The arrival &amp; departure times of the stops, in the order the train will encounter them. It is built when
+     * first needed, and discarded whenever the timetable is updated.
+     */
+    private volatile TimeIndex timeIndex;
+
+    /**
+     * Creates a timetable with the stops in <code>stops</code>.
+     * <br><br>
+     * This sorts <code>stationsOnSection</code> and <code>stops</code> in the direction of travel, and looks up the
+     * previous stop for each stop. <code>TimetableBuilder</code> builds the same timetable in a single pass, and
+     * should be preferred for trains with many stops.
+     *
+     * @param stationsOnSection the stations on the section
+     * @param stops             the train's stops
+     * @param direction         the direction of travel of the train
+     */
     public Timetable(List<Station> stationsOnSection, List<Entry> stops, TrainDirection direction) {
         this.direction = direction;
         if (direction == TrainDirection.TOWARDS_HOME) {
@@ -40,6 +65,7 @@ public class Timetable {
         stops.stream().filter(Entry::isTerminatingStation).forEach(entry -> endIndex.set(stationsOnSection.indexOf(entry.getStation())));
         stationsOnSection.subList(startIndex.get(), endIndex.get() + 1)
                 .stream().forEach(s -> timetableEntries.add(new Entry(s, Optional.empty(), StopType.NORMAL_STATION)));
+        indexEntriesByStationId();
         stops.stream().forEach(s -> {
             try {
                 TrainSchedule trainSchedule = s.getSchedule().get();
@@ -51,6 +77,19 @@ public class Timetable {
         });
     }
 
+    /**
+     * Creates a timetable with entries that have already been assembled, in the order the train will encounter them.
+     * This is used by <code>TimetableBuilder</code>.
+     *
+     * @param timetableEntries the timetable's entries
+     * @param direction        the direction of travel of the train
+     */
+    Timetable(List<Entry> timetableEntries, TrainDirection direction) {
+        this.timetableEntries = timetableEntries;
+        this.direction = direction;
+        indexEntriesByStationId();
+    }
+
     /**
      * Updates the station in the timetable with the arrival & departure time.
      * <br><br>
@@ -85,10 +124,8 @@ public class Timetable {
         }
         if (departureTime.isBefore(arrivalTime))
             departureTime = departureTime.plusDays(1);
-        Entry entry = this.timetableEntries.stream()
-                .filter(e -> e.getStation().getCode().equalsIgnoreCase(station.getCode()))
-                .findFirst().get();
-        int index = this.timetableEntries.indexOf(entry);
+        int index = indexOf(station);
+        if (index < 0) throw new NoSuchElementException(station.getCode() + " is not on the train's route");
         Entry previousStop = this.timetableEntries.subList(0, index).stream()
                 .filter(e -> e.getSchedule().isPresent())
                 .sorted(Comparator.reverseOrder())
@@ -101,12 +138,14 @@ public class Timetable {
         TrainSchedule trainSchedule = new TrainSchedule(arrivalTime, departureTime);
         this.timetableEntries.set(index,
                 new Entry(station, Optional.of(trainSchedule), StopType.valueOf(isOriginatingStation, isTerminatingStation)));
+        this.timeIndex = null;
     }
 
     /**
      * Returns the time the train entered the section. This is typically the arrival time at the first station.
      * @return the section entry time.
      */
+    @Override
     public LocalDateTime getSectionEntryTime() {
         return this.timetableEntries.get(0).getSchedule().get().getArrivalTime();
     }
@@ -115,6 +154,7 @@ public class Timetable {
      * Returns the time the train exited the section. This is typically the departure time at the last station.
      * @return the section exit time.
      */
+    @Override
     public LocalDateTime getSectionExitTime() {
         return this.timetableEntries.get(this.timetableEntries.size() - 1).getSchedule().get().getDepartureTime();
     }
@@ -127,17 +167,16 @@ public class Timetable {
      * @return the station at which the train should be. If the train is not supposed to be at a station, then it returns
      *         <code>Optional.empty()</code>.
      */
+    @Override
     public Optional<Station> getStationHaltedAt(LocalDateTime currentTime) {
-        Optional<Entry> entry = this.timetableEntries.stream()
-                .filter(e -> e.getSchedule().isPresent())
-                .filter(e -> {
-                    LocalDateTime arrivalTime = e.getSchedule().get().getArrivalTime();
-                    LocalDateTime departureTime = e.getSchedule().get().getDepartureTime();
-                    return arrivalTime.equals(currentTime) || departureTime.equals(currentTime)
-                            || (arrivalTime.isBefore(currentTime) && departureTime.isAfter(currentTime));
-                })
-                .findFirst();
-        return entry.map(Entry::getStation);
+        TimeIndex timeIndex = getTimeIndex();
+        long time = currentTime.toEpochSecond(ZoneOffset.UTC);
+        int position = timeIndex.firstTimeNotBefore(time);
+        if (position == timeIndex.times.length) return Optional.empty();
+        //An odd position is a departure time, so the train arrived before the current time and is still at the station.
+        if (position % 2 == 1 || timeIndex.times[position] == time)
+            return Optional.of(this.timetableEntries.get(timeIndex.entryIndexes[position / 2]).getStation());
+        return Optional.empty();
     }
 
     /**
@@ -156,39 +195,59 @@ public class Timetable {
      *                    purposes.
      * @return an array of the stations the train is moving between.
      */
+    @Override
     public Optional<Station>[] getStationsTravellingBetween(LocalDateTime currentTime) {
-        ListIterator<Entry> entriesIterator = this.timetableEntries.stream()
-                .filter(e -> e.getSchedule().isPresent())
-                .collect(Collectors.toList())
-                .listIterator();
-        while (entriesIterator.hasNext()) {
-            Entry firstEntry = entriesIterator.next();
-
-            if (entriesIterator.hasNext()) {
-                Entry nextEntry = entriesIterator.next();
-                if (currentTime.isAfter(firstEntry.getSchedule().get().getDepartureTime())
-                        && currentTime.isBefore(nextEntry.getSchedule().get().getArrivalTime())) {
-                    return new Optional[] {Optional.of(firstEntry.getStation()),
-                            Optional.of(nextEntry.getStation())};
-                }
-                entriesIterator.previous();
-            }
+        TimeIndex timeIndex = getTimeIndex();
+        long time = currentTime.toEpochSecond(ZoneOffset.UTC);
+        int position = timeIndex.firstTimeNotBefore(time);
+        //A position past the first stop's arrival time that is an arrival time means the train has departed from the
+        //previous stop, and has not yet arrived at this one.
+        if (position > 0 && position < timeIndex.times.length && position % 2 == 0
+                && timeIndex.times[position] != time) {
+            return new Optional[] {
+                    Optional.of(this.timetableEntries.get(timeIndex.entryIndexes[position / 2 - 1]).getStation()),
+                    Optional.of(this.timetableEntries.get(timeIndex.entryIndexes[position / 2]).getStation())};
         }
         return new Optional[] {Optional.empty(), Optional.empty()};
     }
 
+    /**
+     * Returns the distance of the train from the home station at <code>time</code>, as per the timetable. The
+     * <code>PositionProfile</code> this uses is built once, with the time index.
+     *
+     * @param time the time
+     * @return the distance from the home station
+     * @throws NoSuchElementException if the train has no stops on the section
+     */
+    @Override
+    public float positionAt(LocalDateTime time) {
+        return getPositionProfile().positionAt(time);
+    }
+
+    /**
+     * Returns the train's position over time. It is built once, with the time index.
+     *
+     * @return the position profile
+     * @throws NoSuchElementException if the train has no stops on the section
+     */
+    @Override
+    public PositionProfile getPositionProfile() {
+        PositionProfile positionProfile = getTimeIndex().positionProfile;
+        if (positionProfile == null) throw new NoSuchElementException("The train has no stops on the section");
+        return positionProfile;
+    }
+
     /**
      * Returns the schedule of the train at the station, as per the timetable.
      *
      * @param station the station for which the schedule is required.
      * @return the schedule of the train at that station. If the train doesn't stop, then it returns <code>Optional.empty()</code>
      */
+    @Override
     public Optional<TrainSchedule> getSchedule(Station station) {
-        Optional<Entry> entry = this.timetableEntries.stream()
-                .filter(e -> e.getStation().getCode().equalsIgnoreCase(station.getCode()))
-                .findFirst();
-        if (entry.isPresent()) {
-            return entry.get().getSchedule();
+        int index = indexOf(station);
+        if (index >= 0) {
+            return this.timetableEntries.get(index).getSchedule();
         } else
             return Optional.empty();
     }
@@ -200,6 +259,7 @@ public class Timetable {
      * @param distanceFromHome the train's current position.
      * @return a collection of stations that are yet to be reached.
      */
+    @Override
     public List<Station> getUpcomingStops(final float distanceFromHome) {
         return this.timetableEntries.stream()
                 .map(Entry::getStation)
@@ -212,8 +272,153 @@ public class Timetable {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Returns the stops of the train, that is, the entries that have a schedule, in the order the train will reach them.
+     *
+     * @return the stops
+     */
+    @Override
+    public List<Entry> getStops() {
+        return this.timetableEntries.stream()
+                .filter(entry -> entry.getSchedule().isPresent())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Determines if the other timetable has the same stops as this one, that is, the same stations with the same
+     * arrival and departure times, and the same originating and terminating stations.
+     *
+     * @param other the other timetable
+     * @return <code>true</code> if both timetables have the same stops
+     */
+    @Override
+    public boolean hasSameStops(TrainTimetable other) {
+        if (!(other instanceof Timetable)) return other.hasSameStops(this);
+        Timetable otherTimetable = (Timetable) other;
+        if (this.direction != otherTimetable.direction || this.timetableEntries.size() != otherTimetable.timetableEntries.size())
+            return false;
+        for (int i = 0; i < this.timetableEntries.size(); i++) {
+            Entry entry = this.timetableEntries.get(i), otherEntry = otherTimetable.timetableEntries.get(i);
+            if (!entry.getStation().getCode().equalsIgnoreCase(otherEntry.getStation().getCode())
+                    || !entry.getSchedule().equals(otherEntry.getSchedule())
+                    || entry.isOriginatingStation() != otherEntry.isOriginatingStation()
+                    || entry.isTerminatingStation() != otherEntry.isTerminatingStation())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds <code>entryIndexByStationId</code>, if all stations in the timetable have been registered.
+     */
+    private void indexEntriesByStationId() {
+        int maxStationId = -1;
+        for (Entry entry : this.timetableEntries) {
+            if (entry.getStationId() < 0) return;
+            maxStationId = Math.max(maxStationId, entry.getStationId());
+        }
+        this.entryIndexByStationId = new int[maxStationId + 1];
+        Arrays.fill(this.entryIndexByStationId, -1);
+        for (int i = 0; i < this.timetableEntries.size(); i++)
+            this.entryIndexByStationId[this.timetableEntries.get(i).getStationId()] = i;
+    }
+
+    /**
+     * Returns the index of the station's entry in the timetable. Registered stations are looked up by their id;
+     * other stations are looked up by their code.
+     *
+     * @param station the station
+     * @return the index of the station's entry, or -1 if the station is not in the timetable
+     */
+    private int indexOf(Station station) {
+        int stationId = station.getId();
+        if (this.entryIndexByStationId != null && stationId >= 0) {
+            if (stationId >= this.entryIndexByStationId.length) return -1;
+            int index = this.entryIndexByStationId[stationId];
+            //A station from another section may have the same id, so make sure it is the same station.
+            if (index < 0 || this.timetableEntries.get(index).getStation().getCode().equalsIgnoreCase(station.getCode()))
+                return index;
+        }
+        for (int i = 0; i < this.timetableEntries.size(); i++) {
+            if (this.timetableEntries.get(i).getStation().getCode().equalsIgnoreCase(station.getCode())) return i;
+        }
+        return -1;
+    }
+
+    private TimeIndex getTimeIndex() {
+        TimeIndex timeIndex = this.timeIndex;
+        if (timeIndex == null) {
+            timeIndex = new TimeIndex(this.timetableEntries, this.direction);
+            this.timeIndex = timeIndex;
+        }
+        return timeIndex;
+    }
+
     List<Entry> getEntries() {
         return this.timetableEntries;
     }
+
+    TrainDirection getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * The arrival &amp; departure times of the stops in a timetable, as seconds, in a single sorted array that can be
+     * binary searched, along with the train's <code>PositionProfile</code>.
+     * <br><br>
+     * The times are sorted because <code>update</code> moves the times of overnight trains into the next day. This
+     * relies on <code>update</code> being called in the order of the stations the train will encounter, as it already
+     * requires.
+     */
+    private static final class TimeIndex {
+
+        /**
+         * The arrival time of the n-th stop is at <code>2n</code>, and its departure time is at <code>2n + 1</code>.
+         */
+        private final long[] times;
+
+        /**
+         * The index in the timetable's entries of the n-th stop.
+         */
+        private final int[] entryIndexes;
+
+        /**
+         * The train's position over time, or <code>null</code> if the train has no stops.
+         */
+        private final PositionProfile positionProfile;
+
+        private TimeIndex(List<Entry> entries, TrainDirection direction) {
+            int stopCount = 0;
+            for (Entry entry : entries)
+                if (entry.getSchedule().isPresent()) stopCount++;
+            this.times = new long[stopCount * 2];
+            this.entryIndexes = new int[stopCount];
+            float[] distances = new float[stopCount * 2];
+            int stop = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                Optional<TrainSchedule> schedule = entries.get(i).getSchedule();
+                if (!schedule.isPresent()) continue;
+                this.times[stop * 2] = schedule.get().getArrivalTime().toEpochSecond(ZoneOffset.UTC);
+                this.times[stop * 2 + 1] = schedule.get().getDepartureTime().toEpochSecond(ZoneOffset.UTC);
+                distances[stop * 2] = distances[stop * 2 + 1] = entries.get(i).getStation().getDistance();
+                this.entryIndexes[stop++] = i;
+            }
+            this.positionProfile = stopCount == 0 ? null : new PositionProfile(this.times, distances, direction);
+        }
+
+        /**
+         * Returns the position of the first time that is not before <code>time</code>, or the number of times if all
+         * of them are before it.
+         */
+        private int firstTimeNotBefore(long time) {
+            int low = 0, high = this.times.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (this.times[middle] < time) low = middle + 1;
+                else high = middle;
+            }
+            return low;
+        }
+    }
 }
 
@@ -0,0 +1,123 @@
+package game_engine;
+
+import common.models.TrainDirection;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Builds a <code>Timetable</code> from the stops of a train.
+ * <br><br>
+ * Stops can be added in any order. When the timetable is built, the stations on the section are sorted once in the
+ * direction of travel, and the timetable's entries are then assembled in a single pass over them. This gives the same
+ * timetable as creating a <code>Timetable</code> with the stops, without looking up the previous stop for every stop.
+ * The list of stations passed in is not modified.
+ * <br><br>
+ * Overnight trains are handled as in <code>Timetable.update</code>: if a stop's departure time is before its arrival
+ * time, the departure is moved to the next day, and if a stop's arrival time is before the departure time of the
+ * previous stop, both of its times are moved to the next day.
+ */
+public final class TimetableBuilder {
+
+    private final List<Station> stationsOnSection;
+
+    private final TrainDirection direction;
+
+    /**
+     * The stops added so far, keyed by the station code in upper case.
+     */
+    private final Map<String, Entry> stops = new HashMap<>();
+
+    /**
+     * Creates a builder for the timetable of a train travelling in <code>direction</code>.
+     *
+     * @param stationsOnSection the stations on the section
+     * @param direction         the direction of travel of the train
+     */
+    public TimetableBuilder(List<Station> stationsOnSection, TrainDirection direction) {
+        this.stationsOnSection = stationsOnSection;
+        this.direction = direction;
+    }
+
+    /**
+     * Adds a stop of the train.
+     *
+     * @param station              the station where the train has a stop.
+     * @param arrivalTime          the arrival time of the train at the station
+     * @param departureTime        the departure time of the train from the station
+     * @param isOriginatingStation determines if the stop is the origin for the train
+     * @param isTerminatingStation determines if the stop is the train's destination.
+     * @return this builder
+     * @throws GameNotStartedException  if <code>station</code> is deemed both originating &amp; terminating
+     * @throws IllegalArgumentException if the train already has a stop at <code>station</code>
+     */
+    public TimetableBuilder addStop(Station station, LocalDateTime arrivalTime, LocalDateTime departureTime,
+                                    boolean isOriginatingStation, boolean isTerminatingStation)
+            throws GameNotStartedException {
+        if (isOriginatingStation && isTerminatingStation) {
+            String errorMessage = String.format("%1$s cannot be both originating and terminating station for a train", station.getName());
+            throw new GameNotStartedException(errorMessage);
+        }
+        Entry stop = new Entry(station, Optional.of(new TrainSchedule(arrivalTime, departureTime)),
+                StopType.valueOf(isOriginatingStation, isTerminatingStation));
+        if (this.stops.putIfAbsent(station.getCode().toUpperCase(), stop) != null)
+            throw new IllegalArgumentException("The train has more than one stop at " + station.getCode());
+        return this;
+    }
+
+    /**
+     * Builds the timetable. It has an entry for every station from the train's originating station, or the first
+     * station on the section, to its terminating station, or the last station on the section.
+     *
+     * @return the timetable
+     * @throws NoSuchElementException if a stop is not at a station on the section, or is outside the train's route
+     */
+    public Timetable build() {
+        Station[] route = this.stationsOnSection.toArray(new Station[0]);
+        Arrays.sort(route, this.direction == TrainDirection.TOWARDS_HOME ? Comparator.reverseOrder() : Comparator.naturalOrder());
+
+        Entry[] stopsOnRoute = new Entry[route.length];
+        int start = 0, end = route.length - 1, stopsFound = 0;
+        for (int i = 0; i < route.length; i++) {
+            Entry stop = this.stops.get(route[i].getCode().toUpperCase());
+            if (stop == null) continue;
+            stopsOnRoute[i] = stop;
+            stopsFound++;
+            if (stop.isOriginatingStation()) start = i;
+            if (stop.isTerminatingStation()) end = i;
+        }
+        if (stopsFound < this.stops.size()) {
+            Set<String> stationCodes = new HashSet<>(this.stops.keySet());
+            for (Station station : route) stationCodes.remove(station.getCode().toUpperCase());
+            throw new NoSuchElementException(stationCodes.iterator().next() + " is not on the section");
+        }
+
+        List<Entry> entries = new ArrayList<>(end - start + 1);
+        LocalDateTime previousDepartureTime = null;
+        for (int i = 0; i < route.length; i++) {
+            Entry stop = stopsOnRoute[i];
+            if (i < start || i > end) {
+                if (stop != null)
+                    throw new NoSuchElementException(route[i].getCode() + " is not on the train's route");
+                continue;
+            }
+            if (stop == null) {
+                entries.add(new Entry(route[i], Optional.empty(), StopType.NORMAL_STATION));
+                continue;
+            }
+            LocalDateTime arrivalTime = stop.getSchedule().get().getArrivalTime();
+            LocalDateTime departureTime = stop.getSchedule().get().getDepartureTime();
+            if (departureTime.isBefore(arrivalTime))
+                departureTime = departureTime.plusDays(1);
+            if (previousDepartureTime != null && previousDepartureTime.isAfter(arrivalTime)) {
+                arrivalTime = arrivalTime.plusDays(1);
+                departureTime = departureTime.plusDays(1);
+            }
+            previousDepartureTime = departureTime;
+            entries.add(new Entry(route[i], Optional.of(new TrainSchedule(arrivalTime, departureTime)),
+                    stop.isOriginatingStation() ? StopType.ORIGINATING_STATION
+                            : stop.isTerminatingStation() ? StopType.TERMINATING_STATION : StopType.NORMAL_STATION));
+        }
+        return new Timetable(entries, this.direction);
+    }
+}
@@ -1,7 +1,5 @@
 package game_engine;
 
-import common.models.SignalAspect;
-
 public class Track {
 
     enum TrackType {
@@ -24,25 +22,11 @@ public class Track {
 
     private final TrackType trackType;
 
-    private SignalAspect towardsHome;
-
-    private SignalAspect awayFromHome;
-
     public Track(TrackType typeOfTrack) {
         this.trackType = typeOfTrack;
-        this.towardsHome = SignalAspect.STOP;
-        this.awayFromHome = SignalAspect.STOP;
     }
 
     public TrackType getTrackType() {
         return this.trackType;
     }
-
-    public void setTowardsHomeAspect(SignalAspect aspect) { this.towardsHome = aspect; }
-
-    public void setAwayFromHomeAspect(SignalAspect aspect) { this.awayFromHome = aspect; }
-
-    SignalAspect getTowardsHomeAspect() { return towardsHome; }
-
-    SignalAspect getAwayFromHomeAspect() { return awayFromHome; }
 }
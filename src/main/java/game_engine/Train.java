@@ -2,18 +2,14 @@ package game_engine;
 
 import common.models.TrainDirection;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
-
-
 /**
  * The <code>Train</code> class represents a train running on the section. Some of the
  * properties that an instance of <code>Train</code> holds are the train number, the train
  * name, the distance of the train from the home station, etc.
  *
- * @see game_engine.runners.TrainRunner
+ * @see game_engine.runners.EngineTick
  */
-public class Train implements PropertyChangeListener {
+public class Train implements SignalAspectTable.Observer {
 	/**
 	 * The unique number of the train.
 	 * This is of <code>String</code> datatype, rather than <code>int</code>,
@@ -36,7 +32,7 @@ public class Train implements PropertyChangeListener {
 	/**
 	 * The train's timetable.
 	 */
-	private Timetable timetable;
+	private TrainTimetable timetable;
 
 	/**
 	 * The direction in which the train is travelling.
@@ -57,7 +53,7 @@ public class Train implements PropertyChangeListener {
 	 * @param timetable            The train's timetable.
 	 * @param initialTrainPosition The position of the train on game load.
 	 */
-	public Train(String trainNumber, String name, TrainDirection direction, Timetable timetable, TrainPosition initialTrainPosition) {
+	public Train(String trainNumber, String name, TrainDirection direction, TrainTimetable timetable, TrainPosition initialTrainPosition) {
 		this.no = trainNumber;
 		this.name = name;
 		this.direction = direction;
@@ -100,10 +96,28 @@ public class Train implements PropertyChangeListener {
 	 *
 	 * @return the timetable.
 	 */
-    public Timetable getTimetable() {
+    public TrainTimetable getTimetable() {
 		return this.timetable;
 	}
 
+	/**
+	 * Returns the current lag of the train, that is, how far behind its timetable it is running.
+	 *
+	 * @return the lag, in seconds. It is negative if the train is running early.
+	 */
+	public int getLag() {
+		return this.lag;
+	}
+
+	/**
+	 * Sets the current lag of the train.
+	 *
+	 * @param lag the lag, in seconds. It is negative if the train is running early.
+	 */
+	public void setLag(int lag) {
+		this.lag = lag;
+	}
+
 	/**
 	 * Returns the current train position.
 	 * @return the current position
@@ -113,7 +127,7 @@ public class Train implements PropertyChangeListener {
 	}
 
 	@Override
-	public void propertyChange(PropertyChangeEvent evt) {
-		System.out.println("received event...");
+	public void signalsChanged(SignalAspectTable.Change change) {
+		//Trains are run by their timetables, and do not yet stop at signals, so there is nothing to do.
 	}
 }
\ No newline at end of file
@@ -0,0 +1,567 @@
+package game_engine;
+
+import common.models.TrainRunningStatus;
+import game_engine.initializers.TrainDefinition;
+import game_engine.initializers.TrainFactory;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The <code>TrainLoader</code> class keeps the trains on the section in step with game time.
+ * <br><br>
+ * It maintains a lookahead window, say the next 60 minutes. Trains that enter the section within the window are
+ * loaded ahead of their entry time and held back until they enter the section. At that point, they are handed over
+ * to the game. Trains that have exited the section are retired. As a result, only the trains on the section and the
+ * trains within the window are held in memory, instead of all the trains for the day.
+ * <br><br>
+ * Once the window reaches past midnight, the trains that enter the section after midnight are taken from the trains
+ * that run on the next day, and are loaded for their run of the next day.
+ * <br><br>
+ * It is intended that this class will be used as a task, by something like the Executor framework, that is repeatedly
+ * executed as game time advances. The task must not be executed concurrently with itself.
+ */
+class TrainLoader implements Runnable {
+
+    /**
+     * Supplies the trains that run on the section on a given day.
+     */
+    interface TrainDefinitionSource {
+        List<TrainDefinition> getTrainsForTheDay(DayOfWeek day) throws GameNotStartedException;
+    }
+
+    private static final int MINUTES_IN_A_DAY = 24 * 60;
+
+    private final TrainDefinitionSource trainDefinitionSource;
+
+    /**
+     * The classpath resource that holds the section's data.
+     */
+    private final String sectionResource;
+
+    private final List<Station> stations;
+
+    private final Clock systemClock;
+
+    /**
+     * The lookahead window, in minutes.
+     */
+    private final int lookaheadMinutes;
+
+    /**
+     * Called with each train when it enters the section.
+     */
+    private final Consumer<Train> onEntering;
+
+    /**
+     * Called with each train when it is retired, after it has exited the section.
+     */
+    private final Consumer<Train> onExiting;
+
+    /**
+     * Called with a train on the section, and the train that takes its place, when the train's data is reloaded.
+     */
+    private final BiConsumer<Train, Train> onReplacing;
+
+    /**
+     * The date for which <code>trainsForTheDay</code> was loaded.
+     */
+    private LocalDate loadedFor;
+
+    private List<TrainDefinition> trainsForTheDay = new ArrayList<>();
+
+    /**
+     * The date for which <code>trainsForTheNextDay</code> was loaded, or <code>null</code> if they have not been loaded
+     * since the trains for the day were last loaded.
+     */
+    private LocalDate nextDayLoadedFor;
+
+    private List<TrainDefinition> trainsForTheNextDay = new ArrayList<>();
+
+    /**
+     * The numbers of the trains that have been loaded on <code>loadedFor</code>. A train is not loaded again on the
+     * same day once it has been retired.
+     */
+    private final Set<String> loadedTrains = new HashSet<>();
+
+    /**
+     * The numbers of the trains that were still on the section when <code>loadedFor</code> began. Once these are
+     * retired, they can be loaded again for their run on <code>loadedFor</code>.
+     */
+    private final Set<String> carriedOverTrains = new HashSet<>();
+
+    /**
+     * The trains that have been loaded, but have not yet entered the section, keyed by train number.
+     */
+    private final Map<String, PendingTrain> upcomingTrains = new ConcurrentHashMap<>();
+
+    /**
+     * The trains that are on the section, keyed by train number.
+     */
+    private final Map<String, PendingTrain> runningTrains = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a <code>TrainLoader</code> for the trains on the default section.
+     * @see #TrainLoader(TrainDefinitionSource, String, List, Clock, Duration, Consumer, Consumer, BiConsumer)
+     */
+    TrainLoader(TrainDefinitionSource trainDefinitionSource, List<Station> stations, Clock systemClock,
+                Duration lookahead, Consumer<Train> onEntering, Consumer<Train> onExiting,
+                BiConsumer<Train, Train> onReplacing) {
+        this(trainDefinitionSource, Game.DEFAULT_SECTION_RESOURCE, stations, systemClock, lookahead, onEntering,
+                onExiting, onReplacing);
+    }
+
+    /**
+     * Creates a <code>TrainLoader</code>.
+     *
+     * @param trainDefinitionSource supplies the trains that run on the section on a given day
+     * @param sectionResource       the classpath resource that holds the section's data
+     * @param stations              the stations on the section
+     * @param systemClock           the clock that gives the current game time
+     * @param lookahead             how far ahead of their section entry time trains are loaded. It must be less than
+     *                              a day.
+     * @param onEntering            called with each train when it enters the section
+     * @param onExiting             called with each train once it has exited the section
+     * @param onReplacing           called with a train on the section, and the train that takes its place, when the
+     *                              train's data is reloaded
+     */
+    TrainLoader(TrainDefinitionSource trainDefinitionSource, String sectionResource, List<Station> stations,
+                Clock systemClock, Duration lookahead, Consumer<Train> onEntering, Consumer<Train> onExiting,
+                BiConsumer<Train, Train> onReplacing) {
+        this.trainDefinitionSource = trainDefinitionSource;
+        this.sectionResource = sectionResource;
+        this.stations = stations;
+        this.systemClock = systemClock;
+        this.lookaheadMinutes = (int) lookahead.toMinutes();
+        this.onEntering = onEntering;
+        this.onExiting = onExiting;
+        this.onReplacing = onReplacing;
+    }
+
+    /**
+     * Loads the trains that are on the section right now, and the trains that enter the section within the lookahead
+     * window. The trains are loaded in parallel, one per available processor.
+     * <br><br>
+     * This is meant to be called once, when the game starts, so that the game can show the trains on the section
+     * straightaway. Later updates are done by <code>run()</code>.
+     *
+     * @throws GameNotStartedException if a problem occurs while reading the section data or any of the trains' data
+     */
+    void loadInitialTrains() throws GameNotStartedException {
+        refreshTrainsForTheDay();
+        List<TrainDefinition> trainsToLoad = this.trainsForTheDay.stream()
+                .filter(this::isOnSection)
+                .collect(Collectors.toList());
+        trainsToLoad.addAll(findTrainsWithinLookahead());
+
+        long start = System.nanoTime();
+        TrainFactory trainFactory = new TrainFactory(this.sectionResource);
+        int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), trainsToLoad.size());
+        List<Train> trains = createTrains(trainFactory, trainsToLoad, parallelism);
+        long totalLoadTime = System.nanoTime() - start;
+        for (int i = 0; i < trains.size(); i++) {
+            this.loadedTrains.add(trainsToLoad.get(i).getNumber());
+            this.upcomingTrains.put(trainsToLoad.get(i).getNumber(), new PendingTrain(trainsToLoad.get(i), trains.get(i)));
+            //A train that entered the section before midnight is on its run of the previous day.
+            if (isOnSection(trainsToLoad.get(i)) && trainsToLoad.get(i).getSectionEntryMinutes() > currentMinutes())
+                this.carriedOverTrains.add(trainsToLoad.get(i).getNumber());
+        }
+        List<Train> enteredTrains = enterTrains();
+
+        System.out.println("Total trains on the section: " + enteredTrains.size());
+        enteredTrains.stream().forEach(train -> System.out.printf("%1$s %2$s (loaded in %3$.1f ms)%n",
+                train.getNumber(), train.getTrainName(), trainFactory.getLoadTimings().get(train.getNumber()) / 1e6));
+        long sumOfLoadTimes = trainFactory.getLoadTimings().values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("Loaded %1$d trains in %2$.1f ms using %3$d threads (%4$.1f ms if loaded one after another)%n",
+                trains.size(), totalLoadTime / 1e6, parallelism, sumOfLoadTimes / 1e6);
+    }
+
+    /**
+     * Retires the trains that have exited the section, hands over the trains that have entered the section, and
+     * loads the trains that have come within the lookahead window.
+     */
+    @Override
+    public void run() {
+        try {
+            retireTrains();
+            if (!LocalDate.now(this.systemClock).equals(this.loadedFor)) refreshTrainsForTheDay();
+            enterTrains();
+            prefetchTrains();
+        } catch (GameNotStartedException ex) {
+            //The trains already on the section keep running. We'll try again on the next run.
+            System.out.println("Unable to load upcoming trains: " + ex.getCause());
+        }
+    }
+
+    /**
+     * Reloads the data of the trains that have changed, and puts the reloaded trains in place of the loaded ones.
+     * A train that is on the section is replaced through <code>onReplacing</code>; a train that has not yet entered
+     * the section is simply replaced.
+     * <br><br>
+     * If the section's data has changed, the trains for the day are read again. Loaded trains whose details have
+     * changed are reloaded, upcoming trains that have been removed are dropped, and new trains are loaded once
+     * they come within the lookahead window. Trains whose data files have changed are reloaded too, but are only
+     * replaced if their stops have changed.
+     * <br><br>
+     * A train whose data cannot be read, say because the file is only partly saved, is left as it is. It is reloaded
+     * when the file next changes.
+     * <br><br>
+     * This must not be executed concurrently with <code>run()</code>.
+     *
+     * @param sectionChanged <code>true</code> if the section's data has changed
+     * @param changedTrains  the numbers of the trains whose data files have changed
+     */
+    void reload(boolean sectionChanged, Set<String> changedTrains) {
+        Map<String, TrainDefinition> definitions = new HashMap<>();
+        Map<String, TrainDefinition> nextDayDefinitions = new HashMap<>();
+        if (sectionChanged) {
+            try {
+                refreshTrainsForTheDay();
+            } catch (GameNotStartedException ex) {
+                System.out.println("Unable to reload the section: " + ex.getCause());
+            }
+        }
+        this.trainsForTheDay.forEach(train -> definitions.putIfAbsent(train.getNumber(), train));
+        if (this.upcomingTrains.values().stream().anyMatch(upcomingTrain -> entersTomorrow(upcomingTrain.definition))) {
+            try {
+                getTrainsForTheNextDay().forEach(train -> nextDayDefinitions.putIfAbsent(train.getNumber(), train));
+            } catch (GameNotStartedException ex) {
+                //The upcoming trains of the next day are kept as they are.
+                System.out.println("Unable to reload the trains for the next day: " + ex.getCause());
+                this.upcomingTrains.values().stream()
+                        .filter(upcomingTrain -> entersTomorrow(upcomingTrain.definition))
+                        .forEach(upcomingTrain -> nextDayDefinitions.put(upcomingTrain.definition.getNumber(),
+                                upcomingTrain.definition));
+            }
+        }
+
+        for (Map<String, PendingTrain> loadedTrains : Arrays.asList(this.upcomingTrains, this.runningTrains)) {
+            for (PendingTrain loadedTrain : new ArrayList<>(loadedTrains.values())) {
+                String trainNumber = loadedTrain.definition.getNumber();
+                TrainDefinition definition = entersTomorrow(loadedTrain.definition)
+                        ? nextDayDefinitions.get(trainNumber) : definitions.get(trainNumber);
+                if (definition == null) {
+                    //Trains already on the section are left to run their course.
+                    if (loadedTrains == this.upcomingTrains) {
+                        this.upcomingTrains.remove(trainNumber);
+                        this.loadedTrains.remove(trainNumber);
+                    }
+                    continue;
+                }
+                boolean definitionChanged = !definition.equals(loadedTrain.definition);
+                if (!definitionChanged && !changedTrains.contains(trainNumber)) continue;
+
+                Train reloadedTrain;
+                try {
+                    reloadedTrain = createTrains(new TrainFactory(this.sectionResource),
+                            Collections.singletonList(definition), 1).get(0);
+                } catch (GameNotStartedException ex) {
+                    System.out.println("Unable to reload train " + trainNumber + ": " + ex.getCause());
+                    continue;
+                }
+                if (!definitionChanged && reloadedTrain.getTimetable().hasSameStops(loadedTrain.train.getTimetable()))
+                    continue;
+
+                loadedTrains.put(trainNumber, new PendingTrain(definition, reloadedTrain));
+                if (loadedTrains == this.runningTrains) this.onReplacing.accept(loadedTrain.train, reloadedTrain);
+                System.out.println("Reloaded train " + trainNumber);
+            }
+        }
+    }
+
+    /**
+     * Enters the train now, rather than at its section entry time, as it has been handed over by the section it has
+     * just left. The train must have been loaded, that is, it must be due to enter within the lookahead window.
+     * <br><br>
+     * This must not be executed concurrently with <code>run()</code>.
+     *
+     * @param trainNumber the train's number
+     * @return <code>true</code> if the train is now on the section, whether it was entered now or had already entered
+     */
+    boolean handOver(String trainNumber) {
+        if (this.runningTrains.containsKey(trainNumber)) return true;
+        PendingTrain upcomingTrain = this.upcomingTrains.remove(trainNumber);
+        if (upcomingTrain == null) return false;
+        this.runningTrains.put(trainNumber, upcomingTrain);
+        this.onEntering.accept(upcomingTrain.train);
+        return true;
+    }
+
+    /**
+     * Returns the state of the loader, that is, the trains for the day and the trains it has loaded, so that it can be
+     * saved to a checkpoint.
+     * <br><br>
+     * This must not be executed concurrently with <code>run()</code>.
+     *
+     * @return the state
+     */
+    State getState() {
+        return new State(this.loadedFor, this.trainsForTheDay, this.loadedTrains, this.carriedOverTrains,
+                this.upcomingTrains.values(), this.runningTrains.values());
+    }
+
+    /**
+     * Puts the loader back in the state saved in a checkpoint, in place of <code>loadInitialTrains()</code>. The
+     * running trains are handed to the game through <code>onEntering</code>. No data files are read.
+     *
+     * @param state the state, as returned by <code>getState()</code>
+     */
+    void restore(State state) {
+        this.loadedFor = state.loadedFor;
+        this.trainsForTheDay = new ArrayList<>(state.trainsForTheDay);
+        this.loadedTrains.addAll(state.loadedTrains);
+        this.carriedOverTrains.addAll(state.carriedOverTrains);
+        state.upcomingTrains.forEach(train -> this.upcomingTrains.put(train.definition.getNumber(), train));
+        for (PendingTrain runningTrain : state.runningTrains) {
+            this.runningTrains.put(runningTrain.definition.getNumber(), runningTrain);
+            this.onEntering.accept(runningTrain.train);
+        }
+    }
+
+    /**
+     * Returns the trains that have been loaded but have not yet entered the section.
+     * @return the train numbers
+     */
+    Set<String> getUpcomingTrains() {
+        return Collections.unmodifiableSet(this.upcomingTrains.keySet());
+    }
+
+    /**
+     * Returns the trains that are on the section.
+     * @return the train numbers
+     */
+    Set<String> getRunningTrains() {
+        return Collections.unmodifiableSet(this.runningTrains.keySet());
+    }
+
+    private void refreshTrainsForTheDay() throws GameNotStartedException {
+        LocalDate today = LocalDate.now(this.systemClock);
+        this.trainsForTheDay = this.trainDefinitionSource.getTrainsForTheDay(today.getDayOfWeek());
+        this.loadedFor = today;
+        this.nextDayLoadedFor = null;
+        //Trains that are still upcoming or running must not be loaded again.
+        this.loadedTrains.retainAll(this.upcomingTrains.keySet());
+        this.loadedTrains.addAll(this.runningTrains.keySet());
+        this.carriedOverTrains.clear();
+        this.carriedOverTrains.addAll(this.runningTrains.keySet());
+    }
+
+    private void retireTrains() {
+        for (PendingTrain runningTrain : new ArrayList<>(this.runningTrains.values())) {
+            boolean hasExited = runningTrain.train.getTrainPosition().getTrainRunningStatus() == TrainRunningStatus.EXITING_SECTION
+                    || (!isOnSection(runningTrain.definition) && minutesUntilEntry(runningTrain.definition) > this.lookaheadMinutes);
+            if (hasExited) {
+                this.runningTrains.remove(runningTrain.definition.getNumber());
+                if (this.carriedOverTrains.remove(runningTrain.definition.getNumber()))
+                    this.loadedTrains.remove(runningTrain.definition.getNumber());
+                this.onExiting.accept(runningTrain.train);
+            }
+        }
+    }
+
+    private List<Train> enterTrains() {
+        List<Train> enteredTrains = new ArrayList<>();
+        for (PendingTrain upcomingTrain : new ArrayList<>(this.upcomingTrains.values())) {
+            if (isOnSection(upcomingTrain.definition) || minutesUntilEntry(upcomingTrain.definition) == 0) {
+                this.upcomingTrains.remove(upcomingTrain.definition.getNumber());
+                this.runningTrains.put(upcomingTrain.definition.getNumber(), upcomingTrain);
+                this.onEntering.accept(upcomingTrain.train);
+                enteredTrains.add(upcomingTrain.train);
+            }
+        }
+        return enteredTrains;
+    }
+
+    private void prefetchTrains() throws GameNotStartedException {
+        List<TrainDefinition> trainsToLoad = findTrainsWithinLookahead().stream()
+                .filter(train -> !this.loadedTrains.contains(train.getNumber()))
+                .collect(Collectors.toList());
+        //This runs in the background, so the trains are loaded one after another to leave the processors to the game.
+        List<Train> trains = createTrains(new TrainFactory(this.sectionResource), trainsToLoad, 1);
+        for (int i = 0; i < trains.size(); i++) {
+            this.loadedTrains.add(trainsToLoad.get(i).getNumber());
+            this.upcomingTrains.put(trainsToLoad.get(i).getNumber(), new PendingTrain(trainsToLoad.get(i), trains.get(i)));
+        }
+    }
+
+    /**
+     * Returns the trains that enter the section within the lookahead window. Trains that enter after midnight are
+     * taken from the trains that run on the next day.
+     */
+    private List<TrainDefinition> findTrainsWithinLookahead() throws GameNotStartedException {
+        List<TrainDefinition> trains = this.trainsForTheDay.stream()
+                .filter(train -> !entersTomorrow(train) && isWithinLookahead(train))
+                .collect(Collectors.toList());
+        if (currentMinutes() + this.lookaheadMinutes >= MINUTES_IN_A_DAY) {
+            getTrainsForTheNextDay().stream()
+                    .filter(train -> entersTomorrow(train) && isWithinLookahead(train))
+                    .forEach(trains::add);
+        }
+        return trains;
+    }
+
+    /**
+     * Returns the trains that run on the section on the day after today, reading them only once a day.
+     */
+    private List<TrainDefinition> getTrainsForTheNextDay() throws GameNotStartedException {
+        LocalDate tomorrow = LocalDate.now(this.systemClock).plusDays(1);
+        if (!tomorrow.equals(this.nextDayLoadedFor)) {
+            this.trainsForTheNextDay = this.trainDefinitionSource.getTrainsForTheDay(tomorrow.getDayOfWeek());
+            this.nextDayLoadedFor = tomorrow;
+        }
+        return this.trainsForTheNextDay;
+    }
+
+    /**
+     * Creates the trains, in the same order as <code>definitions</code>. Trains that enter the section after midnight
+     * are created for their run of the next day.
+     */
+    private List<Train> createTrains(TrainFactory trainFactory, List<TrainDefinition> definitions, int parallelism)
+            throws GameNotStartedException {
+        //Which day each train is created for is decided once, so that game time passing meanwhile changes nothing.
+        List<TrainDefinition> todaysDefinitions = new ArrayList<>(), tomorrowsDefinitions = new ArrayList<>();
+        boolean[] entersTomorrow = new boolean[definitions.size()];
+        for (int i = 0; i < definitions.size(); i++) {
+            entersTomorrow[i] = entersTomorrow(definitions.get(i));
+            (entersTomorrow[i] ? tomorrowsDefinitions : todaysDefinitions).add(definitions.get(i));
+        }
+        if (tomorrowsDefinitions.isEmpty())
+            return trainFactory.createAll(definitions, this.stations, parallelism, this.systemClock);
+        Iterator<Train> todaysTrains = trainFactory.createAll(todaysDefinitions, this.stations, parallelism,
+                this.systemClock).iterator();
+        Iterator<Train> tomorrowsTrains = trainFactory.createAll(tomorrowsDefinitions, this.stations, parallelism,
+                this.systemClock, LocalDate.now(this.systemClock).plusDays(1)).iterator();
+        List<Train> trains = new ArrayList<>();
+        for (int i = 0; i < definitions.size(); i++)
+            trains.add(entersTomorrow[i] ? tomorrowsTrains.next() : todaysTrains.next());
+        return trains;
+    }
+
+    /**
+     * Determines if the train's next entry into the section is after midnight, that is, if it is not on the section,
+     * and its section entry time has already gone by today.
+     */
+    private boolean entersTomorrow(TrainDefinition train) {
+        return !isOnSection(train) && train.getSectionEntryMinutes() < currentMinutes();
+    }
+
+    /**
+     * Determines if the current time falls within the train's section entry and leaving times.
+     * Trains that run overnight, that is, that leave the section after midnight, are handled too.
+     *
+     * @param train the train's definition
+     * @return <code>true</code> if the train is on the section
+     */
+    private boolean isOnSection(TrainDefinition train) {
+        int currentMinutes = currentMinutes();
+        int sectionEntryMinutes = train.getSectionEntryMinutes(), sectionLeavingMinutes = train.getSectionLeavingMinutes();
+        if (sectionEntryMinutes <= sectionLeavingMinutes)
+            return currentMinutes > sectionEntryMinutes && currentMinutes < sectionLeavingMinutes;
+        return currentMinutes > sectionEntryMinutes || currentMinutes < sectionLeavingMinutes;
+    }
+
+    /**
+     * Determines if the train enters the section within the lookahead window, including a train that enters it in
+     * the current minute.
+     */
+    private boolean isWithinLookahead(TrainDefinition train) {
+        return minutesUntilEntry(train) <= this.lookaheadMinutes;
+    }
+
+    private int minutesUntilEntry(TrainDefinition train) {
+        return Math.floorMod(train.getSectionEntryMinutes() - currentMinutes(), MINUTES_IN_A_DAY);
+    }
+
+    private int currentMinutes() {
+        LocalDateTime currentTime = LocalDateTime.now(this.systemClock);
+        return currentTime.getHour() * 60 + currentTime.getMinute();
+    }
+
+    /**
+     * A train, along with the definition it was loaded from.
+     */
+    static class PendingTrain {
+        private final TrainDefinition definition;
+        private final Train train;
+
+        PendingTrain(TrainDefinition definition, Train train) {
+            this.definition = definition;
+            this.train = train;
+        }
+
+        TrainDefinition getDefinition() {
+            return this.definition;
+        }
+
+        Train getTrain() {
+            return this.train;
+        }
+    }
+
+    /**
+     * The state of a <code>TrainLoader</code>, as saved to and restored from a checkpoint.
+     */
+    static final class State {
+        private final LocalDate loadedFor;
+        private final List<TrainDefinition> trainsForTheDay;
+        private final Set<String> loadedTrains;
+        private final Set<String> carriedOverTrains;
+        private final List<PendingTrain> upcomingTrains;
+        private final List<PendingTrain> runningTrains;
+
+        State(LocalDate loadedFor, List<TrainDefinition> trainsForTheDay, Set<String> loadedTrains,
+              Set<String> carriedOverTrains, Collection<PendingTrain> upcomingTrains,
+              Collection<PendingTrain> runningTrains) {
+            this.loadedFor = loadedFor;
+            this.trainsForTheDay = new ArrayList<>(trainsForTheDay);
+            this.loadedTrains = new HashSet<>(loadedTrains);
+            this.carriedOverTrains = new HashSet<>(carriedOverTrains);
+            this.upcomingTrains = new ArrayList<>(upcomingTrains);
+            this.runningTrains = new ArrayList<>(runningTrains);
+        }
+
+        /**
+         * Returns the date for which the trains for the day were loaded.
+         * @return the date, or <code>null</code> if they have not been loaded
+         */
+        LocalDate getLoadedFor() {
+            return this.loadedFor;
+        }
+
+        List<TrainDefinition> getTrainsForTheDay() {
+            return this.trainsForTheDay;
+        }
+
+        Set<String> getLoadedTrains() {
+            return this.loadedTrains;
+        }
+
+        Set<String> getCarriedOverTrains() {
+            return this.carriedOverTrains;
+        }
+
+        /**
+         * Returns the trains that have been loaded but have not yet entered the section.
+         * @return the trains
+         */
+        List<PendingTrain> getUpcomingTrains() {
+            return this.upcomingTrains;
+        }
+
+        /**
+         * Returns the trains that are on the section.
+         * @return the trains
+         */
+        List<PendingTrain> getRunningTrains() {
+            return this.runningTrains;
+        }
+    }
+}
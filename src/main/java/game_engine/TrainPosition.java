@@ -48,4 +48,11 @@ public class TrainPosition {
      */
     public void setDistanceFromHome(float distanceFromHome) { this.distanceFromHome = distanceFromHome; }
 
+    /**
+     * Sets the run status of the train.
+     *
+     * @param trainRunningStatus the run status
+     */
+    public void setTrainRunningStatus(TrainRunningStatus trainRunningStatus) { this.trainRunningStatus = trainRunningStatus; }
+
 }
@@ -1,6 +1,7 @@
 package game_engine;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 public class TrainSchedule {
 
@@ -23,4 +24,18 @@ public class TrainSchedule {
 
     public LocalDateTime getDepartureTime() { return this.departureTime; }
 
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof TrainSchedule)) return false;
+        TrainSchedule otherSchedule = (TrainSchedule) other;
+        return Objects.equals(this.arrivalTime, otherSchedule.arrivalTime)
+                && Objects.equals(this.departureTime, otherSchedule.departureTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.arrivalTime, this.departureTime);
+    }
+
 }
@@ -0,0 +1,112 @@
+package game_engine;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The <code>TrainTimetable</code> interface is what the game asks of a train's timetable once it has been created:
+ * where the train is meant to be at a given time, and when it is meant to be at each station.
+ * <br><br>
+ * There are two implementations. <code>Timetable</code> holds an <code>Entry</code> per station, and is what
+ * timetables are built with. <code>CompactTimetable</code> holds the same data in a few primitive arrays, for sections
+ * with a large number of trains.
+ *
+ * @see Timetable
+ * @see CompactTimetable
+ */
+public interface TrainTimetable {
+
+    /**
+     * Returns the time the train entered the section. This is typically the arrival time at the first station.
+     * @return the section entry time.
+     */
+    LocalDateTime getSectionEntryTime();
+
+    /**
+     * Returns the time the train exited the section. This is typically the departure time at the last station.
+     * @return the section exit time.
+     */
+    LocalDateTime getSectionExitTime();
+
+    /**
+     * Returns the station at which the train should be at as per the timetable, for the given <code>currentTime</code>.
+     *
+     * @param currentTime the current time. This parameter is present so that we can pass in mock times for unit testing
+     *                    purposes.
+     * @return the station at which the train should be. If the train is not supposed to be at a station, then it returns
+     *         <code>Optional.empty()</code>.
+     */
+    Optional<Station> getStationHaltedAt(LocalDateTime currentTime);
+
+    /**
+     * Returns an array of the stations on the section the train is travelling between as per the timetable, for the given
+     * <code>currentTime</code>. <br>
+     * NOTES about the array returned:
+     * <ol>
+     *     <li>The array returned is always 2 elements only.</li>
+     *     <li>The first element is the station the train just departed from.</li>
+     *     <li>The second element is the station the train is moving to.</li>
+     *     <li>If the train is not moving between any stations on the section, then both elements are <code>Optional.empty()</code></li>
+     *     <li>If the train is beyond the section, then both elements are <code>Optional.empty()</code></li>
+     * </ol>
+     *
+     * @param currentTime the current time. This parameter is present so that we can pass in mock times for unit testing
+     *                    purposes.
+     * @return an array of the stations the train is moving between.
+     */
+    Optional<Station>[] getStationsTravellingBetween(LocalDateTime currentTime);
+
+    /**
+     * Returns the distance of the train from the home station at <code>time</code>, as per the timetable. The train
+     * waits at each of its stops, and runs at a steady speed from one stop to the next.
+     *
+     * @param time the time
+     * @return the distance from the home station. It is beyond the stations on the section if the train is yet to
+     *         enter the section, or has left it.
+     * @see PositionProfile
+     */
+    float positionAt(LocalDateTime time);
+
+    /**
+     * Returns the train's position over time, as per the timetable. This is what <code>positionAt</code> uses, and is
+     * built only once.
+     *
+     * @return the position profile
+     */
+    PositionProfile getPositionProfile();
+
+    /**
+     * Returns the schedule of the train at the station, as per the timetable.
+     *
+     * @param station the station for which the schedule is required.
+     * @return the schedule of the train at that station. If the train doesn't stop, then it returns <code>Optional.empty()</code>
+     */
+    Optional<TrainSchedule> getSchedule(Station station);
+
+    /**
+     * Returns a <code>List</code> of the stops that are scheduled to come up as per the timetable, inclusive of the
+     * current stop if the train is stopped at one.
+     *
+     * @param distanceFromHome the train's current position.
+     * @return a collection of stations that are yet to be reached.
+     */
+    List<Station> getUpcomingStops(float distanceFromHome);
+
+    /**
+     * Returns the stops of the train, that is, the entries of the timetable that have a schedule, in the order the
+     * train will reach them. Building a timetable with these stops gives back the same timetable.
+     *
+     * @return the stops
+     */
+    List<Entry> getStops();
+
+    /**
+     * Determines if the other timetable has the same stops as this one, that is, the same stations with the same
+     * arrival and departure times, and the same originating and terminating stations.
+     *
+     * @param other the other timetable
+     * @return <code>true</code> if both timetables have the same stops
+     */
+    boolean hasSameStops(TrainTimetable other);
+}
@@ -0,0 +1,60 @@
+package game_engine.data_access;
+
+/**
+ * The <code>AttributeRecord</code> class is a lightweight, immutable copy of the attributes of a single XML element.
+ * It is returned by the streaming methods of <code>DataAccess</code> in place of a DOM <code>Element</code>, so that
+ * the rest of the document does not need to be held in memory.
+ */
+public final class AttributeRecord {
+
+    /**
+     * The name of the element.
+     */
+    private final String elementName;
+
+    /**
+     * The names of the element's attributes. The value of <code>names[i]</code> is <code>values[i]</code>.
+     */
+    private final String[] names;
+
+    /**
+     * The values of the element's attributes.
+     */
+    private final String[] values;
+
+    AttributeRecord(String elementName, String[] names, String[] values) {
+        this.elementName = elementName;
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * Returns the name of the element this record was read from.
+     * @return the element name
+     */
+    public String getElementName() {
+        return elementName;
+    }
+
+    /**
+     * Returns the value of the attribute. Just like <code>org.w3c.dom.Element.getAttribute</code>, this returns an
+     * empty string if the element does not have the attribute.
+     *
+     * @param name the name of the attribute
+     * @return the value of the attribute
+     */
+    public String getAttribute(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return values[i];
+        }
+        return "";
+    }
+
+    /**
+     * Returns the number of attributes the element has.
+     * @return the number of attributes
+     */
+    public int getAttributeCount() {
+        return names.length;
+    }
+}
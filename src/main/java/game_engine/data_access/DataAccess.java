@@ -6,13 +6,30 @@ package game_engine.data_access;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
@@ -23,6 +40,7 @@ import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 /**
@@ -38,6 +56,28 @@ public final class DataAccess
 	 */
 	private static DataAccess Instance = new DataAccess();
 
+	/**
+	 * The Xerces feature that makes the parser expand the whole document while parsing. A fully expanded document
+	 * can be safely read by many threads at once.
+	 */
+	private static final String DEFER_NODE_EXPANSION_FEATURE = "http://apache.org/xml/features/dom/defer-node-expansion";
+
+	/**
+	 * Documents parsed by <code>extractResourceData</code>, keyed by resource path.
+	 */
+	private final Map<String, ParsedDocument> parsedDocuments = new ConcurrentHashMap<>();
+
+	/**
+	 * The prefix of the classpath resources that can be overridden by files in <code>dataDirectory</code>.
+	 */
+	private static final String DATA_RESOURCE_PREFIX = "/data/";
+
+	/**
+	 * A folder outside the classpath whose files take the place of the bundled <code>/data/</code> resources, or
+	 * <code>null</code> if only the bundled resources are used.
+	 */
+	private volatile Path dataDirectory;
+
 	/**
 	 * Constructor made private to disable default constructor provided by Java. Does
 	 * nothing.
@@ -76,55 +116,189 @@ public final class DataAccess
 	public Vector<Element> extractData(InputStream streamToXMLFile,
 			String sElement) throws IOException, 
 			ParserConfigurationException, SAXException	{
-		Vector<Element> objVector;
 		Document objDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(streamToXMLFile);
-		int iCounter = 0;
-		objVector = new Vector<>();
-		String element;
-		if(sElement.indexOf("[") > 0)
-			element = sElement.substring(0, sElement.indexOf("["));
-		else if(sElement.indexOf(".") > 0)
-			element = sElement.substring(0, sElement.indexOf("."));
-		else
-			element = sElement;
-		while( iCounter < objDocument.getElementsByTagName(element).getLength())
+		Selector selector = Selector.parse(sElement);
+		NodeList objNodes = objDocument.getElementsByTagName(selector.getElement());
+		int iLength = objNodes.getLength();
+		Vector<Element> objData = new Vector<>(iLength);
+		for (int iCounter = 0; iCounter < iLength; iCounter++)
 		{
-			objVector.add( ((Element)objDocument.getElementsByTagName(element).item(iCounter)));
-			iCounter++;
+			Element objElement = (Element) objNodes.item(iCounter);
+			if (selector.getAttribute() == null || selector.matches(objElement.getAttribute(selector.getAttribute())))
+				objData.add(objElement);
 		}
-		if(sElement.indexOf("[") > 0)
+		return objData;
+	}
+
+	/**
+	 * Extracts the required data from the specified XML file, without building the document in memory.
+	 * The XML file is read in a single pass, and <code>recordConsumer</code> is called with an
+	 * <code>AttributeRecord</code> for every element that matches <code>sElement</code>, in document order.
+	 * Since nothing but the current element is held in memory, this can be used on files of any size.
+	 * <br><br>
+	 * <code>sElement</code> uses the same syntax as <code>extractData</code>.
+	 *
+	 * @param streamToXMLFile The XML file from which data has to be extracted.
+	 * @param sElement The element of the XML from which data has to be extracted
+	 * @param recordConsumer Called with the attributes of each matching element.
+	 * @throws XMLStreamException if the XML file could not be read or is not well-formed.
+	 */
+	public void streamData(InputStream streamToXMLFile, String sElement, Consumer<AttributeRecord> recordConsumer)
+			throws XMLStreamException {
+		Selector selector = Selector.parse(sElement);
+		XMLInputFactory objFactory = XMLInputFactory.newInstance();
+		objFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		objFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		XMLStreamReader objReader = objFactory.createXMLStreamReader(streamToXMLFile);
+		try
 		{
-			String attribute = sElement.substring(sElement.indexOf("@") + 1, sElement.indexOf("="));
-			String value = sElement.substring(sElement.indexOf("=") + 1, sElement.indexOf("]"));
-			iCounter = 1;
-			Vector<Element> objData = new Vector<>();
-			while(iCounter <= objVector.size())
+			while (objReader.hasNext())
 			{
-				Element objElement = objVector.get(iCounter-1);
-				if(objElement.getAttribute(attribute).equals(value))
-					objData.add(objElement);
-				iCounter++;
+				if (objReader.next() != XMLStreamConstants.START_ELEMENT
+						|| !objReader.getLocalName().equals(selector.getElement()))
+					continue;
+				if (selector.getAttribute() != null)
+				{
+					String value = objReader.getAttributeValue(null, selector.getAttribute());
+					if (!selector.matches(value == null ? "" : value))
+						continue;
+				}
+				int iCount = objReader.getAttributeCount();
+				String[] names = new String[iCount];
+				String[] values = new String[iCount];
+				for (int i = 0; i < iCount; i++)
+				{
+					names[i] = objReader.getAttributeLocalName(i);
+					values[i] = objReader.getAttributeValue(i);
+				}
+				recordConsumer.accept(new AttributeRecord(selector.getElement(), names, values));
 			}
-			return objData;
 		}
-		if(sElement.indexOf(".") > 0)
+		finally
 		{
-			String attribute = sElement.substring(sElement.indexOf("@") + 1, sElement.indexOf(","));
-			String value = sElement.substring(sElement.indexOf(",") + 1, sElement.indexOf(")"));
-			iCounter = 1;
-			Vector<Element> objData = new Vector<>();
-			while(iCounter < objVector.size())
+			objReader.close();
+		}
+	}
+
+	/**
+	 * Extracts the required data from the specified XML file, without building the document in memory.
+	 * This is the same as <code>streamData</code>, except that the matching records are returned as a list.
+	 *
+	 * @param streamToXMLFile The XML file from which data has to be extracted.
+	 * @param sElement The element of the XML from which data has to be extracted
+	 *
+	 * @return A <code>List</code> of the attributes of the matching elements, in document order.
+	 * @throws XMLStreamException if the XML file could not be read or is not well-formed.
+	 */
+	public List<AttributeRecord> extractRecords(InputStream streamToXMLFile, String sElement) throws XMLStreamException {
+		List<AttributeRecord> objRecords = new ArrayList<>();
+		streamData(streamToXMLFile, sElement, objRecords::add);
+		return objRecords;
+	}
+	
+	/**
+	 * Extracts the required data from the specified classpath resource, for example <code>/data/CAL-SRR.xml</code>.
+	 * <code>sElement</code> uses the same syntax as <code>extractData</code>.
+	 * <br><br>
+	 * Unlike <code>extractData</code>, the parsed document is cached, keyed by the resource path. The first query for
+	 * an attribute of an element builds an index from the attribute's values to the elements that have them, so that
+	 * later queries on that attribute, such as the query for each day's trains, are answered from the index without
+	 * reading the resource again.
+	 * <br><br>
+	 * Bundled resources never change, so their documents are kept for good. A document read from a file in the data
+	 * folder is checked against the file's size and modification time, which costs a single look at the file's
+	 * attributes, and is parsed again if either has changed.
+	 * <br><br>
+	 * The returned <code>Element</code>s are shared between callers, and must not be modified.
+	 *
+	 * @param sResourcePath The classpath resource from which data has to be extracted. It is read using
+	 *                      <code>openResource</code>, so it may be overridden by a file in the data folder.
+	 * @param sElement The element of the XML from which data has to be extracted
+	 *
+	 * @return A <code>Vector</code> that contains the required data, in document order.
+	 * @throws FileNotFoundException if the resource does not exist.
+	 */
+	public Vector<Element> extractResourceData(String sResourcePath, String sElement)
+			throws IOException, ParserConfigurationException, SAXException {
+		Optional<Path> objFile = findDataFile(sResourcePath);
+		BasicFileAttributes objAttributes = objFile.isPresent()
+				? Files.readAttributes(objFile.get(), BasicFileAttributes.class) : null;
+		ParsedDocument objParsedDocument = parsedDocuments.get(sResourcePath);
+		if (objParsedDocument == null || !objParsedDocument.isReadFrom(objFile.orElse(null), objAttributes))
+		{
+			DocumentBuilderFactory objFactory = DocumentBuilderFactory.newInstance();
+			objFactory.setFeature(DEFER_NODE_EXPANSION_FEATURE, false);
+			Document objDocument;
+			try (InputStream objStream = openResource(sResourcePath))
 			{
-				Element objElement = objVector.get(iCounter-1);
-				if(objElement.getAttribute(attribute).indexOf(value) >= 0)
-					objData.add(objElement);
-				iCounter++;
+				objDocument = objFactory.newDocumentBuilder().parse(objStream);
 			}
-			return objData;
+			objParsedDocument = new ParsedDocument(objDocument, objFile.orElse(null), objAttributes);
+			parsedDocuments.put(sResourcePath, objParsedDocument);
 		}
-		return objVector;
+		return objParsedDocument.select(Selector.parse(sElement));
 	}
-	
+
+	/**
+	 * Opens the specified classpath resource, for example <code>/data/616.xml</code>.
+	 * <br><br>
+	 * If a data folder has been set using <code>setDataDirectory</code>, and it has a file of the same name as a
+	 * <code>/data/</code> resource, then the file is opened instead of the resource. This lets the timetables be
+	 * corrected without rebuilding the game.
+	 *
+	 * @param sResourcePath The classpath resource to be opened.
+	 *
+	 * @return A stream of the resource's contents, which the caller must close.
+	 * @throws FileNotFoundException if neither the file nor the resource exists.
+	 */
+	public InputStream openResource(String sResourcePath) throws IOException
+	{
+		Optional<Path> objFile = findDataFile(sResourcePath);
+		if (objFile.isPresent())
+			return Files.newInputStream(objFile.get());
+		InputStream objStream = DataAccess.class.getResourceAsStream(sResourcePath);
+		if (objStream == null)
+			throw new FileNotFoundException(sResourcePath);
+		return objStream;
+	}
+
+	/**
+	 * Returns the file in the data folder that takes the place of the specified resource.
+	 *
+	 * @param sResourcePath The classpath resource.
+	 *
+	 * @return The file, or an empty value if the bundled resource is to be used.
+	 */
+	private Optional<Path> findDataFile(String sResourcePath)
+	{
+		Path objDataDirectory = dataDirectory;
+		if (objDataDirectory == null || !sResourcePath.startsWith(DATA_RESOURCE_PREFIX))
+			return Optional.empty();
+		Path objFile = objDataDirectory.resolve(sResourcePath.substring(DATA_RESOURCE_PREFIX.length()));
+		return Files.isRegularFile(objFile) ? Optional.of(objFile) : Optional.empty();
+	}
+
+	/**
+	 * Sets the folder whose files take the place of the bundled <code>/data/</code> resources.
+	 * See <code>openResource</code>.
+	 *
+	 * @param objDataDirectory The data folder, or <code>null</code> to use only the bundled resources.
+	 */
+	public void setDataDirectory(Path objDataDirectory)
+	{
+		dataDirectory = objDataDirectory;
+	}
+
+	/**
+	 * Returns the folder whose files take the place of the bundled <code>/data/</code> resources.
+	 *
+	 * @return The data folder, or an empty value if only the bundled resources are used.
+	 */
+	public Optional<Path> getDataDirectory()
+	{
+		return Optional.ofNullable(dataDirectory);
+	}
+
     public Vector<Element> extractData(String srelativePathToFileName, String element)
 	    throws IOException, ParserConfigurationException, SAXException {
 	FileInputStream file = new FileInputStream(srelativePathToFileName);
@@ -231,4 +405,105 @@ public final class DataAccess
 			System.out.println("Exception in transforming XML " + transEx.getMessage());
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A document parsed by <code>extractResourceData</code>, along with indexes built on it.
+	 */
+	private static final class ParsedDocument
+	{
+		/**
+		 * The parsed document.
+		 */
+		private final Document document;
+
+		/**
+		 * The file in the data folder from which <code>document</code> was parsed, or <code>null</code> if it was
+		 * parsed from a bundled resource.
+		 */
+		private final Path file;
+
+		/**
+		 * The size of <code>file</code> when it was parsed.
+		 */
+		private final long size;
+
+		/**
+		 * The modification time of <code>file</code> when it was parsed.
+		 */
+		private final FileTime lastModified;
+
+		/**
+		 * The elements of the document, in document order, keyed by element name.
+		 */
+		private final Map<String, List<Element>> elementsByName = new HashMap<>();
+
+		/**
+		 * Indexes on the attributes used in selectors, keyed by "element@attribute". Each index maps an attribute
+		 * value to the positions, in <code>elementsByName</code>, of the elements that have that value.
+		 */
+		private final Map<String, Map<String, List<Integer>>> attributeIndexes = new HashMap<>();
+
+		ParsedDocument(Document document, Path file, BasicFileAttributes attributes)
+		{
+			this.document = document;
+			this.file = file;
+			this.size = attributes == null ? 0 : attributes.size();
+			this.lastModified = attributes == null ? null : attributes.lastModifiedTime();
+		}
+
+		/**
+		 * Returns whether the document was parsed from the specified source, as it is now.
+		 *
+		 * @param file The file in the data folder, or <code>null</code> for the bundled resource.
+		 * @param attributes The file's current attributes, or <code>null</code> for the bundled resource.
+		 */
+		boolean isReadFrom(Path file, BasicFileAttributes attributes)
+		{
+			if (file == null || this.file == null)
+				return file == this.file;
+			return file.equals(this.file) && attributes.size() == size
+					&& attributes.lastModifiedTime().equals(lastModified);
+		}
+
+		synchronized Vector<Element> select(Selector selector)
+		{
+			List<Element> elements = elementsByName.computeIfAbsent(selector.getElement(), name -> {
+				NodeList objNodes = document.getElementsByTagName(name);
+				List<Element> objElements = new ArrayList<>(objNodes.getLength());
+				for (int i = 0; i < objNodes.getLength(); i++)
+					objElements.add((Element) objNodes.item(i));
+				return objElements;
+			});
+			if (selector.getAttribute() == null)
+				return new Vector<>(elements);
+
+			Map<String, List<Integer>> index = attributeIndexes.computeIfAbsent(
+					selector.getElement() + "@" + selector.getAttribute(), key -> {
+				Map<String, List<Integer>> objIndex = new HashMap<>();
+				for (int i = 0; i < elements.size(); i++)
+					objIndex.computeIfAbsent(elements.get(i).getAttribute(selector.getAttribute()),
+							value -> new ArrayList<>()).add(i);
+				return objIndex;
+			});
+
+			Vector<Element> objData = new Vector<>();
+			if (selector.getCondition() == Selector.Condition.EQUALS)
+			{
+				for (int position : index.getOrDefault(selector.getValue(), Collections.emptyList()))
+					objData.add(elements.get(position));
+				return objData;
+			}
+			//For contains(), only the distinct values are scanned; the matching positions are then put back in
+			//document order.
+			List<Integer> positions = new ArrayList<>();
+			index.forEach((value, valuePositions) -> {
+				if (selector.matches(value))
+					positions.addAll(valuePositions);
+			});
+			Collections.sort(positions);
+			for (int position : positions)
+				objData.add(elements.get(position));
+			return objData;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package game_engine.data_access;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The <code>DataDirectoryWatcher</code> class watches a data folder, and reports the XML files in it that have been
+ * created or modified.
+ * <br><br>
+ * Editors often save a file in more than one step, so the watcher waits until the folder has been quiet for a short
+ * while, and then reports all the files changed until then in one go. Files that were changed more than once are
+ * reported once.
+ * <br><br>
+ * The watcher runs on its own daemon thread, which is started by <code>start()</code> and stopped by
+ * <code>close()</code>. Changes are reported on that thread.
+ */
+public class DataDirectoryWatcher implements AutoCloseable {
+
+    /**
+     * How long the folder must be quiet before changes are reported, in milliseconds.
+     */
+    private static final long QUIET_PERIOD = 250;
+
+    private final Path dataDirectory;
+
+    private final WatchService watchService;
+
+    /**
+     * Called with the names of the files that have changed.
+     */
+    private final Consumer<Set<String>> onChange;
+
+    private final Thread watcherThread;
+
+    /**
+     * Creates a <code>DataDirectoryWatcher</code>. The folder is not watched until <code>start()</code> is called.
+     *
+     * @param dataDirectory the folder to watch
+     * @param onChange      called with the names, such as <code>616.xml</code>, of the files that have changed
+     * @throws IOException if the folder cannot be watched
+     */
+    public DataDirectoryWatcher(Path dataDirectory, Consumer<Set<String>> onChange) throws IOException {
+        this.dataDirectory = dataDirectory;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        dataDirectory.register(this.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watcherThread = new Thread(this::watch, "data-directory-watcher");
+        this.watcherThread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the folder.
+     */
+    public void start() {
+        this.watcherThread.start();
+    }
+
+    /**
+     * Stops watching the folder.
+     *
+     * @throws IOException if the underlying watch service could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<String> changedFiles = new HashSet<>();
+                WatchKey watchKey = this.watchService.take();
+                //Keep collecting changes until the folder has been quiet for a while.
+                while (watchKey != null) {
+                    collectChangedFiles(watchKey, changedFiles);
+                    watchKey = this.watchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS);
+                }
+                if (!changedFiles.isEmpty()) {
+                    try {
+                        this.onChange.accept(changedFiles);
+                    } catch (RuntimeException ex) {
+                        System.out.println("Unable to reload " + changedFiles + ": " + ex.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            //The watcher has been stopped.
+        }
+    }
+
+    private void collectChangedFiles(WatchKey watchKey, Set<String> changedFiles) {
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                System.out.println("Too many changes in " + this.dataDirectory + "; some may have been missed.");
+                continue;
+            }
+            String fileName = ((Path) event.context()).getFileName().toString();
+            if (fileName.endsWith(".xml")) changedFiles.add(fileName);
+        }
+        watchKey.reset();
+    }
+}
@@ -0,0 +1,345 @@
+package game_engine.data_access;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * The <code>SectionSnapshot</code> class gives read access to a precompiled binary snapshot of a section's data,
+ * that is, the section's stations, its trains and every train's stops. The snapshot is produced at build time by
+ * <code>SectionSnapshotCompiler</code> from the XML files in the <code>data</code> folder, so that the game does not
+ * need to parse any XML at startup.
+ * <br><br>
+ * The snapshot is laid out as follows (all numbers are big-endian, all strings are a <code>short</code> byte length
+ * followed by UTF-8 bytes):
+ * <ol>
+ *     <li>A header: the magic number, the format version, and the CRC32 checksum of the section XML file the
+ *     snapshot was compiled from.</li>
+ *     <li>The station table: the number of stations, followed by the code, name, number of tracks and distance from
+ *     home of each station.</li>
+ *     <li>The train table: the number of trains, followed by the number, name, direction, days of arrival,
+ *     section entry &amp; leaving time of each train, and the train's stops. Each stop is a fixed-size record of
+ *     the station's index in the station table, the arrival &amp; departure times (in minutes of the day) and the
+ *     stop flags.</li>
+ *     <li>A trailer containing the CRC32 checksum of everything before it.</li>
+ * </ol>
+ * When the snapshot is a plain file, it is memory-mapped. When it is packaged inside an archive or a runtime image,
+ * it is read into memory instead.
+ */
+public final class SectionSnapshot {
+
+    /**
+     * The magic number that every snapshot starts with. These are the bytes "SCSS".
+     */
+    static final int MAGIC = 0x53435353;
+
+    /**
+     * The version of the snapshot format.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * The size in bytes of a single stop record.
+     */
+    static final int STOP_RECORD_SIZE = 7;
+
+    /**
+     * The flag set on a stop record if the train's journey originates at that stop.
+     */
+    static final byte ORIGINATING_STATION_FLAG = 1;
+
+    /**
+     * The flag set on a stop record if the train's journey terminates at that stop.
+     */
+    static final byte TERMINATING_STATION_FLAG = 2;
+
+    /**
+     * Snapshots that have already been loaded, keyed by the section XML resource they were compiled from.
+     */
+    private static final Map<String, Optional<SectionSnapshot>> LOADED_SNAPSHOTS = new ConcurrentHashMap<>();
+
+    /**
+     * The snapshot's contents. Stop records are read directly from this buffer.
+     */
+    private final ByteBuffer buffer;
+
+    private final String[] stationCodes;
+    private final String[] stationNames;
+    private final int[] stationTracks;
+    private final int[] stationDistances;
+
+    private final String[] trainNumbers;
+    private final String[] trainNames;
+    private final boolean[] trainTowardsHome;
+    private final String[] trainDaysOfArrival;
+    private final int[] trainEntryMinutes;
+    private final int[] trainLeavingMinutes;
+    private final int[] trainStopOffsets;
+    private final int[] trainStopCounts;
+
+    /**
+     * Reads the station and train tables of the snapshot held in <code>buffer</code>.
+     *
+     * @param buffer the snapshot contents, positioned just after the header.
+     */
+    private SectionSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        int stationCount = buffer.getInt();
+        stationCodes = new String[stationCount];
+        stationNames = new String[stationCount];
+        stationTracks = new int[stationCount];
+        stationDistances = new int[stationCount];
+        for (int i = 0; i < stationCount; i++) {
+            stationCodes[i] = readString(buffer);
+            stationNames[i] = readString(buffer);
+            stationTracks[i] = buffer.getShort();
+            stationDistances[i] = buffer.getInt();
+        }
+
+        int trainCount = buffer.getInt();
+        trainNumbers = new String[trainCount];
+        trainNames = new String[trainCount];
+        trainTowardsHome = new boolean[trainCount];
+        trainDaysOfArrival = new String[trainCount];
+        trainEntryMinutes = new int[trainCount];
+        trainLeavingMinutes = new int[trainCount];
+        trainStopOffsets = new int[trainCount];
+        trainStopCounts = new int[trainCount];
+        for (int i = 0; i < trainCount; i++) {
+            trainNumbers[i] = readString(buffer);
+            trainNames[i] = readString(buffer);
+            trainTowardsHome[i] = buffer.get() == 0;
+            trainDaysOfArrival[i] = readString(buffer);
+            trainEntryMinutes[i] = buffer.getShort();
+            trainLeavingMinutes[i] = buffer.getShort();
+            trainStopCounts[i] = buffer.getShort();
+            trainStopOffsets[i] = buffer.position();
+            for (int stop = 0; stop < trainStopCounts[i]; stop++) {
+                int stationIndex = buffer.getShort(buffer.position());
+                if (stationIndex < 0 || stationIndex >= stationCount)
+                    throw new IllegalArgumentException("Stop refers to unknown station index " + stationIndex);
+                buffer.position(buffer.position() + STOP_RECORD_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot compiled from the section XML resource <code>sectionResource</code>, for example
+     * <code>/data/CAL-SRR.xml</code>. The snapshot is expected to be next to the XML resource, with the same name and
+     * the <code>.snapshot</code> extension.
+     * <br><br>
+     * An empty value is returned if there is no snapshot, if the snapshot is corrupt, or if the snapshot was compiled
+     * from a different version of the section XML file. It is also returned if a data folder has been set using
+     * <code>DataAccess.setDataDirectory</code>. Callers are expected to fall back to the XML files in these cases.
+     *
+     * @param sectionResource the classpath resource of the section XML file.
+     * @return the snapshot, if a valid one is available.
+     */
+    public static Optional<SectionSnapshot> forSection(String sectionResource) {
+        //The snapshot describes the bundled data, not the files in a data folder that may be edited while playing.
+        if (DataAccess.getInstance().getDataDirectory().isPresent()) return Optional.empty();
+        return LOADED_SNAPSHOTS.computeIfAbsent(sectionResource, SectionSnapshot::load);
+    }
+
+    private static Optional<SectionSnapshot> load(String sectionResource) {
+        String snapshotResource = sectionResource.replaceFirst("\\.xml$", ".snapshot");
+        URL snapshotURL = SectionSnapshot.class.getResource(snapshotResource);
+        if (snapshotURL == null) return Optional.empty();
+        try {
+            Optional<SectionSnapshot> snapshot = read(map(snapshotURL), checksumOfResource(sectionResource));
+            if (!snapshot.isPresent())
+                System.out.println("Ignoring stale or corrupt snapshot: " + snapshotResource);
+            return snapshot;
+        } catch (IOException | RuntimeException ex) {
+            System.out.println("Unable to read snapshot " + snapshotResource + ": " + ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Validates and reads a snapshot.
+     *
+     * @param buffer         the snapshot contents
+     * @param sourceChecksum the CRC32 checksum of the section XML file that the snapshot is expected to be compiled from
+     * @return the snapshot, or an empty value if the snapshot is corrupt or was compiled from a different section file.
+     * @throws IllegalArgumentException if a stop refers to a station that is not in the station table.
+     */
+    static Optional<SectionSnapshot> read(ByteBuffer buffer, long sourceChecksum) {
+        if (buffer.limit() < Integer.BYTES + Short.BYTES + 2 * Long.BYTES
+                || buffer.getInt(0) != MAGIC || buffer.getShort(Integer.BYTES) != VERSION)
+            return Optional.empty();
+        if (buffer.getLong(Integer.BYTES + Short.BYTES) != sourceChecksum)
+            return Optional.empty();
+        CRC32 crc = new CRC32();
+        ByteBuffer contents = buffer.duplicate();
+        contents.position(0).limit(buffer.limit() - Long.BYTES);
+        crc.update(contents);
+        if (crc.getValue() != buffer.getLong(buffer.limit() - Long.BYTES))
+            return Optional.empty();
+        buffer.position(Integer.BYTES + Short.BYTES + Long.BYTES);
+        return Optional.of(new SectionSnapshot(buffer));
+    }
+
+    /**
+     * Memory-maps the snapshot if it is a plain file, else reads it fully into memory.
+     */
+    private static ByteBuffer map(URL snapshotURL) throws IOException {
+        if ("file".equals(snapshotURL.getProtocol())) {
+            try {
+                Path snapshotPath = Paths.get(snapshotURL.toURI());
+                try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                    return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } catch (URISyntaxException ex) {
+                throw new IOException(ex);
+            }
+        }
+        try (InputStream snapshotStream = snapshotURL.openStream()) {
+            return ByteBuffer.wrap(snapshotStream.readAllBytes());
+        }
+    }
+
+    /**
+     * Computes the CRC32 checksum of a classpath resource. This reads the raw bytes only; nothing is parsed.
+     */
+    private static long checksumOfResource(String resource) throws IOException {
+        try (InputStream resourceStream = SectionSnapshot.class.getResourceAsStream(resource)) {
+            if (resourceStream == null) return -1;
+            return checksum(resourceStream.readAllBytes());
+        }
+    }
+
+    static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of stations on the section.
+     * @return the number of stations
+     */
+    public int getStationCount() { return stationCodes.length; }
+
+    public String getStationCode(int station) { return stationCodes[station]; }
+
+    public String getStationName(int station) { return stationNames[station]; }
+
+    public int getStationTracks(int station) { return stationTracks[station]; }
+
+    public int getStationDistance(int station) { return stationDistances[station]; }
+
+    /**
+     * Returns the number of trains that run on the section.
+     * @return the number of trains
+     */
+    public int getTrainCount() { return trainNumbers.length; }
+
+    public String getTrainNumber(int train) { return trainNumbers[train]; }
+
+    public String getTrainName(int train) { return trainNames[train]; }
+
+    /**
+     * Returns the direction of the train in the same form as the section XML file, that is, either
+     * "TowardsHome" or "AwayFromHome".
+     *
+     * @param train the index of the train
+     * @return the direction of the train
+     */
+    public String getTrainDirection(int train) { return trainTowardsHome[train] ? "TowardsHome" : "AwayFromHome"; }
+
+    public String getTrainDaysOfArrival(int train) { return trainDaysOfArrival[train]; }
+
+    /**
+     * Returns the section entry time of the train, in minutes since midnight.
+     * @param train the index of the train
+     * @return the section entry time
+     */
+    public int getTrainSectionEntryMinutes(int train) { return trainEntryMinutes[train]; }
+
+    /**
+     * Returns the section leaving time of the train, in minutes since midnight.
+     * @param train the index of the train
+     * @return the section leaving time
+     */
+    public int getTrainSectionLeavingMinutes(int train) { return trainLeavingMinutes[train]; }
+
+    /**
+     * Returns the index of the train with the given number.
+     *
+     * @param trainNumber the train's number
+     * @return the index of the train, or -1 if the snapshot does not have the train.
+     */
+    public int indexOfTrain(String trainNumber) {
+        for (int i = 0; i < trainNumbers.length; i++) {
+            if (trainNumbers[i].equals(trainNumber)) return i;
+        }
+        return -1;
+    }
+
+    public int getStopCount(int train) { return trainStopCounts[train]; }
+
+    /**
+     * Returns the index, in the station table, of the station of a train's stop.
+     *
+     * @param train the index of the train
+     * @param stop  the index of the stop
+     * @return the index of the station
+     */
+    public int getStopStation(int train, int stop) {
+        return buffer.getShort(stopOffset(train, stop));
+    }
+
+    /**
+     * Returns the arrival time at a train's stop, in minutes since midnight.
+     *
+     * @param train the index of the train
+     * @param stop  the index of the stop
+     * @return the arrival time
+     */
+    public int getStopArrivalMinutes(int train, int stop) {
+        return buffer.getShort(stopOffset(train, stop) + 2);
+    }
+
+    /**
+     * Returns the departure time from a train's stop, in minutes since midnight.
+     *
+     * @param train the index of the train
+     * @param stop  the index of the stop
+     * @return the departure time
+     */
+    public int getStopDepartureMinutes(int train, int stop) {
+        return buffer.getShort(stopOffset(train, stop) + 4);
+    }
+
+    public boolean isOriginatingStop(int train, int stop) {
+        return (buffer.get(stopOffset(train, stop) + 6) & ORIGINATING_STATION_FLAG) != 0;
+    }
+
+    public boolean isTerminatingStop(int train, int stop) {
+        return (buffer.get(stopOffset(train, stop) + 6) & TERMINATING_STATION_FLAG) != 0;
+    }
+
+    private int stopOffset(int train, int stop) {
+        if (stop < 0 || stop >= trainStopCounts[train])
+            throw new IndexOutOfBoundsException("Train " + trainNumbers[train] + " has no stop " + stop);
+        return trainStopOffsets[train] + stop * STOP_RECORD_SIZE;
+    }
+}
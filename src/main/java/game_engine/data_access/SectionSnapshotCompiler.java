@@ -0,0 +1,233 @@
+package game_engine.data_access;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Compiles a section XML file, and the XML files of all the trains listed in it, into a single binary snapshot that
+ * can be read by <code>SectionSnapshot</code>. This is run as part of the build, so that the game does not need to parse
+ * XML files at startup.
+ * <br><br>
+ * The compiler validates the data as it goes: station codes must be unique, every train listed on the section must
+ * have its own XML file, every train must stop at a station on the section and all times must be valid. The build
+ * fails if any of these checks fail. Stops at stations on other sections are left out of the snapshot.
+ */
+public final class SectionSnapshotCompiler {
+
+    private SectionSnapshotCompiler() {}
+
+    /**
+     * Compiles a snapshot.
+     *
+     * @param args the path of the section XML file, followed by the path of the snapshot to be written.
+     * @throws Exception if the data is invalid or could not be read or written.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.out.println("Usage: SectionSnapshotCompiler <section XML file> <snapshot file>");
+            System.exit(1);
+        }
+        File sectionFile = new File(args[0]);
+        File snapshotFile = new File(args[1]);
+        try (OutputStream snapshotStream = new BufferedOutputStream(new FileOutputStream(snapshotFile))) {
+            compile(sectionFile, snapshotStream);
+        }
+        System.out.println("Compiled " + sectionFile + " into " + snapshotFile);
+    }
+
+    /**
+     * Compiles the section XML file <code>sectionFile</code> into a snapshot, which is written to <code>out</code>.
+     * The train XML files are expected to be in the same folder as <code>sectionFile</code>.
+     *
+     * @param sectionFile the section XML file
+     * @param out         the stream to which the snapshot is written
+     * @throws IOException                  if any of the files could not be read, or the snapshot could not be written
+     * @throws ParserConfigurationException if any exception occurs while parsing XML content
+     * @throws SAXException                 if any exception occurs while parsing XML content
+     * @throws IllegalArgumentException     if the data fails validation
+     */
+    public static void compile(File sectionFile, OutputStream out)
+            throws IOException, ParserConfigurationException, SAXException {
+        DataAccess dataAccess = DataAccess.getInstance();
+        CRC32 crc = new CRC32();
+        DataOutputStream snapshot = new DataOutputStream(new CheckedOutputStream(out, crc));
+        writeHeader(snapshot, Files.readAllBytes(sectionFile.toPath()));
+
+        List<Element> stations = dataAccess.extractData(sectionFile.getPath(), "station");
+        Map<String, Integer> stationIndexes = new HashMap<>();
+        for (Element station : stations) {
+            String code = station.getAttribute("code");
+            if (stationIndexes.put(code.toUpperCase(), stationIndexes.size()) != null)
+                throw new IllegalArgumentException("Duplicate station code " + code);
+        }
+        writeStations(snapshot, stations);
+
+        List<Element> trains = dataAccess.extractData(sectionFile.getPath(), "train");
+        snapshot.writeInt(trains.size());
+        for (Element train : trains) {
+            String number = train.getAttribute("number");
+            String direction = train.getAttribute("direction");
+            if (!direction.equals("TowardsHome") && !direction.equals("AwayFromHome"))
+                throw new IllegalArgumentException("Train " + number + " has invalid direction " + direction);
+            int sectionEntryMinutes = toMinutes(train.getAttribute("section-entry-time"), number);
+            int sectionLeavingMinutes = toMinutes(train.getAttribute("section-leaving-time"), number);
+
+            File trainFile = new File(sectionFile.getParentFile(), number + ".xml");
+            if (!trainFile.exists())
+                throw new IllegalArgumentException("Missing data file for train " + number);
+            //A train's data file may list its stops on other sections too; only the stops on this section are kept.
+            List<Element> stops = dataAccess.extractData(trainFile.getPath(), "stop").stream()
+                    .filter(stop -> stationIndexes.containsKey(stop.getAttribute("code").toUpperCase()))
+                    .collect(Collectors.toList());
+            if (stops.isEmpty())
+                throw new IllegalArgumentException("Train " + number + " does not stop at any station on the section");
+            writeTrain(snapshot, number, train.getAttribute("name"), direction.equals("TowardsHome"),
+                    train.getAttribute("day-of-arrival"), sectionEntryMinutes, sectionLeavingMinutes, stops.size());
+            for (Element stop : stops) {
+                int stationIndex = stationIndexes.get(stop.getAttribute("code").toUpperCase());
+                boolean isOriginatingStation = Boolean.parseBoolean(stop.getAttribute("originating-station"));
+                boolean isTerminatingStation = Boolean.parseBoolean(stop.getAttribute("terminating-station"));
+                if (isOriginatingStation && isTerminatingStation)
+                    throw new IllegalArgumentException("Train " + number + " cannot both originate and terminate at "
+                            + stop.getAttribute("code"));
+                //A train's first stop may not have an arrival time, and its last stop may not have a departure time.
+                String arrivalTime = stop.getAttribute("arrival-time");
+                String departureTime = stop.getAttribute("departure-time");
+                writeStop(snapshot, stationIndex,
+                        toMinutes(arrivalTime.isEmpty() ? departureTime : arrivalTime, number),
+                        toMinutes(departureTime.isEmpty() ? arrivalTime : departureTime, number),
+                        (isOriginatingStation ? SectionSnapshot.ORIGINATING_STATION_FLAG : 0)
+                                | (isTerminatingStation ? SectionSnapshot.TERMINATING_STATION_FLAG : 0));
+            }
+        }
+        writeTrailer(snapshot, out, crc);
+    }
+
+    /**
+     * Writes the header of a snapshot: the magic number, the format version and the checksum of the section XML
+     * file.
+     *
+     * @param snapshot     the stream the snapshot is written to
+     * @param sectionBytes the contents of the section XML file the snapshot is compiled from
+     * @throws IOException if the snapshot could not be written
+     */
+    static void writeHeader(DataOutputStream snapshot, byte[] sectionBytes) throws IOException {
+        snapshot.writeInt(SectionSnapshot.MAGIC);
+        snapshot.writeShort(SectionSnapshot.VERSION);
+        snapshot.writeLong(SectionSnapshot.checksum(sectionBytes));
+    }
+
+    /**
+     * Writes the station table of a snapshot.
+     *
+     * @param snapshot the stream the snapshot is written to
+     * @param stations the <code>station</code> elements of the section XML file, in order
+     * @throws IOException if the snapshot could not be written
+     */
+    static void writeStations(DataOutputStream snapshot, List<Element> stations) throws IOException {
+        snapshot.writeInt(stations.size());
+        for (Element station : stations) {
+            writeString(snapshot, station.getAttribute("code"));
+            writeString(snapshot, station.getAttribute("name"));
+            snapshot.writeShort(Integer.parseInt(station.getAttribute("no-of-tracks")));
+            snapshot.writeInt(Integer.parseInt(station.getAttribute("distance-from-home")));
+        }
+    }
+
+    /**
+     * Writes a train of the train table of a snapshot, which must be followed by its stops, written using
+     * <code>writeStop</code>. The train table starts with the number of trains, as an <code>int</code>.
+     *
+     * @param snapshot              the stream the snapshot is written to
+     * @param number                the train's number
+     * @param name                  the train's name
+     * @param isTowardsHome         whether the train runs towards home
+     * @param daysOfArrival         the days the train runs on, as in the section XML file
+     * @param sectionEntryMinutes   the time the train enters the section, in minutes of the day
+     * @param sectionLeavingMinutes the time the train leaves the section, in minutes of the day
+     * @param stopCount             the number of the train's stops that follow
+     * @throws IOException if the snapshot could not be written
+     */
+    static void writeTrain(DataOutputStream snapshot, String number, String name, boolean isTowardsHome,
+                           String daysOfArrival, int sectionEntryMinutes, int sectionLeavingMinutes, int stopCount)
+            throws IOException {
+        writeString(snapshot, number);
+        writeString(snapshot, name);
+        snapshot.writeByte(isTowardsHome ? 0 : 1);
+        writeString(snapshot, daysOfArrival);
+        snapshot.writeShort(sectionEntryMinutes);
+        snapshot.writeShort(sectionLeavingMinutes);
+        snapshot.writeShort(stopCount);
+    }
+
+    /**
+     * Writes a stop record of a snapshot.
+     *
+     * @param snapshot         the stream the snapshot is written to
+     * @param stationIndex     the index of the station in the station table
+     * @param arrivalMinutes   the arrival time, in minutes of the day
+     * @param departureMinutes the departure time, in minutes of the day
+     * @param flags            the stop flags
+     * @throws IOException if the snapshot could not be written
+     */
+    static void writeStop(DataOutputStream snapshot, int stationIndex, int arrivalMinutes, int departureMinutes,
+                          int flags) throws IOException {
+        snapshot.writeShort(stationIndex);
+        snapshot.writeShort(arrivalMinutes);
+        snapshot.writeShort(departureMinutes);
+        snapshot.writeByte(flags);
+    }
+
+    /**
+     * Writes the trailer of a snapshot, which is the checksum of everything before it.
+     *
+     * @param snapshot the stream the snapshot has been written to, which updates <code>crc</code>
+     * @param out      the stream underneath <code>snapshot</code>, to which the trailer is written so that it is not
+     *                 part of the checksum
+     * @param crc      the checksum of the snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    static void writeTrailer(DataOutputStream snapshot, OutputStream out, CRC32 crc) throws IOException {
+        snapshot.flush();
+        DataOutputStream trailer = new DataOutputStream(out);
+        trailer.writeLong(crc.getValue());
+        trailer.flush();
+    }
+
+    /**
+     * Converts a time of the form <code>HH:mm</code> to minutes since midnight.
+     */
+    private static int toMinutes(String time, String trainNumber) {
+        String[] hoursAndMinutes = time.split(":");
+        if (hoursAndMinutes.length != 2)
+            throw new IllegalArgumentException("Train " + trainNumber + " has invalid time " + time);
+        int hours = Integer.parseInt(hoursAndMinutes[0].trim());
+        int minutes = Integer.parseInt(hoursAndMinutes[1].trim());
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59)
+            throw new IllegalArgumentException("Train " + trainNumber + " has invalid time " + time);
+        return hours * 60 + minutes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
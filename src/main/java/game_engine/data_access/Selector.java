@@ -0,0 +1,80 @@
+package game_engine.data_access;
+
+/**
+ * A parsed form of the element selectors accepted by <code>DataAccess</code>. A selector can be one of:
+ * <ul>
+ *  <li><code>element</code>, which selects all elements with that name.</li>
+ *  <li><code>element[@attribute=value]</code>, which selects the elements whose attribute equals the value.</li>
+ *  <li><code>element.contains(@attribute,value)</code>, which selects the elements whose attribute contains the value.</li>
+ * </ul>
+ * This class is package-scoped as it is only an implementation detail of <code>DataAccess</code>.
+ */
+final class Selector {
+
+    /**
+     * The types of conditions a selector can have on an element's attribute.
+     */
+    enum Condition { NONE, EQUALS, CONTAINS }
+
+    private final String element;
+    private final Condition condition;
+    private final String attribute;
+    private final String value;
+
+    private Selector(String element, Condition condition, String attribute, String value) {
+        this.element = element;
+        this.condition = condition;
+        this.attribute = attribute;
+        this.value = value;
+    }
+
+    /**
+     * Parses a selector.
+     *
+     * @param selector the selector, in one of the forms described in the class documentation.
+     * @return the parsed selector
+     */
+    static Selector parse(String selector) {
+        if (selector.indexOf("[") > 0) {
+            return new Selector(selector.substring(0, selector.indexOf("[")), Condition.EQUALS,
+                    selector.substring(selector.indexOf("@") + 1, selector.indexOf("=")),
+                    selector.substring(selector.indexOf("=") + 1, selector.indexOf("]")));
+        }
+        if (selector.indexOf(".") > 0) {
+            return new Selector(selector.substring(0, selector.indexOf(".")), Condition.CONTAINS,
+                    selector.substring(selector.indexOf("@") + 1, selector.indexOf(",")),
+                    selector.substring(selector.indexOf(",") + 1, selector.indexOf(")")));
+        }
+        return new Selector(selector, Condition.NONE, null, null);
+    }
+
+    String getElement() { return element; }
+
+    Condition getCondition() { return condition; }
+
+    /**
+     * Returns the attribute the selector's condition is on, or <code>null</code> if the selector has no condition.
+     * @return the attribute
+     */
+    String getAttribute() { return attribute; }
+
+    String getValue() { return value; }
+
+    /**
+     * Determines if an element matches this selector, given the value of the element's attribute that the condition
+     * is on. A missing attribute must be passed in as an empty string.
+     *
+     * @param attributeValue the value of the attribute returned by <code>getAttribute()</code>
+     * @return <code>true</code> if the element matches
+     */
+    boolean matches(String attributeValue) {
+        switch (condition) {
+            case EQUALS:
+                return attributeValue.equals(value);
+            case CONTAINS:
+                return attributeValue.contains(value);
+            default:
+                return true;
+        }
+    }
+}
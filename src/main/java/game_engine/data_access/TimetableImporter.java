@@ -0,0 +1,599 @@
+package game_engine.data_access;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.xml.sax.SAXException;
+
+/**
+ * Imports a GTFS-style <code>stop_times</code> dump into the section's data files.
+ * <br><br>
+ * The dump is a CSV file with a header row, which must have the <code>trip_id</code>, <code>arrival_time</code>,
+ * <code>departure_time</code>, <code>stop_id</code> and <code>stop_sequence</code> columns. Each trip is a train. The
+ * dump is streamed one row at a time, and only the stops of the current trip that are at stations on the section are
+ * held in memory. As in GTFS, the rows of a trip are expected to be next to each other. A trip that shows up again
+ * after other trips is reported and skipped.
+ * <br><br>
+ * A stop's <code>stop_id</code> is mapped onto the station on the section with that code, unless a stop map is given.
+ * Trips that stop at fewer than two stations on the section are left out. The direction of each train, its section
+ * entry &amp; leaving time, and whether it originates or terminates on the section are worked out from its stops.
+ * <br><br>
+ * A copy of the section XML file is written with the imported trains in place of its trains. Then, depending on the
+ * <code>Format</code>, either an XML file per train is written, just like the files in the <code>data</code> folder,
+ * or a binary snapshot that <code>SectionSnapshot</code> can read. Imported trains are spooled to a temporary file
+ * until the section XML file is written, so memory use does not grow with the size of the dump.
+ */
+public final class TimetableImporter {
+
+    /**
+     * The forms in which the imported trains can be written.
+     */
+    public enum Format { XML, BINARY }
+
+    /**
+     * How often progress is reported, in rows.
+     */
+    private static final long PROGRESS_INTERVAL = 1_000_000;
+
+    /**
+     * Train numbers are used as file names, so they are limited to these characters.
+     */
+    private static final Pattern VALID_TRAIN_NUMBER = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final File sectionFile;
+
+    private final File outputDirectory;
+
+    private final Format format;
+
+    private final List<Element> stations;
+
+    /**
+     * The index of each station in <code>stations</code>, keyed by the station code in upper case.
+     */
+    private final Map<String, Integer> stationIndexes = new HashMap<>();
+
+    /**
+     * Maps <code>stop_id</code>s onto station codes. If a stop is not in this map, its <code>stop_id</code> is taken as
+     * the station code.
+     */
+    private final Map<String, String> stopMap = new HashMap<>();
+
+    /**
+     * The number, name and days of arrival of each trip, keyed by <code>trip_id</code>. If a trip is not in this map,
+     * its <code>trip_id</code> is taken as the train number and name, and it is taken to run daily.
+     */
+    private final Map<String, String[]> tripDetails = new HashMap<>();
+
+    /**
+     * The numbers of the trains imported so far. This only grows with the number of trains on the section, not with
+     * the number of trips in the dump.
+     */
+    private final Set<String> importedTrains = new HashSet<>();
+
+    private long rowsRead;
+    private long rowsOnSection;
+    private long rowsSkipped;
+    private int trainsImported;
+    private int tripsSkipped;
+
+    /**
+     * Creates an importer.
+     *
+     * @param sectionFile     the section XML file, whose stations the stops are mapped onto
+     * @param outputDirectory the folder to which the imported data is written
+     * @param format          the form in which the trains are written
+     * @throws IOException                  if the section XML file could not be read
+     * @throws ParserConfigurationException if any exception occurs while parsing the section XML file
+     * @throws SAXException                 if any exception occurs while parsing the section XML file
+     */
+    public TimetableImporter(File sectionFile, File outputDirectory, Format format)
+            throws IOException, ParserConfigurationException, SAXException {
+        this.sectionFile = sectionFile;
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+        this.stations = DataAccess.getInstance().extractData(sectionFile.getPath(), "station");
+        if (this.stations.isEmpty()) throw new IllegalArgumentException("The section has no stations");
+        for (Element station : this.stations) {
+            if (this.stationIndexes.put(station.getAttribute("code").toUpperCase(), this.stationIndexes.size()) != null)
+                throw new IllegalArgumentException("Duplicate station code " + station.getAttribute("code"));
+        }
+    }
+
+    /**
+     * Imports a dump.
+     *
+     * @param args the section XML file, the <code>stop_times</code> CSV file and the output folder, followed by any of
+     *             <code>--format=xml|binary</code>, <code>--stop-map=&lt;CSV file&gt;</code> and
+     *             <code>--trips=&lt;CSV file&gt;</code>.
+     * @throws Exception if the data could not be read or written.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: TimetableImporter <section XML file> <stop_times CSV file> <output folder>"
+                    + " [--format=xml|binary] [--stop-map=<CSV file>] [--trips=<CSV file>]");
+            System.out.println("  --stop-map  maps stops onto stations, with the columns stop_id and station_code");
+            System.out.println("  --trips     names trips, with the columns trip_id, train_number, train_name and days");
+            System.exit(1);
+        }
+        Format format = Format.XML;
+        File stopMapFile = null, tripsFile = null;
+        for (String option : Arrays.copyOfRange(args, 3, args.length)) {
+            if (option.startsWith("--format=")) format = Format.valueOf(option.substring("--format=".length()).toUpperCase());
+            else if (option.startsWith("--stop-map=")) stopMapFile = new File(option.substring("--stop-map=".length()));
+            else if (option.startsWith("--trips=")) tripsFile = new File(option.substring("--trips=".length()));
+            else throw new IllegalArgumentException("Unknown option " + option);
+        }
+
+        File outputDirectory = new File(args[2]);
+        Files.createDirectories(outputDirectory.toPath());
+        TimetableImporter importer = new TimetableImporter(new File(args[0]), outputDirectory, format);
+        if (stopMapFile != null) {
+            try (Reader stopMap = Files.newBufferedReader(stopMapFile.toPath(), StandardCharsets.UTF_8)) {
+                importer.readStopMap(stopMap);
+            }
+        }
+        if (tripsFile != null) {
+            try (Reader trips = Files.newBufferedReader(tripsFile.toPath(), StandardCharsets.UTF_8)) {
+                importer.readTrips(trips);
+            }
+        }
+        long start = System.nanoTime();
+        try (Reader stopTimes = Files.newBufferedReader(new File(args[1]).toPath(), StandardCharsets.UTF_8)) {
+            importer.importStopTimes(stopTimes);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Imported %1$d trains from %2$d rows (%3$d on the section, %4$d skipped) in %5$.1f s"
+                        + " (%6$.0f rows per second)%n", importer.getTrainsImported(), importer.getRowsRead(),
+                importer.getRowsOnSection(), importer.getRowsSkipped(), seconds, importer.getRowsRead() / seconds);
+    }
+
+    /**
+     * Reads a stop map, a CSV file with the columns <code>stop_id</code> and <code>station_code</code>.
+     *
+     * @param stopMap the stop map
+     * @throws IOException if the stop map could not be read
+     */
+    public void readStopMap(Reader stopMap) throws IOException {
+        BufferedReader reader = new BufferedReader(stopMap);
+        int[] columns = readHeader(reader, "stop_id", "station_code");
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.isEmpty()) continue;
+            String[] fields = splitCsv(line);
+            this.stopMap.put(fields[columns[0]], fields[columns[1]]);
+        }
+    }
+
+    /**
+     * Reads the details of trips, a CSV file with the columns <code>trip_id</code>, <code>train_number</code>,
+     * <code>train_name</code> and <code>days</code>. <code>days</code> is in the same form as the
+     * <code>day-of-arrival</code> attribute of the section XML file, for example <code>Daily</code> or
+     * <code>M,Th</code>.
+     *
+     * @param trips the trip details
+     * @throws IOException if the trip details could not be read
+     */
+    public void readTrips(Reader trips) throws IOException {
+        BufferedReader reader = new BufferedReader(trips);
+        int[] columns = readHeader(reader, "trip_id", "train_number", "train_name", "days");
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.isEmpty()) continue;
+            String[] fields = splitCsv(line);
+            this.tripDetails.put(fields[columns[0]],
+                    new String[] {fields[columns[1]], fields[columns[2]], fields[columns[3]]});
+        }
+    }
+
+    /**
+     * Imports the <code>stop_times</code> dump, and writes the section XML file, and either the train XML files or the
+     * snapshot, to the output folder.
+     *
+     * @param stopTimes the <code>stop_times</code> dump
+     * @throws IOException if the dump could not be read, or the output could not be written
+     */
+    public void importStopTimes(Reader stopTimes) throws IOException {
+        BufferedReader reader = new BufferedReader(stopTimes, 1 << 16);
+        int[] columns = readHeader(reader, "trip_id", "arrival_time", "departure_time", "stop_id", "stop_sequence");
+        File trainSpool = File.createTempFile("imported-trains", ".tmp", this.outputDirectory);
+        try {
+            try (DataOutputStream spool = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(trainSpool)))) {
+                long start = System.nanoTime();
+                Trip trip = null;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (line.isEmpty()) continue;
+                    this.rowsRead++;
+                    if (this.rowsRead % PROGRESS_INTERVAL == 0) {
+                        System.out.printf("%1$d rows read (%2$.0f rows per second)%n", this.rowsRead,
+                                this.rowsRead / ((System.nanoTime() - start) / 1e9));
+                    }
+                    String[] fields = splitCsv(line);
+                    String tripId = fields[columns[0]];
+                    if (trip == null || !trip.tripId.equals(tripId)) {
+                        if (trip != null) writeTrain(trip, spool);
+                        trip = new Trip(tripId);
+                    }
+                    addStop(trip, fields[columns[1]], fields[columns[2]], fields[columns[3]], fields[columns[4]]);
+                }
+                if (trip != null) writeTrain(trip, spool);
+            }
+            writeSection(trainSpool);
+        } finally {
+            Files.deleteIfExists(trainSpool.toPath());
+        }
+    }
+
+    public long getRowsRead() { return rowsRead; }
+
+    public long getRowsOnSection() { return rowsOnSection; }
+
+    /**
+     * Returns the number of rows at stations on the section that could not be imported, such as rows without
+     * times.
+     * @return the number of rows skipped
+     */
+    public long getRowsSkipped() { return rowsSkipped; }
+
+    public int getTrainsImported() { return trainsImported; }
+
+    /**
+     * Returns the number of trips on the section that could not be imported, such as trips whose rows are not next
+     * to each other.
+     * @return the number of trips skipped
+     */
+    public int getTripsSkipped() { return tripsSkipped; }
+
+    private void addStop(Trip trip, String arrivalTime, String departureTime, String stopId, String stopSequence) {
+        int sequence = Integer.parseInt(stopSequence.trim());
+        String stationCode = this.stopMap.getOrDefault(stopId, stopId);
+        Integer stationIndex = this.stationIndexes.get(stationCode.toUpperCase());
+        //The trip's first and last stops decide whether the train originates or terminates on the section.
+        if (sequence < trip.firstSequence) {
+            trip.firstSequence = sequence;
+            trip.firstStation = stationIndex == null ? -1 : stationIndex;
+        }
+        if (sequence > trip.lastSequence) {
+            trip.lastSequence = sequence;
+            trip.lastStation = stationIndex == null ? -1 : stationIndex;
+        }
+        if (stationIndex == null) return;
+
+        this.rowsOnSection++;
+        //Like the train XML files, a stop may have only one of the two times.
+        String arrival = arrivalTime.trim().isEmpty() ? departureTime.trim() : arrivalTime.trim();
+        String departure = departureTime.trim().isEmpty() ? arrivalTime.trim() : departureTime.trim();
+        if (arrival.isEmpty()) {
+            this.rowsSkipped++;
+            return;
+        }
+        trip.stops.add(new int[] {sequence, stationIndex, toMinutes(arrival), toMinutes(departure)});
+    }
+
+    /**
+     * Writes a trip that has ended to the spool, if it runs on the section. The spool holds each train's entry in
+     * the section XML file, followed by its stop records in the snapshot's format.
+     */
+    private void writeTrain(Trip trip, DataOutputStream spool) throws IOException {
+        if (trip.stops.size() < 2) return;
+        String[] details = this.tripDetails.getOrDefault(trip.tripId, new String[] {trip.tripId, trip.tripId, "Daily"});
+        String number = details[0];
+        if (!VALID_TRAIN_NUMBER.matcher(number).matches()) {
+            System.out.println("Skipping trip " + trip.tripId + ": invalid train number " + number);
+            this.tripsSkipped++;
+            return;
+        }
+        if (!this.importedTrains.add(number)) {
+            System.out.println("Skipping trip " + trip.tripId + ": train " + number
+                    + " has already been imported, or the trip's rows are not next to each other");
+            this.tripsSkipped++;
+            return;
+        }
+        trip.stops.sort(Comparator.comparingInt(stop -> stop[0]));
+        int[] firstStop = trip.stops.get(0), lastStop = trip.stops.get(trip.stops.size() - 1);
+        boolean isTowardsHome = distanceOf(lastStop[1]) < distanceOf(firstStop[1]);
+
+        spool.writeUTF(number);
+        spool.writeUTF(details[1]);
+        spool.writeBoolean(isTowardsHome);
+        spool.writeUTF(details[2]);
+        spool.writeShort(firstStop[2]);
+        spool.writeShort(lastStop[3]);
+        spool.writeShort(trip.stops.size());
+        for (int[] stop : trip.stops) {
+            boolean isOriginatingStation = stop == firstStop && trip.firstStation == stop[1];
+            boolean isTerminatingStation = stop == lastStop && trip.lastStation == stop[1];
+            spool.writeShort(stop[1]);
+            spool.writeShort(stop[2]);
+            spool.writeShort(stop[3]);
+            spool.writeByte((isOriginatingStation ? SectionSnapshot.ORIGINATING_STATION_FLAG : 0)
+                    | (isTerminatingStation ? SectionSnapshot.TERMINATING_STATION_FLAG : 0));
+        }
+        this.trainsImported++;
+    }
+
+    /**
+     * Writes the section XML file from the spool, and then the train XML files or the snapshot.
+     */
+    private void writeSection(File trainSpool) throws IOException {
+        File importedSectionFile = new File(this.outputDirectory, this.sectionFile.getName());
+        XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+        try (Writer sectionWriter = Files.newBufferedWriter(importedSectionFile.toPath(), StandardCharsets.UTF_8);
+             TrainSpoolReader spool = new TrainSpoolReader(trainSpool)) {
+            XMLStreamWriter section = xmlOutputFactory.createXMLStreamWriter(sectionWriter);
+            section.writeStartDocument("UTF-8", "1.0");
+            section.writeCharacters("\n");
+            section.writeStartElement("section");
+            NamedNodeMap sectionAttributes = this.stations.get(0).getOwnerDocument().getDocumentElement().getAttributes();
+            for (int i = 0; i < sectionAttributes.getLength(); i++) {
+                section.writeAttribute(sectionAttributes.item(i).getNodeName(), sectionAttributes.item(i).getNodeValue());
+            }
+            section.writeCharacters("\n    ");
+            section.writeStartElement("stations");
+            for (Element station : this.stations) {
+                section.writeCharacters("\n        ");
+                section.writeEmptyElement("station");
+                for (int i = 0; i < station.getAttributes().getLength(); i++) {
+                    section.writeAttribute(station.getAttributes().item(i).getNodeName(),
+                            station.getAttributes().item(i).getNodeValue());
+                }
+            }
+            section.writeCharacters("\n    ");
+            section.writeEndElement();
+            section.writeCharacters("\n    ");
+            section.writeStartElement("trains");
+            for (int train = 0; train < this.trainsImported; train++) {
+                SpooledTrain spooledTrain = spool.readTrain();
+                section.writeCharacters("\n        ");
+                section.writeEmptyElement("train");
+                section.writeAttribute("number", spooledTrain.number);
+                section.writeAttribute("name", spooledTrain.name);
+                section.writeAttribute("day-of-arrival", spooledTrain.days);
+                section.writeAttribute("direction", spooledTrain.isTowardsHome ? "TowardsHome" : "AwayFromHome");
+                section.writeAttribute("section-entry-time", toTime(spooledTrain.sectionEntryMinutes));
+                section.writeAttribute("section-leaving-time", toTime(spooledTrain.sectionLeavingMinutes));
+                if (this.format == Format.XML) writeTrainFile(xmlOutputFactory, spooledTrain);
+            }
+            section.writeCharacters("\n    ");
+            section.writeEndElement();
+            section.writeCharacters("\n");
+            section.writeEndElement();
+            section.writeCharacters("\n");
+            section.writeEndDocument();
+            section.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+        if (this.format == Format.BINARY) writeSnapshot(importedSectionFile, trainSpool);
+    }
+
+    private void writeTrainFile(XMLOutputFactory xmlOutputFactory, SpooledTrain spooledTrain)
+            throws IOException, XMLStreamException {
+        File trainFile = new File(this.outputDirectory, spooledTrain.number + ".xml");
+        try (Writer trainWriter = Files.newBufferedWriter(trainFile.toPath(), StandardCharsets.UTF_8)) {
+            XMLStreamWriter train = xmlOutputFactory.createXMLStreamWriter(trainWriter);
+            train.writeStartDocument("UTF-8", "1.0");
+            train.writeCharacters("\n");
+            train.writeStartElement("train");
+            train.writeAttribute("number", spooledTrain.number);
+            train.writeAttribute("name", spooledTrain.name);
+            train.writeCharacters("\n    ");
+            train.writeStartElement("stops");
+            for (int[] stop : spooledTrain.stops) {
+                Element station = this.stations.get(stop[0]);
+                train.writeCharacters("\n        ");
+                train.writeEmptyElement("stop");
+                train.writeAttribute("code", station.getAttribute("code"));
+                train.writeAttribute("name", station.getAttribute("name"));
+                train.writeAttribute("arrival-time", toTime(stop[1]));
+                train.writeAttribute("departure-time", toTime(stop[2]));
+                if ((stop[3] & SectionSnapshot.ORIGINATING_STATION_FLAG) != 0)
+                    train.writeAttribute("originating-station", "true");
+                if ((stop[3] & SectionSnapshot.TERMINATING_STATION_FLAG) != 0)
+                    train.writeAttribute("terminating-station", "true");
+            }
+            train.writeCharacters("\n    ");
+            train.writeEndElement();
+            train.writeCharacters("\n");
+            train.writeEndElement();
+            train.writeCharacters("\n");
+            train.writeEndDocument();
+            train.close();
+        }
+    }
+
+    /**
+     * Writes the snapshot of the imported section XML file. The trains are copied across from the spool one at a
+     * time.
+     */
+    private void writeSnapshot(File importedSectionFile, File trainSpool) throws IOException {
+        String snapshotName = importedSectionFile.getName().replaceFirst("\\.xml$", "") + ".snapshot";
+        CRC32 crc = new CRC32();
+        try (OutputStream snapshotFile = new BufferedOutputStream(
+                new FileOutputStream(new File(this.outputDirectory, snapshotName)));
+             TrainSpoolReader spool = new TrainSpoolReader(trainSpool)) {
+            DataOutputStream snapshot = new DataOutputStream(new CheckedOutputStream(snapshotFile, crc));
+            SectionSnapshotCompiler.writeHeader(snapshot, Files.readAllBytes(importedSectionFile.toPath()));
+            SectionSnapshotCompiler.writeStations(snapshot, this.stations);
+            snapshot.writeInt(this.trainsImported);
+            for (int train = 0; train < this.trainsImported; train++) {
+                SpooledTrain spooledTrain = spool.readTrain();
+                SectionSnapshotCompiler.writeTrain(snapshot, spooledTrain.number, spooledTrain.name,
+                        spooledTrain.isTowardsHome, spooledTrain.days, spooledTrain.sectionEntryMinutes,
+                        spooledTrain.sectionLeavingMinutes, spooledTrain.stops.size());
+                for (int[] stop : spooledTrain.stops)
+                    SectionSnapshotCompiler.writeStop(snapshot, stop[0], stop[1], stop[2], stop[3]);
+            }
+            SectionSnapshotCompiler.writeTrailer(snapshot, snapshotFile, crc);
+        }
+    }
+
+    private int distanceOf(int stationIndex) {
+        return Integer.parseInt(this.stations.get(stationIndex).getAttribute("distance-from-home"));
+    }
+
+    /**
+     * Reads the header row, and returns the positions of the given columns in it.
+     */
+    private static int[] readHeader(BufferedReader reader, String... requiredColumns) throws IOException {
+        String header = reader.readLine();
+        if (header == null) throw new IllegalArgumentException("The file is empty");
+        //Some exporters start the file with a byte order mark.
+        if (header.startsWith("\uFEFF")) header = header.substring(1);
+        List<String> columns = Arrays.asList(splitCsv(header));
+        int[] positions = new int[requiredColumns.length];
+        for (int i = 0; i < requiredColumns.length; i++) {
+            positions[i] = columns.indexOf(requiredColumns[i]);
+            if (positions[i] < 0) throw new IllegalArgumentException("Missing column " + requiredColumns[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * Splits a CSV row into its fields. Fields may be quoted, and quotes within quoted fields are doubled.
+     */
+    static String[] splitCsv(String line) {
+        if (line.indexOf('"') < 0) return line.split(",", -1);
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (isQuoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Converts a GTFS time of the form <code>H:mm:ss</code> to minutes since midnight. GTFS times of trips that run
+     * past midnight go beyond 24:00, and are brought back within the day.
+     */
+    private static int toMinutes(String time) {
+        String[] parts = time.split(":");
+        if (parts.length < 2) throw new IllegalArgumentException("Invalid time " + time);
+        return (Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1])) % (24 * 60);
+    }
+
+    private static String toTime(int minutes) {
+        return String.format("%1$02d:%2$02d", minutes / 60, minutes % 60);
+    }
+
+    /**
+     * The stops of a trip at stations on the section, gathered while the trip's rows are read.
+     */
+    private static final class Trip {
+        private final String tripId;
+
+        /**
+         * Each stop is the stop sequence, the station's index, and the arrival and departure times.
+         */
+        private final List<int[]> stops = new ArrayList<>();
+
+        private int firstSequence = Integer.MAX_VALUE;
+        private int lastSequence = Integer.MIN_VALUE;
+
+        /**
+         * The station index of the trip's first and last stops, or -1 if they are not on the section.
+         */
+        private int firstStation = -1;
+        private int lastStation = -1;
+
+        private Trip(String tripId) {
+            this.tripId = tripId;
+        }
+    }
+
+    /**
+     * A train read back from the spool.
+     */
+    private static final class SpooledTrain {
+        private String number;
+        private String name;
+        private boolean isTowardsHome;
+        private String days;
+        private int sectionEntryMinutes;
+        private int sectionLeavingMinutes;
+
+        /**
+         * Each stop is the station's index, the arrival and departure times, and the stop flags.
+         */
+        private final List<int[]> stops = new ArrayList<>();
+    }
+
+    /**
+     * Reads trains back from the spool, one at a time.
+     */
+    private static final class TrainSpoolReader implements AutoCloseable {
+        private final DataInputStream in;
+
+        private TrainSpoolReader(File spool) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(spool), 1 << 16));
+        }
+
+        private SpooledTrain readTrain() throws IOException {
+            SpooledTrain train = new SpooledTrain();
+            train.number = this.in.readUTF();
+            train.name = this.in.readUTF();
+            train.isTowardsHome = this.in.readBoolean();
+            train.days = this.in.readUTF();
+            train.sectionEntryMinutes = this.in.readShort();
+            train.sectionLeavingMinutes = this.in.readShort();
+            int stopCount = this.in.readShort();
+            for (int stop = 0; stop < stopCount; stop++) {
+                train.stops.add(new int[] {this.in.readShort(), this.in.readShort(), this.in.readShort(),
+                        this.in.readByte()});
+            }
+            return train;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package game_engine.data_access;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * The <code>UserStore</code> class holds the users of the game and their scores.
+ * <br><br>
+ * The users are stored in <code>Users.journal</code>, an append-only journal in which every line records a user's
+ * latest score, in the form <code>name&lt;TAB&gt;score</code>. Signing up a user or updating a score only appends a
+ * line, instead of rewriting all the users. The journal is read into an in-memory index by name, and a later line
+ * for a user replaces an earlier one. Once the journal has many more lines than users, it is compacted, that is,
+ * rewritten with one line per user.
+ * <br><br>
+ * More than one game may share the same home folder. So every operation takes a lock on <code>Users.lock</code>
+ * and first reads the lines that other games have appended since. The first line of the journal holds a generation
+ * number, which is incremented each time the journal is compacted, so that other games know to read the journal
+ * afresh.
+ * <br><br>
+ * If the journal does not exist but the <code>Users.xml</code> file used by earlier versions of the game does, then
+ * the users in <code>Users.xml</code> are copied into the journal.
+ */
+public class UserStore {
+
+    /**
+     * The name of the journal file.
+     */
+    static final String JOURNAL_FILE = "Users.journal";
+
+    /**
+     * The name of the file locked by every operation.
+     */
+    static final String LOCK_FILE = "Users.lock";
+
+    /**
+     * The name of the file used by earlier versions of the game to store users.
+     */
+    static final String LEGACY_USERS_FILE = "Users.xml";
+
+    private static final String GENERATION_PREFIX = "#generation ";
+
+    /**
+     * The journal is compacted once it has more than this many lines that have been superseded by later lines.
+     */
+    private static final int COMPACTION_THRESHOLD = 64;
+
+    /**
+     * The locks held by the stores in this JVM, keyed by the path of the lock file.
+     */
+    private static final Map<String, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final File journalFile;
+
+    private final File lockFile;
+
+    private final File legacyUsersFile;
+
+    /**
+     * The latest score of each user, in the order the users signed up.
+     */
+    private final Map<String, Integer> scores = new LinkedHashMap<>();
+
+    /**
+     * The generation of the journal that <code>scores</code> was read from.
+     */
+    private long generation = -1;
+
+    /**
+     * The position in the journal up to which <code>scores</code> has been read.
+     */
+    private long readUpTo;
+
+    /**
+     * The number of lines read from the journal, excluding the generation line.
+     */
+    private int journalLines;
+
+    /**
+     * Creates a <code>UserStore</code> that stores users in the given folder. The folder is created if it does not
+     * exist.
+     *
+     * @param directory the folder where the users are stored, usually <code>~/.section_controller</code>
+     * @throws IOException if the folder could not be created, or the users could not be read
+     */
+    public UserStore(File directory) throws IOException {
+        Files.createDirectories(directory.toPath());
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.lockFile = new File(directory, LOCK_FILE);
+        this.legacyUsersFile = new File(directory, LEGACY_USERS_FILE);
+        JournalLock journalLock = lock();
+        try {
+            if (!this.journalFile.exists()) createJournal();
+            catchUp();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the names of all users, in the order they signed up.
+     *
+     * @return the user names
+     * @throws IOException if the journal could not be read
+     */
+    public synchronized List<String> getUserNames() throws IOException {
+        JournalLock journalLock = lock();
+        try {
+            catchUp();
+            return new ArrayList<>(this.scores.keySet());
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the score of the user.
+     *
+     * @param name the user's name
+     * @return the user's score, or an empty <code>OptionalInt</code> if there is no such user
+     * @throws IOException if the journal could not be read
+     */
+    public synchronized OptionalInt getScore(String name) throws IOException {
+        JournalLock journalLock = lock();
+        try {
+            catchUp();
+            Integer score = this.scores.get(name);
+            return score == null ? OptionalInt.empty() : OptionalInt.of(score);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Signs up a new user.
+     *
+     * @param name  the user's name. It cannot contain tabs or line breaks.
+     * @param score the user's starting score
+     * @return <code>true</code> if the user was added, or <code>false</code> if a user with that name already exists
+     * @throws IOException if the journal could not be written to
+     */
+    public synchronized boolean addUser(String name, int score) throws IOException {
+        validate(name);
+        JournalLock journalLock = lock();
+        try {
+            catchUp();
+            if (this.scores.containsKey(name)) return false;
+            append(name, score);
+            return true;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Updates the score of an existing user.
+     *
+     * @param name  the user's name
+     * @param score the user's new score
+     * @throws IOException if the journal could not be written to
+     * @throws IllegalArgumentException if there is no such user
+     */
+    public synchronized void setScore(String name, int score) throws IOException {
+        JournalLock journalLock = lock();
+        try {
+            catchUp();
+            if (!this.scores.containsKey(name)) throw new IllegalArgumentException("No such user: " + name);
+            append(name, score);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the journal with one line per user.
+     * This is done automatically once enough lines have been superseded, so it is not usually required to call this.
+     *
+     * @throws IOException if the journal could not be written
+     */
+    public synchronized void compact() throws IOException {
+        JournalLock journalLock = lock();
+        try {
+            catchUp();
+            writeJournal(this.generation + 1, this.scores);
+            catchUp();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lines in the journal, excluding the generation line.
+     * This is package-scoped as it's meant to be used only for tests.
+     *
+     * @return the number of lines
+     */
+    synchronized int getJournalLines() {
+        return this.journalLines;
+    }
+
+    private JournalLock lock() throws IOException {
+        //File locks are held by the whole JVM, so stores in the same JVM must also exclude each other.
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(this.lockFile.getCanonicalPath(), path -> new ReentrantLock());
+        jvmLock.lock();
+        try {
+            FileChannel lockChannel = FileChannel.open(this.lockFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                lockChannel.lock();
+                return new JournalLock(jvmLock, lockChannel);
+            } catch (IOException | RuntimeException ex) {
+                lockChannel.close();
+                throw ex;
+            }
+        } catch (IOException | RuntimeException ex) {
+            jvmLock.unlock();
+            throw ex;
+        }
+    }
+
+    private void createJournal() throws IOException {
+        Map<String, Integer> legacyScores = new LinkedHashMap<>();
+        if (this.legacyUsersFile.exists()) {
+            try (InputStream usersXml = new FileInputStream(this.legacyUsersFile)) {
+                DataAccess.getInstance().streamData(usersXml, "user", user -> {
+                    String name = user.getAttribute("name");
+                    if (!name.isEmpty() && !legacyScores.containsKey(name) && isValid(name))
+                        legacyScores.put(name, parseScore(user.getAttribute("score")));
+                });
+            } catch (XMLStreamException ex) {
+                //An unreadable Users.xml is treated like a missing one, just as the login screen did earlier.
+                System.out.println("Unable to read " + this.legacyUsersFile + ": " + ex.getMessage());
+            }
+        }
+        writeJournal(0, legacyScores);
+    }
+
+    /**
+     * Writes a new journal to a temporary file, and then moves it in place of the journal. Games that have the old
+     * journal open continue to see it until they catch up, at which point they notice the new generation.
+     */
+    private void writeJournal(long newGeneration, Map<String, Integer> users) throws IOException {
+        StringBuilder journal = new StringBuilder(GENERATION_PREFIX).append(newGeneration).append('\n');
+        users.forEach((name, score) -> journal.append(name).append('\t').append(score).append('\n'));
+        File temporaryFile = new File(this.journalFile.getParentFile(), JOURNAL_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(journal.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) channel.write(bytes);
+            channel.force(true);
+        }
+        Files.move(temporaryFile.toPath(), this.journalFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the lines appended to the journal since it was last read. If the journal has been compacted since, then
+     * the whole journal is read afresh. Must be called with the lock held.
+     */
+    private void catchUp() throws IOException {
+        try (RandomAccessFile journal = new RandomAccessFile(this.journalFile, "r")) {
+            String generationLine = journal.readLine();
+            if (generationLine == null || !generationLine.startsWith(GENERATION_PREFIX))
+                throw new IOException(this.journalFile + " is not a user journal");
+            long journalGeneration = Long.parseLong(generationLine.substring(GENERATION_PREFIX.length()).trim());
+            if (journalGeneration != this.generation) {
+                this.scores.clear();
+                this.journalLines = 0;
+                this.generation = journalGeneration;
+                this.readUpTo = journal.getFilePointer();
+            }
+            long length = journal.length();
+            if (length <= this.readUpTo) return;
+
+            byte[] appended = new byte[(int) (length - this.readUpTo)];
+            journal.seek(this.readUpTo);
+            journal.readFully(appended);
+            int lineStart = 0;
+            for (int i = 0; i < appended.length; i++) {
+                if (appended[i] != '\n') continue;
+                String line = new String(appended, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                int tab = line.lastIndexOf('\t');
+                if (tab > 0) {
+                    //Re-inserting keeps a user's sign-up position, as LinkedHashMap ignores re-insertion order.
+                    this.scores.put(line.substring(0, tab), parseScore(line.substring(tab + 1)));
+                    this.journalLines++;
+                }
+                lineStart = i + 1;
+            }
+            //A line without a line break was cut short by a crash, as lines are written with the lock held. It is
+            //skipped, and dropped by the next append.
+            this.readUpTo += lineStart;
+        }
+    }
+
+    /**
+     * Appends a line to the journal, and compacts the journal if required. Must be called with the lock held, after
+     * catching up.
+     */
+    private void append(String name, int score) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((name + '\t' + score + '\n').getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(this.journalFile.toPath(), StandardOpenOption.WRITE)) {
+            //Anything after what has been read is a line cut short by a game that crashed while writing it, as the
+            //line would otherwise have been read while catching up. It is dropped, so that it does not corrupt this line.
+            channel.truncate(this.readUpTo);
+            channel.position(this.readUpTo);
+            while (line.hasRemaining()) channel.write(line);
+            channel.force(false);
+        }
+        catchUp();
+        if (this.journalLines - this.scores.size() > Math.max(COMPACTION_THRESHOLD, this.scores.size())) {
+            writeJournal(this.generation + 1, this.scores);
+            catchUp();
+        }
+    }
+
+    /**
+     * The lock held while reading or writing the journal. It must be released with <code>unlock()</code>.
+     */
+    private static final class JournalLock {
+        private final ReentrantLock jvmLock;
+        private final FileChannel lockChannel;
+
+        private JournalLock(ReentrantLock jvmLock, FileChannel lockChannel) {
+            this.jvmLock = jvmLock;
+            this.lockChannel = lockChannel;
+        }
+
+        private void unlock() throws IOException {
+            try {
+                //Closing the channel releases the file lock.
+                this.lockChannel.close();
+            } finally {
+                this.jvmLock.unlock();
+            }
+        }
+    }
+
+    private static void validate(String name) {
+        if (!isValid(name)) throw new IllegalArgumentException("User name cannot be empty or contain tabs or line breaks.");
+    }
+
+    private static boolean isValid(String name) {
+        return !name.isEmpty() && name.indexOf('\t') < 0 && name.indexOf('\n') < 0 && name.indexOf('\r') < 0;
+    }
+
+    private static int parseScore(String score) {
+        try {
+            return Integer.parseInt(score.trim());
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package game_engine.dto;
+
+import common.models.CrossingType;
+
+import java.time.LocalDateTime;
+
+/**
+ * The <code>ConflictDto</code> class holds data that is exposed by the game engine
+ * for each crossing of two trains that cannot take place as per their timetables,
+ * because no loop track is free where the trains cross.
+ */
+public class ConflictDto {
+
+    private String trainName;
+
+    private String otherTrainName;
+
+    private CrossingType crossingType;
+
+    private LocalDateTime time;
+
+    /**
+     * The name of the station the trains cross at, or the names of the stations they cross between.
+     */
+    private String location;
+
+    public ConflictDto(String trainName, String otherTrainName, CrossingType crossingType, LocalDateTime time,
+                       String location) {
+        this.trainName = trainName;
+        this.otherTrainName = otherTrainName;
+        this.crossingType = crossingType;
+        this.time = time;
+        this.location = location;
+    }
+
+    public String getTrainName() {
+        return trainName;
+    }
+
+    public String getOtherTrainName() {
+        return otherTrainName;
+    }
+
+    public CrossingType getCrossingType() {
+        return crossingType;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+}
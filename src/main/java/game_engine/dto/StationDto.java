@@ -7,6 +7,11 @@ import common.models.SignalAspect;
  * for each station. This data is constantly updated & exposed by the game engine.
  */
 public class StationDto {
+    /**
+     * The station's id, as assigned by the game engine when the section is loaded, or -1 if it has none.
+     */
+    private int id;
+
     private String name;
     
     private int distanceFromHome;
@@ -14,11 +19,20 @@ public class StationDto {
     private SignalAspect aspects[];
 
     public StationDto(String name, int distanceFromHome, SignalAspect[] signalAspects) {
+        this(-1, name, distanceFromHome, signalAspects);
+    }
+
+    public StationDto(int id, String name, int distanceFromHome, SignalAspect[] signalAspects) {
+        this.id = id;
         this.name = name;
         this.distanceFromHome = distanceFromHome;
         this.aspects = signalAspects;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,72 @@
+package game_engine.initializers;
+
+import java.util.Objects;
+
+/**
+ * The <code>TrainDefinition</code> class holds the details of a train as listed in the section's data, that is,
+ * everything needed to decide whether the train is to be loaded, and to ask the <code>TrainFactory</code> to create it.
+ */
+public class TrainDefinition {
+
+    private final String number;
+
+    private final String name;
+
+    /**
+     * The direction of travel. It can only be one of "TowardsHome" or "AwayFromHome".
+     */
+    private final String direction;
+
+    /**
+     * The time the train enters the section, in minutes since midnight.
+     */
+    private final int sectionEntryMinutes;
+
+    /**
+     * The time the train leaves the section, in minutes since midnight.
+     */
+    private final int sectionLeavingMinutes;
+
+    /**
+     * Creates a <code>TrainDefinition</code>.
+     *
+     * @param number                the train's number
+     * @param name                  the train's name
+     * @param direction             the direction of travel. It can only be one of "TowardsHome" or "AwayFromHome"
+     * @param sectionEntryMinutes   the time the train enters the section, in minutes since midnight
+     * @param sectionLeavingMinutes the time the train leaves the section, in minutes since midnight
+     */
+    public TrainDefinition(String number, String name, String direction, int sectionEntryMinutes, int sectionLeavingMinutes) {
+        this.number = number;
+        this.name = name;
+        this.direction = direction;
+        this.sectionEntryMinutes = sectionEntryMinutes;
+        this.sectionLeavingMinutes = sectionLeavingMinutes;
+    }
+
+    public String getNumber() { return number; }
+
+    public String getName() { return name; }
+
+    public String getDirection() { return direction; }
+
+    public int getSectionEntryMinutes() { return sectionEntryMinutes; }
+
+    public int getSectionLeavingMinutes() { return sectionLeavingMinutes; }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof TrainDefinition)) return false;
+        TrainDefinition otherDefinition = (TrainDefinition) other;
+        return this.number.equals(otherDefinition.number) && this.name.equals(otherDefinition.name)
+                && this.direction.equals(otherDefinition.direction)
+                && this.sectionEntryMinutes == otherDefinition.sectionEntryMinutes
+                && this.sectionLeavingMinutes == otherDefinition.sectionLeavingMinutes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(number, name, direction, sectionEntryMinutes, sectionLeavingMinutes);
+    }
+}
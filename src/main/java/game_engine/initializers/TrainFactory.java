@@ -8,9 +8,14 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
 import java.time.Clock;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 /**
  * Factory class to create <code>Train</code> objects.
@@ -19,6 +24,64 @@ import java.util.*;
  */
 public class TrainFactory {
 
+    /**
+     * The system property that, if set to <code>true</code>, makes trains created by factories created with the
+     * no-argument constructor hold a <code>CompactTimetable</code>.
+     */
+    public static final String COMPACT_TIMETABLES_PROPERTY = "section_controller.compactTimetables";
+
+    /**
+     * Determines if the trains created by this factory hold a <code>CompactTimetable</code> rather than a
+     * <code>Timetable</code>.
+     */
+    private final boolean compactTimetables;
+
+    /**
+     * The classpath resource that holds the data of the section the trains run on.
+     */
+    private final String sectionResource;
+
+    /**
+     * The time taken to load each train created by <code>createAll</code>, keyed by train number.
+     */
+    private final Map<String, Long> loadTimings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a factory for trains on the default section. The trains it creates hold a <code>CompactTimetable</code>
+     * if the <code>section_controller.compactTimetables</code> system property is <code>true</code>.
+     */
+    public TrainFactory() {
+        this(Game.DEFAULT_SECTION_RESOURCE);
+    }
+
+    /**
+     * Creates a factory for trains on the section held in <code>sectionResource</code>. The trains it creates hold a
+     * <code>CompactTimetable</code> if the <code>section_controller.compactTimetables</code> system property is
+     * <code>true</code>.
+     *
+     * @param sectionResource the classpath resource that holds the section's data
+     */
+    public TrainFactory(String sectionResource) {
+        this(sectionResource, Boolean.getBoolean(COMPACT_TIMETABLES_PROPERTY));
+    }
+
+    /**
+     * Creates a factory.
+     *
+     * @param compactTimetables if <code>true</code>, the trains created hold a <code>CompactTimetable</code>. This
+     *                          needs the stations passed in to be those returned by
+     *                          <code>SectionRegistry.getStations()</code>; if they are not, the trains hold a
+     *                          <code>Timetable</code> instead.
+     */
+    public TrainFactory(boolean compactTimetables) {
+        this(Game.DEFAULT_SECTION_RESOURCE, compactTimetables);
+    }
+
+    private TrainFactory(String sectionResource, boolean compactTimetables) {
+        this.sectionResource = sectionResource;
+        this.compactTimetables = compactTimetables;
+    }
+
     /**
      * Create <code>Train</code> instances with the train running on current system time.
      *
@@ -37,6 +100,117 @@ public class TrainFactory {
         return createWithMockTime(trainNumber, name, direction, stations, Clock.systemDefaultZone());
     }
 
+    /**
+     * Creates a <code>Train</code> for each of the <code>definitions</code>, with the trains running on current system
+     * time. The trains are returned in the same order as <code>definitions</code>, irrespective of
+     * <code>parallelism</code>.
+     * <br><br>
+     * If <code>parallelism</code> is more than 1, the trains are loaded in parallel on a fork-join pool with that many
+     * threads, which is shut down once all trains are loaded. Otherwise, they are loaded one after another.
+     * <br><br>
+     * The time taken to load each train is recorded, and can be obtained using <code>getLoadTimings()</code>.
+     *
+     * @param definitions the trains to be created
+     * @param stations    a list of stations on the section
+     * @param parallelism the maximum number of trains that are loaded at the same time
+     * @return the <code>Train</code> instances
+     * @throws GameNotStartedException if any of the trains could not be created. The exception's cause has the
+     *                                 underlying problem.
+     */
+    public List<Train> createAll(List<TrainDefinition> definitions, List<Station> stations, int parallelism)
+            throws GameNotStartedException {
+        return createAll(definitions, stations, parallelism, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a <code>Train</code> for each of the <code>definitions</code>, with the trains running on the time in
+     * <code>systemClock</code>. Apart from that, this is the same as <code>createAll(definitions, stations, parallelism)</code>.
+     *
+     * @param definitions the trains to be created
+     * @param stations    a list of stations on the section
+     * @param parallelism the maximum number of trains that are loaded at the same time
+     * @param systemClock the <code>Clock</code> that the trains assume is current time.
+     * @return the <code>Train</code> instances
+     * @throws GameNotStartedException if any of the trains could not be created. The exception's cause has the
+     *                                 underlying problem.
+     */
+    public List<Train> createAll(List<TrainDefinition> definitions, List<Station> stations, int parallelism,
+                                 Clock systemClock) throws GameNotStartedException {
+        return createAll(definitions, stations, parallelism, systemClock, null);
+    }
+
+    /**
+     * Creates a <code>Train</code> for each of the <code>definitions</code>, with the trains on their run of
+     * <code>serviceDay</code>, and running on the time in <code>systemClock</code>. This is for trains whose run is
+     * not the one <code>systemClock</code> points to, such as trains loaded before midnight that enter the section
+     * after it. Apart from that, this is the same as <code>createAll(definitions, stations, parallelism, systemClock)</code>.
+     *
+     * @param definitions the trains to be created
+     * @param stations    a list of stations on the section
+     * @param parallelism the maximum number of trains that are loaded at the same time
+     * @param systemClock the <code>Clock</code> that the trains assume is current time.
+     * @param serviceDay  the day the trains' run starts on, or <code>null</code> for the run that is on the section
+     *                    at the time in <code>systemClock</code>, or is yet to come that day
+     * @return the <code>Train</code> instances
+     * @throws GameNotStartedException if any of the trains could not be created. The exception's cause has the
+     *                                 underlying problem.
+     */
+    public List<Train> createAll(List<TrainDefinition> definitions, List<Station> stations, int parallelism,
+                                 Clock systemClock, LocalDate serviceDay) throws GameNotStartedException {
+        if (parallelism <= 1) {
+            List<Train> trains = new ArrayList<>();
+            for (TrainDefinition definition : definitions)
+                trains.add(createAndTime(definition, stations, systemClock, serviceDay));
+            return trains;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> definitions.parallelStream()
+                    .map(definition -> {
+                        try {
+                            return createAndTime(definition, stations, systemClock, serviceDay);
+                        } catch (GameNotStartedException ex) {
+                            throw new CompletionException(ex);
+                        }
+                    })
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GameNotStartedException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CompletionException && cause.getCause() instanceof GameNotStartedException)
+                throw (GameNotStartedException) cause.getCause();
+            throw new GameNotStartedException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the time taken to load each train created by <code>createAll</code>, in nanoseconds, keyed by the
+     * train's number.
+     *
+     * @return the load timings
+     */
+    public Map<String, Long> getLoadTimings() {
+        return Collections.unmodifiableMap(this.loadTimings);
+    }
+
+    private Train createAndTime(TrainDefinition definition, List<Station> stations, Clock systemClock,
+                                LocalDate serviceDay) throws GameNotStartedException {
+        long start = System.nanoTime();
+        try {
+            Train train = create(definition.getNumber(), definition.getName(), definition.getDirection(), stations,
+                    systemClock, serviceDay);
+            this.loadTimings.put(definition.getNumber(), System.nanoTime() - start);
+            return train;
+        } catch (IOException | ParserConfigurationException | SAXException ex) {
+            throw new GameNotStartedException(ex);
+        }
+    }
+
     /**
      * Create <code>Train</code> instances with the train running on mock time.
      * The mock time will be specified using the <code>systemClock</code> parameter,
@@ -56,13 +230,28 @@ public class TrainFactory {
      */
     public Train createWithMockTime(String trainNumber, String name, String direction, List<Station> stations, Clock systemClock)
             throws IOException, ParserConfigurationException, SAXException, GameNotStartedException {
+        return create(trainNumber, name, direction, stations, systemClock, null);
+    }
+
+    private Train create(String trainNumber, String name, String direction, List<Station> stations, Clock systemClock,
+                         LocalDate serviceDay)
+            throws IOException, ParserConfigurationException, SAXException, GameNotStartedException {
         TrainDirection directionEnum = null;
         if(direction.equals("TowardsHome"))
             directionEnum = TrainDirection.TOWARDS_HOME;
         else if(direction.equals("AwayFromHome"))
             directionEnum = TrainDirection.AWAY_FROM_HOME;
-        Timetable timetable = populateTrainData(trainNumber, directionEnum, stations);
-        TrainPosition initialTrainPosition = determineTrainInitialPosition(directionEnum, timetable, systemClock);
+        LocalDateTime currentTime = LocalDateTime.now(systemClock);
+        Timetable populatedTimetable = populateTrainData(trainNumber, directionEnum, stations,
+                serviceDay != null ? serviceDay : currentTime.toLocalDate());
+        //A train that is still on the section after midnight entered it the day before.
+        if (serviceDay == null && currentTime.isBefore(populatedTimetable.getSectionEntryTime())
+                && currentTime.isBefore(populatedTimetable.getSectionExitTime().minusDays(1)))
+            populatedTimetable = populateTrainData(trainNumber, directionEnum, stations,
+                    currentTime.toLocalDate().minusDays(1));
+        TrainTimetable timetable = this.compactTimetables && isIndexedById(stations)
+                ? new CompactTimetable(populatedTimetable, stations) : populatedTimetable;
+        TrainPosition initialTrainPosition = determineTrainInitialPosition(timetable, systemClock);
         return new Train(trainNumber, name, directionEnum, timetable, initialTrainPosition);
     }
 
@@ -78,19 +267,32 @@ public class TrainFactory {
      * @param trainNumber                   the train's number
      * @param direction                     the direction of travel
      * @param stations                      a list of stations on the section.
+     * @param serviceDay                    the day the train runs on
      * @return                              a timetable.
      * @throws IOException                  if any exception occurs during train XML I/O
      * @throws ParserConfigurationException if any exception occurs while parsing train XML I/O
      * @throws SAXException                 if any exception occurs while parsing train XML I/O
      * @throws GameNotStartedException      if any exception occurs while creating the timetable
      */
-    private Timetable populateTrainData(String trainNumber, TrainDirection direction, List<Station> stations)
+    private Timetable populateTrainData(String trainNumber, TrainDirection direction, List<Station> stations,
+                                        LocalDate serviceDay)
             throws IOException, SAXException, ParserConfigurationException, GameNotStartedException {
         System.out.printf( "Loading data for %1$s\n", trainNumber);
-        Timetable timetable = new TrainScheduleInitializer(trainNumber, direction, stations).populateTrainData();
+        Timetable timetable = new TrainScheduleInitializer(trainNumber, direction, stations, serviceDay,
+                this.sectionResource).populateTrainData();
         return timetable;
     }
 
+    /**
+     * Determines if each station's id is its index in <code>stations</code>, as it is in the list returned by
+     * <code>SectionRegistry.getStations()</code>.
+     */
+    private static boolean isIndexedById(List<Station> stations) {
+        for (int i = 0; i < stations.size(); i++)
+            if (stations.get(i).getId() != i) return false;
+        return true;
+    }
+
     /**
      * Determines the position of the train on game load.<br>This has 3 scenarios:
      * <ol>
@@ -98,89 +300,30 @@ public class TrainFactory {
      * <li>Is the train stopped at a station on the section?</li>
      * <li>Is the train running between stations?</li>
      * </ol>
+     * In all of them, the train's distance from the Home station is taken from the timetable's position profile.
      *
-     * @param direction   the current direction of the train
      * @param timetable   the train's timetable
      * @param systemClock the current time
      * @return the current position of the train
      */
-    private TrainPosition determineTrainInitialPosition(TrainDirection direction, Timetable timetable, Clock systemClock) {
-        // Has the train not yet entered the section?
+    private TrainPosition determineTrainInitialPosition(TrainTimetable timetable, Clock systemClock) {
         LocalDateTime currentTime = LocalDateTime.now(systemClock);
-        if (currentTime.isBefore(timetable.getSectionEntryTime())) {
-            TrainPosition trainPosition = new TrainPosition(TrainRunningStatus.ENTERING_SECTION,
-                    determineInitialDistanceFromHome(timetable, null, null, direction,
-                            TrainRunningStatus.ENTERING_SECTION, systemClock));
-            return trainPosition;
-        }
+        float distanceFromHome = timetable.positionAt(currentTime);
+        // Has the train not yet entered the section?
+        if (currentTime.isBefore(timetable.getSectionEntryTime()))
+            return new TrainPosition(TrainRunningStatus.ENTERING_SECTION, distanceFromHome);
         // Has the train exited the section?
-        if (currentTime.isAfter(timetable.getSectionExitTime())) {
-            TrainPosition trainPosition = new TrainPosition(TrainRunningStatus.EXITING_SECTION,
-                    determineInitialDistanceFromHome(timetable, null, null, direction,
-                            TrainRunningStatus.EXITING_SECTION, systemClock));
-            return trainPosition;
-        }
+        if (currentTime.isAfter(timetable.getSectionExitTime()))
+            return new TrainPosition(TrainRunningStatus.EXITING_SECTION, distanceFromHome);
 
         //Is the train stopped at a station on the section?
-        Optional<TrainPosition> trainPositionAtStation = timetable.getStationHaltedAt(currentTime)
-                .map(s -> new TrainPosition(TrainRunningStatus.SCHEDULED_STOP, s.getDistance()));
-        if (trainPositionAtStation.isPresent()) return trainPositionAtStation.get();
+        if (timetable.getStationHaltedAt(currentTime).isPresent())
+            return new TrainPosition(TrainRunningStatus.SCHEDULED_STOP, distanceFromHome);
 
         // Is the train running between stations?
         Optional<Station>[] stationsTravellingBetween = timetable.getStationsTravellingBetween(currentTime);
-        if (stationsTravellingBetween[0].isPresent() && stationsTravellingBetween[1].isPresent()) {
-            TrainPosition trainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN,
-                    determineInitialDistanceFromHome(
-                            timetable, stationsTravellingBetween[0].get(),
-                            stationsTravellingBetween[1].get(),
-                            direction, TrainRunningStatus.RUNNING_BETWEEN, systemClock));
-            return trainPosition;
-        }
+        if (stationsTravellingBetween[0].isPresent() && stationsTravellingBetween[1].isPresent())
+            return new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, distanceFromHome);
         return null;
     }
-
-    /**
-     * Determines, on game load, the distance of the train from the Home station.
-     * <br><br>
-     * If the train is on the section, the method assumes the train is currently between two stations,
-     * <code>crossedStation</code> and <code>upcomingStation</code>. Based on the schedules at those stations, the method
-     * calculates the speed the train should have in order to reach <code>upcomingStation</code> on-time. Based on this
-     * speed, it returns the distance the train has covered until now.
-     * <br><br>
-     * If the train is beyond the section, either entering or exiting the section, then the method calculates the distance
-     * beyond the section based on the value of <code>trainRunningStatus</code>, and the time since section entry/exit.
-     *
-     * @param timetable          the train's timetable
-     * @param crossedStation     the station that was just crossed
-     * @param upcomingStation    the station that is upcoming
-     * @param direction          the direction of the train
-     * @param trainRunningStatus the current status of the train
-     * @param systemClock        the current time
-     * @return the current distance from Home station
-     */
-    private float determineInitialDistanceFromHome(Timetable timetable, Station crossedStation, Station upcomingStation,
-                                                   TrainDirection direction, TrainRunningStatus trainRunningStatus, Clock systemClock) {
-        LocalDateTime currentTime = LocalDateTime.now(systemClock);
-        if (trainRunningStatus == TrainRunningStatus.ENTERING_SECTION) {
-            float distance = 60 * (currentTime.until(timetable.getSectionEntryTime(), ChronoUnit.MINUTES) / 60f);
-            if (direction == TrainDirection.AWAY_FROM_HOME) return -distance;
-            else return 86 + distance;
-        } else if (trainRunningStatus == TrainRunningStatus.EXITING_SECTION) {
-            float distance = 60 * (timetable.getSectionExitTime().until(currentTime, ChronoUnit.MINUTES) / 60f);
-            if (direction == TrainDirection.AWAY_FROM_HOME) return 86 + distance;
-            else return -distance;
-        } else {
-            int distanceBetweenStations = Math.abs(crossedStation.getDistance() - upcomingStation.getDistance());
-            float timeAsPerScheduleInHours = timetable.getSchedule(crossedStation).get().getDepartureTime()
-                    .until(timetable.getSchedule(upcomingStation).get().getArrivalTime(), ChronoUnit.MINUTES) / 60f;
-            float expectedSpeedOfTrain = distanceBetweenStations / timeAsPerScheduleInHours;
-
-            float timeSinceLastCrossedStation = timetable.getSchedule(crossedStation).get().getDepartureTime()
-                    .until(LocalDateTime.now(systemClock), ChronoUnit.MINUTES) / 60f;
-            if (direction == TrainDirection.AWAY_FROM_HOME)
-                return expectedSpeedOfTrain * timeSinceLastCrossedStation;
-            else
-                return 86 - (expectedSpeedOfTrain * timeSinceLastCrossedStation);
-        }
-    }
 }
@@ -3,6 +3,7 @@ package game_engine.initializers;
 import common.models.TrainDirection;
 import game_engine.*;
 import game_engine.data_access.DataAccess;
+import game_engine.data_access.SectionSnapshot;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
@@ -13,7 +14,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Loads the train's schedules from the train's XML file.<br>
@@ -26,21 +26,48 @@ class TrainScheduleInitializer {
     private final TrainDirection direction;
     private final List<Station> stations;
 
+    /**
+     * The day the train runs on. The times of the stops are on this day, or the next for trains that run overnight.
+     */
+    private final LocalDate serviceDay;
+
+    /**
+     * The stations on the section keyed by their code in upper case, so that each stop's station is found without
+     * searching the list of stations.
+     */
+    private final Map<String, Station> stationsByCode = new HashMap<>();
+
+    /**
+     * The classpath resource that holds the section's data.
+     */
+    private final String sectionResource;
+
     /**
      * Creates an instance of this class.
      *
-     * @param trainNumber the train's number
-     * @param direction   the direction of travel
-     * @param stations    a list of stations on the section
+     * @param trainNumber     the train's number
+     * @param direction       the direction of travel
+     * @param stations        a list of stations on the section
+     * @param serviceDay      the day the train runs on, as per the game's clock
+     * @param sectionResource the classpath resource that holds the section's data
      */
-    public TrainScheduleInitializer(String trainNumber, TrainDirection direction, List<Station> stations) {
+    public TrainScheduleInitializer(String trainNumber, TrainDirection direction, List<Station> stations,
+                                    LocalDate serviceDay, String sectionResource) {
         this.trainNumber = trainNumber;
         this.direction = direction;
         this.stations = stations;
+        this.serviceDay = serviceDay;
+        this.sectionResource = sectionResource;
+        stations.forEach(station -> this.stationsByCode.put(station.getCode().toUpperCase(), station));
     }
 
     /**
-     * Reads the train's XML file and creates a <code>Timetable</code> updated with the train's scheduled stops.
+     * Creates a <code>Timetable</code> updated with the train's scheduled stops.
+     * The stops are read from the section's precompiled snapshot if it has the train, else from the train's XML file.
+     * A train's XML file may list its stops on other sections too, so stops at stations that are not on the section
+     * are left out.
+     * <br><br>The timetable is built with a <code>TimetableBuilder</code>, which does not modify the list of
+     * stations, so the list may be shared by trains being loaded in parallel.
      *
      * @return                              the train's timetable.
      * @throws IOException                  if any exception occurs during train XML I/O
@@ -49,39 +76,70 @@ class TrainScheduleInitializer {
      */
     public Timetable populateTrainData()
             throws IOException, ParserConfigurationException, SAXException {
-        String filePath = String.format("/data/%1$s.xml", trainNumber);
-        InputStream trainXMLStream = getClass().getResourceAsStream(filePath);
-        Vector<Element> stops = DataAccess.getInstance().extractData(trainXMLStream,"stop");
-        List<Entry> timetableEntries = stops.stream()
-                .map(stop -> {
-                    String stationCode = stop.getAttribute("code");
+        Optional<SectionSnapshot> snapshot = SectionSnapshot.forSection(this.sectionResource);
+        int trainIndex = snapshot.map(section -> section.indexOfTrain(trainNumber)).orElse(-1);
+        if (trainIndex >= 0) {
+            SectionSnapshot section = snapshot.get();
+            TimetableBuilder timetableBuilder = new TimetableBuilder(this.stations, this.direction);
+            for (int stop = 0; stop < section.getStopCount(trainIndex); stop++) {
+                addStop(timetableBuilder, section.getStationCode(section.getStopStation(trainIndex, stop)),
+                        section.getStopArrivalMinutes(trainIndex, stop), section.getStopDepartureMinutes(trainIndex, stop),
+                        section.isOriginatingStop(trainIndex, stop), section.isTerminatingStop(trainIndex, stop));
+            }
+            return timetableBuilder.build();
+        }
 
-                    String arrivalTimeString = stop.getAttribute("arrival-time");
-                    int[] arrivalTimeIntArray = Arrays.stream(arrivalTimeString.split(":"))
-                            .mapToInt(Integer::valueOf).toArray();
-                    LocalDateTime arrivalTime = LocalDateTime.of(LocalDate.now(),
-                            LocalTime.of(arrivalTimeIntArray[0], arrivalTimeIntArray[1]));
+        String filePath = String.format("/data/%1$s.xml", trainNumber);
+        Vector<Element> stops;
+        try (InputStream trainXMLStream = DataAccess.getInstance().openResource(filePath)) {
+            stops = DataAccess.getInstance().extractData(trainXMLStream, "stop");
+        }
+        TimetableBuilder timetableBuilder = new TimetableBuilder(this.stations, this.direction);
+        for (Element stop : stops) {
+            if (!this.stationsByCode.containsKey(stop.getAttribute("code").toUpperCase())) continue;
+            //A train's first stop may not have an arrival time, and its last stop may not have a departure time.
+            String arrivalTime = stop.getAttribute("arrival-time");
+            String departureTime = stop.getAttribute("departure-time");
+            addStop(timetableBuilder, stop.getAttribute("code"),
+                    toMinutes(arrivalTime.isEmpty() ? departureTime : arrivalTime),
+                    toMinutes(departureTime.isEmpty() ? arrivalTime : departureTime),
+                    Boolean.parseBoolean(stop.getAttribute("originating-station")),
+                    Boolean.parseBoolean(stop.getAttribute("terminating-station")));
+        }
+        return timetableBuilder.build();
+    }
 
-                    String departureTimeString = stop.getAttribute("departure-time");
-                    int[] departureTimeIntArray = Arrays.stream(departureTimeString.split(":"))
-                            .mapToInt(Integer::valueOf).toArray();
-                    LocalDateTime departureTime = LocalDateTime.of(LocalDate.now(),
-                            LocalTime.of(departureTimeIntArray[0], departureTimeIntArray[1]));
+    /**
+     * Adds a single stop of the train to the timetable being built.
+     *
+     * @param timetableBuilder     the builder of the train's timetable
+     * @param stationCode          the code of the station where the train stops
+     * @param arrivalMinutes       the arrival time, in minutes since midnight
+     * @param departureMinutes     the departure time, in minutes since midnight
+     * @param isOriginatingStation determines if the stop is the origin for the train
+     * @param isTerminatingStation determines if the stop is the train's destination
+     */
+    private void addStop(TimetableBuilder timetableBuilder, String stationCode, int arrivalMinutes, int departureMinutes,
+                         boolean isOriginatingStation, boolean isTerminatingStation) {
+        LocalDateTime arrivalTime = LocalDateTime.of(this.serviceDay,
+                LocalTime.of(arrivalMinutes / 60, arrivalMinutes % 60));
+        LocalDateTime departureTime = LocalDateTime.of(this.serviceDay,
+                LocalTime.of(departureMinutes / 60, departureMinutes % 60));
 
-                    boolean isOriginatingStation = Boolean.parseBoolean(stop.getAttribute("originating-station"));
-                    boolean isTerminatingStation = Boolean.parseBoolean(stop.getAttribute("terminating-station"));
+        Station station = this.stationsByCode.get(stationCode.toUpperCase());
+        if (station == null) throw new NoSuchElementException(stationCode + " is not on the section");
+        try {
+            timetableBuilder.addStop(station, arrivalTime, departureTime, isOriginatingStation, isTerminatingStation);
+        } catch (GameNotStartedException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                    Station station = this.stations.stream()
-                            .filter(s -> s.getCode().equalsIgnoreCase(stationCode)).findFirst().get();
-                    try {
-                        return new Entry(station,
-                                Optional.of(new TrainSchedule(arrivalTime, departureTime)),
-                                StopType.valueOf(isOriginatingStation, isTerminatingStation));
-                    } catch (GameNotStartedException e) {
-                        throw new RuntimeException(e);
-                    }
-                }).collect(Collectors.toList());
-        Timetable timetable = new Timetable(this.stations, timetableEntries, this.direction);
-        return timetable;
+    /**
+     * Converts a time of the form <code>HH:mm</code> to minutes since midnight.
+     */
+    private static int toMinutes(String time) {
+        int[] timeIntArray = Arrays.stream(time.split(":")).mapToInt(Integer::valueOf).toArray();
+        return timeIntArray[0] * 60 + timeIntArray[1];
     }
 }
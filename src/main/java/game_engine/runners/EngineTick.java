@@ -0,0 +1,310 @@
+package game_engine.runners;
+
+import common.models.TrainDirection;
+import common.models.TrainRunningStatus;
+import game_engine.BlockOccupancy;
+import game_engine.PositionProfile;
+import game_engine.TrainPosition;
+import game_engine.TrainTimetable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Class that moves all the trains on the section in a single task.
+ * It is intended that this class will be used as a task, by something like the Executor framework, that is repeatedly
+ * executed.
+ * <br><br>
+ * Each run, or tick, reads the clock once, and then goes over the trains in one pass. The trains' position profiles
+ * and positions are held side by side in arrays, so that a tick does not look anything up per train.
+ * <br><br>
+ * Each train's next significant event, that is, the next time it arrives at or departs from a stop, which includes
+ * entering and leaving the section, is held in a <code>TimingWheel</code>. A tick first hands out the events that have
+ * fallen due, and works out afresh only for those trains whether they are halted or running, which is set as their
+ * <code>TrainRunningStatus</code>. A train halted at a stop is then left alone until its departure falls due, and only
+ * the running trains are moved. The next event of all the trains is taken from the wheel, rather than by going through
+ * every train.
+ * <br><br>
+ * Whenever a train is moved, the block it is in is looked up, and the section's <code>BlockOccupancy</code> is updated
+ * if the train has moved into another block. This is a constant amount of work per train, so the blocks ahead of the
+ * trains can be checked without going through the trains. The blocks that more than one train has entered are
+ * returned by <code>getOverOccupiedBlocks()</code>, for the game's clients to raise an alarm.
+ * <br><br>
+ * The time each tick takes is measured, so that the game's clients can show how it grows with the number of trains.
+ * The tick itself does not report it.
+ */
+public class EngineTick implements Runnable {
+
+    private final Clock clock;
+
+    private String[] trainNumbers = new String[16];
+
+    private PositionProfile[] positionProfiles = new PositionProfile[16];
+
+    private TrainPosition[] trainPositions = new TrainPosition[16];
+
+    /**
+     * The block each train is in, or -1 if it is in none.
+     */
+    private int[] blocks = new int[16];
+
+    /**
+     * Whether each train is halted at a stop until its next event.
+     */
+    private boolean[] stationary = new boolean[16];
+
+    /**
+     * The next event of each train, or <code>null</code> if it has none.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private TimingWheel.Timer<String>[] nextEvents = new TimingWheel.Timer[16];
+
+    /**
+     * The number of trains. The trains are at the start of the arrays.
+     */
+    private int trainCount;
+
+    /**
+     * The index of each train in the arrays.
+     */
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * The trains' next events, in seconds since the epoch, as per the trains' timetables.
+     */
+    private final TimingWheel<String> events;
+
+    /**
+     * The blocks of the section, and the trains in them.
+     */
+    private final BlockOccupancy blockOccupancy;
+
+    /**
+     * The time taken by the slowest tick since <code>takeSlowestTickDuration()</code> was last called.
+     */
+    private long slowestTickNanos;
+
+    private volatile long lastTickNanos;
+
+    /**
+     * Creates an instance of the <code>EngineTick</code>, with no trains, that does not keep track of blocks.
+     * @param clock the clock that gives the current time
+     */
+    public EngineTick(Clock clock) {
+        this(clock, new BlockOccupancy(Collections.emptyList()));
+    }
+
+    /**
+     * Creates an instance of the <code>EngineTick</code>, with no trains.
+     * @param clock          the clock that gives the current time
+     * @param blockOccupancy the blocks of the section, with no trains in them
+     */
+    public EngineTick(Clock clock, BlockOccupancy blockOccupancy) {
+        this.clock = clock;
+        this.blockOccupancy = blockOccupancy;
+        this.events = new TimingWheel<>(LocalDateTime.now(clock).toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Adds the train, so that it is moved from the next tick on. If a train with the same number has been added, it is
+     * replaced.
+     *
+     * @param trainNumber   the train's number
+     * @param timetable     the train's timetable that helps determine where the train should be.
+     * @param trainPosition an instance of <code>TrainPosition</code> that is updated with the train's current position.
+     */
+    public synchronized void add(String trainNumber, TrainTimetable timetable, TrainPosition trainPosition) {
+        Integer existingIndex = this.indexes.get(trainNumber);
+        int index;
+        if (existingIndex == null) {
+            if (this.trainCount == this.trainNumbers.length) {
+                this.trainNumbers = Arrays.copyOf(this.trainNumbers, this.trainCount * 2);
+                this.positionProfiles = Arrays.copyOf(this.positionProfiles, this.trainCount * 2);
+                this.trainPositions = Arrays.copyOf(this.trainPositions, this.trainCount * 2);
+                this.blocks = Arrays.copyOf(this.blocks, this.trainCount * 2);
+                this.stationary = Arrays.copyOf(this.stationary, this.trainCount * 2);
+                this.nextEvents = Arrays.copyOf(this.nextEvents, this.trainCount * 2);
+            }
+            index = this.trainCount++;
+            this.indexes.put(trainNumber, index);
+            this.blocks[index] = -1;
+        } else {
+            index = existingIndex;
+            if (this.nextEvents[index] != null) this.events.cancel(this.nextEvents[index]);
+        }
+        this.trainNumbers[index] = trainNumber;
+        this.positionProfiles[index] = timetable.getPositionProfile();
+        this.trainPositions[index] = trainPosition;
+        LocalDateTime currentTime = LocalDateTime.now(this.clock);
+        //A train that is halted is put at its stop straightaway, as the ticks leave it alone until it departs.
+        this.stationary[index] = this.positionProfiles[index].isStationaryAt(currentTime);
+        if (this.stationary[index])
+            trainPosition.setDistanceFromHome(this.positionProfiles[index].positionAt(currentTime));
+        updateBlock(index);
+        scheduleNextEvent(index, currentTime);
+    }
+
+    /**
+     * Removes the train, so that it is no longer moved. Nothing happens if the train has not been added.
+     * @param trainNumber the train's number
+     */
+    public synchronized void remove(String trainNumber) {
+        Integer removedIndex = this.indexes.remove(trainNumber);
+        if (removedIndex == null) return;
+        int index = removedIndex;
+        if (this.nextEvents[index] != null) this.events.cancel(this.nextEvents[index]);
+        this.blockOccupancy.move(this.blocks[index], -1);
+        //The last train takes the place of the removed one, to keep the trains at the start of the arrays.
+        int last = --this.trainCount;
+        if (index != last) this.indexes.put(this.trainNumbers[last], index);
+        this.trainNumbers[index] = this.trainNumbers[last];
+        this.positionProfiles[index] = this.positionProfiles[last];
+        this.trainPositions[index] = this.trainPositions[last];
+        this.blocks[index] = this.blocks[last];
+        this.stationary[index] = this.stationary[last];
+        this.nextEvents[index] = this.nextEvents[last];
+        this.trainNumbers[last] = null;
+        this.positionProfiles[last] = null;
+        this.trainPositions[last] = null;
+        this.blocks[last] = -1;
+        this.stationary[last] = false;
+        this.nextEvents[last] = null;
+    }
+
+    /**
+     * Returns the number of trains that are moved by each tick.
+     * @return the number of trains
+     */
+    public synchronized int getTrainCount() {
+        return this.trainCount;
+    }
+
+    /**
+     * Returns the time the last tick took.
+     * @return the duration of the last tick, or zero if there has been no tick yet
+     */
+    public Duration getLastTickDuration() {
+        return Duration.ofNanos(this.lastTickNanos);
+    }
+
+    /**
+     * Returns the time taken by the slowest tick since this was last called, and starts measuring afresh.
+     * @return the duration of the slowest tick, or zero if there has been no tick since this was last called
+     */
+    public synchronized Duration takeSlowestTickDuration() {
+        Duration slowestTick = Duration.ofNanos(this.slowestTickNanos);
+        this.slowestTickNanos = 0;
+        return slowestTick;
+    }
+
+    /**
+     * Returns the first time after <code>time</code> at which any of the trains arrives at or departs from a stop.
+     * <br><br>
+     * This is taken from the trains' next events if the trains have been moved up to <code>time</code>, and is
+     * otherwise worked out from each train's timetable.
+     *
+     * @param time the time
+     * @return the time of the next arrival or departure, or <code>Optional.empty()</code> if there is none
+     */
+    public synchronized Optional<LocalDateTime> getNextEventAfter(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long nextDeadline = this.events.getNextDeadline();
+        if (seconds >= this.events.getTime() && nextDeadline > seconds) {
+            if (nextDeadline == Long.MAX_VALUE) return Optional.empty();
+            return Optional.of(LocalDateTime.ofEpochSecond(nextDeadline, 0, ZoneOffset.UTC));
+        }
+        Optional<LocalDateTime> nextEvent = Optional.empty();
+        for (int i = 0; i < this.trainCount; i++) {
+            Optional<LocalDateTime> trainEvent = this.positionProfiles[i].getNextPointAfter(time);
+            if (trainEvent.isPresent() && (!nextEvent.isPresent() || trainEvent.get().isBefore(nextEvent.get())))
+                nextEvent = trainEvent;
+        }
+        return nextEvent;
+    }
+
+    /**
+     * Hands out the trains' events that have fallen due, and then moves every running train to where its timetable
+     * says it should be at the current time.
+     */
+    @Override
+    public synchronized void run() {
+        long start = System.nanoTime();
+        LocalDateTime currentTime = LocalDateTime.now(this.clock);
+        this.events.advance(currentTime.toEpochSecond(ZoneOffset.UTC), trainNumber -> {
+            int index = this.indexes.get(trainNumber);
+            TrainRunningStatus status = this.positionProfiles[index].getRunningStatusAt(currentTime);
+            this.stationary[index] = status == TrainRunningStatus.SCHEDULED_STOP;
+            this.trainPositions[index].setTrainRunningStatus(status);
+            //A train that has just halted is moved to the stop, and then left there.
+            this.trainPositions[index].setDistanceFromHome(this.positionProfiles[index].positionAt(currentTime));
+            updateBlock(index);
+            scheduleNextEvent(index, currentTime);
+        });
+        for (int i = 0; i < this.trainCount; i++) {
+            if (this.stationary[i]) continue;
+            this.trainPositions[i].setDistanceFromHome(this.positionProfiles[i].positionAt(currentTime));
+            updateBlock(i);
+        }
+        long tickNanos = System.nanoTime() - start;
+
+        this.lastTickNanos = tickNanos;
+        this.slowestTickNanos = Math.max(this.slowestTickNanos, tickNanos);
+    }
+
+    /**
+     * Moves the train into the block it is now in, if that has changed. A block that it shares with another train is
+     * then returned by <code>getOverOccupiedBlocks()</code>.
+     */
+    private void updateBlock(int index) {
+        int block = this.blockOccupancy.blockAt(this.trainPositions[index].getDistanceFromHome());
+        if (block == this.blocks[index]) return;
+        this.blockOccupancy.move(this.blocks[index], block);
+        this.blocks[index] = block;
+    }
+
+    /**
+     * Returns whether a train may leave a station, as far as the block it would enter is concerned.
+     *
+     * @param stationId the id of the station
+     * @param direction the direction the train is travelling in
+     * @return <code>true</code> if there is no train in the block ahead, or the train would leave the section
+     */
+    public synchronized boolean isBlockAheadFree(int stationId, TrainDirection direction) {
+        return this.blockOccupancy.isBlockAheadFree(stationId, direction);
+    }
+
+    /**
+     * Returns the blocks that have more than one train in them.
+     * @return the blocks, in order, where block <code>b</code> lies between the stations with the ids <code>b</code>
+     * and <code>b + 1</code>
+     */
+    public synchronized int[] getOverOccupiedBlocks() {
+        int count = 0;
+        for (int block = this.blockOccupancy.nextOverOccupiedBlock(0); block >= 0;
+             block = this.blockOccupancy.nextOverOccupiedBlock(block + 1))
+            count++;
+        int[] overOccupiedBlocks = new int[count];
+        count = 0;
+        for (int block = this.blockOccupancy.nextOverOccupiedBlock(0); block >= 0;
+             block = this.blockOccupancy.nextOverOccupiedBlock(block + 1))
+            overOccupiedBlocks[count++] = block;
+        return overOccupiedBlocks;
+    }
+
+    /**
+     * Schedules the train's next arrival at or departure from a stop after <code>time</code>.
+     */
+    private void scheduleNextEvent(int index, LocalDateTime time) {
+        Optional<LocalDateTime> nextPoint = this.positionProfiles[index].getNextPointAfter(time);
+        this.nextEvents[index] = nextPoint.isPresent()
+                ? this.events.schedule(this.trainNumbers[index], nextPoint.get().toEpochSecond(ZoneOffset.UTC))
+                : null;
+    }
+}
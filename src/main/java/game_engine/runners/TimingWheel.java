@@ -0,0 +1,277 @@
+package game_engine.runners;
+
+import java.util.function.Consumer;
+
+/**
+ * The <code>TimingWheel</code> class holds items that fall due at given times, and hands them out as time is moved on,
+ * earliest first. Times are counted in ticks, of whatever length the user chooses; the <code>EngineTick</code> uses
+ * seconds.
+ * <br><br>
+ * This is a hierarchical timing wheel. There are <code>LEVELS</code> wheels of 64 slots each. A slot of the lowest
+ * wheel spans one tick, and a slot of each wheel above spans a whole turn of the wheel below. An item is put in the
+ * lowest wheel that reaches as far as its time, so scheduling and cancelling an item take the same time however many
+ * items there are. When time reaches a slot of one of the upper wheels, its items are moved down to the wheels below,
+ * which happens at most <code>LEVELS - 1</code> times per item.
+ * <br><br>
+ * Which slots of each wheel hold items is kept in a bitmap, so a stretch of time with nothing due is skipped without
+ * going through its slots one at a time.
+ * <br><br>
+ * This class is not thread-safe.
+ *
+ * @param <T> the type of the items
+ */
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    private static final long SLOT_MASK = SLOTS - 1;
+
+    /**
+     * The number of wheels. Together they reach 64<sup>6</sup> ticks ahead, which is over two thousand years in
+     * seconds.
+     */
+    static final int LEVELS = 6;
+
+    /**
+     * The first item in each slot of each wheel. The items in a slot are linked to each other.
+     */
+    private final Timer<T>[][] slots;
+
+    /**
+     * A bit per slot of each wheel, which is set if the slot holds any items.
+     */
+    private final long[] occupiedSlots = new long[LEVELS];
+
+    /**
+     * The current time, in ticks.
+     */
+    private long time;
+
+    private int size;
+
+    /**
+     * Creates an empty wheel.
+     * @param start the time to start at, in ticks
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long start) {
+        this.time = start;
+        this.slots = (Timer<T>[][]) new Timer[LEVELS][SLOTS];
+    }
+
+    /**
+     * An item that has been scheduled, which can be used to cancel it.
+     *
+     * @param <T> the type of the item
+     */
+    static final class Timer<T> {
+
+        private final T item;
+
+        private final long deadline;
+
+        /**
+         * The wheel the item is in, or -1 if it is no longer in the wheel.
+         */
+        private int level = -1;
+
+        private int slot;
+
+        private Timer<T> previous;
+
+        private Timer<T> next;
+
+        private Timer(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        T getItem() {
+            return this.item;
+        }
+
+        long getDeadline() {
+            return this.deadline;
+        }
+
+        /**
+         * Returns whether the item is still waiting to fall due.
+         * @return <code>true</code> if the item has neither fallen due nor been cancelled
+         */
+        boolean isScheduled() {
+            return this.level >= 0;
+        }
+    }
+
+    /**
+     * Schedules <code>item</code> to fall due at <code>deadline</code>. An item whose deadline has passed falls due
+     * the next time the wheel is moved on.
+     *
+     * @param item     the item
+     * @param deadline the time at which the item falls due, in ticks
+     * @return a handle that can be used to cancel the item
+     * @throws IllegalArgumentException if <code>deadline</code> is beyond the reach of the wheels
+     */
+    Timer<T> schedule(T item, long deadline) {
+        Timer<T> timer = new Timer<>(item, deadline);
+        place(timer);
+        this.size++;
+        return timer;
+    }
+
+    /**
+     * Cancels the item, so that it does not fall due. Nothing happens if it has already fallen due or been cancelled.
+     * @param timer the handle returned when the item was scheduled
+     */
+    void cancel(Timer<T> timer) {
+        if (!timer.isScheduled()) return;
+        unlink(timer);
+        this.size--;
+    }
+
+    /**
+     * Returns the current time of the wheel, that is, the time it was last moved on to.
+     * @return the time, in ticks
+     */
+    long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Returns the number of items waiting to fall due.
+     * @return the number of items
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the time at which the next item falls due. If an item was scheduled for a time that has passed, this is
+     * the current time.
+     *
+     * @return the time, in ticks, or <code>Long.MAX_VALUE</code> if there are no items
+     */
+    long getNextDeadline() {
+        if (this.size == 0) return Long.MAX_VALUE;
+        long dueInThisTurn = this.occupiedSlots[0] & (-1L << (this.time & SLOT_MASK));
+        if (dueInThisTurn != 0)
+            return (this.time & ~SLOT_MASK) | Long.numberOfTrailingZeros(dueInThisTurn);
+        int level = getNextOccupiedLevel();
+        //The items in a slot of an upper wheel can fall due at any tick of the slot.
+        long nextDeadline = Long.MAX_VALUE;
+        for (Timer<T> timer = this.slots[level][getNextOccupiedSlot(level)]; timer != null; timer = timer.next)
+            nextDeadline = Math.min(nextDeadline, timer.deadline);
+        return nextDeadline;
+    }
+
+    /**
+     * Moves time on to <code>time</code>, and hands every item that falls due by then to <code>onDue</code>, earliest
+     * first. Items due at the same tick are handed out in no particular order. <code>onDue</code> may schedule more
+     * items; those that fall due by <code>time</code> are handed out as well.
+     * <br><br>
+     * Nothing happens if <code>time</code> is before the current time.
+     *
+     * @param time  the time to move on to, in ticks
+     * @param onDue takes the items that fall due
+     */
+    void advance(long time, Consumer<T> onDue) {
+        if (time < this.time) return;
+        while (true) {
+            long endOfTurn = this.time | SLOT_MASK;
+            int lastSlot = (int) (Math.min(time, endOfTurn) & SLOT_MASK);
+            long due;
+            while ((due = this.occupiedSlots[0] & (-1L << (this.time & SLOT_MASK)) & (-1L >>> (SLOTS - 1 - lastSlot))) != 0) {
+                //Items are taken out one at a time, as onDue may cancel the others in the slot.
+                int slot = Long.numberOfTrailingZeros(due);
+                this.time = (this.time & ~SLOT_MASK) | slot;
+                Timer<T> timer = this.slots[0][slot];
+                unlink(timer);
+                this.size--;
+                onDue.accept(timer.item);
+            }
+            if (time <= endOfTurn) {
+                this.time = time;
+                return;
+            }
+            //Nothing else falls due in this turn of the lowest wheel. Time moves straight on to the next slot of an
+            //upper wheel that holds items, whose items are then moved down, unless that is beyond time.
+            int level = this.size == 0 ? -1 : getNextOccupiedLevel();
+            if (level < 0) {
+                this.time = time;
+                return;
+            }
+            int slot = getNextOccupiedSlot(level);
+            int shift = SLOT_BITS * (level + 1);
+            long startOfSlot = (this.time >>> shift << shift) | ((long) slot << (SLOT_BITS * level));
+            if (startOfSlot > time) {
+                this.time = time;
+                return;
+            }
+            this.time = startOfSlot;
+            Timer<T> timer = detach(level, slot);
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * Returns the lowest upper wheel with items in a slot after the current one. Items in the upper wheels are always
+     * in a slot after the current one.
+     */
+    private int getNextOccupiedLevel() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (this.occupiedSlots[level] != 0) return level;
+        }
+        return -1;
+    }
+
+    private int getNextOccupiedSlot(int level) {
+        return Long.numberOfTrailingZeros(this.occupiedSlots[level]);
+    }
+
+    /**
+     * Puts the item in the lowest wheel that reaches as far as its deadline, that is, the lowest wheel above whose
+     * slots the deadline and the current time are the same.
+     */
+    private void place(Timer<T> timer) {
+        long deadline = Math.max(timer.deadline, this.time);
+        int level = 0;
+        while ((deadline >>> (SLOT_BITS * (level + 1))) != (this.time >>> (SLOT_BITS * (level + 1)))) {
+            if (++level == LEVELS)
+                throw new IllegalArgumentException("Cannot schedule an item at " + timer.deadline + ", which is too far ahead of " + this.time);
+        }
+        int slot = (int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+        timer.level = level;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = this.slots[level][slot];
+        if (timer.next != null) timer.next.previous = timer;
+        this.slots[level][slot] = timer;
+        this.occupiedSlots[level] |= 1L << slot;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.previous != null) timer.previous.next = timer.next;
+        else this.slots[timer.level][timer.slot] = timer.next;
+        if (timer.next != null) timer.next.previous = timer.previous;
+        if (this.slots[timer.level][timer.slot] == null) this.occupiedSlots[timer.level] &= ~(1L << timer.slot);
+        timer.level = -1;
+        timer.previous = timer.next = null;
+    }
+
+    /**
+     * Takes all the items out of the slot.
+     * @return the first of the items, which are still linked to each other
+     */
+    private Timer<T> detach(int level, int slot) {
+        Timer<T> first = this.slots[level][slot];
+        this.slots[level][slot] = null;
+        this.occupiedSlots[level] &= ~(1L << slot);
+        return first;
+    }
+}
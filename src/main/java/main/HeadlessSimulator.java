@@ -0,0 +1,84 @@
+package main;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+import game_engine.DaySimulator;
+import game_engine.DelaySimulator;
+import game_engine.Game;
+import game_engine.GameNotStartedException;
+import game_engine.data_access.DataAccess;
+
+/**
+ * The HeadlessSimulator class plays a whole day on the section without the game's windows, and writes how the
+ * trains ran.
+ * <br><br>
+ * If the <code>section_controller.monteCarloRuns</code> system property is set, the day is instead played that many
+ * times over by a <code>DelaySimulator</code>, with trains delayed at random, and the distributions of the trains'
+ * lags are written.
+ */
+public class HeadlessSimulator {
+    /**
+     * The system property that holds the number of times the day is played with random delays, if any.
+     */
+    private static final String MONTE_CARLO_RUNS_PROPERTY = "section_controller.monteCarloRuns";
+
+    /**
+     * How the trains are delayed when the day is played with random delays: a third of the trains enter the section
+     * late, by 15 minutes on average, and a fifth of the halts are overrun, by 2 minutes on average.
+     */
+    private static final DelaySimulator.DelayModel DELAY_MODEL =
+	    new DelaySimulator.DelayModel(1 / 3.0, Duration.ofMinutes(15), 0.2, Duration.ofMinutes(2));
+
+    /**
+     * The main method for the simulator.
+     *
+     * @param args
+     *            The day to play, as <code>yyyy-mm-dd</code>, followed optionally by the file to write the
+     *            results to. The results are written to the console if no file is given. Today is played if no
+     *            day is given either.
+     *            <br>As with <code>Main</code>, the <code>section_controller.dataDirectory</code> and
+     *            <code>section_controller.compactTimetables</code> system properties are honoured, as is the
+     *            <code>section_controller.monteCarloRuns</code> system property.
+     */
+    public static void main(String args[]) {
+	String dataDirectory = System.getProperty(Main.DATA_DIRECTORY_PROPERTY);
+	if (dataDirectory != null) {
+	    DataAccess.getInstance().setDataDirectory(Paths.get(dataDirectory));
+	}
+	int exitCode = 0;
+	try {
+	    LocalDate day = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now();
+	    String monteCarloRuns = System.getProperty(MONTE_CARLO_RUNS_PROPERTY);
+	    PrintStream out = args.length > 1 ? new PrintStream(args[1]) : System.out;
+	    try {
+		if (monteCarloRuns != null) {
+		    //The runs are seeded from the day, so that playing the same day again gives the same results.
+		    new DelaySimulator(Game.DEFAULT_SECTION_RESOURCE, ZoneId.systemDefault(), DELAY_MODEL,
+			    Runtime.getRuntime().availableProcessors())
+			    .simulate(day, Integer.parseInt(monteCarloRuns), day.toEpochDay())
+			    .write(out);
+		} else {
+		    new DaySimulator(ZoneId.systemDefault()).simulate(day).write(out);
+		}
+	    } finally {
+		if (out != System.out) out.close();
+	    }
+	} catch (DateTimeParseException e) {
+	    System.err.println("The day must be given as yyyy-mm-dd: " + args[0]);
+	    exitCode = 1;
+	} catch (NumberFormatException e) {
+	    System.err.println("The number of runs must be a whole number: " + System.getProperty(MONTE_CARLO_RUNS_PROPERTY));
+	    exitCode = 1;
+	} catch (GameNotStartedException | InterruptedException | FileNotFoundException e) {
+	    e.printStackTrace();
+	    exitCode = 1;
+	}
+	System.exit(exitCode);
+    }
+}
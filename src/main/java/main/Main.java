@@ -1,24 +1,45 @@
 package main;
 
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Paths;
 
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
+import game_engine.data_access.DataAccess;
 import presentation.windows.LoginInterface;
 
 /**
  * The Main class is the starting point of the application.
  */
 public class Main {
+    /**
+     * The system property that holds the data folder, if any.
+     */
+    static final String DATA_DIRECTORY_PROPERTY = "section_controller.dataDirectory";
+
     /**
      * The main method for the game.
      *
      * @param args
      *            An array of <code>String</code>s that can be passed as arguments.
      *            However, nothing is done with these arguments.
+     *            <br>To play with timetables from a folder rather than the bundled ones, and have changes to them
+     *            picked up while playing, set the <code>section_controller.dataDirectory</code> system property
+     *            to that folder.
+     *            <br>To hold the trains' timetables in the smaller <code>CompactTimetable</code> form, set the
+     *            <code>section_controller.compactTimetables</code> system property to <code>true</code>.
+     *            <br>To play faster than real time, set the <code>section_controller.clockSpeed</code> system property
+     *            to how many times as fast game time should pass, for example <code>60</code> for a minute of game
+     *            time per second.
+     *            <br>To play a whole day without the game's windows, and see how the trains ran, use
+     *            <code>HeadlessSimulator</code> instead.
      */
     public static void main(String args[]) {
+	String dataDirectory = System.getProperty(DATA_DIRECTORY_PROPERTY);
+	if (dataDirectory != null) {
+	    DataAccess.getInstance().setDataDirectory(Paths.get(dataDirectory));
+	}
 	try {
 	    UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 	} catch (Exception e) {
@@ -66,6 +66,11 @@ public class GameInfoPanel extends JPanel {
     
     private Dimension screenSize;
 
+    /**
+     * The distance of the farthest station from the home station, that is, the length of the section.
+     */
+    private int maxDistanceOfSection;
+
     public GameInfoPanel(Dimension screenSize, String username, String score, Game game) {
         this.userName = username;
         this.score = score;
@@ -79,7 +84,7 @@ public class GameInfoPanel extends JPanel {
                 .map(station -> station.getName())
                 .collect(Vector::new, Vector::add, Vector::addAll);
         int twentyFifthPercentOfHeight = screenSize.height * 25 / 100;
-        int maxDistanceOfSection = this.game.getStations().stream()
+        this.maxDistanceOfSection = this.game.getStations().stream()
                 .mapToInt(station -> station.getDistanceFromHome()).max().getAsInt();
         this.objStationPositions = this.game.getStations().stream()
                 .map(station -> new Point((station.getDistanceFromHome() * (screenSize.width - 25)) / maxDistanceOfSection, twentyFifthPercentOfHeight))
@@ -221,7 +226,7 @@ public class GameInfoPanel extends JPanel {
         Enumeration<Float> objEnumeration = objTrainPositions.get().elements();
         while (objEnumeration.hasMoreElements()) {
             float distance = objEnumeration.nextElement();
-            int x = new Float((distance * this.screenSize.width) / 86).intValue();
+            int x = new Float((distance * (this.screenSize.width - 25)) / this.maxDistanceOfSection).intValue();
             objGraphics.setColor(java.awt.Color.RED);
             objGraphics.drawLine(x, twentyFifthPercentOfHeight - 5, x, twentyFifthPercentOfHeight + 5);
         }
@@ -8,6 +8,10 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Point;
 import java.awt.Toolkit;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.BoxLayout;
@@ -102,8 +106,10 @@ public class GameScreen extends JFrame implements Runnable {
         this.objStationNames = game.getStations().stream()
                 .map(station -> station.getName())
                 .collect(Vector::new, Vector::add, Vector::addAll);
+        int maxDistanceOfSection = game.getStations().stream()
+                .mapToInt(station -> station.getDistanceFromHome()).max().getAsInt();
         this.objStationPositions = game.getStations().stream()
-                .map(station -> new Point((station.getDistanceFromHome() * 790) / 86, 200))
+                .map(station -> new Point((station.getDistanceFromHome() * 790) / maxDistanceOfSection, 200))
                 .collect(Vector::new, Vector::add, Vector::addAll);
         this.score = score;
         SignalAspect[] defaultAspects = new SignalAspect[]{SignalAspect.STOP, SignalAspect.STOP};
@@ -118,7 +124,7 @@ public class GameScreen extends JFrame implements Runnable {
         Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
         gameInfoPanel = new GameInfoPanel(screenSize, userName, score, game);
         stationsTab = new StationsTab(this.game);
-        new TimeWorker(gameInfoPanel, screenSize).execute();
+        new TimeWorker(gameInfoPanel, screenSize, game.getClock()).execute();
         new TrainPositionsWorker(gameInfoPanel, game, screenSize).execute();
         new StationAspectsWorker(gameInfoPanel, stationsTab, game, screenSize).execute();
     }
@@ -136,6 +142,22 @@ public class GameScreen extends JFrame implements Runnable {
         objBoldedFont = new Font("Arial", Font.BOLD, 12);
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            /**
+             * Saves the game to the checkpoint named in the <code>section_controller.checkpoint</code> system
+             * property, if it is set, so that the game can be resumed the next time it is started.
+             */
+            @Override
+            public void windowClosing(WindowEvent e) {
+                String checkpointFile = System.getProperty(Game.CHECKPOINT_PROPERTY);
+                if (checkpointFile == null) return;
+                try {
+                    game.checkpointTo(Paths.get(checkpointFile));
+                } catch (IOException ex) {
+                    System.out.println("Unable to save the game to " + checkpointFile + ": " + ex);
+                }
+            }
+        });
         setExtendedState(JFrame.MAXIMIZED_BOTH);
         setTitle("Section Controller");
         
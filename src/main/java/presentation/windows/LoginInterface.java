@@ -1,6 +1,7 @@
 package presentation.windows;
 
 import game_engine.Game;
+import game_engine.GameNotStartedException;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
@@ -8,8 +9,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.FileNotFoundException;
-import java.util.Enumeration;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Vector;
 
 import javax.swing.JButton;
@@ -20,9 +22,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 
-import org.w3c.dom.Element;
-
-import game_engine.data_access.DataAccess;
+import game_engine.data_access.UserStore;
 import javax.swing.SwingUtilities;
 
 /**
@@ -85,9 +85,9 @@ public class LoginInterface implements Runnable {
     GridBagConstraints objConstraints;
 
     /**
-     * A <code>Vector</code> that contains the user objects.
+     * The <code>UserStore</code> that holds the users and their scores.
      */
-    Vector<Element> objUsers;
+    UserStore objUsers;
 
     /**
      * Initializes the components of the login interface and displays them to
@@ -158,36 +158,39 @@ public class LoginInterface implements Runnable {
         objFrame.setTitle(objFrame.getTitle() + ": " + horizResolution + "x" + verticalResolution);
     }
 
+    /**
+     * Starts the game. If the <code>section_controller.checkpoint</code> system property names a checkpoint that has
+     * been saved, the game is resumed from it.
+     *
+     * @return the game
+     * @throws GameNotStartedException if there were some problems while starting the game
+     */
+    private Game startGame() throws GameNotStartedException {
+        String checkpointFile = System.getProperty(Game.CHECKPOINT_PROPERTY);
+        if (checkpointFile != null && Files.exists(Paths.get(checkpointFile)))
+            return Game.resume(Paths.get(checkpointFile));
+        return new Game();
+    }
+
     /**
      * The <code>LoginEvents</code> class handles the events that are related to
      * the login interface.
      */
     class LoginEvents extends WindowAdapter implements ActionListener {
 
-        private String USERS_FILE = String.join(java.io.File.separator, System.getProperty("user.home"), ".section_controller", "Users.xml");
+        private File USERS_FOLDER = new File(System.getProperty("user.home"), ".section_controller");
 
         /**
          * Handles the load event of this form. This method extracts the list of
-         * users from the Users.xml file and sets it to the list displayed in
+         * users from the user store and sets it to the list displayed in
          * the Login window.
          *
          * @param e The <code>WindowEvent</code> object.
          */
         public void windowOpened(WindowEvent e) {
             try {
-                // The values for the JList are in objUsers. But they are in the form of
-                // <code>Element</code> objects. Therefore, the usernames have to be extracted and
-                // populated into the list.
-                objUsers = DataAccess.getInstance().extractData(USERS_FILE, "user");
-                Enumeration<Element> objEnumeration = objUsers.elements();
-                Vector<String> objUserNames = new Vector<>();
-                while (objEnumeration.hasMoreElements()) {
-                    Element singleUser = objEnumeration.nextElement();
-                    objUserNames.add(singleUser.getAttribute("name"));
-                }
-                objList.setListData(objUserNames);
-            } catch (FileNotFoundException fnfe) {
-                DataAccess.getInstance().createMissingUsersFile(USERS_FILE);
+                objUsers = new UserStore(USERS_FOLDER);
+                objList.setListData(new Vector<>(objUsers.getUserNames()));
             } catch (Exception objException) {
                 javax.swing.JOptionPane.showMessageDialog(objFrame, objException.getMessage());
                 objException.printStackTrace();
@@ -205,10 +208,10 @@ public class LoginInterface implements Runnable {
          * greater than 10 characters. If yes, a message is displayed informing
          * the user that usernames are limited to 10 characters.</li>
          * <li>The user name specified is checked against the list of users in
-         * Users.xml to verify if the name already exists. If yes, a message is
+         * the user store to verify if the name already exists. If yes, a message is
          * displayed informing the user that the username already exists, and
          * asking the user to select another.</li>
-         * <li>The user name is added to Users.xml.
+         * <li>The user name is added to the user store.
          * </ul>
          * <li>If the user does not sign up, but selects an option from the list
          * of usernames, then the login screen will close and the user will now
@@ -225,20 +228,13 @@ public class LoginInterface implements Runnable {
                         javax.swing.JOptionPane.showMessageDialog(objFrame, "User name cannot exceed 10 characters.");
                         return;
                     }
-                    Vector<Element> existingUsersWithSameName = DataAccess.getInstance().extractData(USERS_FILE, "user[@name=" + newUserName + "]");
-                    if (existingUsersWithSameName.contains(newUserName)) {
+                    //If the user is added, proceed to the game screen. The user is not added if the name
+                    //already exists, possibly signed up from another game sharing the same home folder.
+                    if (!objUsers.addUser(newUserName, 100)) {
                         javax.swing.JOptionPane.showMessageDialog(objFrame, "User name specified already exists.");
                         return;
                     }
-                    String[] objAttributes = {"name", "score"};
-                    String[] objValues = {newUserName, "100"};
-                    //If the insert operation to add a new user is successful, proceed to the game screen,
-                    //otherwise throw an error message and return.
-                    if (!DataAccess.getInstance().insertData(USERS_FILE, "user", objAttributes, objValues)) {
-                        javax.swing.JOptionPane.showMessageDialog(objFrame, "Unable to add user.", "Error!!", javax.swing.JOptionPane.ERROR_MESSAGE);
-                        return;
-                    }
-                    Game game = new Game();
+                    Game game = startGame();
                     GameScreen gameScreen = new GameScreen(newUserName, game, "100");
                     SwingUtilities.invokeLater(gameScreen);
                 } else {
@@ -246,15 +242,8 @@ public class LoginInterface implements Runnable {
                         javax.swing.JOptionPane.showMessageDialog(objFrame, "Please select a username, or sign up.", "Error!!", javax.swing.JOptionPane.ERROR_MESSAGE);
                         return;
                     }
-                    String score = "0";
-                    Enumeration<Element> objEnumeration = objUsers.elements();
-                    while (objEnumeration.hasMoreElements()) {
-                        Element singleUser = objEnumeration.nextElement();
-                        if (singleUser.getAttribute("name").equals(objList.getSelectedValue().toString())) {
-                            score = singleUser.getAttribute("score");
-                        }
-                    }
-                    Game game = new Game();
+                    String score = String.valueOf(objUsers.getScore(objList.getSelectedValue()).orElse(0));
+                    Game game = startGame();
                     GameScreen gameScreen = new GameScreen(objList.getSelectedValue().toString(), game, score);
                     SwingUtilities.invokeLater(gameScreen);
                 }
@@ -51,6 +51,11 @@ public class StationsTab extends JPanel implements ActionListener, Runnable
 	 */
 	private List<StationDto> latestStationInformation;
 
+	/**
+	 * The ids of the stations listed in <code>objStations</code>, in the same order.
+	 */
+	private int[] stationIds;
+
 	public StationsTab(Game game) {
 		this.game = game;
 		SwingUtilities.invokeLater(this);
@@ -74,10 +79,12 @@ public class StationsTab extends JPanel implements ActionListener, Runnable
 	    objConstraints.weighty = 1.0;
 	    objLayout.setConstraints(objSelectStation, objConstraints);
 
-            String[] stationNames = this.game.getStations().stream()
+            List<StationDto> stations = this.game.getStations();
+            String[] stationNames = stations.stream()
                     .map(station -> station.getName())
                     .collect(Collectors.toList())
                     .toArray(new String[0]);
+            stationIds = stations.stream().mapToInt(StationDto::getId).toArray();
 	    objStations = new JComboBox<>(stationNames);
 		objStations.addActionListener(this);
 	    objConstraints.gridx = 1;
@@ -173,13 +180,13 @@ public class StationsTab extends JPanel implements ActionListener, Runnable
 	 */
 	public void actionPerformed(ActionEvent objActionEvent) {
 		if (objActionEvent.getSource() instanceof JButton) {
-			this.game.setStationAspect(objStations.getSelectedItem().toString(),
+			this.game.setStationAspect(stationIds[objStations.getSelectedIndex()],
 					(SignalAspect) aspectTowardsHomeStationValue.getSelectedItem(),
 					(SignalAspect) aspectTowardsAwayStationValue.getSelectedItem());
 		} else if (objActionEvent.getSource() instanceof JComboBox) {
-			String selectedStationName = ((JComboBox<String>) objActionEvent.getSource()).getSelectedItem().toString();
+			int selectedStationId = stationIds[((JComboBox<String>) objActionEvent.getSource()).getSelectedIndex()];
 			StationDto selectedStation = latestStationInformation.stream()
-					.filter(stationDto -> stationDto.getName().equals(selectedStationName)).findFirst().get();
+					.filter(stationDto -> stationDto.getId() == selectedStationId).findFirst().get();
 			aspectTowardsHomeStationValue.setSelectedItem(selectedStation.getAspects()[0]);
 			aspectTowardsAwayStationValue.setSelectedItem(selectedStation.getAspects()[1]);
 		}
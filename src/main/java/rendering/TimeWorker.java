@@ -4,13 +4,14 @@ import java.awt.Color;
 import java.awt.Dimension;
 import static java.lang.Thread.sleep;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.List;
 import javax.swing.SwingWorker;
 import presentation.windows.GameInfoPanel;
 
 /**
- * The <code>TimeWorker</code> class fetches the current time,
+ * The <code>TimeWorker</code> class fetches the current game time,
  * and updates the <code>GameScreen</code> instance.
  */
 public class TimeWorker extends SwingWorker<String, String> {
@@ -18,15 +19,21 @@ public class TimeWorker extends SwingWorker<String, String> {
     private GameInfoPanel gameInfoPanel;
     private Dimension screenSize;
 
-    public TimeWorker(GameInfoPanel gameInfoPanel, Dimension screenSize) {
+    /**
+     * The clock the game takes its time from.
+     */
+    private Clock gameClock;
+
+    public TimeWorker(GameInfoPanel gameInfoPanel, Dimension screenSize, Clock gameClock) {
         this.gameInfoPanel = gameInfoPanel;
         this.screenSize = screenSize;
+        this.gameClock = gameClock;
     }
 
     @Override
     protected String doInBackground() throws Exception {
         while(true) {
-            LocalDateTime currentTime = LocalDateTime.now();
+            LocalDateTime currentTime = LocalDateTime.now(this.gameClock);
             publish(String.format("%1$TH:%1$TM:%1$TS", currentTime));
             sleep(2000);
         }
@@ -1,6 +1,5 @@
 package rendering;
 
-import common.models.TrainDirection;
 import game_engine.Game;
 import game_engine.dto.TrainDto;
 import java.awt.Dimension;
@@ -14,10 +13,17 @@ import presentation.windows.GameInfoPanel;
 
 /**
  * The <code>TrainPositionsWorker</code> class fetches the latest position of each
- * train, and updates the <code>GameScreen</code> instance.
+ * train, and updates the <code>GameScreen</code> instance. It also raises an alarm
+ * whenever a block is found to have more than one train in it.
  */
 public class TrainPositionsWorker extends SwingWorker<List<Float>, List<Float>> {
 
+    /**
+     * The number of updates after which the time taken to move the trains is reported. The trains are fetched every 2
+     * seconds, so this is once a minute.
+     */
+    private static final int TICK_REPORT_INTERVAL = 30;
+
     private GameInfoPanel gameInfoPanel;
 
     private Game game;
@@ -32,22 +38,26 @@ public class TrainPositionsWorker extends SwingWorker<List<Float>, List<Float>>
 
     @Override
     protected List<Float> doInBackground() throws Exception {
+        int updatesSinceTickReport = 0;
+        List<String> alarmedBlocks = Collections.emptyList();
         while (true) {
             List<Float> objTrainPositions = new ArrayList<>();
             for(TrainDto individualTrain : game.getTrains()) {
-                float distance = individualTrain.getDistanceFromHome();
-                /*The following if condition is bcoz: Consider the train is moving towards
-				home. The distance calculated shall be the distance from starting station,
-				which shall be the 'away station' in our case. But while drawing, the
-				train shall be drawn only from home. So if the train is 16km from away,
-				then while drawing, it will be 16km from home. This is not what we want.
-				So we reverse it.*/
-                if (individualTrain.getDirection() == TrainDirection.TOWARDS_HOME) {
-                    distance = 86 - distance;
-                }
-                objTrainPositions.add(distance);
+                objTrainPositions.add(individualTrain.getDistanceFromHome());
             }
             publish(Collections.unmodifiableList(objTrainPositions));
+            List<String> overOccupiedBlocks = game.getOverOccupiedBlocks();
+            for (String block : overOccupiedBlocks) {
+                if (!alarmedBlocks.contains(block))
+                    System.out.printf("More than one train is in the block between %s%n", block);
+            }
+            alarmedBlocks = overOccupiedBlocks;
+            if (++updatesSinceTickReport == TICK_REPORT_INTERVAL) {
+                System.out.printf("Moved %1$d trains in %2$.3f ms (slowest in the last minute: %3$.3f ms)%n",
+                        objTrainPositions.size(), game.getLastTickDuration().toNanos() / 1e6,
+                        game.takeSlowestTickDuration().toNanos() / 1e6);
+                updatesSinceTickReport = 0;
+            }
             sleep(2000);
         }
     }
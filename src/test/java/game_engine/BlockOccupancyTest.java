@@ -0,0 +1,83 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockOccupancyTest {
+
+    private static List<Station> stationsEveryKilometre(int count) {
+        List<Station> stations = new ArrayList<>();
+        for (int id = 0; id < count; id++) stations.add(new Station("S" + id, "Station " + id, 2, id));
+        return stations;
+    }
+
+    @Test
+    public void shouldFindTheBlockBetweenTheStations() {
+        BlockOccupancy blockOccupancy = new BlockOccupancy(Arrays.asList(new Station("CAL", "Calicut", 3, 0),
+                new Station("KAL", "Kallayi", 2, 1), new Station("TIR", "Tirur", 3, 41),
+                new Station("SRR", "Shoranur Junction", 3, 86)));
+
+        assertEquals(3, blockOccupancy.getBlockCount());
+        assertEquals(0, blockOccupancy.blockAt(0.5f));
+        assertEquals(1, blockOccupancy.blockAt(1.01f));
+        assertEquals(1, blockOccupancy.blockAt(40.99f));
+        assertEquals(2, blockOccupancy.blockAt(60f));
+        //Trains at a station, or off the section, are in no block.
+        assertEquals(-1, blockOccupancy.blockAt(0f));
+        assertEquals(-1, blockOccupancy.blockAt(41f));
+        assertEquals(-1, blockOccupancy.blockAt(86f));
+        assertEquals(-1, blockOccupancy.blockAt(-10f));
+        assertEquals(-1, blockOccupancy.blockAt(96f));
+
+        assertEquals(2, blockOccupancy.blockAhead(2, TrainDirection.AWAY_FROM_HOME));
+        assertEquals(1, blockOccupancy.blockAhead(2, TrainDirection.TOWARDS_HOME));
+        assertEquals(-1, blockOccupancy.blockAhead(0, TrainDirection.TOWARDS_HOME));
+        assertEquals(-1, blockOccupancy.blockAhead(3, TrainDirection.AWAY_FROM_HOME));
+        assertArrayEquals(new Station[] {blockOccupancy.getStations(1)[0], blockOccupancy.getStations(2)[0]},
+                new Station[] {blockOccupancy.getStations(0)[1], blockOccupancy.getStations(1)[1]});
+    }
+
+    @Test
+    public void shouldRaiseAnAlarmWhenASecondTrainEntersABlock() {
+        BlockOccupancy blockOccupancy = new BlockOccupancy(stationsEveryKilometre(200));
+        assertEquals(199, blockOccupancy.getBlockCount());
+
+        assertFalse(blockOccupancy.move(-1, 130));
+        assertTrue(blockOccupancy.isOccupied(130));
+        assertFalse(blockOccupancy.isBlockAheadFree(130, TrainDirection.AWAY_FROM_HOME));
+        assertFalse(blockOccupancy.isBlockAheadFree(131, TrainDirection.TOWARDS_HOME));
+        assertTrue(blockOccupancy.isBlockAheadFree(130, TrainDirection.TOWARDS_HOME));
+        assertEquals(-1, blockOccupancy.nextOverOccupiedBlock(0));
+
+        assertTrue(blockOccupancy.move(-1, 130));
+        assertFalse(blockOccupancy.move(-1, 3));
+        assertTrue(blockOccupancy.move(-1, 3));
+        assertTrue(blockOccupancy.move(-1, 3));
+        assertEquals(3, blockOccupancy.getTrainCount(3));
+        assertEquals(3, blockOccupancy.nextOverOccupiedBlock(0));
+        assertEquals(130, blockOccupancy.nextOverOccupiedBlock(4));
+        assertEquals(-1, blockOccupancy.nextOverOccupiedBlock(131));
+
+        //One of the trains in block 130 moves on, and the one left there is alone.
+        assertFalse(blockOccupancy.move(130, 131));
+        assertFalse(blockOccupancy.isOverOccupied(130));
+        assertTrue(blockOccupancy.isOccupied(130));
+        assertFalse(blockOccupancy.move(130, -1));
+        assertFalse(blockOccupancy.isOccupied(130));
+        assertTrue(blockOccupancy.isOccupied(131));
+        assertEquals(3, blockOccupancy.nextOverOccupiedBlock(0));
+        assertEquals(-1, blockOccupancy.nextOverOccupiedBlock(4));
+    }
+
+    @Test
+    public void shouldRejectStationsOutOfOrder() {
+        List<Station> stations = Arrays.asList(new Station("TIR", "Tirur", 3, 41), new Station("CAL", "Calicut", 3, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BlockOccupancy(stations));
+    }
+}
@@ -0,0 +1,128 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainRunningStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Game startGame() throws GameNotStartedException {
+        //23:00 IST
+        Instant start = Instant.parse("2025-06-23T17:30:00Z");
+        GameClock gameClock = new GameClock(Clock.fixed(start, ZoneId.of("+05:30")), start);
+        gameClock.setUnthrottled(true);
+        return new Game(gameClock);
+    }
+
+    private static void playUntil(Game game, LocalDateTime end) throws InterruptedException {
+        while (LocalDateTime.now(game.getClock()).isBefore(end)) game.advanceToNextEvent();
+    }
+
+    private static String describe(Game game) {
+        Map<String, TrainRunningStatus> statuses = new TreeMap<>();
+        game.getRunningTrains().forEach(train ->
+                statuses.put(train.getNumber(), train.getTrainPosition().getTrainRunningStatus()));
+        StringBuilder state = new StringBuilder(game.getClock().instant().toString()).append('\n');
+        game.getTrains().forEach(train -> state.append(train.getName()).append(' ')
+                .append(train.getDistanceFromHome()).append(' ').append(train.getDirection()).append('\n'));
+        game.getStations().forEach(station -> state.append(station.getName()).append(' ')
+                .append(station.getAspects()[0]).append(' ').append(station.getAspects()[1]).append('\n'));
+        return state.append(statuses).toString();
+    }
+
+    private static String describeConflicts(Game game) {
+        StringBuilder conflicts = new StringBuilder();
+        game.getConflicts().forEach(conflict -> conflicts.append(conflict.getTrainName()).append(' ')
+                .append(conflict.getOtherTrainName()).append(' ').append(conflict.getCrossingType()).append(' ')
+                .append(conflict.getTime()).append(' ').append(conflict.getLocation()).append('\n'));
+        return conflicts.toString();
+    }
+
+    @Test
+    public void shouldResumeGameExactlyWhereItWasLeft() throws Exception {
+        Path checkpointFile = this.tempDir.resolve("game.checkpoint");
+        Game game = startGame();
+        Game resumedGame = null;
+        try {
+            //At 00:03, 16356 is halted at Tirur, and Tirur's signals have been changed.
+            game.setStationAspect("Tirur", SignalAspect.PROCEED, SignalAspect.STOP);
+            playUntil(game, LocalDateTime.of(2025, 6, 24, 0, 3));
+            game.checkpointTo(checkpointFile);
+
+            resumedGame = Game.resume(checkpointFile, Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneId.of("UTC")));
+            assertEquals(describe(game), describe(resumedGame));
+            assertTrue(((GameClock) resumedGame.getClock()).isUnthrottled());
+            assertEquals(ZoneId.of("+05:30"), resumedGame.getClock().getZone());
+
+            //Both games go on to run the same way, through 16356 leaving the section.
+            while (LocalDateTime.now(game.getClock()).isBefore(LocalDateTime.of(2025, 6, 24, 1, 30))) {
+                game.advanceToNextEvent();
+                resumedGame.advanceToNextEvent();
+                assertEquals(describe(game), describe(resumedGame));
+            }
+        } finally {
+            game.stop();
+            if (resumedGame != null) resumedGame.stop();
+        }
+
+        //The trains' lags are resumed too, so the same conflicts are predicted for a train that is running late.
+        Instant crossingStart = Instant.parse("2025-06-24T04:25:00Z");
+        GameClock crossingClock = new GameClock(Clock.fixed(crossingStart, ZoneId.of("+05:30")), crossingStart);
+        crossingClock.setUnthrottled(true);
+        Game crossingGame = new Game(crossingClock, Game.DEFAULT_LOOKAHEAD, "/data/CROSSING.xml");
+        Game resumedCrossingGame = null;
+        try {
+            playUntil(crossingGame, LocalDateTime.of(2025, 6, 24, 10, 5));
+            String conflictsOnTime = describeConflicts(crossingGame);
+            crossingGame.setTrainLag("90001", Duration.ofMinutes(30));
+            assertNotEquals(conflictsOnTime, describeConflicts(crossingGame));
+            crossingGame.checkpointTo(checkpointFile);
+
+            resumedCrossingGame = Game.resume(checkpointFile,
+                    Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneId.of("UTC")));
+            assertEquals(describe(crossingGame), describe(resumedCrossingGame));
+            assertEquals(describeConflicts(crossingGame), describeConflicts(resumedCrossingGame));
+        } finally {
+            crossingGame.stop();
+            if (resumedCrossingGame != null) resumedCrossingGame.stop();
+        }
+    }
+
+    @Test
+    public void shouldNotResumeFromCorruptCheckpoint() throws Exception {
+        Path checkpointFile = this.tempDir.resolve("game.checkpoint");
+        Game game = startGame();
+        try {
+            playUntil(game, LocalDateTime.of(2025, 6, 24, 0, 3));
+            game.checkpointTo(checkpointFile);
+        } finally {
+            game.stop();
+        }
+        try (FileChannel channel = FileChannel.open(checkpointFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        assertThrows(GameNotStartedException.class, () -> Game.resume(checkpointFile));
+
+        Path notACheckpoint = this.tempDir.resolve("not-a-checkpoint");
+        Files.write(notACheckpoint, "<section/>".getBytes());
+        assertThrows(GameNotStartedException.class, () -> Game.resume(notACheckpoint));
+    }
+}
@@ -0,0 +1,105 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import game_engine.initializers.TrainFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactTimetableTest {
+
+    private SectionRegistry sectionRegistry;
+
+    private Station calicut, kallayi, ferok, tirur, shoranur;
+
+    @BeforeEach
+    public void initializeSection() {
+        calicut = new Station("CAL", "Calicut", 3, 0);
+        kallayi = new Station("KAL", "Kallayi", 2, 1);
+        ferok = new Station("FER", "Ferok", 2, 9);
+        tirur = new Station("TIR", "Tirur", 2, 41);
+        shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        sectionRegistry = new SectionRegistry(Arrays.asList(calicut, kallayi, ferok, tirur, shoranur));
+    }
+
+    private Timetable overnightTimetable() {
+        LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+        List<Entry> stops = new ArrayList<>();
+        stops.add(new Entry(shoranur, Optional.of(new TrainSchedule(today.withHour(23).withMinute(15),
+                today.withHour(23).withMinute(20))), StopType.NORMAL_STATION));
+        stops.add(new Entry(tirur, Optional.of(new TrainSchedule(today.withMinute(5), today.withMinute(7))),
+                StopType.NORMAL_STATION));
+        stops.add(new Entry(calicut, Optional.of(new TrainSchedule(today.withHour(1).withMinute(20),
+                today.withHour(1).withMinute(20))), StopType.TERMINATING_STATION));
+        return new Timetable(new ArrayList<>(sectionRegistry.getStations()), stops, TrainDirection.TOWARDS_HOME);
+    }
+
+    @Test
+    public void shouldAnswerEveryQueryLikeTheTimetableItWasCreatedFrom() {
+        Timetable timetable = overnightTimetable();
+        CompactTimetable compactTimetable = new CompactTimetable(timetable, sectionRegistry.getStations());
+
+        assertEquals(timetable.getSectionEntryTime(), compactTimetable.getSectionEntryTime());
+        assertEquals(timetable.getSectionExitTime(), compactTimetable.getSectionExitTime());
+        for (LocalDateTime time = LocalDateTime.of(2025, 6, 23, 23, 0);
+             time.isBefore(LocalDateTime.of(2025, 6, 24, 2, 0)); time = time.plusSeconds(30)) {
+            assertEquals(timetable.getStationHaltedAt(time), compactTimetable.getStationHaltedAt(time), time.toString());
+            assertArrayEquals(timetable.getStationsTravellingBetween(time),
+                    compactTimetable.getStationsTravellingBetween(time), time.toString());
+        }
+        for (Station station : sectionRegistry.getStations())
+            assertEquals(timetable.getSchedule(station), compactTimetable.getSchedule(station));
+        assertEquals(timetable.getSchedule(new Station("TIR", "", 0, 0)),
+                compactTimetable.getSchedule(new Station("TIR", "", 0, 0)));
+        assertEquals(Optional.empty(), compactTimetable.getSchedule(new Station("XYZ", "", 0, 0)));
+        assertEquals(timetable.getUpcomingStops(40), compactTimetable.getUpcomingStops(40));
+        assertEquals(Arrays.asList(ferok, kallayi, calicut), compactTimetable.getUpcomingStops(9));
+    }
+
+    @Test
+    public void shouldCompareStopsWithEitherKindOfTimetable() throws GameNotStartedException {
+        Timetable timetable = overnightTimetable();
+        CompactTimetable compactTimetable = new CompactTimetable(timetable, sectionRegistry.getStations());
+        assertTrue(compactTimetable.hasSameStops(timetable));
+        assertTrue(timetable.hasSameStops(compactTimetable));
+        assertTrue(compactTimetable.hasSameStops(new CompactTimetable(overnightTimetable(), sectionRegistry.getStations())));
+
+        Timetable changedTimetable = overnightTimetable();
+        changedTimetable.update(ferok, LocalDateTime.of(2025, 6, 24, 0, 50), LocalDateTime.of(2025, 6, 24, 0, 51),
+                false, false);
+        assertFalse(compactTimetable.hasSameStops(changedTimetable));
+        assertFalse(changedTimetable.hasSameStops(compactTimetable));
+    }
+
+    @Test
+    public void shouldRejectStationsThatAreNotOnTheSection() {
+        List<Station> stationsOnAnotherSection = Arrays.asList(calicut, kallayi);
+        assertThrows(IllegalArgumentException.class,
+                () -> new CompactTimetable(overnightTimetable(), stationsOnAnotherSection));
+    }
+
+    @Test
+    public void shouldCreateTrainsWithCompactTimetablesForRegisteredStations() throws Exception {
+        //18:40 IST
+        Clock clock = Clock.fixed(Instant.parse("2025-06-23T13:10:00Z"), ZoneId.of("Asia/Kolkata"));
+        Train compactTrain = new TrainFactory(true).createWithMockTime("616", "Calicut Shoranur Passenger",
+                "AwayFromHome", sectionRegistry.getStations(), clock);
+        Train train = new TrainFactory(false).createWithMockTime("616", "Calicut Shoranur Passenger",
+                "AwayFromHome", sectionRegistry.getStations(), clock);
+
+        assertTrue(compactTrain.getTimetable() instanceof CompactTimetable);
+        assertTrue(train.getTimetable() instanceof Timetable);
+        assertTrue(compactTrain.getTimetable().hasSameStops(train.getTimetable()));
+        assertEquals(train.getTrainPosition().getDistanceFromHome(),
+                compactTrain.getTrainPosition().getDistanceFromHome());
+        assertEquals(train.getTrainPosition().getTrainRunningStatus(),
+                compactTrain.getTrainPosition().getTrainRunningStatus());
+    }
+}
@@ -0,0 +1,131 @@
+package game_engine;
+
+import common.models.CrossingType;
+import common.models.TrainDirection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConflictDetectorTest {
+
+    private List<Station> stationsOnSection;
+
+    private Station calicut, kallayi, ferok, tirur, shoranur;
+
+    private ConflictDetector conflictDetector;
+
+    private final LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+
+    @BeforeEach
+    public void initializeSection() {
+        calicut = new Station("CAL", "Calicut", 3, 0);
+        //Kallayi has no loop track.
+        kallayi = new Station("KAL", "Kallayi", 1, 1);
+        ferok = new Station("FER", "Ferok", 2, 9);
+        tirur = new Station("TIR", "Tirur", 2, 41);
+        shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        stationsOnSection = new SectionRegistry(Arrays.asList(calicut, kallayi, ferok, tirur, shoranur)).getStations();
+        conflictDetector = new ConflictDetector(stationsOnSection);
+    }
+
+    private Timetable awayFromHomeStoppingAtFerok() throws GameNotStartedException {
+        return new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(calicut, today.withHour(10), today.withHour(10), false, false)
+                .addStop(ferok, today.withHour(10).withMinute(20), today.withHour(10).withMinute(30), false, false)
+                .addStop(shoranur, today.withHour(11).withMinute(30), today.withHour(11).withMinute(30), false, false)
+                .build();
+    }
+
+    private Timetable towardsHomeStoppingAtFerok() throws GameNotStartedException {
+        return new TimetableBuilder(stationsOnSection, TrainDirection.TOWARDS_HOME)
+                .addStop(shoranur, today.withHour(10), today.withHour(10), false, false)
+                .addStop(ferok, today.withHour(10).withMinute(25), today.withHour(10).withMinute(27), false, false)
+                .addStop(calicut, today.withHour(10).withMinute(45), today.withHour(10).withMinute(45), false, false)
+                .build();
+    }
+
+    @Test
+    public void shouldPredictAMeetAtAStationWithAFreeLoop() throws GameNotStartedException {
+        conflictDetector.put("A", awayFromHomeStoppingAtFerok());
+        conflictDetector.put("B", towardsHomeStoppingAtFerok());
+
+        List<ConflictDetector.Crossing> crossings = conflictDetector.getCrossings();
+        assertEquals(1, crossings.size());
+        assertEquals(CrossingType.MEET, crossings.get(0).getCrossingType());
+        assertEquals("A", crossings.get(0).getTrainNumber());
+        assertEquals("B", crossings.get(0).getOtherTrainNumber());
+        assertEquals(today.withHour(10).withMinute(25), crossings.get(0).getTime());
+        assertEquals(Optional.of(ferok), crossings.get(0).getStation());
+        assertTrue(conflictDetector.getConflicts().isEmpty());
+    }
+
+    @Test
+    public void shouldFlagAMeetBetweenStations() throws GameNotStartedException {
+        conflictDetector.put("A", awayFromHomeStoppingAtFerok());
+        conflictDetector.put("C", new TimetableBuilder(stationsOnSection, TrainDirection.TOWARDS_HOME)
+                .addStop(shoranur, today.withHour(10), today.withHour(10), false, false)
+                .addStop(calicut, today.withHour(11), today.withHour(11), false, false)
+                .build());
+
+        List<ConflictDetector.Crossing> conflicts = conflictDetector.getConflicts();
+        assertEquals(1, conflicts.size());
+        assertEquals(today.withHour(10).withMinute(42).withSecond(30), conflicts.get(0).getTime().withNano(0));
+        assertEquals(Optional.empty(), conflicts.get(0).getStation());
+        assertArrayEquals(new Optional[] {Optional.of(ferok), Optional.of(tirur)}, conflicts.get(0).getStationsBetween());
+    }
+
+    @Test
+    public void shouldFlagAnOvertakeAtAStationWithoutALoop() throws GameNotStartedException {
+        conflictDetector.put("E", new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(calicut, today.withHour(10), today.withHour(10), false, false)
+                .addStop(kallayi, today.withHour(10).withMinute(10), today.withHour(10).withMinute(30), false, false)
+                .addStop(ferok, today.withHour(10).withMinute(50), today.withHour(10).withMinute(50), false, false)
+                .build());
+        conflictDetector.put("D", new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(calicut, today.withHour(10).withMinute(15), today.withHour(10).withMinute(15), false, false)
+                .addStop(ferok, today.withHour(10).withMinute(35), today.withHour(10).withMinute(35), false, false)
+                .build());
+
+        List<ConflictDetector.Crossing> conflicts = conflictDetector.getConflicts();
+        assertEquals(1, conflicts.size());
+        assertEquals(CrossingType.OVERTAKE, conflicts.get(0).getCrossingType());
+        assertEquals("D", conflicts.get(0).getTrainNumber());
+        assertEquals("E", conflicts.get(0).getOtherTrainNumber());
+        assertEquals(Optional.of(kallayi), conflicts.get(0).getStation());
+    }
+
+    @Test
+    public void shouldOnlyWorkOutTheCrossingsOfATrainThatRunsLateAgain() throws GameNotStartedException {
+        conflictDetector.put("A", awayFromHomeStoppingAtFerok());
+        conflictDetector.put("B", towardsHomeStoppingAtFerok());
+        conflictDetector.put("C", new TimetableBuilder(stationsOnSection, TrainDirection.TOWARDS_HOME)
+                .addStop(shoranur, today.withHour(10), today.withHour(10), false, false)
+                .addStop(calicut, today.withHour(11), today.withHour(11), false, false)
+                .build());
+        assertEquals(1, conflictDetector.getConflicts().size());
+
+        //B now reaches Ferok after A has left, so they meet between Ferok and Tirur. B also overtakes C on the way.
+        conflictDetector.setLag("B", Duration.ofMinutes(10));
+        List<ConflictDetector.Crossing> conflicts = conflictDetector.getConflicts();
+        assertEquals(3, conflicts.size());
+        assertEquals(CrossingType.OVERTAKE, conflicts.get(0).getCrossingType());
+        assertEquals("B", conflicts.get(0).getTrainNumber());
+        assertEquals("C", conflicts.get(0).getOtherTrainNumber());
+        assertArrayEquals(new Optional[] {Optional.of(tirur), Optional.of(shoranur)}, conflicts.get(0).getStationsBetween());
+        assertEquals(CrossingType.MEET, conflicts.get(1).getCrossingType());
+        assertEquals("B", conflicts.get(1).getOtherTrainNumber());
+        assertArrayEquals(new Optional[] {Optional.of(ferok), Optional.of(tirur)}, conflicts.get(1).getStationsBetween());
+        assertEquals("C", conflicts.get(2).getOtherTrainNumber());
+
+        conflictDetector.setLag("B", Duration.ZERO);
+        assertEquals(1, conflictDetector.getConflicts().size());
+        conflictDetector.remove("C");
+        assertEquals(1, conflictDetector.getCrossings().size());
+        assertThrows(NoSuchElementException.class, () -> conflictDetector.setLag("C", Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,55 @@
+package game_engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DaySimulatorTest {
+
+    private final LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+
+    @Test
+    public void shouldRecordTheStopsOfAnOvernightTrain() throws GameNotStartedException, InterruptedException {
+        DaySimulator.Result result = new DaySimulator(ZoneId.of("+05:30")).simulate(today.toLocalDate());
+
+        //Trains are checked for every 30 seconds of game time, and every stop falls on one of those checks.
+        assertEquals(24 * 60 * 2, result.getEventCount());
+        List<DaySimulator.StopRecord> stops = result.getStopRecords().stream()
+                .filter(stopRecord -> stopRecord.getTrainNumber().equals("16356"))
+                .collect(Collectors.toList());
+        assertEquals(4, stops.size());
+
+        //The train is already at Tirur at midnight, so only its departure is seen.
+        assertEquals("TIR", stops.get(0).getStationCode());
+        assertEquals(Optional.empty(), stops.get(0).getActualArrivalTime());
+        assertEquals(Optional.of(today.withMinute(5)), stops.get(0).getActualDepartureTime());
+        assertEquals(Optional.of(stops.get(0).getSchedule().getDepartureTime()), stops.get(0).getActualDepartureTime());
+        //The train leaves the section as it arrives at Shoranur.
+        assertEquals("SRR", stops.get(1).getStationCode());
+        assertEquals(Optional.of(stops.get(1).getSchedule().getArrivalTime()), stops.get(1).getActualArrivalTime());
+        assertEquals(Optional.empty(), stops.get(1).getActualDepartureTime());
+        //The train enters the section at Calicut in the evening, and is still at Tirur when the day ends.
+        assertEquals("CAL", stops.get(2).getStationCode());
+        assertEquals(Optional.empty(), stops.get(2).getActualArrivalTime());
+        assertEquals(Optional.of(today.withHour(23).withMinute(20)), stops.get(2).getActualDepartureTime());
+        assertEquals("TIR", stops.get(3).getStationCode());
+        assertEquals(Optional.of(today.withHour(23).withMinute(59)), stops.get(3).getActualArrivalTime());
+        assertEquals(Optional.empty(), stops.get(3).getActualDepartureTime());
+        assertFalse(stops.stream().anyMatch(DaySimulator.StopRecord::isHeld));
+
+        long holds = result.getStopRecords().stream().filter(DaySimulator.StopRecord::isHeld).count();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        result.write(new PrintStream(output, true));
+        assertTrue(output.toString().contains("Departures into an occupied block: " + holds));
+        assertFalse(output.toString().contains("Lag"));
+    }
+}
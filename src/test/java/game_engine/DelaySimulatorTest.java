@@ -0,0 +1,84 @@
+package game_engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DelaySimulatorTest {
+
+    private static final String CROSSING = "/data/CROSSING.xml";
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 23);
+
+    private static final DelaySimulator.DelayModel NO_DELAYS =
+            new DelaySimulator.DelayModel(0, Duration.ZERO, 0, Duration.ZERO);
+
+    private static final DelaySimulator.DelayModel DELAYS =
+            new DelaySimulator.DelayModel(0.5, Duration.ofMinutes(20), 0.3, Duration.ofMinutes(3));
+
+    @Test
+    public void shouldRunTrainsOnTimeIfNothingDelaysThem() throws GameNotStartedException, InterruptedException {
+        DelaySimulator.Result result = new DelaySimulator(CROSSING, ZoneId.of("+05:30"), NO_DELAYS, 2)
+                .simulate(DAY, 100, 1);
+
+        assertEquals(100, result.getRuns());
+        assertEquals(2, result.getTrainLags().size());
+        for (DelaySimulator.LagDistribution lags : result.getTrainLags().values()) {
+            assertEquals(100, lags.getCount());
+            assertEquals(100, lags.getCount(0));
+            assertEquals(1.0, lags.getOnTimeShare());
+        }
+        //Both trains stop at Calicut, Tirur and Shoranur, and at none of the other stations.
+        assertEquals(200, result.getStationLags().get("TIR").getCount());
+        assertEquals(0, result.getStationLags().get("FER").getCount());
+    }
+
+    @Test
+    public void shouldHoldUpTrainThatCrossesALateTrain() throws GameNotStartedException, InterruptedException {
+        //Only 90001 runs late, entering the section 30 minutes behind time.
+        DelaySimulator.DelayModel lateUpTrain = NO_DELAYS.withEntryDelay("90001", Duration.ofMinutes(30));
+        DelaySimulator.Result result = new DelaySimulator(CROSSING, ZoneId.of("+05:30"), lateUpTrain, 1)
+                .simulate(DAY, 10, 1);
+
+        //90001 gets to Tirur at 11:10, and 90002 can only leave Tirur for Calicut then, instead of at 10:45.
+        assertEquals(10, result.getTrainLags().get("90001").getCount(30));
+        assertEquals(10, result.getTrainLags().get("90002").getCount(25));
+        Map<String, DelaySimulator.LagDistribution> stationLags = result.getStationLags();
+        assertEquals(10, stationLags.get("CAL").getCount(25));
+        assertEquals(10, stationLags.get("CAL").getCount(30));
+        assertEquals(10, stationLags.get("SRR").getCount(0));
+        assertEquals(10, stationLags.get("SRR").getCount(30));
+    }
+
+    @Test
+    public void shouldGiveTheSameResultsWhateverTheNumberOfThreads() throws GameNotStartedException,
+            InterruptedException {
+        DelaySimulator.Result oneThread = new DelaySimulator(CROSSING, ZoneId.of("+05:30"), DELAYS, 1)
+                .simulate(DAY, 2000, 42);
+        DelaySimulator.Result fourThreads = new DelaySimulator(CROSSING, ZoneId.of("+05:30"), DELAYS, 4)
+                .simulate(DAY, 2000, 42);
+
+        ByteArrayOutputStream oneThreadOutput = new ByteArrayOutputStream();
+        ByteArrayOutputStream fourThreadsOutput = new ByteArrayOutputStream();
+        oneThread.write(new PrintStream(oneThreadOutput));
+        fourThreads.write(new PrintStream(fourThreadsOutput));
+        //The last line has the time taken, which differs.
+        String oneThreadLags = oneThreadOutput.toString().substring(0, oneThreadOutput.toString().lastIndexOf("Played"));
+        String fourThreadsLags = fourThreadsOutput.toString().substring(0, fourThreadsOutput.toString().lastIndexOf("Played"));
+        assertEquals(oneThreadLags, fourThreadsLags);
+
+        DelaySimulator.LagDistribution lags = fourThreads.getTrainLags().get("90002");
+        assertEquals(2000, lags.getCount());
+        assertTrue(lags.getOnTimeShare() > 0 && lags.getOnTimeShare() < 1);
+        assertTrue(lags.getPercentile(0.5) <= lags.getPercentile(0.9));
+        assertTrue(lags.getPercentile(0.9) <= lags.getPercentile(0.99));
+        assertTrue(lags.getMean() > 0);
+    }
+}
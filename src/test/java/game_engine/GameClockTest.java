@@ -0,0 +1,88 @@
+package game_engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameClockTest {
+
+    /**
+     * The clock real time is taken from, which is moved on by the test.
+     */
+    private GameClock realClock;
+
+    private GameClock gameClock;
+
+    private final Instant start = Instant.parse("2025-06-23T06:00:00Z");
+
+    @BeforeEach
+    public void createClock() {
+        realClock = GameClock.unthrottled(Instant.parse("2025-06-23T10:00:00Z"), ZoneOffset.UTC);
+        gameClock = new GameClock(realClock, start);
+    }
+
+    private void advanceRealTime(Duration duration) {
+        realClock.advanceTo(realClock.instant().plus(duration));
+    }
+
+    @Test
+    public void shouldRunInRealTimeByDefault() {
+        advanceRealTime(Duration.ofSeconds(30));
+        assertEquals(start.plusSeconds(30), gameClock.instant());
+        assertEquals(LocalDateTime.of(2025, 6, 23, 6, 0, 30), LocalDateTime.now(gameClock));
+    }
+
+    @Test
+    public void shouldRunFasterThanRealTime() {
+        gameClock.setSpeed(60);
+        advanceRealTime(Duration.ofSeconds(30));
+        assertEquals(start.plus(Duration.ofMinutes(30)), gameClock.instant());
+
+        gameClock.setSpeed(3600);
+        advanceRealTime(Duration.ofSeconds(2));
+        assertEquals(start.plus(Duration.ofMinutes(150)), gameClock.instant());
+        assertEquals(Duration.ofMillis(500), gameClock.toRealTime(Duration.ofMinutes(30)));
+        assertThrows(IllegalArgumentException.class, () -> gameClock.setSpeed(0));
+    }
+
+    @Test
+    public void shouldNotPassTimeWhilePaused() {
+        gameClock.setSpeed(10);
+        advanceRealTime(Duration.ofSeconds(1));
+        gameClock.pause();
+        advanceRealTime(Duration.ofMinutes(5));
+        assertTrue(gameClock.isPaused());
+        assertEquals(start.plusSeconds(10), gameClock.instant());
+
+        gameClock.resume();
+        advanceRealTime(Duration.ofSeconds(1));
+        assertEquals(start.plusSeconds(20), gameClock.instant());
+    }
+
+    @Test
+    public void shouldOnlyMoveOnWhenAskedToWhileUnthrottled() {
+        gameClock.setUnthrottled(true);
+        advanceRealTime(Duration.ofMinutes(5));
+        assertEquals(start, gameClock.instant());
+
+        gameClock.advanceTo(start.plus(Duration.ofHours(3)));
+        assertEquals(start.plus(Duration.ofHours(3)), gameClock.instant());
+        assertThrows(IllegalArgumentException.class, () -> gameClock.advanceTo(start));
+
+        gameClock.setUnthrottled(false);
+        advanceRealTime(Duration.ofSeconds(1));
+        assertEquals(start.plus(Duration.ofHours(3)).plusSeconds(1), gameClock.instant());
+    }
+
+    @Test
+    public void shouldGiveTheSameGameTimeInAnotherZone() {
+        Clock indianClock = gameClock.withZone(ZoneId.of("+05:30"));
+        gameClock.setSpeed(60);
+        advanceRealTime(Duration.ofSeconds(1));
+        assertEquals(gameClock.instant(), indianClock.instant());
+        assertEquals(LocalDateTime.of(2025, 6, 23, 11, 31), LocalDateTime.now(indianClock));
+    }
+}
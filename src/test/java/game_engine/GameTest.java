@@ -4,14 +4,16 @@ import common.models.SignalAspect;
 import common.models.TrainDirection;
 import game_engine.dto.StationDto;
 import game_engine.dto.TrainDto;
-import game_engine.runners.TrainRunner;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collections;
+import java.util.NoSuchElementException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -38,6 +40,41 @@ public class GameTest {
         assertEquals(1, game.getTrains().size());
     }
     
+    @Test
+    public void shouldSetTheLagOfATrainOnTheSection() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        String mockClockString = String.format("%1$04d-%2$02d-%3$02dT13:10:00Z",
+                now.getYear(), now.getMonthValue(), now.getDayOfMonth());
+        Clock mockClock = Clock.fixed(Instant.parse(mockClockString), ZoneId.of("+05:30"));
+
+        Game game = new Game(mockClock);
+        try {
+            Train train = game.getRunningTrains().get(0);
+            game.setTrainLag(train.getNumber(), Duration.ofMinutes(10));
+            assertEquals(600, train.getLag());
+            assertThrows(NoSuchElementException.class, () -> game.setTrainLag("no-such-train", Duration.ZERO));
+        } finally {
+            game.stop();
+        }
+    }
+
+    @Test
+    public void shouldRaiseNoBlockAlarmWithOneTrainOnTheSection() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        String mockClockString = String.format("%1$04d-%2$02d-%3$02dT13:10:00Z",
+                now.getYear(), now.getMonthValue(), now.getDayOfMonth());
+        Clock mockClock = Clock.fixed(Instant.parse(mockClockString), ZoneId.of("+05:30"));
+
+        Game game = new Game(mockClock);
+        try {
+            assertEquals(1, game.getRunningTrains().size());
+            assertEquals(Collections.emptyList(), game.getOverOccupiedBlocks());
+            assertThrows(UnsupportedOperationException.class, () -> game.getOverOccupiedBlocks().add("CAL - KAL"));
+        } finally {
+            game.stop();
+        }
+    }
+
     @Test
     public void shouldExposeStationDataAsImmutableCollection() throws Exception {
         Game game = new Game();
@@ -77,9 +114,8 @@ public class GameTest {
             Clock mockTime = Clock.fixed(Instant.parse("2025-06-23T12:35:00Z"), ZoneId.of("+05:30"));
             Game game = new Game(mockTime);
 
-            //Only 1 train is available at this point in time - so only 1 call is made to the executor.
-            verify(mockExecutorService).scheduleWithFixedDelay(
-                    any(TrainRunner.class), eq(2L), eq(2L), eq(TimeUnit.SECONDS));
+            //All the trains are moved by a single task, every 2 seconds - so only 1 such call is made to the executor.
+            verify(mockExecutorService).schedule(any(Runnable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
         }
     }
 }
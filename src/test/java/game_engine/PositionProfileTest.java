@@ -0,0 +1,75 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionProfileTest {
+
+    private List<Station> stationsOnSection;
+
+    private Station calicut, tirur, shoranur;
+
+    private final LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+
+    @BeforeEach
+    public void initializeSection() {
+        calicut = new Station("CAL", "Calicut", 3, 0);
+        tirur = new Station("TIR", "Tirur", 2, 41);
+        shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        stationsOnSection = Collections.unmodifiableList(Arrays.asList(calicut, tirur, shoranur));
+        for (int id = 0; id < stationsOnSection.size(); id++)
+            stationsOnSection.get(id).assignId(id);
+    }
+
+    private Timetable buildTimetable(TrainDirection direction) throws GameNotStartedException {
+        return new TimetableBuilder(stationsOnSection, direction)
+                .addStop(calicut, today.withHour(10).withMinute(30), today.withHour(10).withMinute(35), false, false)
+                .addStop(tirur, today.withHour(11).withMinute(20), today.withHour(11).withMinute(21), false, false)
+                .addStop(shoranur, today.withHour(11).withMinute(30), today.withHour(11).withMinute(35), false, false)
+                .build();
+    }
+
+    @Test
+    public void shouldStayAtTheStationBetweenArrivalAndDeparture() throws GameNotStartedException {
+        Timetable timetable = buildTimetable(TrainDirection.AWAY_FROM_HOME);
+        assertEquals(0f, timetable.positionAt(today.withHour(10).withMinute(32)));
+        assertEquals(41f, timetable.positionAt(today.withHour(11).withMinute(20)));
+        assertEquals(41f, timetable.positionAt(today.withHour(11).withMinute(21)));
+    }
+
+    @Test
+    public void shouldRunAtASteadySpeedBetweenStops() throws GameNotStartedException {
+        Timetable timetable = buildTimetable(TrainDirection.AWAY_FROM_HOME);
+        assertEquals(41 / 0.75f * (5 / 60f), timetable.positionAt(today.withHour(10).withMinute(40)));
+        assertEquals(41 + 45 / (9 / 60f) * (4.5f / 60), timetable.positionAt(today.withHour(11).withMinute(25).withSecond(30)),
+                0.0001f);
+    }
+
+    @Test
+    public void shouldRunAtSixtyKmphBeyondTheSection() throws GameNotStartedException {
+        Timetable awayFromHome = buildTimetable(TrainDirection.AWAY_FROM_HOME);
+        assertEquals(-10f, awayFromHome.positionAt(today.withHour(10).withMinute(20)));
+        assertEquals(96f, awayFromHome.positionAt(today.withHour(11).withMinute(45)));
+
+        Timetable towardsHome = new TimetableBuilder(stationsOnSection, TrainDirection.TOWARDS_HOME)
+                .addStop(shoranur, today.withHour(10), today.withHour(10).withMinute(5), false, false)
+                .addStop(calicut, today.withHour(11), today.withHour(11).withMinute(5), false, false)
+                .build();
+        assertEquals(96f, towardsHome.positionAt(today.withHour(9).withMinute(50)));
+        assertEquals(-10f, towardsHome.positionAt(today.withHour(11).withMinute(15)));
+    }
+
+    @Test
+    public void shouldGiveTheSamePositionsForACompactTimetable() throws GameNotStartedException {
+        Timetable timetable = buildTimetable(TrainDirection.AWAY_FROM_HOME);
+        CompactTimetable compactTimetable = new CompactTimetable(timetable, stationsOnSection);
+        for (LocalDateTime time = today.withHour(10); time.isBefore(today.withHour(12)); time = time.plusSeconds(45))
+            assertEquals(timetable.positionAt(time), compactTimetable.positionAt(time), time.toString());
+    }
+}
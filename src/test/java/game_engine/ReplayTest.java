@@ -0,0 +1,130 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainRunningStatus;
+import game_engine.dto.StationDto;
+import game_engine.dto.TrainDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Plays the game from 23:00 to 01:30, through the entry and exit of 16356, recording it, and returns the state of
+     * the game after each move.
+     */
+    private Map<Instant, String> playAndRecord(Path logFile) throws GameNotStartedException, InterruptedException,
+            IOException {
+        //23:00 IST
+        Instant start = Instant.parse("2025-06-23T17:30:00Z");
+        GameClock gameClock = new GameClock(Clock.fixed(start, ZoneId.of("+05:30")), start);
+        gameClock.setUnthrottled(true);
+        Game game = new Game(gameClock);
+        Map<Instant, String> states = new LinkedHashMap<>();
+        try {
+            game.recordTo(logFile);
+            LocalDateTime end = LocalDateTime.of(2025, 6, 24, 1, 30);
+            while (LocalDateTime.now(gameClock).isBefore(end)) {
+                LocalDateTime currentTime = game.advanceToNextEvent();
+                if (currentTime.getHour() == 0 && currentTime.getMinute() == 0 && currentTime.getSecond() == 0)
+                    game.setStationAspect("Tirur", SignalAspect.PROCEED, SignalAspect.STOP);
+                states.put(gameClock.instant(), describe(game.getTrains(), game.getStations(), game.getRunningTrains()
+                        .stream().collect(Collectors.toMap(Train::getNumber,
+                                train -> train.getTrainPosition().getTrainRunningStatus()))));
+            }
+        } finally {
+            game.stop();
+        }
+        return states;
+    }
+
+    private static String describe(List<TrainDto> trains, List<StationDto> stations,
+                                   Map<String, TrainRunningStatus> statuses) {
+        StringBuilder state = new StringBuilder();
+        trains.forEach(train -> state.append(train.getName()).append(' ').append(train.getDistanceFromHome())
+                .append(' ').append(train.getDirection()).append('\n'));
+        stations.forEach(station -> state.append(station.getName()).append(' ')
+                .append(Arrays.toString(station.getAspects())).append('\n'));
+        state.append(new TreeMap<>(statuses));
+        return state.toString();
+    }
+
+    private static String describe(Replay replay, Collection<String> trainNumbers) {
+        Map<String, TrainRunningStatus> statuses = new HashMap<>();
+        trainNumbers.forEach(number -> replay.getTrainRunningStatus(number)
+                .ifPresent(status -> statuses.put(number, status)));
+        return describe(replay.getTrains(), replay.getStations(), statuses);
+    }
+
+    @Test
+    public void shouldRebuildTheStateOfTheGameAtAnyTime() throws Exception {
+        Path logFile = this.tempDir.resolve("game.log");
+        Map<Instant, String> states = playAndRecord(logFile);
+        List<String> trainNumbers = Arrays.asList("2653", "616", "16356");
+
+        try (Replay replay = new Replay(logFile)) {
+            //A keyframe every 10 minutes of the two and a half hours, and one at the start.
+            assertEquals(16, replay.getKeyframeCount());
+            assertEquals(Instant.parse("2025-06-23T17:30:00Z"), replay.getStartTime());
+            assertTrue(replay.getTrains().isEmpty());
+
+            //Played back from start to end, the state is as it was after every move.
+            for (Map.Entry<Instant, String> state : states.entrySet()) {
+                replay.advanceTo(state.getKey());
+                assertEquals(state.getValue(), describe(replay, trainNumbers), "at " + state.getKey());
+            }
+            assertFalse(replay.next());
+
+            //Seeking goes back to the nearest keyframe, so it does not matter where the game has been played back to.
+            List<Instant> times = new ArrayList<>(states.keySet());
+            Collections.shuffle(times, new Random(7));
+            for (Instant time : times.subList(0, 50)) {
+                replay.seek(time);
+                assertEquals(states.get(time), describe(replay, trainNumbers), "at " + time);
+            }
+        }
+    }
+
+    @Test
+    public void shouldPlayBackLogThatEndsPartWayThroughARecord() throws Exception {
+        Path logFile = this.tempDir.resolve("game.log");
+        Map<Instant, String> states = playAndRecord(logFile);
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (Replay replay = new Replay(logFile)) {
+            //The game is played back up to the last move that was recorded in full.
+            Instant lastTime = states.keySet().stream()
+                    .filter(time -> !time.isAfter(replay.getEndTime()))
+                    .reduce((time, laterTime) -> laterTime).get();
+            assertTrue(replay.getEndTime().isBefore(Instant.parse("2025-06-23T20:00:00Z")));
+            replay.seek(lastTime);
+            assertEquals(states.get(lastTime), describe(replay, Arrays.asList("2653", "616", "16356")));
+        }
+    }
+
+    @Test
+    public void shouldNotOpenFileThatIsNotAReplayLog() throws IOException {
+        Path notALog = this.tempDir.resolve("not-a-log");
+        Files.write(notALog, "<section/>".getBytes());
+        assertThrows(IOException.class, () -> new Replay(notALog));
+    }
+}
@@ -0,0 +1,96 @@
+package game_engine;
+
+import game_engine.dto.TrainDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SectionNetworkTest {
+
+    private static final String CAL_SRR = "/data/CAL-SRR.xml";
+
+    private static final String SRR_TCR = "/data/SRR-TCR.xml";
+
+    private static final String CAL_SRR_EARLY_EXIT = "/data/CAL-SRR-EARLY-EXIT.xml";
+
+    private static final ZoneId IST = ZoneId.of("+05:30");
+
+    @Test
+    public void shouldHandOverTrainToTheSectionItRunsOnNext() throws GameNotStartedException {
+        //01:00 IST
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T19:30:00Z"), IST);
+        SectionNetwork network = new SectionNetwork(clock, Duration.ofMinutes(60), Arrays.asList(CAL_SRR, SRR_TCR), 2);
+        try {
+            network.run();
+            assertEquals(Arrays.asList("Antyodaya Express"), trainNames(network.getTrains(CAL_SRR)));
+            assertTrue(network.getTrains(SRR_TCR).isEmpty());
+
+            //01:20 IST - the train leaves Calicut-Shoranur, and is on Shoranur-Thrissur in the same tick, though
+            //Shoranur-Thrissur has it enter a minute later.
+            clock.advanceTo(Instant.parse("2025-06-23T19:50:00Z"));
+            network.run();
+            assertTrue(network.getTrains(CAL_SRR).isEmpty());
+            assertEquals(Arrays.asList("Antyodaya Express"), trainNames(network.getTrains(SRR_TCR)));
+            assertEquals(1, network.getHandoverCount());
+
+            //01:40 IST - the train is moved by Shoranur-Thrissur.
+            clock.advanceTo(Instant.parse("2025-06-23T20:10:00Z"));
+            network.run();
+            assertEquals(1, network.getTrainCount());
+            assertTrue(network.getTrains(SRR_TCR).get(0).getDistanceFromHome() > 0);
+        } finally {
+            network.stop();
+        }
+    }
+
+    @Test
+    public void shouldNotHandOverTrainRetiredWithoutLeavingTheSection() throws GameNotStartedException {
+        //00:30 IST
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T19:00:00Z"), IST);
+        SectionNetwork network = new SectionNetwork(clock, Duration.ofMinutes(60),
+                Arrays.asList(CAL_SRR_EARLY_EXIT, SRR_TCR), 2);
+        try {
+            network.run();
+            assertEquals(Arrays.asList("Antyodaya Express"), trainNames(network.getTrains(CAL_SRR_EARLY_EXIT)));
+
+            //01:00 IST - the train is retired from Calicut-Shoranur between Tirur and Shoranur, so it is not handed
+            //over to Shoranur-Thrissur.
+            clock.advanceTo(Instant.parse("2025-06-23T19:30:00Z"));
+            network.run();
+            assertTrue(network.getTrains(CAL_SRR_EARLY_EXIT).isEmpty());
+            assertTrue(network.getTrains(SRR_TCR).isEmpty());
+            assertEquals(0, network.getHandoverCount());
+
+            //01:21 IST - the train enters Shoranur-Thrissur at its own entry time.
+            clock.advanceTo(Instant.parse("2025-06-23T19:51:00Z"));
+            network.run();
+            assertEquals(Arrays.asList("Antyodaya Express"), trainNames(network.getTrains(SRR_TCR)));
+            assertEquals(0, network.getHandoverCount());
+        } finally {
+            network.stop();
+        }
+    }
+
+    @Test
+    public void shouldNotReturnTrainsOfSectionNotInTheNetwork() throws GameNotStartedException {
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T19:30:00Z"), IST);
+        SectionNetwork network = new SectionNetwork(clock, Duration.ofMinutes(60), Arrays.asList(CAL_SRR), 1);
+        try {
+            assertThrows(NoSuchElementException.class, () -> network.getTrains(SRR_TCR));
+        } finally {
+            network.stop();
+        }
+    }
+
+    private static List<String> trainNames(List<TrainDto> trains) {
+        return trains.stream().map(TrainDto::getName).collect(Collectors.toList());
+    }
+}
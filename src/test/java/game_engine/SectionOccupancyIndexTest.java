@@ -0,0 +1,98 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SectionOccupancyIndexTest {
+
+    private List<Station> stationsOnSection;
+
+    private Station calicut, kallayi, ferok, tirur, shoranur;
+
+    private SectionOccupancyIndex occupancyIndex;
+
+    private final LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+
+    @BeforeEach
+    public void initializeSection() throws GameNotStartedException {
+        calicut = new Station("CAL", "Calicut", 3, 0);
+        kallayi = new Station("KAL", "Kallayi", 2, 1);
+        ferok = new Station("FER", "Ferok", 2, 9);
+        tirur = new Station("TIR", "Tirur", 2, 41);
+        shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        stationsOnSection = new SectionRegistry(Arrays.asList(calicut, kallayi, ferok, tirur, shoranur)).getStations();
+        occupancyIndex = new SectionOccupancyIndex(stationsOnSection, Duration.ofMinutes(10));
+
+        //Runs from CAL to TIR without stopping at KAL and FER, and then on to SRR.
+        occupancyIndex.put("2653", new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(calicut, today.withHour(10).withMinute(30), today.withHour(10).withMinute(35), false, false)
+                .addStop(tirur, today.withHour(11).withMinute(20), today.withHour(11).withMinute(21), false, false)
+                .addStop(shoranur, today.withHour(11).withMinute(30), today.withHour(11).withMinute(35), false, false)
+                .build());
+        //Runs from SRR to CAL, stopping at FER.
+        occupancyIndex.put("616", new TimetableBuilder(stationsOnSection, TrainDirection.TOWARDS_HOME)
+                .addStop(shoranur, today.withHour(10), today.withHour(10).withMinute(5), false, false)
+                .addStop(ferok, today.withHour(11), today.withHour(11).withMinute(2), false, false)
+                .addStop(calicut, today.withHour(11).withMinute(20), today.withHour(11).withMinute(25), false, false)
+                .build());
+    }
+
+    @Test
+    public void shouldFindTheTrainsBetweenTwoStationsAtAGivenTime() {
+        assertEquals(new TreeSet<>(Arrays.asList("2653", "616")),
+                occupancyIndex.getTrainsBetween(calicut.getId(), shoranur.getId(), today.withHour(10).withMinute(40)));
+        //2653 has run 4.5 km from CAL, and 616 is 37 km from CAL.
+        assertEquals(Collections.singleton("2653"),
+                occupancyIndex.getTrainsBetween(kallayi.getId(), ferok.getId(), today.withHour(10).withMinute(40)));
+        assertEquals(Collections.singleton("616"),
+                occupancyIndex.getTrainsBetween(tirur.getId(), ferok.getId(), today.withHour(10).withMinute(40)));
+        assertEquals(Collections.emptySet(),
+                occupancyIndex.getTrainsBetween(calicut.getId(), kallayi.getId(), today.withHour(10).withMinute(40)));
+    }
+
+    @Test
+    public void shouldNotFindTrainsHaltedAtAStation() {
+        assertEquals(Collections.singleton("2653"),
+                occupancyIndex.getTrainsBetween(calicut.getId(), shoranur.getId(), today.withHour(11).withMinute(1)));
+        assertEquals(Collections.emptySet(),
+                occupancyIndex.getTrainsBetween(tirur.getId(), shoranur.getId(), today.withHour(11).withMinute(20)));
+        assertEquals(Collections.emptySet(),
+                occupancyIndex.getTrainsBetween(calicut.getId(), shoranur.getId(), today.withHour(9).withMinute(59)));
+    }
+
+    @Test
+    public void shouldFindTheTrainsBetweenTwoStationsWithinATimeWindow() {
+        assertEquals(Collections.singleton("616"), occupancyIndex.getTrainsBetween(calicut.getId(), ferok.getId(),
+                today.withHour(11).withMinute(5), today.withHour(11).withMinute(10)));
+        assertEquals(new TreeSet<>(Arrays.asList("2653", "616")), occupancyIndex.getTrainsBetween(ferok.getId(),
+                calicut.getId(), today.withHour(10), today.withHour(11).withMinute(5)));
+        assertEquals(new TreeSet<>(Arrays.asList("2653", "616")), occupancyIndex.getTrainsBetween(calicut.getId(),
+                shoranur.getId(), today.minusDays(1), today.plusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> occupancyIndex.getTrainsBetween(calicut.getId(),
+                ferok.getId(), today.withHour(11), today.withHour(10)));
+    }
+
+    @Test
+    public void shouldReplaceTheLegsOfATrainThatIsPutAgain() throws GameNotStartedException {
+        occupancyIndex.put("2653", new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(tirur, today.withHour(12), today.withHour(12).withMinute(1), false, false)
+                .addStop(shoranur, today.withHour(12).withMinute(30), today.withHour(12).withMinute(35), false, false)
+                .build());
+        assertEquals(Collections.emptySet(),
+                occupancyIndex.getTrainsBetween(kallayi.getId(), ferok.getId(), today.withHour(10).withMinute(40)));
+        assertEquals(Collections.singleton("2653"),
+                occupancyIndex.getTrainsBetween(tirur.getId(), shoranur.getId(), today.withHour(12).withMinute(10)));
+
+        occupancyIndex.remove("2653");
+        occupancyIndex.remove("616");
+        assertEquals(Collections.emptySet(), occupancyIndex.getTrainsBetween(calicut.getId(), shoranur.getId(),
+                today.minusDays(1), today.plusDays(1)));
+    }
+}
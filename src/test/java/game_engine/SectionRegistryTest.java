@@ -0,0 +1,63 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SectionRegistryTest {
+
+    @Test
+    public void shouldAssignIdsInOrderOfDistanceFromHome() {
+        Station shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        Station calicut = new Station("CAL", "Calicut", 3, 0);
+        Station tirur = new Station("TIR", "Tirur", 2, 41);
+        SectionRegistry sectionRegistry = new SectionRegistry(Arrays.asList(shoranur, calicut, tirur));
+
+        assertEquals(3, sectionRegistry.size());
+        assertEquals(0, calicut.getId());
+        assertEquals(1, tirur.getId());
+        assertEquals(2, shoranur.getId());
+        assertSame(tirur, sectionRegistry.getStation(1));
+        assertEquals(2, sectionRegistry.getId("srr"));
+        assertEquals(0, sectionRegistry.getIdByName("Calicut"));
+        assertEquals(-1, sectionRegistry.getId("XYZ"));
+        assertEquals(Arrays.asList(calicut, tirur, shoranur), sectionRegistry.getStations());
+    }
+
+    @Test
+    public void shouldRejectStationsWithTheSameCode() {
+        List<Station> stations = Arrays.asList(new Station("CAL", "Calicut", 3, 0), new Station("cal", "Kallayi", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SectionRegistry(stations));
+    }
+
+    @Test
+    public void shouldNotReassignIdsOfStationsOnAnotherSection() {
+        Station calicut = new Station("CAL", "Calicut", 3, 0);
+        new SectionRegistry(Arrays.asList(calicut, new Station("TIR", "Tirur", 2, 41)));
+        assertThrows(IllegalStateException.class,
+                () -> new SectionRegistry(Arrays.asList(new Station("KNR", "Kannur", 3, -89), calicut)));
+    }
+
+    @Test
+    public void shouldFindScheduleOfRegisteredAndUnregisteredStations() throws GameNotStartedException {
+        Station calicut = new Station("CAL", "Calicut", 3, 0);
+        Station tirur = new Station("TIR", "Tirur", 2, 41);
+        Station shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        SectionRegistry sectionRegistry = new SectionRegistry(Arrays.asList(calicut, tirur, shoranur));
+        LocalDateTime arrivalTime = LocalDateTime.of(2020, 5, 22, 10, 5);
+        List<Entry> stops = new ArrayList<>();
+        stops.add(new Entry(tirur, Optional.of(new TrainSchedule(arrivalTime, arrivalTime.plusMinutes(2))),
+                StopType.NORMAL_STATION));
+        Timetable timetable = new Timetable(new ArrayList<>(sectionRegistry.getStations()), stops,
+                TrainDirection.TOWARDS_HOME);
+
+        assertEquals(arrivalTime, timetable.getSchedule(tirur).get().getArrivalTime());
+        assertEquals(arrivalTime, timetable.getSchedule(new Station("TIR", "", 0, 0)).get().getArrivalTime());
+        assertFalse(timetable.getSchedule(calicut).isPresent());
+        assertFalse(timetable.getSchedule(new Station("KNR", "Kannur", 3, -89)).isPresent());
+    }
+}
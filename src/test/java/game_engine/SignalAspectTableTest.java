@@ -0,0 +1,162 @@
+package game_engine;
+
+import common.models.SignalAspect;
+import common.models.TrainDirection;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SignalAspectTableTest {
+
+    @Test
+    public void shouldHoldAspectsOfEachStationAndBumpTheVersionOnChange() {
+        SignalAspectTable table = new SignalAspectTable(3);
+        assertArrayEquals(new SignalAspect[] {SignalAspect.STOP, SignalAspect.STOP}, table.get(2));
+        int version = table.getVersion();
+
+        table.set(1, TrainDirection.AWAY_FROM_HOME, SignalAspect.CAUTION);
+        table.set(2, SignalAspect.PROCEED, SignalAspect.CAUTION);
+        assertEquals(SignalAspect.STOP, table.get(1, TrainDirection.TOWARDS_HOME));
+        assertEquals(SignalAspect.CAUTION, table.get(1, TrainDirection.AWAY_FROM_HOME));
+        assertArrayEquals(new SignalAspect[] {SignalAspect.PROCEED, SignalAspect.CAUTION}, table.get(2));
+        assertArrayEquals(new SignalAspect[] {SignalAspect.STOP, SignalAspect.STOP}, table.get(0));
+        assertEquals(version + 4, table.getVersion());
+
+        //Setting a signal to the aspect it already has is not a change.
+        table.set(2, TrainDirection.TOWARDS_HOME, SignalAspect.PROCEED);
+        assertEquals(version + 4, table.getVersion());
+
+        int[] packedAspects = new int[3];
+        assertEquals(version + 4, table.readAll(packedAspects));
+        assertEquals(SignalAspect.CAUTION, SignalAspectTable.aspect(packedAspects[1], TrainDirection.AWAY_FROM_HOME));
+        assertEquals(SignalAspect.PROCEED, SignalAspectTable.aspect(packedAspects[2], TrainDirection.TOWARDS_HOME));
+    }
+
+    @Test
+    public void shouldNotifyEachObserverOncePerUpdate() {
+        SignalAspectTable table = new SignalAspectTable(3);
+        List<String> changes = new ArrayList<>();
+        SignalAspectTable.Observer observer = change -> changes.add(describe(change, 3));
+        table.addObserver(0, TrainDirection.TOWARDS_HOME, observer);
+        table.addObserver(1, TrainDirection.TOWARDS_HOME, observer);
+        table.addObserver(1, TrainDirection.AWAY_FROM_HOME, observer);
+
+        table.set(1, SignalAspect.STOP, SignalAspect.PROCEED);
+        assertEquals(Arrays.asList("1 AWAY_FROM_HOME PROCEED"), changes);
+
+        changes.clear();
+        table.setAll(SignalAspect.CAUTION, SignalAspect.PROCEED);
+        assertEquals(Arrays.asList("0 TOWARDS_HOME CAUTION, 1 TOWARDS_HOME CAUTION, 2 TOWARDS_HOME CAUTION, "
+                + "0 AWAY_FROM_HOME PROCEED, 2 AWAY_FROM_HOME PROCEED"), changes);
+
+        //Only the signals the observer no longer observes have changed.
+        changes.clear();
+        table.removeObserver(1, TrainDirection.TOWARDS_HOME, observer);
+        table.set(1, TrainDirection.TOWARDS_HOME, SignalAspect.STOP);
+        table.set(2, SignalAspect.STOP, SignalAspect.STOP);
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void shouldReuseTheChangeAndStampsForEveryUpdate() {
+        SignalAspectTable table = new SignalAspectTable(2);
+        List<SignalAspectTable.Change> changes = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+        SignalAspectTable.Observer observer = change -> {
+            changes.add(change);
+            descriptions.add(describe(change, 2));
+        };
+        table.addObserver(0, TrainDirection.TOWARDS_HOME, observer);
+        table.addObserver(1, TrainDirection.TOWARDS_HOME, observer);
+
+        table.setAll(SignalAspect.CAUTION, SignalAspect.STOP);
+        table.setAll(SignalAspect.PROCEED, SignalAspect.STOP);
+        assertEquals(2, changes.size());
+        assertSame(changes.get(0), changes.get(1));
+        assertEquals(Arrays.asList("0 TOWARDS_HOME CAUTION, 1 TOWARDS_HOME CAUTION",
+                "0 TOWARDS_HOME PROCEED, 1 TOWARDS_HOME PROCEED"), descriptions);
+
+        //An observer that stopped observing every signal is told of updates again once it observes one.
+        descriptions.clear();
+        table.removeObserver(0, TrainDirection.TOWARDS_HOME, observer);
+        table.removeObserver(1, TrainDirection.TOWARDS_HOME, observer);
+        table.addObserver(1, TrainDirection.TOWARDS_HOME, observer);
+        table.setAll(SignalAspect.STOP, SignalAspect.STOP);
+        assertEquals(Arrays.asList("0 TOWARDS_HOME STOP, 1 TOWARDS_HOME STOP"), descriptions);
+    }
+
+    @Test
+    public void shouldNotifyObserversOfChangesMadeByAnotherObserver() {
+        SignalAspectTable table = new SignalAspectTable(2);
+        List<String> changes = new ArrayList<>();
+        //Clearing the signal at station 0 clears the one at station 1 behind it.
+        table.addObserver(0, TrainDirection.AWAY_FROM_HOME, change ->
+                table.set(1, TrainDirection.AWAY_FROM_HOME, change.getAspect(0, TrainDirection.AWAY_FROM_HOME)));
+        table.addObserver(1, TrainDirection.AWAY_FROM_HOME, change -> changes.add(describe(change, 2)));
+
+        table.set(0, TrainDirection.AWAY_FROM_HOME, SignalAspect.PROCEED);
+        assertEquals(Arrays.asList("1 AWAY_FROM_HOME PROCEED"), changes);
+        assertEquals(SignalAspect.PROCEED, table.get(1, TrainDirection.AWAY_FROM_HOME));
+    }
+
+    @Test
+    public void shouldNotHoldTheLockWhileObserversAreCalled() {
+        SignalAspectTable table = new SignalAspectTable(2);
+        List<String> changes = new ArrayList<>();
+        //The observer waits for another thread to change another signal, which it could not if the table were locked.
+        table.addObserver(0, TrainDirection.AWAY_FROM_HOME, change -> {
+            Thread operator = new Thread(() -> table.set(1, TrainDirection.TOWARDS_HOME, SignalAspect.CAUTION));
+            operator.start();
+            try {
+                operator.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            changes.add(String.valueOf(table.get(1, TrainDirection.TOWARDS_HOME)));
+        });
+        table.addObserver(1, TrainDirection.TOWARDS_HOME, change -> changes.add(describe(change, 2)));
+
+        table.set(0, TrainDirection.AWAY_FROM_HOME, SignalAspect.PROCEED);
+        //The change made by the other thread is told of by this one, once the first observer is done.
+        assertEquals(Arrays.asList("CAUTION", "1 TOWARDS_HOME CAUTION"), changes);
+    }
+
+    /**
+     * Lists the signals that a change has changed, with their new aspects.
+     */
+    private static String describe(SignalAspectTable.Change change, int stationCount) {
+        List<String> changedSignals = new ArrayList<>();
+        for (TrainDirection direction : TrainDirection.values())
+            for (int stationId = 0; stationId < stationCount; stationId++)
+                if (change.hasChanged(stationId, direction))
+                    changedSignals.add(stationId + " " + direction + " " + change.getAspect(stationId, direction));
+        return String.join(", ", changedSignals);
+    }
+
+    @Test
+    public void shouldNeverReadTheSectionPartWayThroughAnUpdate() throws InterruptedException {
+        SignalAspectTable table = new SignalAspectTable(40);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread operator = new Thread(() -> {
+            for (int i = 0; !done.get(); i++)
+                table.setAll(i % 2 == 0 ? SignalAspect.PROCEED : SignalAspect.STOP, SignalAspect.CAUTION);
+        });
+        operator.start();
+        try {
+            int[] packedAspects = new int[40];
+            for (int read = 0; read < 100_000; read++) {
+                assertEquals(0, table.readAll(packedAspects) & 1);
+                for (int stationId = 1; stationId < 40; stationId++)
+                    assertEquals(packedAspects[0], packedAspects[stationId]);
+            }
+        } finally {
+            done.set(true);
+            operator.join();
+        }
+    }
+}
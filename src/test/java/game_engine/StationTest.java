@@ -3,10 +3,9 @@ package game_engine;
 import common.models.SignalAspect;
 import common.models.TrainDirection;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
-import java.beans.PropertyChangeEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -62,13 +61,20 @@ public class StationTest {
 		when(towardsHomeTrain.getDirection()).thenReturn(TrainDirection.TOWARDS_HOME);
 		when(awayFromHomeTrain.getDirection()).thenReturn(TrainDirection.AWAY_FROM_HOME);
 
+		//The change is reused for later updates, so it is checked while the train is being told of it.
+		AtomicBoolean toldOfChange = new AtomicBoolean();
+		doAnswer(invocation -> {
+			SignalAspectTable.Change change = invocation.getArgument(0);
+			toldOfChange.set(change.hasChanged(0, TrainDirection.TOWARDS_HOME)
+					&& change.getAspect(0, TrainDirection.TOWARDS_HOME) == SignalAspect.CAUTION);
+			return null;
+		}).when(towardsHomeTrain).signalsChanged(any());
 		station.addObserverForSignal(towardsHomeTrain, towardsHomeTrain.getDirection());
 		station.setAspect(towardsHomeTrain.getDirection(), SignalAspect.CAUTION);
 
-		ArgumentCaptor<PropertyChangeEvent> event = ArgumentCaptor.forClass(PropertyChangeEvent.class);
-		verify(towardsHomeTrain).propertyChange(event.capture());
-		verify(awayFromHomeTrain, never()).propertyChange(any());
-		assertEquals(SignalAspect.CAUTION, event.getValue().getNewValue());
+		verify(towardsHomeTrain).signalsChanged(any());
+		assertTrue(toldOfChange.get());
+		verify(awayFromHomeTrain, never()).signalsChanged(any());
 	}
 
 	@Test
@@ -79,13 +85,20 @@ public class StationTest {
 		when(towardsHomeTrain.getDirection()).thenReturn(TrainDirection.TOWARDS_HOME);
 		when(awayFromHomeTrain.getDirection()).thenReturn(TrainDirection.AWAY_FROM_HOME);
 
+		//The change is reused for later updates, so it is checked while the train is being told of it.
+		AtomicBoolean toldOfChange = new AtomicBoolean();
+		doAnswer(invocation -> {
+			SignalAspectTable.Change change = invocation.getArgument(0);
+			toldOfChange.set(change.hasChanged(0, TrainDirection.AWAY_FROM_HOME)
+					&& change.getAspect(0, TrainDirection.AWAY_FROM_HOME) == SignalAspect.PROCEED);
+			return null;
+		}).when(awayFromHomeTrain).signalsChanged(any());
 		station.addObserverForSignal(awayFromHomeTrain, awayFromHomeTrain.getDirection());
 		station.setAspect(awayFromHomeTrain.getDirection(), SignalAspect.PROCEED);
 
-		ArgumentCaptor<PropertyChangeEvent> event = ArgumentCaptor.forClass(PropertyChangeEvent.class);
-		verify(towardsHomeTrain, never()).propertyChange(any());
-		verify(awayFromHomeTrain).propertyChange(event.capture());
-		assertEquals(SignalAspect.PROCEED, event.getValue().getNewValue());
+		verify(towardsHomeTrain, never()).signalsChanged(any());
+		verify(awayFromHomeTrain).signalsChanged(any());
+		assertTrue(toldOfChange.get());
 	}
 
 	@Test
@@ -96,10 +109,10 @@ public class StationTest {
 
 		station.addObserverForSignal(awayFromHomeTrain, awayFromHomeTrain.getDirection());
 		station.setAspect(awayFromHomeTrain.getDirection(), SignalAspect.PROCEED);
-		verify(awayFromHomeTrain).propertyChange(any());
+		verify(awayFromHomeTrain).signalsChanged(any());
 		Mockito.clearInvocations(awayFromHomeTrain);
 		station.removeObserverForSignal(awayFromHomeTrain, awayFromHomeTrain.getDirection());
 		station.setAspect(awayFromHomeTrain.getDirection(), SignalAspect.CAUTION);
-		verify(awayFromHomeTrain, never()).propertyChange(any());
+		verify(awayFromHomeTrain, never()).signalsChanged(any());
 	}
 }
@@ -0,0 +1,94 @@
+package game_engine;
+
+import common.models.TrainDirection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimetableBuilderTest {
+
+    private List<Station> stationsOnSection;
+
+    private Station calicut, kallayi, ferok, tirur, shoranur;
+
+    private final LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+
+    @BeforeEach
+    public void initializeSection() {
+        calicut = new Station("CAL", "Calicut", 3, 0);
+        kallayi = new Station("KAL", "Kallayi", 2, 1);
+        ferok = new Station("FER", "Ferok", 2, 9);
+        tirur = new Station("TIR", "Tirur", 2, 41);
+        shoranur = new Station("SRR", "Shoranur Junction", 3, 86);
+        stationsOnSection = Collections.unmodifiableList(Arrays.asList(calicut, ferok, shoranur, kallayi, tirur));
+    }
+
+    @Test
+    public void shouldBuildTheSameTimetableAsTheConstructor() throws GameNotStartedException {
+        Timetable timetable = new TimetableBuilder(stationsOnSection, TrainDirection.TOWARDS_HOME)
+                .addStop(calicut, today.withHour(1).withMinute(20), today.withHour(1).withMinute(20), false, true)
+                .addStop(shoranur, today.withHour(23).withMinute(15), today.withHour(23).withMinute(20), false, false)
+                .addStop(tirur, today.withMinute(5), today.withMinute(7), false, false)
+                .build();
+
+        List<Entry> stops = new ArrayList<>();
+        stops.add(new Entry(calicut, Optional.of(new TrainSchedule(today.withHour(1).withMinute(20),
+                today.withHour(1).withMinute(20))), StopType.TERMINATING_STATION));
+        stops.add(new Entry(shoranur, Optional.of(new TrainSchedule(today.withHour(23).withMinute(15),
+                today.withHour(23).withMinute(20))), StopType.NORMAL_STATION));
+        stops.add(new Entry(tirur, Optional.of(new TrainSchedule(today.withMinute(5), today.withMinute(7))),
+                StopType.NORMAL_STATION));
+        Timetable expectedTimetable = new Timetable(new ArrayList<>(stationsOnSection), stops, TrainDirection.TOWARDS_HOME);
+
+        assertTrue(timetable.hasSameStops(expectedTimetable));
+        assertEquals(Arrays.asList(shoranur, tirur, ferok, kallayi, calicut), timetable.getUpcomingStops(86));
+        assertEquals(today.withHour(23).withMinute(15), timetable.getSectionEntryTime());
+        assertEquals(today.plusDays(1).withMinute(5), timetable.getSchedule(tirur).get().getArrivalTime());
+        assertEquals(today.plusDays(1).withHour(1).withMinute(20), timetable.getSectionExitTime());
+        assertEquals(Arrays.asList(calicut, ferok, shoranur, kallayi, tirur), stationsOnSection);
+    }
+
+    @Test
+    public void shouldMoveTheDepartureOfAStopOverMidnightToTheNextDay() throws GameNotStartedException {
+        Timetable timetable = new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(calicut, today.withHour(23).withMinute(55), today.withMinute(5), false, false)
+                .addStop(tirur, today.withHour(1), today.withHour(1).withMinute(2), false, false)
+                .build();
+
+        assertEquals(today.plusDays(1).withMinute(5), timetable.getSchedule(calicut).get().getDepartureTime());
+        assertEquals(today.plusDays(1).withHour(1), timetable.getSchedule(tirur).get().getArrivalTime());
+    }
+
+    @Test
+    public void shouldLimitTheEntriesToTheTrainsRoute() throws GameNotStartedException {
+        Timetable timetable = new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(ferok, today.withHour(10), today.withHour(10), true, false)
+                .addStop(tirur, today.withHour(10).withMinute(30), today.withHour(10).withMinute(30), false, true)
+                .build();
+
+        assertEquals(2, timetable.getEntries().size());
+        assertTrue(timetable.getEntries().get(0).isOriginatingStation());
+        assertTrue(timetable.getEntries().get(1).isTerminatingStation());
+    }
+
+    @Test
+    public void shouldRejectInvalidStops() throws GameNotStartedException {
+        TimetableBuilder timetableBuilder = new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(ferok, today.withHour(10), today.withHour(10), true, false);
+        assertThrows(IllegalArgumentException.class,
+                () -> timetableBuilder.addStop(ferok, today.withHour(11), today.withHour(11), false, false));
+        assertThrows(GameNotStartedException.class,
+                () -> timetableBuilder.addStop(tirur, today.withHour(11), today.withHour(11), true, true));
+
+        timetableBuilder.addStop(kallayi, today.withHour(9), today.withHour(9), false, false);
+        assertThrows(NoSuchElementException.class, timetableBuilder::build);
+
+        TimetableBuilder offSectionBuilder = new TimetableBuilder(stationsOnSection, TrainDirection.AWAY_FROM_HOME)
+                .addStop(new Station("MAQ", "Mangalore", 3, -220), today.withHour(9), today.withHour(9), false, false);
+        assertThrows(NoSuchElementException.class, offSectionBuilder::build);
+    }
+}
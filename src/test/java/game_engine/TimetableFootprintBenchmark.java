@@ -0,0 +1,86 @@
+package game_engine;
+
+import common.models.TrainDirection;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compares the heap used by <code>Timetable</code>s with that used by <code>CompactTimetable</code>s holding the same
+ * stops, and the time taken to find where each train is. The timetables are synthetic, on a section of 200 stations
+ * with a stop at every other station. This is not run as part of the test suite; run it with:
+ * <pre>
+ * java -cp target/classes:target/test-classes game_engine.TimetableFootprintBenchmark [number of trains]
+ * </pre>
+ */
+public class TimetableFootprintBenchmark {
+
+    private static final int NUMBER_OF_STATIONS = 200;
+
+    public static void main(String[] args) {
+        int numberOfTrains = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        List<Station> stationsOnSection = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_STATIONS; i++)
+            stationsOnSection.add(new Station(String.format("S%1$03d", i), "Station " + i, 2, i * 5));
+        List<Station> stationsById = new SectionRegistry(stationsOnSection).getStations();
+
+        System.gc();
+        long heapBefore = usedHeap();
+        List<Timetable> timetables = new ArrayList<>(numberOfTrains);
+        for (int train = 0; train < numberOfTrains; train++)
+            timetables.add(createTimetable(stationsById, train));
+        System.gc();
+        long timetablesHeap = usedHeap() - heapBefore;
+
+        heapBefore = usedHeap();
+        List<CompactTimetable> compactTimetables = new ArrayList<>(numberOfTrains);
+        for (Timetable timetable : timetables)
+            compactTimetables.add(new CompactTimetable(timetable, stationsById));
+        System.gc();
+        long compactTimetablesHeap = usedHeap() - heapBefore;
+
+        System.out.printf("%1$d trains with %2$d stops each%n", numberOfTrains, NUMBER_OF_STATIONS / 2);
+        System.out.printf("Timetable:        %1$8d KB (%2$5d bytes per train)%n",
+                timetablesHeap / 1024, timetablesHeap / numberOfTrains);
+        System.out.printf("CompactTimetable: %1$8d KB (%2$5d bytes per train)%n",
+                compactTimetablesHeap / 1024, compactTimetablesHeap / numberOfTrains);
+
+        LocalDateTime time = LocalDateTime.of(2025, 6, 23, 12, 34, 30);
+        for (int iteration = 0; iteration < 3; iteration++) {
+            long start = System.nanoTime();
+            int halted = 0;
+            for (Timetable timetable : timetables)
+                if (timetable.getStationHaltedAt(time).isPresent()) halted++;
+            long timetableMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            int compactHalted = 0;
+            for (CompactTimetable timetable : compactTimetables)
+                if (timetable.getStationHaltedAt(time).isPresent()) compactHalted++;
+            long compactMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("getStationHaltedAt: Timetable %1$4d ms, %2$d halted | CompactTimetable %3$4d ms, %4$d halted%n",
+                    timetableMillis, halted, compactMillis, compactHalted);
+        }
+    }
+
+    /**
+     * Creates a timetable that stops at every other station, starting at a different time for each train.
+     */
+    private static Timetable createTimetable(List<Station> stationsById, int train) {
+        LocalDateTime start = LocalDateTime.of(2025, 6, 23, 0, 0).plusMinutes(train % 1440);
+        List<Entry> stops = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_STATIONS; i += 2) {
+            LocalDateTime arrivalTime = start.plusMinutes(i * 3);
+            stops.add(new Entry(stationsById.get(i), Optional.of(new TrainSchedule(arrivalTime, arrivalTime.plusMinutes(2))),
+                    StopType.NORMAL_STATION));
+        }
+        return new Timetable(new ArrayList<>(stationsById), stops, TrainDirection.AWAY_FROM_HOME);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
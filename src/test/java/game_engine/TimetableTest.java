@@ -284,6 +284,32 @@ public class TimetableTest {
         assertEquals(Optional.empty(), stations[1]);
     }
 
+    @Test
+    public void shouldLocateTheTrainAtTheBoundariesOfItsStopsAndAfterMidnight() throws GameNotStartedException {
+        LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+        List<Entry> stops = new ArrayList<>();
+        stops.add(new Entry(calicut, Optional.of(new TrainSchedule(today.withHour(23).withMinute(15),
+                today.withHour(23).withMinute(15))), StopType.NORMAL_STATION));
+        stops.add(new Entry(tirur, Optional.of(new TrainSchedule(today.withMinute(40), today.withMinute(42))),
+                StopType.NORMAL_STATION));
+        Timetable timetable = new Timetable(stationsOnSection, stops, TrainDirection.AWAY_FROM_HOME);
+
+        assertEquals(Optional.empty(), timetable.getStationHaltedAt(today.withHour(23)));
+        assertEquals(Optional.empty(), timetable.getStationsTravellingBetween(today.withHour(23))[0]);
+        assertEquals(calicut, timetable.getStationHaltedAt(today.withHour(23).withMinute(15)).get());
+        assertEquals(Optional.empty(), timetable.getStationsTravellingBetween(today.withHour(23).withMinute(15))[0]);
+        assertEquals(calicut, timetable.getStationsTravellingBetween(today.plusDays(1).withMinute(10))[0].get());
+        assertEquals(tirur, timetable.getStationsTravellingBetween(today.plusDays(1).withMinute(10))[1].get());
+        assertEquals(tirur, timetable.getStationHaltedAt(today.plusDays(1).withMinute(40)).get());
+        assertEquals(tirur, timetable.getStationHaltedAt(today.plusDays(1).withMinute(42)).get());
+        assertEquals(Optional.empty(), timetable.getStationHaltedAt(today.plusDays(1).withMinute(43)));
+
+        timetable.update(shoranur, today.plusDays(1).withHour(1).withMinute(20),
+                today.plusDays(1).withHour(1).withMinute(25), false, false);
+        assertEquals(shoranur, timetable.getStationHaltedAt(today.plusDays(1).withHour(1).withMinute(22)).get());
+        assertEquals(tirur, timetable.getStationsTravellingBetween(today.plusDays(1).withHour(1))[0].get());
+    }
+
     @Test
     public void shouldReturnScheduleForStation() {
         LocalDateTime currentDate = LocalDateTime.now();
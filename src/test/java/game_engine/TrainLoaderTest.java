@@ -0,0 +1,259 @@
+package game_engine;
+
+import game_engine.data_access.DataAccess;
+import game_engine.initializers.TrainDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrainLoaderTest {
+
+    private static final ZoneId IST = ZoneId.of("+05:30");
+
+    private List<Station> stations;
+
+    private List<String> enteredTrains;
+
+    private List<String> exitedTrains;
+
+    private List<Train> replacedTrains;
+
+    @TempDir
+    public File dataDirectory;
+
+    private final List<TrainDefinition> trainsForTheDay = new ArrayList<>(Arrays.asList(
+            new TrainDefinition("2653", "Kerala Sampark Kranti Express", "TowardsHome", 10 * 60 + 30, 11 * 60 + 35),
+            new TrainDefinition("616", "Calicut Shoranur Passenger", "AwayFromHome", 18 * 60, 19 * 60 + 5),
+            new TrainDefinition("16356", "Antyodaya Express", "AwayFromHome", 23 * 60 + 15, 80)));
+
+    @BeforeEach
+    public void setup() {
+        this.stations = new ArrayList<>();
+        this.stations.add(new Station("CAL", "", 0, 0));
+        this.stations.add(new Station("KAL", "", 0, 1));
+        this.stations.add(new Station("FER", "", 0, 9));
+        this.stations.add(new Station("TIR", "", 0, 41));
+        this.stations.add(new Station("SRR", "", 0, 86));
+        this.enteredTrains = new ArrayList<>();
+        this.exitedTrains = new ArrayList<>();
+        this.replacedTrains = new ArrayList<>();
+    }
+
+    @AfterEach
+    public void useBundledData() {
+        DataAccess.getInstance().setDataDirectory(null);
+    }
+
+    private void writeTrainFile(String trainNumber, String originalTime, String correctedTime) throws Exception {
+        String trainXml;
+        try (InputStream bundledFile = getClass().getResourceAsStream("/data/" + trainNumber + ".xml")) {
+            trainXml = new String(bundledFile.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Files.write(new File(this.dataDirectory, trainNumber + ".xml").toPath(),
+                trainXml.replace(originalTime, correctedTime).getBytes(StandardCharsets.UTF_8));
+        DataAccess.getInstance().setDataDirectory(this.dataDirectory.toPath());
+    }
+
+    private TrainLoader createLoader(Clock clock) {
+        return createLoader(clock, Duration.ofMinutes(60));
+    }
+
+    private TrainLoader createLoader(Clock clock, Duration lookahead) {
+        return new TrainLoader(day -> this.trainsForTheDay, this.stations, clock, lookahead,
+                train -> this.enteredTrains.add(train.getNumber()), train -> this.exitedTrains.add(train.getNumber()),
+                (train, reloadedTrain) -> this.replacedTrains.add(reloadedTrain));
+    }
+
+    @Test
+    public void shouldLoadTrainsWithinLookaheadWithoutEnteringThem() throws GameNotStartedException {
+        //17:30 IST
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T12:00:00Z"), IST));
+        trainLoader.loadInitialTrains();
+
+        assertEquals(Collections.singleton("616"), trainLoader.getUpcomingTrains());
+        assertTrue(trainLoader.getRunningTrains().isEmpty());
+        assertTrue(this.enteredTrains.isEmpty());
+    }
+
+    @Test
+    public void shouldEnterTrainsOnSectionStraightaway() throws GameNotStartedException {
+        //18:40 IST
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T13:10:00Z"), IST));
+        trainLoader.loadInitialTrains();
+
+        assertEquals(Collections.singletonList("616"), this.enteredTrains);
+        assertTrue(trainLoader.getUpcomingTrains().isEmpty());
+    }
+
+    @Test
+    public void shouldEnterAndRetireTrainsAsTimeAdvances() throws GameNotStartedException {
+        //10:00 IST
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T04:30:00Z"), IST);
+        TrainLoader trainLoader = createLoader(clock);
+        trainLoader.loadInitialTrains();
+        assertEquals(Collections.singleton("2653"), trainLoader.getUpcomingTrains());
+
+        //10:31 IST
+        clock.advanceTo(Instant.parse("2025-06-23T05:01:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singletonList("2653"), this.enteredTrains);
+        assertEquals(Collections.singleton("2653"), trainLoader.getRunningTrains());
+
+        //11:40 IST
+        clock.advanceTo(Instant.parse("2025-06-23T06:10:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singletonList("2653"), this.exitedTrains);
+        assertTrue(trainLoader.getRunningTrains().isEmpty());
+
+        //17:10 IST - the next train is loaded once it is within the lookahead window, and the retired train is not
+        //loaded again.
+        clock.advanceTo(Instant.parse("2025-06-23T11:40:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singleton("616"), trainLoader.getUpcomingTrains());
+    }
+
+    @Test
+    public void shouldKeepOvernightTrainsOnSectionAfterMidnight() throws GameNotStartedException {
+        //23:30 IST
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T18:00:00Z"), IST);
+        TrainLoader trainLoader = createLoader(clock);
+        trainLoader.loadInitialTrains();
+        assertEquals(Collections.singletonList("16356"), this.enteredTrains);
+
+        //00:30 IST, the next day
+        clock.advanceTo(Instant.parse("2025-06-23T19:00:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singleton("16356"), trainLoader.getRunningTrains());
+        assertTrue(this.exitedTrains.isEmpty());
+
+        //01:30 IST
+        clock.advanceTo(Instant.parse("2025-06-23T20:00:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singletonList("16356"), this.exitedTrains);
+    }
+
+    @Test
+    public void shouldLoadTrainThatEntersAfterMidnightForTheNextDay() throws GameNotStartedException {
+        this.trainsForTheDay.add(new TrainDefinition("12685", "MGR Chennai Central - Mangaluru Central SF Express",
+                "TowardsHome", 60 + 45, 3 * 60 + 7));
+        //23:30 IST - 12685 enters the section at 01:45, within the lookahead window.
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T18:00:00Z"), IST);
+        TrainLoader trainLoader = createLoader(clock, Duration.ofMinutes(150));
+        trainLoader.loadInitialTrains();
+        assertEquals(Collections.singleton("12685"), trainLoader.getUpcomingTrains());
+
+        //01:50 IST, the next day
+        clock.advanceTo(Instant.parse("2025-06-23T20:20:00Z"));
+        trainLoader.run();
+        assertTrue(this.enteredTrains.contains("12685"));
+        assertTrue(trainLoader.getRunningTrains().contains("12685"));
+
+        //02:30 IST - the train is still on its run, rather than one that ended the night before.
+        clock.advanceTo(Instant.parse("2025-06-23T21:00:00Z"));
+        trainLoader.run();
+        assertTrue(trainLoader.getRunningTrains().contains("12685"));
+        assertFalse(this.exitedTrains.contains("12685"));
+    }
+
+    @Test
+    public void shouldEnterTrainWhoseEntryMinuteHasJustBegun() throws GameNotStartedException {
+        //10:30 IST, the minute 2653 enters the section.
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T05:00:00Z"), IST));
+        trainLoader.loadInitialTrains();
+        assertEquals(Collections.singletonList("2653"), this.enteredTrains);
+        assertEquals(Collections.singleton("2653"), trainLoader.getRunningTrains());
+    }
+
+    @Test
+    public void shouldPrefetchTrainWhoseEntryMinuteHasJustBegun() throws GameNotStartedException {
+        //09:00 IST - 2653 is not yet within the lookahead window.
+        GameClock clock = GameClock.unthrottled(Instant.parse("2025-06-23T03:30:00Z"), IST);
+        TrainLoader trainLoader = createLoader(clock);
+        trainLoader.loadInitialTrains();
+        assertTrue(trainLoader.getUpcomingTrains().isEmpty());
+
+        //10:30 IST - the loader next runs in the minute 2653 enters the section.
+        clock.advanceTo(Instant.parse("2025-06-23T05:00:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singleton("2653"), trainLoader.getUpcomingTrains());
+
+        clock.advanceTo(Instant.parse("2025-06-23T05:01:00Z"));
+        trainLoader.run();
+        assertEquals(Collections.singletonList("2653"), this.enteredTrains);
+    }
+
+    @Test
+    public void shouldEnterHandedOverTrainAheadOfItsEntryTime() throws GameNotStartedException {
+        //17:30 IST
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T12:00:00Z"), IST));
+        trainLoader.loadInitialTrains();
+
+        assertTrue(trainLoader.handOver("616"));
+        assertEquals(Collections.singletonList("616"), this.enteredTrains);
+        assertEquals(Collections.singleton("616"), trainLoader.getRunningTrains());
+        //A train that is already running is not entered again, and a train that is not loaded cannot be handed over.
+        assertTrue(trainLoader.handOver("616"));
+        assertEquals(Collections.singletonList("616"), this.enteredTrains);
+        assertFalse(trainLoader.handOver("2653"));
+    }
+
+    @Test
+    public void shouldReplaceTrainOnSectionWhenItsStopsChange() throws Exception {
+        //18:40 IST
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T13:10:00Z"), IST));
+        trainLoader.loadInitialTrains();
+
+        writeTrainFile("616", "arrival-time=\"18:30\"", "arrival-time=\"18:32\"");
+        trainLoader.reload(false, Collections.singleton("616"));
+        assertEquals(1, this.replacedTrains.size());
+        assertEquals(18, this.replacedTrains.get(0).getTimetable()
+                .getSchedule(new Station("TIR", "", 0, 0)).get().getArrivalTime().getHour());
+        assertEquals(32, this.replacedTrains.get(0).getTimetable()
+                .getSchedule(new Station("TIR", "", 0, 0)).get().getArrivalTime().getMinute());
+
+        //Saving the file again without changing the stops does not replace the train.
+        trainLoader.reload(false, Collections.singleton("616"));
+        assertEquals(1, this.replacedTrains.size());
+        assertEquals(Collections.singleton("616"), trainLoader.getRunningTrains());
+    }
+
+    @Test
+    public void shouldKeepTrainIfItsChangedFileCannotBeRead() throws Exception {
+        //18:40 IST
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T13:10:00Z"), IST));
+        trainLoader.loadInitialTrains();
+
+        writeTrainFile("616", "</train>", "");
+        trainLoader.reload(false, Collections.singleton("616"));
+        assertTrue(this.replacedTrains.isEmpty());
+        assertEquals(Collections.singleton("616"), trainLoader.getRunningTrains());
+    }
+
+    @Test
+    public void shouldReloadTrainsWhenSectionChanges() throws GameNotStartedException {
+        //17:30 IST
+        TrainLoader trainLoader = createLoader(GameClock.unthrottled(Instant.parse("2025-06-23T12:00:00Z"), IST));
+        trainLoader.loadInitialTrains();
+        assertEquals(Collections.singleton("616"), trainLoader.getUpcomingTrains());
+
+        //616 is removed from the section, and 2653 now runs in the evening.
+        this.trainsForTheDay.clear();
+        this.trainsForTheDay.add(
+                new TrainDefinition("2653", "Kerala Sampark Kranti Express", "TowardsHome", 18 * 60 + 10, 19 * 60 + 15));
+        trainLoader.reload(true, Collections.emptySet());
+        assertTrue(trainLoader.getUpcomingTrains().isEmpty());
+
+        trainLoader.run();
+        assertEquals(Collections.singleton("2653"), trainLoader.getUpcomingTrains());
+    }
+}
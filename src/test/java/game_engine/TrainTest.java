@@ -2,6 +2,7 @@ package game_engine;
 
 import common.models.TrainDirection;
 import common.models.TrainRunningStatus;
+import game_engine.initializers.TrainDefinition;
 import game_engine.initializers.TrainFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -116,40 +117,77 @@ public class TrainTest {
 		assertEquals(expectedDistance, train.getTrainPosition().getDistanceFromHome());
 	}
 
+	@Test
+	public void shouldLoadTrainsInParallelInTheOrderTheyWereRequested() throws GameNotStartedException {
+		List<TrainDefinition> definitions = Arrays.asList(
+				new TrainDefinition("616", "Calicut Shoranur Passenger", "AwayFromHome", 18 * 60, 19 * 60 + 5),
+				new TrainDefinition("2653", "Kerala Sampark Kranti Express", "TowardsHome", 10 * 60 + 30, 11 * 60 + 35),
+				new TrainDefinition("16356", "Antyodaya Express", "AwayFromHome", 23 * 60 + 15, 80),
+				new TrainDefinition("500", "Kallayi Tirur Passenger", "TowardsHome", 8 * 60, 9 * 60 + 5));
+		TrainFactory trainFactory = new TrainFactory();
+
+		List<Train> trains = trainFactory.createAll(definitions, this.stations, 3);
+		assertEquals(4, trains.size());
+		for (int i = 0; i < definitions.size(); i++) {
+			assertEquals(definitions.get(i).getNumber(), trains.get(i).getNumber());
+			assertTrue(trainFactory.getLoadTimings().get(definitions.get(i).getNumber()) > 0);
+		}
+		assertEquals(TrainDirection.AWAY_FROM_HOME, trains.get(0).getDirection());
+		assertEquals(TrainDirection.TOWARDS_HOME, trains.get(1).getDirection());
+	}
+
+	@Test
+	public void shouldReportTheTrainThatCouldNotBeLoadedInParallel() {
+		List<TrainDefinition> definitions = Arrays.asList(
+				new TrainDefinition("616", "Calicut Shoranur Passenger", "AwayFromHome", 18 * 60, 19 * 60 + 5),
+				new TrainDefinition("no-such-train", "Missing", "TowardsHome", 18 * 60, 19 * 60 + 5));
+		assertThrows(GameNotStartedException.class, () -> new TrainFactory().createAll(definitions, this.stations, 2));
+	}
+
 	@Nested
 	public class OvernightTrains {
+		private final ZoneId indianTime = ZoneId.of("+05:30");
+
+		//12:00 IST on the 23rd, before the overnight trains enter the section.
+		private final Clock beforeMidnight = Clock.fixed(Instant.parse("2025-06-23T06:30:00Z"), indianTime);
+
+		//00:40 IST on the 24th, while the overnight trains that entered the section on the 23rd are still on it.
+		private final Clock afterMidnight = Clock.fixed(Instant.parse("2025-06-23T19:10:00Z"), indianTime);
+
 		@Test
 		public void overnightTrainsShouldHaveCorrectDates() throws IOException, ParserConfigurationException, SAXException, GameNotStartedException {
-			LocalDateTime now = LocalDateTime.now();
-			LocalDateTime nextDay = LocalDateTime.now().plusDays(1);
-			Train overnightTrain = new TrainFactory().create("22637", "Dummy name", "TowardsHome", stations);
-
-			TrainSchedule beforeMidnightStop = overnightTrain.getTimetable().getSchedule(new Station("SRR", null, 0, 0)).get();
-			TrainSchedule afterMidnightStop = overnightTrain.getTimetable().getSchedule(new Station("TIR", null, 0, 0)).get();
-			TrainSchedule laterStop = overnightTrain.getTimetable().getSchedule(new Station("CAL", null, 0, 0)).get();
-			assertEquals(now.getDayOfMonth(), beforeMidnightStop.getArrivalTime().getDayOfMonth());
-			assertEquals(now.getDayOfMonth(), beforeMidnightStop.getDepartureTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), afterMidnightStop.getArrivalTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), afterMidnightStop.getDepartureTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), laterStop.getArrivalTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), laterStop.getDepartureTime().getDayOfMonth());
+			for (Clock clock : Arrays.asList(beforeMidnight, afterMidnight)) {
+				Train overnightTrain = new TrainFactory().createWithMockTime("22637", "Dummy name", "TowardsHome",
+						stations, clock);
+
+				TrainSchedule beforeMidnightStop = overnightTrain.getTimetable().getSchedule(new Station("SRR", null, 0, 0)).get();
+				TrainSchedule afterMidnightStop = overnightTrain.getTimetable().getSchedule(new Station("TIR", null, 0, 0)).get();
+				TrainSchedule laterStop = overnightTrain.getTimetable().getSchedule(new Station("CAL", null, 0, 0)).get();
+				assertEquals(23, beforeMidnightStop.getArrivalTime().getDayOfMonth());
+				assertEquals(23, beforeMidnightStop.getDepartureTime().getDayOfMonth());
+				assertEquals(24, afterMidnightStop.getArrivalTime().getDayOfMonth());
+				assertEquals(24, afterMidnightStop.getDepartureTime().getDayOfMonth());
+				assertEquals(24, laterStop.getArrivalTime().getDayOfMonth());
+				assertEquals(24, laterStop.getDepartureTime().getDayOfMonth());
+			}
 		}
 
 		@Test
 		public void overnightStopsShouldHaveCorrectDates() throws IOException, ParserConfigurationException, SAXException, GameNotStartedException {
-			LocalDateTime now = LocalDateTime.now();
-			LocalDateTime nextDay = LocalDateTime.now().plusDays(1);
-			Train overnightStopTrain = new TrainFactory().create("16356", "DummyTrain", "AwayFromHome", stations);
-
-			TrainSchedule beforeMidnightStop = overnightStopTrain.getTimetable().getSchedule(new Station("CAL", null, 0, 0 )).get();
-			TrainSchedule overnightStop = overnightStopTrain.getTimetable().getSchedule(new Station("TIR", null, 0, 0)).get();
-			TrainSchedule afterMidnightStop = overnightStopTrain.getTimetable().getSchedule(new Station("SRR", null, 0, 0)).get();
-			assertEquals(now.getDayOfMonth(), beforeMidnightStop.getArrivalTime().getDayOfMonth());
-			assertEquals(now.getDayOfMonth(), beforeMidnightStop.getDepartureTime().getDayOfMonth());
-			assertEquals(now.getDayOfMonth(), overnightStop.getArrivalTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), overnightStop.getDepartureTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), afterMidnightStop.getArrivalTime().getDayOfMonth());
-			assertEquals(nextDay.getDayOfMonth(), afterMidnightStop.getDepartureTime().getDayOfMonth());
+			for (Clock clock : Arrays.asList(beforeMidnight, afterMidnight)) {
+				Train overnightStopTrain = new TrainFactory().createWithMockTime("16356", "DummyTrain", "AwayFromHome",
+						stations, clock);
+
+				TrainSchedule beforeMidnightStop = overnightStopTrain.getTimetable().getSchedule(new Station("CAL", null, 0, 0 )).get();
+				TrainSchedule overnightStop = overnightStopTrain.getTimetable().getSchedule(new Station("TIR", null, 0, 0)).get();
+				TrainSchedule afterMidnightStop = overnightStopTrain.getTimetable().getSchedule(new Station("SRR", null, 0, 0)).get();
+				assertEquals(23, beforeMidnightStop.getArrivalTime().getDayOfMonth());
+				assertEquals(23, beforeMidnightStop.getDepartureTime().getDayOfMonth());
+				assertEquals(23, overnightStop.getArrivalTime().getDayOfMonth());
+				assertEquals(24, overnightStop.getDepartureTime().getDayOfMonth());
+				assertEquals(24, afterMidnightStop.getArrivalTime().getDayOfMonth());
+				assertEquals(24, afterMidnightStop.getDepartureTime().getDayOfMonth());
+			}
 		}
 
 		@Test
@@ -176,11 +214,12 @@ public class TrainTest {
 				throws GameNotStartedException, IOException, ParserConfigurationException, SAXException {
 			Train trainWithinSection = new TrainFactory().create("500", "DummyTrain", "TowardsHome", stations);
 
-			assertEquals(3, trainWithinSection.getTimetable().getEntries().size());
-			assertTrue(trainWithinSection.getTimetable().getEntries().get(0).isOriginatingStation());
-			assertFalse(trainWithinSection.getTimetable().getEntries().get(1).isOriginatingStation());
-			assertFalse(trainWithinSection.getTimetable().getEntries().get(1).isTerminatingStation());
-			assertTrue(trainWithinSection.getTimetable().getEntries().get(2).isTerminatingStation());
+			List<Entry> entries = trainWithinSection.getTimetable().getStops();
+			assertEquals(3, entries.size());
+			assertTrue(entries.get(0).isOriginatingStation());
+			assertFalse(entries.get(1).isOriginatingStation());
+			assertFalse(entries.get(1).isTerminatingStation());
+			assertTrue(entries.get(2).isTerminatingStation());
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package game_engine.data_access;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the DOM based <code>DataAccess.extractData</code> with the streaming <code>DataAccess.streamData</code> on a
+ * synthetic section file with 100,000 trains. This is not run as part of the test suite; run it with:
+ * <pre>
+ * java -cp target/classes:target/test-classes game_engine.data_access.DataAccessBenchmark [number of trains]
+ * </pre>
+ */
+public class DataAccessBenchmark {
+
+    private static final String[] DAYS = {"Daily", "M,Sa", "Tu,Th,F", "Su", "W,F"};
+
+    public static void main(String[] args) throws Exception {
+        int numberOfTrains = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        File sectionFile = File.createTempFile("section", ".xml");
+        sectionFile.deleteOnExit();
+        writeSyntheticSection(sectionFile, numberOfTrains);
+        System.out.printf("Synthetic section file with %1$d trains: %2$d KB%n", numberOfTrains, sectionFile.length() / 1024);
+
+        String[] selectors = {"train[@day-of-arrival=Daily]", "train.contains(@day-of-arrival,F)"};
+        for (int iteration = 0; iteration < 3; iteration++) {
+            for (String selector : selectors) {
+                System.gc();
+                long heapBefore = usedHeap();
+                long start = System.nanoTime();
+                int domMatches;
+                try (InputStream in = open(sectionFile)) {
+                    domMatches = DataAccess.getInstance().extractData(in, selector).size();
+                }
+                long domMillis = (System.nanoTime() - start) / 1_000_000;
+                long domHeap = usedHeap() - heapBefore;
+
+                System.gc();
+                heapBefore = usedHeap();
+                start = System.nanoTime();
+                AtomicInteger streamMatches = new AtomicInteger();
+                try (InputStream in = open(sectionFile)) {
+                    DataAccess.getInstance().streamData(in, selector, record -> streamMatches.incrementAndGet());
+                }
+                long streamMillis = (System.nanoTime() - start) / 1_000_000;
+                long streamHeap = usedHeap() - heapBefore;
+
+                System.out.printf("%1$-40s DOM: %2$5d ms, %3$6d KB, %4$d matches | StAX: %5$5d ms, %6$6d KB, %7$d matches%n",
+                        selector, domMillis, domHeap / 1024, domMatches, streamMillis, streamHeap / 1024, streamMatches.get());
+            }
+        }
+    }
+
+    private static InputStream open(File file) throws IOException {
+        return new BufferedInputStream(new FileInputStream(file));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void writeSyntheticSection(File file, int numberOfTrains) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<section mps=\"60\" home-station=\"CAL\">\n<trains>\n");
+            for (int i = 0; i < numberOfTrains; i++) {
+                out.write(String.format("<train number=\"%1$d\" name=\"Synthetic Express %1$d\" day-of-arrival=\"%2$s\""
+                                + " direction=\"%3$s\" section-entry-time=\"%4$02d:%5$02d\" section-leaving-time=\"%6$02d:%5$02d\"/>\n",
+                        i, DAYS[i % DAYS.length], i % 2 == 0 ? "TowardsHome" : "AwayFromHome",
+                        i % 24, i % 60, (i + 1) % 24));
+            }
+            out.write("</trains>\n</section>\n");
+        }
+    }
+}
@@ -3,11 +3,18 @@ package game_engine.data_access;
 import game_engine.data_access.DataAccess;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Vector;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -15,6 +22,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
 public class DataAccessTest {
@@ -62,4 +70,92 @@ public class DataAccessTest {
 	    fail();
 	}
     }
+
+    @Test
+    public void shouldStreamTheSameElementsAsTheDocumentBasedExtraction() throws Exception {
+	DataAccess dataAccess = DataAccess.getInstance();
+	String[] selectors = {"station", "train[@direction=AwayFromHome]", "train.contains(@day-of-arrival,ail)"};
+	for (String selector : selectors) {
+	    Vector<Element> elements = dataAccess.extractData(getClass().getResourceAsStream("/data/CAL-SRR.xml"), selector);
+	    List<AttributeRecord> records = dataAccess.extractRecords(getClass().getResourceAsStream("/data/CAL-SRR.xml"), selector);
+	    assertEquals(elements.size(), records.size(), selector);
+	    for (int i = 0; i < elements.size(); i++) {
+		assertEquals(elements.get(i).getTagName(), records.get(i).getElementName());
+		assertEquals(elements.get(i).getAttributes().getLength(), records.get(i).getAttributeCount());
+		assertEquals(elements.get(i).getAttribute("code"), records.get(i).getAttribute("code"));
+		assertEquals(elements.get(i).getAttribute("number"), records.get(i).getAttribute("number"));
+	    }
+	}
+    }
+
+    @Test
+    public void shouldIncludeTheLastElementWhenSelectingUsingContains() throws Exception {
+	List<AttributeRecord> records = DataAccess.getInstance().extractRecords(
+		getClass().getResourceAsStream("/data/CAL-SRR.xml"), "train.contains(@day-of-arrival,Daily)");
+	assertEquals(3, records.size());
+	assertEquals("16356", records.get(2).getAttribute("number"));
+
+	Vector<Element> elements = DataAccess.getInstance().extractData(
+		getClass().getResourceAsStream("/data/CAL-SRR.xml"), "train.contains(@day-of-arrival,Daily)");
+	assertEquals(3, elements.size());
+    }
+
+    @Test
+    public void shouldReturnEmptyValueForMissingAttributeInStreamedRecord() throws Exception {
+	List<AttributeRecord> records = DataAccess.getInstance().extractRecords(
+		getClass().getResourceAsStream("/data/616.xml"), "stop[@code=CAL]");
+	assertEquals(1, records.size());
+	assertEquals("19:00", records.get(0).getAttribute("arrival-time"));
+	assertEquals("", records.get(0).getAttribute("originating-station"));
+    }
+
+    @Test
+    public void shouldAnswerRepeatedResourceQueriesFromTheCachedDocument() throws Exception {
+	DataAccess dataAccess = DataAccess.getInstance();
+	Vector<Element> dailyTrains = dataAccess.extractResourceData("/data/CAL-SRR.xml", "train[@day-of-arrival=Daily]");
+	Vector<Element> dailyTrainsAgain = dataAccess.extractResourceData("/data/CAL-SRR.xml", "train[@day-of-arrival=Daily]");
+	assertEquals(3, dailyTrains.size());
+	assertSame(dailyTrains.get(0), dailyTrainsAgain.get(0));
+
+	Vector<Element> stations = dataAccess.extractResourceData("/data/CAL-SRR.xml", "station");
+	assertEquals(5, stations.size());
+	assertSame(dailyTrains.get(0).getOwnerDocument(), stations.get(0).getOwnerDocument());
+    }
+
+    @Test
+    public void shouldParseOverridingDataFileAgainOnlyWhenItChanges() throws Exception {
+	DataAccess dataAccess = DataAccess.getInstance();
+	Path dataFile = temporaryFolder.toPath().resolve("CAL-SRR.xml");
+	Files.write(dataFile, "<section><station code=\"CAL\"/></section>".getBytes(StandardCharsets.UTF_8));
+	dataAccess.setDataDirectory(temporaryFolder.toPath());
+	try {
+	    Vector<Element> stations = dataAccess.extractResourceData("/data/CAL-SRR.xml", "station");
+	    assertEquals(1, stations.size());
+	    assertSame(stations.get(0), dataAccess.extractResourceData("/data/CAL-SRR.xml", "station").get(0));
+
+	    Files.write(dataFile, "<section><station code=\"CAL\"/><station code=\"KAL\"/></section>"
+		    .getBytes(StandardCharsets.UTF_8));
+	    Files.setLastModifiedTime(dataFile, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+	    assertEquals(2, dataAccess.extractResourceData("/data/CAL-SRR.xml", "station").size());
+	} finally {
+	    dataAccess.setDataDirectory(null);
+	}
+	//Once the file is no longer used, the bundled resource is read again.
+	assertEquals(5, dataAccess.extractResourceData("/data/CAL-SRR.xml", "station").size());
+    }
+
+    @Test
+    public void shouldSelectIndexedResourceDataInDocumentOrder() throws Exception {
+	DataAccess dataAccess = DataAccess.getInstance();
+	String[] selectors = {"station[@no-of-tracks=2]", "train[@direction=AwayFromHome]", "station.contains(@code,A)"};
+	for (String selector : selectors) {
+	    Vector<Element> expected = dataAccess.extractData(getClass().getResourceAsStream("/data/CAL-SRR.xml"), selector);
+	    Vector<Element> actual = dataAccess.extractResourceData("/data/CAL-SRR.xml", selector);
+	    assertEquals(expected.size(), actual.size(), selector);
+	    for (int i = 0; i < expected.size(); i++) {
+		assertEquals(expected.get(i).getAttribute("code"), actual.get(i).getAttribute("code"));
+		assertEquals(expected.get(i).getAttribute("number"), actual.get(i).getAttribute("number"));
+	    }
+	}
+    }
 }
@@ -0,0 +1,108 @@
+package game_engine.data_access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SectionSnapshotTest {
+
+    @TempDir
+    public File temporaryFolder;
+
+    private File sectionFile() throws Exception {
+        return new File(getClass().getResource("/data/CAL-SRR.xml").toURI());
+    }
+
+    private byte[] compile(File sectionFile) throws Exception {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SectionSnapshotCompiler.compile(sectionFile, snapshot);
+        return snapshot.toByteArray();
+    }
+
+    @Test
+    public void shouldReadStationsAndTrainsFromCompiledSnapshot() throws Exception {
+        File sectionFile = sectionFile();
+        long sourceChecksum = SectionSnapshot.checksum(Files.readAllBytes(sectionFile.toPath()));
+        SectionSnapshot snapshot = SectionSnapshot.read(ByteBuffer.wrap(compile(sectionFile)), sourceChecksum).get();
+
+        assertEquals(5, snapshot.getStationCount());
+        assertEquals("CAL", snapshot.getStationCode(0));
+        assertEquals("Calicut", snapshot.getStationName(0));
+        assertEquals(3, snapshot.getStationTracks(0));
+        assertEquals(86, snapshot.getStationDistance(4));
+
+        assertEquals(3, snapshot.getTrainCount());
+        int train = snapshot.indexOfTrain("616");
+        assertEquals("Calicut Shoranur Passenger", snapshot.getTrainName(train));
+        assertEquals("AwayFromHome", snapshot.getTrainDirection(train));
+        assertEquals("Daily", snapshot.getTrainDaysOfArrival(train));
+        assertEquals(18 * 60, snapshot.getTrainSectionEntryMinutes(train));
+        assertEquals(3, snapshot.getStopCount(train));
+        assertEquals("CAL", snapshot.getStationCode(snapshot.getStopStation(train, 0)));
+        assertEquals(19 * 60, snapshot.getStopArrivalMinutes(train, 0));
+        assertEquals(19 * 60 + 5, snapshot.getStopDepartureMinutes(train, 0));
+        assertFalse(snapshot.isOriginatingStop(train, 0));
+        assertEquals(-1, snapshot.indexOfTrain("500"));
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotCompiledFromADifferentSectionFile() throws Exception {
+        File sectionFile = sectionFile();
+        Optional<SectionSnapshot> snapshot = SectionSnapshot.read(ByteBuffer.wrap(compile(sectionFile)), 42);
+        assertFalse(snapshot.isPresent());
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSnapshot() throws Exception {
+        File sectionFile = sectionFile();
+        long sourceChecksum = SectionSnapshot.checksum(Files.readAllBytes(sectionFile.toPath()));
+        byte[] snapshotBytes = compile(sectionFile);
+        snapshotBytes[snapshotBytes.length / 2] ^= 0x7f;
+        assertFalse(SectionSnapshot.read(ByteBuffer.wrap(snapshotBytes), sourceChecksum).isPresent());
+    }
+
+    @Test
+    public void shouldFailCompilationIfATrainStopsAtAnUnknownStation() throws Exception {
+        File sectionFile = new File(temporaryFolder, "CAL-SRR.xml");
+        Files.write(sectionFile.toPath(), ("<section><stations>"
+                + "<station code=\"CAL\" name=\"Calicut\" distance-from-home=\"0\" no-of-tracks=\"3\"/></stations>"
+                + "<trains><train number=\"1\" name=\"Test\" day-of-arrival=\"Daily\" direction=\"TowardsHome\""
+                + " section-entry-time=\"10:00\" section-leaving-time=\"11:00\"/></trains></section>").getBytes());
+        Files.write(new File(temporaryFolder, "1.xml").toPath(), ("<train number=\"1\"><stops>"
+                + "<stop code=\"XYZ\" arrival-time=\"10:00\" departure-time=\"10:05\"/></stops></train>").getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> compile(sectionFile));
+    }
+
+    @Test
+    public void shouldTreatMissingDepartureTimeAtTerminatingStationAsArrivalTime() throws Exception {
+        File sectionFile = new File(temporaryFolder, "CAL-SRR.xml");
+        Files.write(sectionFile.toPath(), ("<section><stations>"
+                + "<station code=\"CAL\" name=\"Calicut\" distance-from-home=\"0\" no-of-tracks=\"3\"/></stations>"
+                + "<trains><train number=\"1\" name=\"Test\" day-of-arrival=\"Daily\" direction=\"TowardsHome\""
+                + " section-entry-time=\"10:00\" section-leaving-time=\"11:00\"/></trains></section>").getBytes());
+        Files.write(new File(temporaryFolder, "1.xml").toPath(), ("<train number=\"1\"><stops>"
+                + "<stop code=\"CAL\" arrival-time=\"10:55\" terminating-station=\"true\"/></stops></train>").getBytes());
+        File snapshotFile = new File(temporaryFolder, "CAL-SRR.snapshot");
+        try (FileOutputStream snapshotStream = new FileOutputStream(snapshotFile)) {
+            SectionSnapshotCompiler.compile(sectionFile, snapshotStream);
+        }
+
+        long sourceChecksum = SectionSnapshot.checksum(Files.readAllBytes(sectionFile.toPath()));
+        SectionSnapshot snapshot = SectionSnapshot.read(
+                ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath())), sourceChecksum).get();
+        assertEquals(10 * 60 + 55, snapshot.getStopDepartureMinutes(0, 0));
+        assertTrue(snapshot.isTerminatingStop(0, 0));
+    }
+}
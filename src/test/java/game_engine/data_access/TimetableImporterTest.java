@@ -0,0 +1,139 @@
+package game_engine.data_access;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Element;
+
+public class TimetableImporterTest {
+
+    private static final String STOP_TIMES = "trip_id,arrival_time,departure_time,stop_id,stop_sequence\n"
+            + "T1,09:50:00,09:55:00,MAQ,1\n"
+            + "T1,10:30:00,10:32:00,SRR,2\n"
+            + "T1,11:05:00,11:06:00,TIR,3\n"
+            + "T1,11:35:00,,CAL,4\n"
+            + "T2,06:00:00,06:00:00,MAS,1\n"
+            + "T2,06:30:00,06:30:00,MAQ,2\n"
+            + "\"T3\",23:15:00,23:15:00,CAL,1\n"
+            + "\"T3\",24:40:00,24:42:00,TIR,2\n"
+            + "\"T3\",25:20:00,25:25:00,SRR,3\n"
+            + "\"T3\",26:30:00,26:30:00,CBE,4\n";
+
+    private static final String TRIPS = "trip_id,train_number,train_name,days\n"
+            + "T1,16610,\"Mangalore, Coimbatore Express\",Daily\n"
+            + "T3,16356,Antyodaya Express,\"M,Th\"\n";
+
+    @TempDir
+    public File outputFolder;
+
+    private File sectionFile() throws Exception {
+        return new File(getClass().getResource("/data/CAL-SRR.xml").toURI());
+    }
+
+    private TimetableImporter importStopTimes(TimetableImporter.Format format) throws Exception {
+        TimetableImporter importer = new TimetableImporter(sectionFile(), outputFolder, format);
+        importer.readTrips(new StringReader(TRIPS));
+        importer.importStopTimes(new StringReader(STOP_TIMES));
+        return importer;
+    }
+
+    @Test
+    public void shouldImportTrainsThatRunOnTheSectionAsXml() throws Exception {
+        TimetableImporter importer = importStopTimes(TimetableImporter.Format.XML);
+        assertEquals(10, importer.getRowsRead());
+        assertEquals(6, importer.getRowsOnSection());
+        assertEquals(2, importer.getTrainsImported());
+
+        File importedSectionFile = new File(outputFolder, "CAL-SRR.xml");
+        List<Element> trains = DataAccess.getInstance().extractData(importedSectionFile.getPath(), "train");
+        assertEquals(2, trains.size());
+        assertEquals("16610", trains.get(0).getAttribute("number"));
+        assertEquals("Mangalore, Coimbatore Express", trains.get(0).getAttribute("name"));
+        assertEquals("TowardsHome", trains.get(0).getAttribute("direction"));
+        assertEquals("10:30", trains.get(0).getAttribute("section-entry-time"));
+        assertEquals("11:35", trains.get(0).getAttribute("section-leaving-time"));
+        assertEquals("AwayFromHome", trains.get(1).getAttribute("direction"));
+        assertEquals("M,Th", trains.get(1).getAttribute("day-of-arrival"));
+        assertEquals("01:25", trains.get(1).getAttribute("section-leaving-time"));
+        assertEquals(5, DataAccess.getInstance().extractData(importedSectionFile.getPath(), "station").size());
+        assertFalse(new File(outputFolder, "T2.xml").exists());
+
+        List<Element> stops = DataAccess.getInstance().extractData(
+                new File(outputFolder, "16610.xml").getPath(), "stop");
+        assertEquals(3, stops.size());
+        assertEquals("SRR", stops.get(0).getAttribute("code"));
+        assertEquals("", stops.get(0).getAttribute("originating-station"));
+        assertEquals("true", stops.get(2).getAttribute("terminating-station"));
+        assertEquals("11:35", stops.get(2).getAttribute("departure-time"));
+
+        //The imported files are valid section data.
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SectionSnapshotCompiler.compile(importedSectionFile, snapshot);
+        assertTrue(snapshot.size() > 0);
+    }
+
+    @Test
+    public void shouldWriteTheSameSnapshotAsTheCompilerInBinaryFormat() throws Exception {
+        File xmlFolder = new File(outputFolder, "xml");
+        File binaryFolder = new File(outputFolder, "binary");
+        Files.createDirectories(xmlFolder.toPath());
+        Files.createDirectories(binaryFolder.toPath());
+        for (File folder : new File[] {xmlFolder, binaryFolder}) {
+            TimetableImporter importer = new TimetableImporter(sectionFile(), folder,
+                    folder == xmlFolder ? TimetableImporter.Format.XML : TimetableImporter.Format.BINARY);
+            importer.readTrips(new StringReader(TRIPS));
+            importer.importStopTimes(new StringReader(STOP_TIMES));
+        }
+        assertFalse(new File(binaryFolder, "16610.xml").exists());
+
+        ByteArrayOutputStream compiledSnapshot = new ByteArrayOutputStream();
+        SectionSnapshotCompiler.compile(new File(xmlFolder, "CAL-SRR.xml"), compiledSnapshot);
+        byte[] importedSnapshot = Files.readAllBytes(new File(binaryFolder, "CAL-SRR.snapshot").toPath());
+        assertArrayEquals(compiledSnapshot.toByteArray(), importedSnapshot);
+
+        long sourceChecksum = SectionSnapshot.checksum(
+                Files.readAllBytes(new File(binaryFolder, "CAL-SRR.xml").toPath()));
+        SectionSnapshot snapshot = SectionSnapshot.read(ByteBuffer.wrap(importedSnapshot), sourceChecksum).get();
+        int train = snapshot.indexOfTrain("16356");
+        assertEquals(3, snapshot.getStopCount(train));
+        assertEquals(40, snapshot.getStopArrivalMinutes(train, 1));
+    }
+
+    @Test
+    public void shouldMapStopsOntoStationsAndSkipRepeatedTrips() throws Exception {
+        TimetableImporter importer = new TimetableImporter(sectionFile(), outputFolder, TimetableImporter.Format.XML);
+        importer.readStopMap(new StringReader("stop_id,station_code\n1001,CAL\n1002,FER\n"));
+        importer.importStopTimes(new StringReader("trip_id,stop_id,stop_sequence,arrival_time,departure_time\n"
+                + "500,1001,0,07:00:00,07:00:00\n"
+                + "500,1002,1,07:20:00,07:21:00\n"
+                + "500,1003,2,,\n"
+                + "600,1002,0,08:00:00,08:00:00\n"
+                + "600,1001,1,08:20:00,08:20:00\n"
+                + "500,1001,0,09:00:00,09:00:00\n"
+                + "500,1002,1,09:20:00,09:20:00\n"));
+
+        assertEquals(2, importer.getTrainsImported());
+        assertEquals(1, importer.getTripsSkipped());
+        List<Element> stops = DataAccess.getInstance().extractData(new File(outputFolder, "500.xml").getPath(), "stop");
+        assertEquals("true", stops.get(0).getAttribute("originating-station"));
+        assertEquals("", stops.get(1).getAttribute("terminating-station"));
+        assertEquals("07:00", stops.get(0).getAttribute("arrival-time"));
+    }
+
+    @Test
+    public void shouldSplitQuotedCsvFields() {
+        assertArrayEquals(new String[] {"a", "b, \"c\"", ""}, TimetableImporter.splitCsv("a,\"b, \"\"c\"\"\","));
+        assertArrayEquals(new String[] {"a", "", "b"}, TimetableImporter.splitCsv("a,,b"));
+    }
+}
@@ -0,0 +1,92 @@
+package game_engine.data_access;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UserStoreTest {
+
+    @TempDir
+    public File homeFolder;
+
+    @Test
+    public void shouldAddUsersAndReadThemBackInAnotherStore() throws Exception {
+        UserStore userStore = new UserStore(homeFolder);
+        assertTrue(userStore.addUser("alice", 100));
+        assertTrue(userStore.addUser("bob", 100));
+        assertFalse(userStore.addUser("alice", 50));
+        userStore.setScore("alice", 250);
+
+        UserStore reopenedStore = new UserStore(homeFolder);
+        assertEquals(Arrays.asList("alice", "bob"), reopenedStore.getUserNames());
+        assertEquals(OptionalInt.of(250), reopenedStore.getScore("alice"));
+        assertEquals(OptionalInt.empty(), reopenedStore.getScore("carol"));
+    }
+
+    @Test
+    public void shouldSeeChangesMadeByAnotherGameSharingTheHomeFolder() throws Exception {
+        UserStore firstGame = new UserStore(homeFolder);
+        UserStore secondGame = new UserStore(homeFolder);
+
+        assertTrue(firstGame.addUser("alice", 100));
+        assertFalse(secondGame.addUser("alice", 100));
+        secondGame.setScore("alice", 180);
+        assertEquals(OptionalInt.of(180), firstGame.getScore("alice"));
+
+        secondGame.compact();
+        firstGame.setScore("alice", 190);
+        assertEquals(OptionalInt.of(190), secondGame.getScore("alice"));
+    }
+
+    @Test
+    public void shouldCompactJournalOnceMostLinesAreSuperseded() throws Exception {
+        UserStore userStore = new UserStore(homeFolder);
+        userStore.addUser("alice", 100);
+        for (int score = 1; score <= 200; score++) userStore.setScore("alice", score);
+
+        assertTrue(userStore.getJournalLines() < 100);
+        assertEquals(OptionalInt.of(200), new UserStore(homeFolder).getScore("alice"));
+    }
+
+    @Test
+    public void shouldIgnoreLineCutShortByACrash() throws Exception {
+        UserStore userStore = new UserStore(homeFolder);
+        userStore.addUser("alice", 100);
+        Files.write(new File(homeFolder, UserStore.JOURNAL_FILE).toPath(), "bob\t1".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        UserStore reopenedStore = new UserStore(homeFolder);
+        assertEquals(Arrays.asList("alice"), reopenedStore.getUserNames());
+        assertTrue(reopenedStore.addUser("carol", 100));
+        assertEquals(Arrays.asList("alice", "carol"), new UserStore(homeFolder).getUserNames());
+    }
+
+    @Test
+    public void shouldCopyUsersFromUsersXml() throws Exception {
+        Files.write(new File(homeFolder, UserStore.LEGACY_USERS_FILE).toPath(),
+                "<users><user name=\"alice\" score=\"120\"/><user name=\"bob\" score=\"100\"/></users>"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        UserStore userStore = new UserStore(homeFolder);
+        assertEquals(Arrays.asList("alice", "bob"), userStore.getUserNames());
+        assertEquals(OptionalInt.of(120), userStore.getScore("alice"));
+    }
+
+    @Test
+    public void shouldRejectNamesThatWouldBreakTheJournal() throws Exception {
+        UserStore userStore = new UserStore(homeFolder);
+        assertThrows(IllegalArgumentException.class, () -> userStore.addUser("ali\tce", 100));
+        assertThrows(IllegalArgumentException.class, () -> userStore.setScore("nobody", 100));
+    }
+}
@@ -0,0 +1,119 @@
+package game_engine.runners;
+
+import common.models.TrainDirection;
+import common.models.TrainRunningStatus;
+import game_engine.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineTickTest {
+
+    private final LocalDateTime today = LocalDateTime.of(2025, 6, 23, 0, 0);
+
+    private Timetable createTimetable(int departureHour) throws GameNotStartedException {
+        return createTimetable(departureHour, 0);
+    }
+
+    private Timetable createTimetable(int departureHour, int minutesAtTirur) throws GameNotStartedException {
+        Station shoranur = new Station("SRR", "Shoranur", 3, 20);
+        Station tirur = new Station("TIR", "Tirur", 3, 10);
+        Station calicut = new Station("CAL", "Calicut", 3, 0);
+        List<Station> stations = new ArrayList<>() {{add(shoranur); add(tirur); add(calicut);}};
+        LocalDateTime departureTime = today.withHour(departureHour);
+        List<Entry> stops = new ArrayList<>();
+        stops.add(new Entry(shoranur, Optional.of(new TrainSchedule(departureTime, departureTime)), StopType.NORMAL_STATION));
+        LocalDateTime arrivalAtTirur = departureTime.plusHours(1);
+        stops.add(new Entry(tirur, Optional.of(new TrainSchedule(arrivalAtTirur, arrivalAtTirur.plusMinutes(minutesAtTirur))),
+                StopType.NORMAL_STATION));
+        LocalDateTime arrivalAtCalicut = departureTime.plusHours(2).plusMinutes(minutesAtTirur);
+        stops.add(new Entry(calicut, Optional.of(new TrainSchedule(arrivalAtCalicut, arrivalAtCalicut)),
+                StopType.NORMAL_STATION));
+        return new Timetable(stations, stops, TrainDirection.TOWARDS_HOME);
+    }
+
+    @Test
+    public void shouldMoveEveryTrainInOneTick() throws GameNotStartedException {
+        Clock clock = Clock.fixed(today.withHour(11).withMinute(30).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        TrainPosition firstTrainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f);
+        TrainPosition secondTrainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f);
+        EngineTick engineTick = new EngineTick(clock);
+        engineTick.add("1", createTimetable(11), firstTrainPosition);
+        engineTick.add("2", createTimetable(10), secondTrainPosition);
+
+        engineTick.run();
+        assertEquals(15f, firstTrainPosition.getDistanceFromHome());
+        assertEquals(5f, secondTrainPosition.getDistanceFromHome());
+        assertEquals(2, engineTick.getTrainCount());
+        assertFalse(engineTick.getLastTickDuration().isNegative());
+    }
+
+    @Test
+    public void shouldReplaceAndRemoveTrains() throws GameNotStartedException {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-23T11:30:00Z"), ZoneOffset.UTC);
+        TrainPosition firstTrainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f);
+        TrainPosition secondTrainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f);
+        TrainPosition reloadedTrainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f);
+        EngineTick engineTick = new EngineTick(clock);
+        engineTick.add("1", createTimetable(11), firstTrainPosition);
+        engineTick.add("2", createTimetable(11), secondTrainPosition);
+        engineTick.add("1", createTimetable(10), reloadedTrainPosition);
+        engineTick.remove("2");
+        engineTick.remove("3");
+
+        engineTick.run();
+        assertEquals(1, engineTick.getTrainCount());
+        assertEquals(20f, firstTrainPosition.getDistanceFromHome());
+        assertEquals(20f, secondTrainPosition.getDistanceFromHome());
+        assertEquals(5f, reloadedTrainPosition.getDistanceFromHome());
+    }
+
+    @Test
+    public void shouldLeaveHaltedTrainAloneUntilItDeparts() throws GameNotStartedException {
+        Clock clock = Clock.fixed(today.withHour(12).withMinute(5).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        TrainPosition trainPosition = new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f);
+        EngineTick engineTick = new EngineTick(clock);
+        engineTick.add("1", createTimetable(11, 10), trainPosition);
+        assertEquals(10f, trainPosition.getDistanceFromHome());
+
+        //The train is halted at Tirur till 12:10, so the tick does not move it.
+        trainPosition.setDistanceFromHome(0f);
+        engineTick.run();
+        assertEquals(0f, trainPosition.getDistanceFromHome());
+        assertEquals(Optional.of(today.withHour(12).withMinute(10)),
+                engineTick.getNextEventAfter(today.withHour(12).withMinute(5)));
+    }
+
+    @Test
+    public void shouldKeepTrackOfTheTrainsInEachBlock() throws GameNotStartedException {
+        Clock clock = Clock.fixed(today.withHour(11).withMinute(30).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        List<Station> stationsById = Arrays.asList(new Station("CAL", "Calicut", 3, 0),
+                new Station("TIR", "Tirur", 3, 10), new Station("SRR", "Shoranur", 3, 20));
+        EngineTick engineTick = new EngineTick(clock, new BlockOccupancy(stationsById));
+        engineTick.add("1", createTimetable(11), new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f));
+        engineTick.add("2", createTimetable(11), new TrainPosition(TrainRunningStatus.RUNNING_BETWEEN, 20f));
+
+        //Both trains are half way between Shoranur and Tirur.
+        engineTick.run();
+        assertArrayEquals(new int[] {1}, engineTick.getOverOccupiedBlocks());
+        assertFalse(engineTick.isBlockAheadFree(1, TrainDirection.AWAY_FROM_HOME));
+        assertFalse(engineTick.isBlockAheadFree(2, TrainDirection.TOWARDS_HOME));
+        assertTrue(engineTick.isBlockAheadFree(1, TrainDirection.TOWARDS_HOME));
+        assertTrue(engineTick.isBlockAheadFree(2, TrainDirection.AWAY_FROM_HOME));
+
+        engineTick.remove("2");
+        assertArrayEquals(new int[0], engineTick.getOverOccupiedBlocks());
+        assertFalse(engineTick.isBlockAheadFree(1, TrainDirection.AWAY_FROM_HOME));
+        engineTick.remove("1");
+        assertTrue(engineTick.isBlockAheadFree(1, TrainDirection.AWAY_FROM_HOME));
+    }
+}
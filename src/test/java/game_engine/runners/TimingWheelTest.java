@@ -0,0 +1,85 @@
+package game_engine.runners;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    public void shouldHandOutItemsInOrderOfTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000);
+        wheel.schedule("far", 1000 + 64 * 64 * 10 + 7);
+        wheel.schedule("next", 1001);
+        wheel.schedule("later", 1000 + 500);
+        TimingWheel.Timer<String> cancelled = wheel.schedule("cancelled", 1002);
+        wheel.cancel(cancelled);
+        assertEquals(3, wheel.size());
+        assertEquals(1001, wheel.getNextDeadline());
+
+        List<String> dueItems = new ArrayList<>();
+        wheel.advance(1000 + 500, dueItems::add);
+        assertEquals(Arrays.asList("next", "later"), dueItems);
+        assertEquals(1000 + 64 * 64 * 10 + 7, wheel.getNextDeadline());
+        assertFalse(cancelled.isScheduled());
+
+        //Time moves straight on to the far item, however far off it is.
+        wheel.advance(Long.MAX_VALUE >> 20, dueItems::add);
+        assertEquals(Arrays.asList("next", "later", "far"), dueItems);
+        assertEquals(0, wheel.size());
+        assertEquals(Long.MAX_VALUE, wheel.getNextDeadline());
+    }
+
+    @Test
+    public void shouldHandOutItemsScheduledWhileTimeIsMovedOn() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(0);
+        wheel.schedule(1, 10);
+        List<Long> dueTimes = new ArrayList<>();
+        wheel.advance(100, item -> {
+            dueTimes.add(wheel.getTime());
+            if (item < 6) wheel.schedule(item + 1, wheel.getTime() + 20);
+        });
+        assertEquals(Arrays.asList(10L, 30L, 50L, 70L, 90L), dueTimes);
+        assertEquals(110, wheel.getNextDeadline());
+    }
+
+    @Test
+    public void shouldHandOutManyItemsInOrderOfTime() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1_750_000_000L);
+        for (int i = 0; i < 100_000; i++) {
+            long deadline = 1_750_000_000L + random.nextInt(7 * 24 * 3600);
+            wheel.schedule(deadline, deadline);
+        }
+        long[] lastDeadline = {0};
+        int[] dueItems = {0};
+        //Time is moved on in steps of a tick engine's interval, and then straight to the end.
+        for (long time = 1_750_000_000L; time < 1_750_000_000L + 3600; time += 2) {
+            wheel.advance(time, deadline -> {
+                assertTrue(deadline >= lastDeadline[0]);
+                assertTrue(deadline <= wheel.getTime());
+                lastDeadline[0] = deadline;
+                dueItems[0]++;
+            });
+        }
+        wheel.advance(1_750_000_000L + 7 * 24 * 3600, deadline -> {
+            assertTrue(deadline >= lastDeadline[0]);
+            assertEquals(deadline.longValue(), wheel.getTime());
+            lastDeadline[0] = deadline;
+            dueItems[0]++;
+        });
+        assertEquals(100_000, dueItems[0]);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldNotScheduleItemsBeyondTheReachOfTheWheels() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule("too far", 1L << (6 * TimingWheel.LEVELS)));
+    }
+}